@@ -34,7 +34,8 @@ import org.junit.jupiter.api.Test;
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
- * This test uses docker to start a postgresql database to test against.
+ * This test uses docker to start a postgresql database to test against. When the harness provides a pooled container
+ * through {@code GVM_TCK_DOCKER_POSTGRES_PORT}, that container is used instead.
  */
 public class PostgresqlTests {
 
@@ -44,7 +45,11 @@ public class PostgresqlTests {
 
     private static final String DATABASE = "test";
 
-    private static final String JDBC_URL = "jdbc:postgresql://localhost/" + DATABASE;
+    private static final String POOLED_PORT = System.getenv("GVM_TCK_DOCKER_POSTGRES_PORT");
+
+    private static final String JDBC_URL = POOLED_PORT == null
+            ? "jdbc:postgresql://localhost/" + DATABASE
+            : "jdbc:postgresql://" + System.getenv("GVM_TCK_DOCKER_POSTGRES_HOST") + ":" + POOLED_PORT + "/" + DATABASE;
 
     private static Process process;
 
@@ -57,6 +62,10 @@ public class PostgresqlTests {
 
     @BeforeAll
     static void beforeAll() throws IOException {
+        if (POOLED_PORT != null) {
+            System.out.println("Using pooled PostgreSQL on port " + POOLED_PORT);
+            return;
+        }
         System.out.println("Starting PostgreSQL ...");
         process = new ProcessBuilder(
                 "docker", "run", "--rm", "-p", "5432:5432", "-e", "POSTGRES_DB=" + DATABASE, "-e", "POSTGRES_USER=" + USERNAME,
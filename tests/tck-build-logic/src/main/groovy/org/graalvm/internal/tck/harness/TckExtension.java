@@ -7,6 +7,8 @@
 package org.graalvm.internal.tck.harness;
 
 import groovy.json.JsonSlurper;
+import org.graalvm.internal.tck.index.ArtifactVersionIndex;
+import org.graalvm.internal.tck.model.MetadataVersionsIndexEntry;
 import org.gradle.api.Project;
 import org.gradle.api.file.Directory;
 import org.gradle.api.file.DirectoryProperty;
@@ -91,7 +93,6 @@ public abstract class TckExtension {
     /**
      * Given full coordinates returns matching test directory
      */
-    @SuppressWarnings("unchecked")
     public Path getTestDir(String coordinates) {
         List<String> strings = splitCoordinates(coordinates);
         String groupId = strings.get(0);
@@ -108,26 +109,12 @@ public abstract class TckExtension {
                     .resolve(artifactId);
 
             if (Files.exists(metadataDir)) {
-                List<Map<String, ?>> metadataIndex = (List<Map<String, ?>>) readIndexFile(metadataDir);
-
                 // Resolve the entry that declares support for the requested library version.
-                Optional<Map<String, ?>> matchingEntry = metadataIndex.stream()
-                        .filter(entry -> {
-                            Object testedVersions = entry.get("tested-versions");
-                            return testedVersions instanceof List<?> versions && versions.contains(version);
-                        })
-                        .findFirst();
+                Optional<MetadataVersionsIndexEntry> matchingEntry = ArtifactVersionIndex.load(metadataDir.resolve("index.json")).findTested(version);
 
                 if (matchingEntry.isPresent()) {
-                    Map<String, ?> entry = matchingEntry.get();
-
                     // Determine the test version to use: 'test-version' if present, otherwise 'metadata-version'
-                    String testVersion;
-                    if (entry.containsKey("test-version")) {
-                        testVersion = (String) entry.get("test-version");
-                    } else {
-                        testVersion = (String) entry.get("metadata-version");
-                    }
+                    String testVersion = ArtifactVersionIndex.testVersionOf(matchingEntry.get());
 
                     Path indexedTest = testRoot().resolve(groupId).resolve(artifactId).resolve(testVersion);
 
@@ -387,11 +374,11 @@ public abstract class TckExtension {
     }
 
     /**
-     * Returns metadata directory for given full coordinates
+     * Returns metadata directory for given full coordinates.
+     * Untested versions resolve to the entry whose 'default-for' pattern matches, otherwise to the closest lower 'metadata-version'.
      *
      * @return path to metadata directory
      */
-    @SuppressWarnings("unchecked")
     public Path getMetadataDir(String coordinates) {
         List<String> strings = splitCoordinates(coordinates);
         String groupId = strings.get(0);
@@ -408,18 +395,13 @@ public abstract class TckExtension {
             throw new RuntimeException("Missing index.json for " + groupId + ":" + artifactId + " at " + indexPath);
         }
 
-        List<Map<String, ?>> metadataIndex = (List<Map<String, ?>>) extractJsonFile(indexPath);
-        for (Map<String, ?> entry : metadataIndex) {
-            @SuppressWarnings("unchecked")
-            List<String> tv = (List<String>) entry.get("tested-versions");
-            if (tv != null && tv.contains(version)) {
-                String metaVersion = (String) entry.get("metadata-version");
-                Path result = artifactDir.resolve(metaVersion);
-                if (Files.isDirectory(result)) {
-                    return result;
-                }
-                throw new RuntimeException("Index.json for " + groupId + ":" + artifactId + " maps version " + version + " to missing dir " + result);
+        Optional<ArtifactVersionIndex.Resolution> resolution = ArtifactVersionIndex.load(indexPath).resolve(version);
+        if (resolution.isPresent()) {
+            Path result = artifactDir.resolve(resolution.get().metadataVersion());
+            if (Files.isDirectory(result)) {
+                return result;
             }
+            throw new RuntimeException("Index.json for " + groupId + ":" + artifactId + " maps version " + version + " to missing dir " + result);
         }
         throw new RuntimeException("Missing metadata for " + coordinates);
     }
@@ -19,10 +19,13 @@ import org.graalvm.internal.tck.Coordinates;
 import org.graalvm.internal.tck.stats.LibraryStatsModels;
 import org.graalvm.internal.tck.stats.LibraryStatsSchemaValidator;
 import org.graalvm.internal.tck.stats.LibraryStatsSupport;
+import org.graalvm.internal.tck.stats.NativeTestRunMetrics;
+import org.graalvm.internal.tck.utils.IsolatedTestWorkspace;
 import org.jetbrains.annotations.NotNull;
 
 import javax.inject.Inject;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -145,6 +148,37 @@ public abstract class AbstractLibraryStatsTask extends CoordinatesAwareTask {
         return true;
     }
 
+    /**
+     * Rebuilds the native test image of the coordinate with {@code test} and returns the image figures recorded for
+     * the run, or N/A if the native test failed.
+     */
+    protected LibraryStatsModels.NativeImageStatsValue measureNativeImage(String coordinates) {
+        Path repoRoot = tckExtension.getRepoRoot().get().getAsFile().toPath();
+        try {
+            // An up-to-date image would not be rebuilt, leaving no build figures to record.
+            IsolatedTestWorkspace.deleteRecursively(tckExtension.getTestDir(coordinates).resolve("build").resolve("native").resolve("nativeTestCompile"));
+        } catch (IOException e) {
+            throw new GradleException("Failed to delete the native test image of " + coordinates, e);
+        }
+
+        CommandResult test = runGradle(List.of("test", "-Pcoordinates=" + coordinates), true);
+        if (test.exitCode() != 0) {
+            getLogger().warn("Native test failed for {} with exit code {}. Writing nativeImage as N/A.", coordinates, test.exitCode());
+            return LibraryStatsModels.NativeImageStatsValue.notAvailable();
+        }
+        Path metricsFile = TestInvocationTask.metricsFile(repoRoot.resolve("build"), coordinates);
+        try {
+            NativeTestRunMetrics metrics = NativeTestRunMetrics.read(metricsFile);
+            List<String> missing = LibraryStatsSupport.missingNativeImageFigures(metrics);
+            if (!missing.isEmpty()) {
+                getLogger().warn("Native test passed for {} but did not record the {}. Writing nativeImage as N/A.", coordinates, String.join("; ", missing));
+            }
+            return LibraryStatsSupport.buildNativeImageStats(metrics);
+        } catch (IOException e) {
+            throw new GradleException("Failed to read native test metrics " + metricsFile, e);
+        }
+    }
+
     @Internal
     protected Path getMetadataRoot() {
         return tckExtension.getRepoRoot().get().getAsFile().toPath().resolve("metadata");
@@ -159,7 +193,7 @@ public abstract class AbstractLibraryStatsTask extends CoordinatesAwareTask {
     protected Path getStatsSchemaFile() {
         return getStatsRoot()
                 .resolve("schemas")
-                .resolve("library-stats-schema-v1.0.2.json");
+                .resolve("library-stats-schema-v1.1.0.json");
     }
 
     @Internal
@@ -19,6 +19,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Files;
 import java.security.MessageDigest;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -63,6 +64,35 @@ public abstract class AllCoordinatesExecTask extends CoordinatesAwareTask {
         // no-op
     }
 
+    /**
+     * Hook invoked after executing each coordinate, before its exit code is checked, with the captured standard output
+     * and the wall-clock time of the command.
+     */
+    protected void afterExec(String coordinates, int exitCode, String output, Duration elapsed) {
+        // no-op
+    }
+
+    /**
+     * Hook invoked once before the first coordinate is executed.
+     */
+    protected void beforeAll(List<String> coordinates) {
+        // no-op
+    }
+
+    /**
+     * Hook invoked once after the last coordinate, also when a coordinate failed.
+     */
+    protected void afterAll() {
+        // no-op
+    }
+
+    /**
+     * Additional environment variables for the command of the given coordinates.
+     */
+    protected Map<String, String> environmentFor(String coordinates) {
+        return Map.of();
+    }
+
     @TaskAction
     public final void runAll() {
         List<String> coords = resolveCoordinates();
@@ -85,20 +115,28 @@ public abstract class AllCoordinatesExecTask extends CoordinatesAwareTask {
                 return;
             }
         }
-        for (String c : coords) {
-            runSingle(c);
+        beforeAll(coords);
+        try {
+            for (String c : coords) {
+                runSingle(c);
+            }
+        } finally {
+            afterAll();
         }
     }
 
     private void runSingle(String coordinates) {
         List<String> command = commandFor(coordinates);
         beforeEach(coordinates, command);
+        Map<String, String> environment = environmentFor(coordinates);
 
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         ByteArrayOutputStream err = new ByteArrayOutputStream();
 
+        long start = System.nanoTime();
         var execResult = getExecOperations().exec((ExecSpec spec) -> {
             this.configureSpec(spec, coordinates, command);
+            spec.environment(environment);
             if (streamSubprocessOutput(coordinates)) {
                 spec.setStandardOutput(new TeeOutputStream(out, System.out));
                 spec.setErrorOutput(new TeeOutputStream(err, System.err));
@@ -107,6 +145,7 @@ public abstract class AllCoordinatesExecTask extends CoordinatesAwareTask {
                 spec.setErrorOutput(err);
             }
         });
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
 
         // write output file like AbstractSubprojectTask
         String hash = md5(String.join(",", command));
@@ -131,6 +170,7 @@ public abstract class AllCoordinatesExecTask extends CoordinatesAwareTask {
         }
 
         int exitCode = execResult.getExitValue();
+        afterExec(coordinates, exitCode, out.toString(StandardCharsets.UTF_8), elapsed);
         if (exitCode != 0) {
             throw new GradleException(errorMessageFor(coordinates, exitCode));
         }
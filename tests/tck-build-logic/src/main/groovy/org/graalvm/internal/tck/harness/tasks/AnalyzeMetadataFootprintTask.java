@@ -0,0 +1,109 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.harness.tasks;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.graalvm.internal.tck.Coordinates;
+import org.graalvm.internal.tck.footprint.MetadataFootprintAnalyzer;
+import org.graalvm.internal.tck.footprint.MetadataFootprintModels;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Estimates the native-image cost of every entry in the metadata of the selected coordinates.
+ * <p>
+ * Broad registrations ({@code allDeclaredMethods}, {@code allPublicConstructors}, {@code unsafeAllocated}, ...)
+ * are expanded against the resolved library JARs (see {@code listLibraryJars}) and resource globs are matched
+ * against the JAR contents. One JSON report per coordinate is written to
+ * {@code build/reports/metadata-footprint/<group>/<artifact>/<version>.json}, ordered by {@code --sortBy}.
+ */
+@SuppressWarnings("unused")
+public abstract class AnalyzeMetadataFootprintTask extends AbstractLibraryStatsTask {
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull String> getSortBy();
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull Integer> getTop();
+
+    @Option(option = "sortBy", description = "Report ordering: cost (default), members, resources or target")
+    public void setSortByOption(String value) {
+        getSortBy().set(value);
+    }
+
+    @Option(option = "top", description = "Number of most expensive entries to print per coordinate (default 10)")
+    public void setTopOption(String value) {
+        getTop().set(Integer.parseInt(value));
+    }
+
+    @TaskAction
+    public void analyze() {
+        MetadataFootprintModels.SortOrder sortOrder;
+        try {
+            sortOrder = MetadataFootprintModels.SortOrder.parse(getSortBy().getOrElse("cost"));
+        } catch (IllegalArgumentException e) {
+            throw new GradleException(e.getMessage());
+        }
+        int top = getTop().getOrElse(10);
+
+        for (String coordinate : resolveRequestedCoordinates()) {
+            Path metadataDir = tckExtension.getMetadataDir(coordinate);
+            Path metadataFile = metadataDir.resolve("reachability-metadata.json");
+            if (!Files.isRegularFile(metadataFile)) {
+                getLogger().lifecycle("Skipping {}: no reachability-metadata.json in {}", coordinate, metadataDir);
+                continue;
+            }
+
+            List<Path> libraryJars = listLibraryJars(coordinate);
+            MetadataFootprintModels.CoordinateFootprint footprint;
+            try (MetadataFootprintAnalyzer analyzer = new MetadataFootprintAnalyzer(libraryJars)) {
+                footprint = analyzer.analyze(coordinate, metadataDir.getFileName().toString(), metadataFile, sortOrder);
+            }
+
+            Path report = getReportFile(coordinate);
+            MetadataFootprintAnalyzer.writeReport(report, footprint);
+            printSummary(footprint, top);
+            getLogger().quiet("Footprint report: {}", report);
+        }
+    }
+
+    private Path getReportFile(String coordinate) {
+        Coordinates parsed = Coordinates.parse(coordinate);
+        return tckExtension.getRepoRoot().get().getAsFile().toPath()
+                .resolve("build")
+                .resolve("reports")
+                .resolve("metadata-footprint")
+                .resolve(parsed.group())
+                .resolve(parsed.artifact())
+                .resolve(parsed.version() + ".json");
+    }
+
+    private void printSummary(MetadataFootprintModels.CoordinateFootprint footprint, int top) {
+        MetadataFootprintModels.FootprintTotals totals = footprint.totals();
+        getLogger().quiet("{} (metadata {}): {} entries, estimated cost {}, {} methods, {} constructors, {} fields, {} resources ({} bytes), {} unresolved types",
+                footprint.coordinate(), footprint.metadataVersion(), totals.entries(), totals.estimatedCost(),
+                totals.methods(), totals.constructors(), totals.fields(), totals.resources(), totals.resourceBytes(),
+                totals.unresolvedTypes());
+        footprint.entries().stream().limit(top).forEach(entry -> getLogger().quiet(
+                "  {}  [{}] {}{}",
+                String.format("%8d", entry.estimatedCost()),
+                entry.section(),
+                entry.target(),
+                entry.flags().isEmpty() ? "" : " " + String.join(",", entry.flags())
+        ));
+    }
+}
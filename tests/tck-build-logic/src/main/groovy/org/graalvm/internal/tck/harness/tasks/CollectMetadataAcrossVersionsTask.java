@@ -0,0 +1,252 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.harness.tasks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.graalvm.internal.tck.Coordinates;
+import org.graalvm.internal.tck.index.ArtifactVersionIndex;
+import org.graalvm.internal.tck.model.MetadataVersionsIndexEntry;
+import org.graalvm.internal.tck.utils.IsolatedTestWorkspace;
+import org.graalvm.internal.tck.utils.MetadataGenerationUtils;
+import org.graalvm.internal.tck.utils.MetadataVersionUnion;
+import org.graalvm.internal.tck.utils.ReachabilityMetadataFiles;
+import org.graalvm.internal.tck.utils.ReachabilityMetadataMerger;
+import org.gradle.api.GradleException;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.gradle.process.ExecOperations;
+import org.gradle.process.ExecResult;
+import org.jetbrains.annotations.NotNull;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the native-image agent ({@code -Pagent test}) of a single coordinate's tests against several library versions
+ * at once and merges the collected metadata.
+ * <p>
+ * Every version runs with {@code GVM_TCK_LV} in its own copy of the test project (see {@link IsolatedTestWorkspace}),
+ * so up to {@code --parallelism} agent runs (default 2) share no build directory. The versions default to the
+ * {@code tested-versions} of the coordinate's index entry. The task writes to
+ * {@code build/agent-metadata/<group>/<artifact>/<version>/}:
+ * <ul>
+ *   <li>{@code versions/<version>/reachability-metadata.json} - the metadata collected for each version</li>
+ *   <li>{@code reachability-metadata.json} - the union of all versions</li>
+ *   <li>{@code version-report.json} - the entries that were only collected for some of the versions</li>
+ * </ul>
+ * With {@code --apply}, the union is also merged into the coordinate's metadata if the agent run passed for every
+ * version.
+ */
+@SuppressWarnings("unused")
+public abstract class CollectMetadataAcrossVersionsTask extends SingleCoordinateTask {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private record VersionRun(String version, boolean passed, Path log) {
+    }
+
+    @Inject
+    public abstract ExecOperations getExecOperations();
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull String> getVersions();
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull Integer> getParallelism();
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull Boolean> getApply();
+
+    @Option(option = "versions", description = "Comma-separated library versions to run the agent with (default: tested versions of the coordinate)")
+    public void setVersionsOption(String value) {
+        getVersions().set(value);
+    }
+
+    @Option(option = "parallelism", description = "Number of agent runs to execute concurrently (default 2)")
+    public void setParallelismOption(String value) {
+        getParallelism().set(Integer.parseInt(value));
+    }
+
+    @Option(option = "apply", description = "Merges the union of all versions into the coordinate's reachability-metadata.json")
+    public void setApplyOption(boolean value) {
+        getApply().set(value);
+    }
+
+    @TaskAction
+    public void collect() throws IOException {
+        String coordinates = resolveSingleCoordinate();
+        Coordinates parsed = Coordinates.parse(coordinates);
+        Path repoRoot = tckExtension.getRepoRoot().get().getAsFile().toPath().toAbsolutePath().normalize();
+        Path metadataDir = tckExtension.getMetadataDir(coordinates).toAbsolutePath().normalize();
+        Path testDir = tckExtension.getTestDir(coordinates).toAbsolutePath().normalize();
+        List<String> versions = versions(parsed);
+        if (versions.isEmpty()) {
+            throw new GradleException("No versions to run the agent with. Provide them via --versions=<version>[,<version>...]");
+        }
+        if (!MetadataGenerationUtils.hasAgentConfigBlock(testDir)) {
+            getLogger().warn("{} has no agent block; the agent collects unconditional metadata. Run generateMetadata once to add it.",
+                    testDir.resolve(MetadataGenerationUtils.BUILD_FILE));
+        }
+
+        Path workDir = repoRoot.resolve("build")
+                .resolve("agent-metadata")
+                .resolve(parsed.group())
+                .resolve(parsed.artifact())
+                .resolve(parsed.version());
+        int parallelism = Math.min(getParallelism().getOrElse(2), versions.size());
+        getLogger().lifecycle("Running the agent for {} version(s) of {} with {} parallel run(s)", versions.size(), coordinates, parallelism);
+
+        List<VersionRun> runs = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<VersionRun>> futures = new ArrayList<>();
+            for (String version : versions) {
+                futures.add(executor.submit(() -> runAgent(coordinates, version, repoRoot, workDir, testDir, metadataDir)));
+            }
+            for (Future<VersionRun> future : futures) {
+                runs.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while running the agent for " + coordinates, e);
+        } catch (ExecutionException e) {
+            throw new GradleException("Agent run for " + coordinates + " failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, JsonNode> metadataByVersion = new LinkedHashMap<>();
+        List<String> failed = new ArrayList<>();
+        for (VersionRun run : runs) {
+            if (run.passed()) {
+                metadataByVersion.put(run.version(), ReachabilityMetadataFiles.read(versionMetadataDir(workDir, run.version()).resolve(ReachabilityMetadataFiles.FILE_NAME)));
+            } else {
+                failed.add(run.version());
+                getLogger().warn("Agent run for version {} failed, see {}", run.version(), run.log());
+            }
+        }
+        if (metadataByVersion.isEmpty()) {
+            throw new GradleException("The agent runs failed for all versions of " + coordinates + ". Logs: " + workDir.resolve("logs"));
+        }
+
+        MetadataVersionUnion union = MetadataVersionUnion.of(metadataByVersion);
+        Path unionFile = workDir.resolve(ReachabilityMetadataFiles.FILE_NAME);
+        ReachabilityMetadataFiles.write(unionFile, union.metadata());
+        Path reportFile = workDir.resolve("version-report.json");
+        writeReport(reportFile, coordinates, metadataByVersion.keySet(), failed, union);
+
+        getLogger().quiet("Collected {} entries for {} version(s) of {}: {} common, {} version-specific.",
+                ReachabilityMetadataFiles.entries(union.metadata()).size(), metadataByVersion.size(), coordinates,
+                union.commonEntries(), union.versionSpecific().size());
+        for (MetadataVersionUnion.VersionSpecificEntry entry : union.versionSpecific()) {
+            getLogger().lifecycle("  {} {}: {}", entry.versions(), entry.section(), entry.entry());
+        }
+        getLogger().quiet("Merged metadata: {}", unionFile);
+        getLogger().quiet("Report: {}", reportFile);
+        if (!failed.isEmpty()) {
+            throw new GradleException("Agent runs failed for version(s) " + failed + " of " + coordinates + ". Logs: " + workDir.resolve("logs"));
+        }
+        if (getApply().getOrElse(false)) {
+            ReachabilityMetadataMerger.Result result = ReachabilityMetadataMerger.mergeInto(metadataDir,
+                    ReachabilityMetadataFiles.entries(union.metadata()));
+            getLogger().quiet("Added {} and extended {} entries of {}", result.added(), result.extended(),
+                    metadataDir.resolve(ReachabilityMetadataFiles.FILE_NAME));
+        }
+    }
+
+    private List<String> versions(Coordinates coordinates) {
+        if (getVersions().isPresent()) {
+            return Arrays.stream(getVersions().get().split(","))
+                    .map(String::trim)
+                    .filter(version -> !version.isEmpty())
+                    .distinct()
+                    .toList();
+        }
+        return ArtifactVersionIndex.load(tckExtension.getMetadataRoot().get().getAsFile().toPath(), coordinates.group(), coordinates.artifact())
+                .findTested(coordinates.version())
+                .map(MetadataVersionsIndexEntry::testedVersions)
+                .orElse(List.of());
+    }
+
+    private VersionRun runAgent(String coordinates, String version, Path repoRoot, Path workDir, Path testDir, Path metadataDir) throws IOException {
+        IsolatedTestWorkspace workspace = IsolatedTestWorkspace.create(repoRoot, workDir.resolve("workspaces").resolve(version), testDir, metadataDir);
+        Map<String, String> environment = tckEnvironment(coordinates, workspace.metadataDir());
+        environment.put("GVM_TCK_LV", version);
+
+        Path log = workDir.resolve("logs").resolve(version + ".log");
+        Files.createDirectories(log.getParent());
+        ExecResult result;
+        try (OutputStream out = Files.newOutputStream(log)) {
+            result = getExecOperations().exec(spec -> {
+                spec.commandLine(repoRoot.resolve("gradlew").toString(), "-Pagent", "test");
+                spec.workingDir(workspace.testDir().toFile());
+                spec.environment(environment);
+                spec.setIgnoreExitValue(true);
+                spec.setStandardOutput(out);
+                spec.setErrorOutput(out);
+            });
+        }
+        boolean passed = result.getExitValue() == 0;
+        if (passed) {
+            Path versionMetadataDir = versionMetadataDir(workDir, version);
+            IsolatedTestWorkspace.deleteRecursively(versionMetadataDir);
+            ReachabilityMetadataMerger.mergeAgentOutput(workspace.testDir().resolve(MetadataGenerationUtils.AGENT_OUTPUT_DIRECTORY), versionMetadataDir);
+        }
+        getLogger().lifecycle("  {}: {} ({})", version, passed ? "PASSED" : "FAILED", log.getFileName());
+        return new VersionRun(version, passed, log);
+    }
+
+    private static Path versionMetadataDir(Path workDir, String version) {
+        return workDir.resolve("versions").resolve(version);
+    }
+
+    private static void writeReport(
+            Path reportFile,
+            String coordinates,
+            Iterable<String> versions,
+            List<String> failed,
+            MetadataVersionUnion union
+    ) throws IOException {
+        ObjectNode report = MAPPER.createObjectNode();
+        report.put("coordinates", coordinates);
+        versions.forEach(report.putArray("versions")::add);
+        failed.forEach(report.putArray("failedVersions")::add);
+        report.put("entries", ReachabilityMetadataFiles.entries(union.metadata()).size());
+        report.put("commonEntries", union.commonEntries());
+        ArrayNode versionSpecific = report.putArray("versionSpecific");
+        for (MetadataVersionUnion.VersionSpecificEntry entry : union.versionSpecific()) {
+            ObjectNode node = versionSpecific.addObject();
+            node.put("section", entry.section());
+            node.set("entry", entry.entry());
+            entry.versions().forEach(node.putArray("versions")::add);
+        }
+        Files.createDirectories(reportFile.getParent());
+        MAPPER.writeValue(reportFile.toFile(), report);
+    }
+}
@@ -6,10 +6,10 @@
  */
 package org.graalvm.internal.tck.harness.tasks;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.graalvm.internal.tck.DockerImagePuller;
 import org.graalvm.internal.tck.DockerUtils;
 import org.graalvm.internal.tck.harness.TckExtension;
+import org.graalvm.internal.tck.index.ArtifactVersionIndex;
 import org.graalvm.internal.tck.model.MetadataVersionsIndexEntry;
 import org.graalvm.internal.tck.utils.CoordinateUtils;
 import org.gradle.api.DefaultTask;
@@ -19,14 +19,10 @@ import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.options.Option;
-import org.gradle.process.ExecOperations;
 import org.jetbrains.annotations.NotNull;
 
-import javax.inject.Inject;
-import java.io.File;
 import java.io.IOException;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
@@ -36,7 +32,8 @@ import java.util.*;
  * 1) Computes the union of required docker images across selected coordinates (supports fractional batching k/n)
  * 2) Validates them against the allowed-docker-images list
  * 3) Writes them to the provided output file
- * 4) Immediately pulls those images
+ * 4) Immediately pulls those images, up to --concurrency at a time, skipping images already present locally at the
+ *    registry's digest (see {@link DockerImagePuller})
  * </p>
  * Coordinates can be provided via:
  * - -Pcoordinates=<filter> (preferred)
@@ -45,17 +42,25 @@ import java.util.*;
  */
 public abstract class ComputeAndPullAllowedDockerImagesTask extends DefaultTask {
 
+    private static final int DEFAULT_CONCURRENCY = 4;
+
     @Input
     @Optional
     public abstract Property<@NotNull String> getCoordinates();
 
+    @Input
+    @Optional
+    public abstract Property<@NotNull Integer> getConcurrency();
+
     @Option(option = "coordinates", description = "Coordinate filter (group[:artifact[:version]] or k/n fractional batch)")
     public void setCoordinatesOption(String value) {
         getCoordinates().set(value);
     }
 
-    @Inject
-    protected abstract ExecOperations getExecOperations();
+    @Option(option = "concurrency", description = "Maximum number of concurrent docker pulls (default 4)")
+    public void setConcurrencyOption(String value) {
+        getConcurrency().set(Integer.parseInt(value));
+    }
 
     protected String effectiveCoordinateFilter() {
         // Prefer task option, fallback to -Pcoordinates, then empty string (all)
@@ -88,9 +93,11 @@ public abstract class ComputeAndPullAllowedDockerImagesTask extends DefaultTask
             throw new GradleException("No matching coordinates found. Provide --coordinates=<filter> (preferred) or -Pcoordinates=<filter>, or a fractional batch 'k/n'.");
         }
 
-        // Collect union of required docker images
+        // Collect union of required docker images, reading every index.json once
+        Path metadataRoot = tck.getMetadataRoot().get().getAsFile().toPath();
+        Path testRoot = tck.getTestRoot().get().getAsFile().toPath();
+        Map<String, ArtifactVersionIndex> indexes = new HashMap<>();
         Set<String> requiredImages = new LinkedHashSet<>();
-        ObjectMapper mapper = new ObjectMapper();
 
         for (String c : matching) {
             String[] parts = c.split(":");
@@ -101,51 +108,28 @@ public abstract class ComputeAndPullAllowedDockerImagesTask extends DefaultTask
             String artifact = parts[1];
             String version = parts[2];
 
-            Path indexPath = getProject().getProjectDir().toPath()
-                    .resolve("metadata")
-                    .resolve(group)
-                    .resolve(artifact)
-                    .resolve("index.json");
-            String content = Files.readString(indexPath, StandardCharsets.UTF_8);
-
-            if (content == null || content.isBlank()) {
-                throw new GradleException("Cannot find index file at: " + indexPath);
-            }
-
-            List<MetadataVersionsIndexEntry> entries = mapper.readValue(indexPath.toFile(), new TypeReference<>() {});
- 
-            String testVersion = null;
-            // 1) Primary: when a tested-version is provided, find the entry whose tested-versions contains it
-            for (MetadataVersionsIndexEntry entry : entries) {
-                List<String> tvs = entry.testedVersions();
-                if (tvs != null && tvs.contains(version)) {
-                    // Priority: 1. test-version (if present), 2. metadata-version
-                    String tv = entry.testVersion();
-                    testVersion = (tv != null && !tv.isBlank()) ? tv : entry.metadataVersion();
-                    break;
+            ArtifactVersionIndex index = indexes.computeIfAbsent(group + ":" + artifact, ga -> {
+                Path indexPath = metadataRoot.resolve(group).resolve(artifact).resolve("index.json");
+                if (!Files.isRegularFile(indexPath)) {
+                    throw new GradleException("Cannot find index file at: " + indexPath);
                 }
-            }
-            // 2) Fallback: if the coordinate version is actually a metadata-version, match it directly
-            if (testVersion == null) {
-                for (MetadataVersionsIndexEntry entry : entries) {
-                    if (version.equals(entry.metadataVersion())) {
-                        String tv = entry.testVersion();
-                        testVersion = (tv != null && !tv.isBlank()) ? tv : entry.metadataVersion();
-                        break;
-                    }
-                }
-            }
-            if (testVersion != null) {
-                Path dockerImagesPath = getProject().getProjectDir().toPath()
-                        .resolve("tests/src")
+                return ArtifactVersionIndex.load(indexPath);
+            });
+
+            // 1) Primary: the entry whose tested-versions contains the version
+            // 2) Fallback: the coordinate version is actually a metadata-version
+            java.util.Optional<MetadataVersionsIndexEntry> entry = index.findTested(version).or(() -> index.entries().stream()
+                    .filter(e -> version.equals(e.metadataVersion()))
+                    .findFirst());
+            if (entry.isPresent()) {
+                Path dockerImagesPath = testRoot
                         .resolve(group)
                         .resolve(artifact)
-                        .resolve(testVersion)
+                        .resolve(ArtifactVersionIndex.testVersionOf(entry.get()))
                         .resolve("required-docker-images.txt");
 
-                File f = getProject().file(dockerImagesPath);
-                if (f.exists()) {
-                    Files.readAllLines(f.toPath()).stream()
+                if (Files.isRegularFile(dockerImagesPath)) {
+                    Files.readAllLines(dockerImagesPath).stream()
                             .map(String::trim)
                             .filter(s -> !s.isEmpty())
                             .filter(s -> !s.startsWith("#"))
@@ -157,17 +141,18 @@ public abstract class ComputeAndPullAllowedDockerImagesTask extends DefaultTask
         // Validate against allowed images
         validateRequiredImages(requiredImages);
 
-        // Pull images immediately
-        for (String image : requiredImages) {
-            getLogger().lifecycle("Pulling docker image {}", image);
+        // Pull images that are missing or outdated, a few at a time
+        if (!requiredImages.isEmpty()) {
+            DockerImagePuller puller = new DockerImagePuller(DockerImagePuller.dockerCli(), getConcurrency().getOrElse(DEFAULT_CONCURRENCY),
+                    message -> getLogger().lifecycle(message));
+            Map<String, DockerImagePuller.Outcome> outcomes;
             try {
-                getExecOperations().exec(spec -> {
-                    spec.setExecutable("docker");
-                    spec.args("pull", image);
-                });
-            } catch (Exception e) {
-                throw new GradleException("Failed to pull image " + image + ": " + e.getMessage(), e);
+                outcomes = puller.pullAll(requiredImages);
+            } catch (IllegalStateException e) {
+                throw new GradleException(e.getMessage(), e);
             }
+            long upToDate = outcomes.values().stream().filter(outcome -> outcome == DockerImagePuller.Outcome.UP_TO_DATE).count();
+            getLogger().lifecycle("Docker images: {} pulled, {} already up to date", outcomes.size() - upToDate, upToDate);
         }
 
         if (requiredImages.isEmpty()) {
@@ -0,0 +1,92 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.harness.tasks;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.graalvm.internal.tck.Coordinates;
+import org.graalvm.internal.tck.consolidation.MetadataVersionConsolidation;
+import org.graalvm.internal.tck.stats.LibraryStatsModels;
+import org.graalvm.internal.tck.stats.LibraryStatsSupport;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Finds adjacent metadata versions with semantically identical content and merges them into the older version
+ * (see {@link MetadataVersionConsolidation}).
+ * <p>
+ * Usage:
+ * - {@code gradle consolidateMetadataVersions -Pcoordinates=<filter>} lists the proposed merges
+ * - {@code gradle consolidateMetadataVersions -Pcoordinates=<filter> --apply} rewrites {@code index.json}, deletes the
+ *   merged metadata directories and moves their entries in {@code stats/stats.json}
+ */
+@SuppressWarnings("unused")
+public abstract class ConsolidateMetadataVersionsTask extends CoordinatesAwareTask {
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull Boolean> getApply();
+
+    @Option(option = "apply", description = "Applies the proposed merges instead of only listing them")
+    public void setApplyOption(boolean value) {
+        getApply().set(value);
+    }
+
+    @TaskAction
+    public void consolidate() {
+        boolean apply = getApply().getOrElse(false);
+        Path metadataRoot = tckExtension.getMetadataRoot().get().getAsFile().toPath();
+        Path statsFile = tckExtension.getRepoRoot().get().getAsFile().toPath().resolve("stats").resolve("stats.json");
+
+        Set<String> artifacts = new TreeSet<>();
+        for (String coordinates : resolveCoordinates()) {
+            Coordinates parsed = Coordinates.parse(coordinates);
+            artifacts.add(parsed.group() + ":" + parsed.artifact());
+        }
+
+        List<MetadataVersionConsolidation.Proposal> proposals = new ArrayList<>();
+        for (String artifact : artifacts) {
+            String[] parts = artifact.split(":");
+            try {
+                proposals.addAll(apply
+                        ? MetadataVersionConsolidation.apply(metadataRoot, parts[0], parts[1])
+                        : MetadataVersionConsolidation.propose(metadataRoot, parts[0], parts[1]));
+            } catch (IOException | IllegalStateException e) {
+                throw new GradleException("Failed to consolidate metadata versions of " + artifact + ": " + e.getMessage(), e);
+            }
+        }
+
+        List<MetadataVersionConsolidation.Proposal> mergeable = proposals.stream().filter(MetadataVersionConsolidation.Proposal::mergeable).toList();
+        if (apply && !mergeable.isEmpty() && Files.isRegularFile(statsFile)) {
+            LibraryStatsModels.LibraryStats stats = LibraryStatsSupport.loadStats(statsFile);
+            for (MetadataVersionConsolidation.Proposal proposal : mergeable) {
+                stats = LibraryStatsSupport.withMergedMetadataVersion(stats, proposal.coordinates(), proposal.keptVersion(), proposal.mergedVersion());
+            }
+            LibraryStatsSupport.writeStats(statsFile, stats);
+        }
+
+        for (MetadataVersionConsolidation.Proposal proposal : proposals) {
+            String action = proposal.mergeable() ? (apply ? "Merged" : "Can merge") : "Not merging";
+            getLogger().lifecycle("{} {}:{} into {} (tested versions {}){}",
+                    action, proposal.coordinates(), proposal.mergedVersion(), proposal.keptVersion(), proposal.movedTestedVersions(),
+                    proposal.mergeable() ? "" : ": " + proposal.blocker());
+        }
+        getLogger().lifecycle("Checked {} artifact(s): {} equivalent metadata version(s), {} {}.",
+                artifacts.size(), proposals.size(), mergeable.size(), apply ? "merged" : "mergeable (rerun with --apply to merge)");
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.harness.tasks;
+
+import org.graalvm.internal.tck.fingerprint.BytecodeFingerprint;
+import org.graalvm.internal.tck.fingerprint.TestedVersionFingerprinter;
+import org.graalvm.internal.tck.fingerprint.VersionFingerprints;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups the tested versions of the resolved coordinates by {@link BytecodeFingerprint} and dependency graph, so that
+ * one representative per group can be tested and the other versions are covered by equivalence.
+ * <p>
+ * Run with {@code gradle fingerprintTestedVersions -Pcoordinates=<filter>}. The groups and selected versions are
+ * written per library to {@code build/tested-version-fingerprints/<group>/<artifact>/fingerprints.json} (see
+ * {@link TestedVersionFingerprinter} and {@link VersionFingerprints}).
+ * <p>
+ * With {@code --dynamicAccessReports=<dir>}, the {@code -H:TrackDynamicAccess} reports in
+ * {@code <dir>/<group>/<artifact>/<version>} are added to the fingerprint of that version.
+ */
+@SuppressWarnings("unused")
+public abstract class FingerprintTestedVersionsTask extends CoordinatesAwareTask {
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull String> getDynamicAccessReports();
+
+    @Option(option = "dynamicAccessReports", description = "Directory with dynamic access reports in <group>/<artifact>/<version> subdirectories")
+    public void setDynamicAccessReportsOption(String value) {
+        getDynamicAccessReports().set(value);
+    }
+
+    @TaskAction
+    public void fingerprint() {
+        List<String> coords = resolveCoordinates();
+        if (coords.isEmpty()) {
+            getLogger().lifecycle("No matching coordinates found. Nothing to do.");
+            return;
+        }
+        Path metadataRoot = tckExtension.getMetadataRoot().get().getAsFile().toPath();
+        Path outputDir = getProject().getLayout().getBuildDirectory().dir(TestedVersionFingerprinter.DEFAULT_OUTPUT_DIR).get().getAsFile().toPath();
+        Path reportsRoot = getDynamicAccessReports().isPresent() ? getProject().file(getDynamicAccessReports().get()).toPath() : null;
+
+        Map<String, VersionFingerprints> libraries = new TestedVersionFingerprinter(getProject(), metadataRoot, outputDir).fingerprint(coords, reportsRoot);
+        for (VersionFingerprints library : libraries.values()) {
+            for (VersionFingerprints.MetadataVersionGroups entry : library.metadataVersions()) {
+                long versions = entry.groups().stream().mapToLong(group -> group.versions().size()).sum();
+                getLogger().lifecycle("{} (metadata {}): {} tested version(s) in {} group(s), selected {}",
+                        library.library(), entry.metadataVersion(), versions, entry.groups().size(), entry.selectedVersions());
+            }
+        }
+        getLogger().info("Wrote fingerprints to {}", outputDir);
+    }
+}
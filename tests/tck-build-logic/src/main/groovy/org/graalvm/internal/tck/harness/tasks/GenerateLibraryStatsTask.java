@@ -20,6 +20,10 @@ import java.util.Set;
 
 /**
  * Generates library stats and stores them in a single artifact-indexed stats file.
+ * <p>
+ * Besides the JVM coverage and dynamic-access figures, every version records what its native test image costs
+ * ({@code nativeImage}): image size, reachable methods, build wall time and test-binary startup time, taken from a
+ * fresh {@code test} run of the coordinate.
  */
 @SuppressWarnings("unused")
 public abstract class GenerateLibraryStatsTask extends AbstractLibraryStatsTask {
@@ -62,7 +66,7 @@ public abstract class GenerateLibraryStatsTask extends AbstractLibraryStatsTask
         Map<StatsLocation, List<LibraryStatsModels.VersionStats>> updatesByLocation = new LinkedHashMap<>();
         for (String coordinate : coordinates) {
             StatsLocation location = resolveStatsLocation(coordinate);
-            LibraryStatsModels.VersionStats update = computeVersionStats(coordinate);
+            LibraryStatsModels.VersionStats update = computeVersionStats(coordinate).withNativeImage(measureNativeImage(coordinate));
             updatesByLocation.computeIfAbsent(location, ignored -> new ArrayList<>()).add(update);
         }
         return updatesByLocation;
@@ -0,0 +1,104 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.harness.tasks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.graalvm.internal.tck.Coordinates;
+import org.graalvm.internal.tck.harvest.DynamicAccessMetadataSynthesizer;
+import org.graalvm.internal.tck.stats.LibraryStatsModels;
+import org.graalvm.internal.tck.stats.LibraryStatsSupport;
+import org.graalvm.internal.tck.utils.ReachabilityMetadataFiles;
+import org.graalvm.internal.tck.utils.ReachabilityMetadataMerger;
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Drafts {@code reachability-metadata.json} entries for matching coordinates from their dynamic-access reports and
+ * JaCoCo coverage, without running the agent.
+ * <p>
+ * Like {@link GenerateDynamicAccessCoverageReportTask}, the task runs {@code jacocoTestReport} and
+ * {@code generateDynamicAccessReport}; the covered call sites are then resolved with
+ * {@link DynamicAccessMetadataSynthesizer}. For every coordinate it writes to
+ * {@code build/metadata-draft/<group>/<artifact>/<version>/}:
+ * <ul>
+ *   <li>{@code reachability-metadata.json} - the drafted entries</li>
+ *   <li>{@code draft-report.json} - call site counts and the covered call sites that could not be resolved</li>
+ * </ul>
+ * The committed metadata is not modified.
+ */
+@SuppressWarnings("unused")
+public abstract class GenerateMetadataDraftTask extends AbstractLibraryStatsTask {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    @TaskAction
+    public void generate() throws IOException {
+        Path repoRoot = tckExtension.getRepoRoot().get().getAsFile().toPath();
+        for (String coordinate : resolveRequestedCoordinates()) {
+            if (!generateReportsForCoordinate(coordinate)) {
+                throw new GradleException("Cannot draft metadata for " + coordinate + " without a dynamic-access report");
+            }
+            List<Path> libraryJars = listLibraryJars(coordinate);
+            LibraryStatsModels.DynamicAccessCoverageReport report = LibraryStatsSupport.buildDynamicAccessCoverageReport(
+                    coordinate,
+                    libraryJars,
+                    getDynamicAccessDir(coordinate),
+                    getJacocoReport(coordinate)
+            );
+            DynamicAccessMetadataSynthesizer.Result result = DynamicAccessMetadataSynthesizer.synthesize(report, libraryJars);
+
+            Coordinates parsed = Coordinates.parse(coordinate);
+            Path outputDir = repoRoot.resolve("build")
+                    .resolve("metadata-draft")
+                    .resolve(parsed.group())
+                    .resolve(parsed.artifact())
+                    .resolve(parsed.version());
+            Path draftFile = outputDir.resolve(ReachabilityMetadataFiles.FILE_NAME);
+            ReachabilityMetadataFiles.write(draftFile, ReachabilityMetadataMerger.sorted(
+                    ReachabilityMetadataFiles.withEntries(MAPPER.createObjectNode(), result.entries())));
+            Path reportFile = outputDir.resolve("draft-report.json");
+            writeReport(reportFile, coordinate, report, result);
+
+            getLogger().quiet("Drafted {} entries for {} from {} of {} covered call sites ({} dynamic-access call sites in total).",
+                    result.entries().size(), coordinate, result.coveredCallSites() - result.unresolved().size(),
+                    result.coveredCallSites(), report.totals().totalCalls());
+            getLogger().quiet("Draft metadata: {}", draftFile);
+            getLogger().quiet("Report: {}", reportFile);
+        }
+    }
+
+    private static void writeReport(
+            Path reportFile,
+            String coordinate,
+            LibraryStatsModels.DynamicAccessCoverageReport report,
+            DynamicAccessMetadataSynthesizer.Result result
+    ) throws IOException {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("coordinate", coordinate);
+        node.put("totalCallSites", report.totals().totalCalls());
+        node.put("coveredCallSites", result.coveredCallSites());
+        node.put("resolvedCallSites", result.coveredCallSites() - result.unresolved().size());
+        node.put("entries", result.entries().size());
+        ArrayNode unresolved = node.putArray("unresolved");
+        for (LibraryStatsModels.DynamicAccessCallSiteCoverage callSite : result.unresolved()) {
+            ObjectNode unresolvedCallSite = unresolved.addObject();
+            unresolvedCallSite.put("metadataType", callSite.metadataType());
+            unresolvedCallSite.put("trackedApi", callSite.trackedApi());
+            unresolvedCallSite.put("frame", callSite.frame());
+        }
+        Files.createDirectories(reportFile.getParent());
+        MAPPER.writeValue(reportFile.toFile(), node);
+    }
+}
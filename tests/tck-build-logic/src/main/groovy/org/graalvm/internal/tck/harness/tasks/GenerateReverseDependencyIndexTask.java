@@ -0,0 +1,48 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.harness.tasks;
+
+import org.graalvm.internal.tck.graph.DependencyGraph;
+import org.graalvm.internal.tck.graph.ReverseDependencyIndex;
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Builds the dependency graphs of the resolved coordinates (use -Pcoordinates=all) and persists them as a
+ * {@link ReverseDependencyIndex} in build/reverse-dependency-index.json, which
+ * {@code generateChangedCoordinatesMatrix -PincludeDependents=true} uses to add transitively affected coordinates.
+ * <p>
+ * Accepts the same --source, --concurrency and --cacheTtlHours options as {@code generateDependencyGraph}.
+ */
+@SuppressWarnings("unused")
+public abstract class GenerateReverseDependencyIndexTask extends GenerateDependencyGraphTask {
+
+    public static final String DEFAULT_INDEX_FILE = "reverse-dependency-index.json";
+
+    @Override
+    @TaskAction
+    public void printGraphs() {
+        List<String> coords = resolveCoordinates();
+        if (coords.isEmpty()) {
+            getLogger().lifecycle("No matching coordinates found. Nothing to do.");
+            return;
+        }
+        ReverseDependencyIndex index = ReverseDependencyIndex.build(buildGraphs(coords));
+        Path indexFile = getProject().getLayout().getBuildDirectory().file(DEFAULT_INDEX_FILE).get().getAsFile().toPath();
+        try {
+            index.write(indexFile);
+        } catch (IOException e) {
+            throw new GradleException("Failed to write reverse dependency index " + indexFile, e);
+        }
+        getLogger().lifecycle("Indexed dependents of {} libraries across {} coordinates: {}", index.size(), coords.size(), indexFile);
+        failOnUnresolvedCoordinates();
+    }
+}
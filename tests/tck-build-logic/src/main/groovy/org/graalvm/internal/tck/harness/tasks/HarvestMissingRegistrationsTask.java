@@ -0,0 +1,130 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.harness.tasks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.graalvm.internal.tck.Coordinates;
+import org.graalvm.internal.tck.harvest.MissingRegistrationParser;
+import org.graalvm.internal.tck.index.ArtifactVersionIndex;
+import org.graalvm.internal.tck.model.MetadataVersionsIndexEntry;
+import org.graalvm.internal.tck.utils.ReachabilityMetadataFiles;
+import org.graalvm.internal.tck.utils.ReachabilityMetadataMerger;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.gradle.process.ExecOperations;
+import org.gradle.process.ExecResult;
+import org.jetbrains.annotations.NotNull;
+
+import javax.inject.Inject;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Collects all missing registrations of a single coordinate from one native test run and merges them into its
+ * {@code reachability-metadata.json}.
+ * <p>
+ * The native tests are built with {@code -Ptck.warnOnMissingRegistrations=true}, which makes native-image report
+ * every {@code Missing*RegistrationError} with its stack trace instead of throwing the first one. The suggested entries
+ * are parsed with {@link MissingRegistrationParser}; each gets a {@code typeReached} condition on the first stack
+ * frame in the {@code allowed-packages} of the library's index entry, and all of them are merged with
+ * {@link ReachabilityMetadataMerger} in one write. The test output is kept in
+ * {@code build/missing-registrations/<group>/<artifact>/<version>/native-test.log}.
+ * <p>
+ * With {@code --dryRun}, the harvested entries are only logged.
+ */
+@SuppressWarnings("unused")
+public abstract class HarvestMissingRegistrationsTask extends SingleCoordinateTask {
+
+    public static final String WARN_ON_MISSING_REGISTRATIONS_PROPERTY = "tck.warnOnMissingRegistrations";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Inject
+    public abstract ExecOperations getExecOperations();
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull Boolean> getDryRun();
+
+    @Option(option = "dryRun", description = "Only log the harvested entries, do not modify reachability-metadata.json")
+    public void setDryRunOption(boolean value) {
+        getDryRun().set(value);
+    }
+
+    @TaskAction
+    public void harvest() throws IOException {
+        String coordinates = resolveSingleCoordinate();
+        Coordinates parsed = Coordinates.parse(coordinates);
+        Path metadataDir = tckExtension.getMetadataDir(coordinates).toAbsolutePath().normalize();
+        Path testDir = tckExtension.getTestDir(coordinates).toAbsolutePath().normalize();
+        List<String> allowedPackages = ArtifactVersionIndex.load(tckExtension.getMetadataRoot().get().getAsFile().toPath(), parsed.group(), parsed.artifact())
+                .findTested(parsed.version())
+                .map(MetadataVersionsIndexEntry::allowedPackages)
+                .orElse(List.of());
+
+        Path log = getProject().getLayout().getBuildDirectory()
+                .file("missing-registrations/" + parsed.group() + "/" + parsed.artifact() + "/" + parsed.version() + "/native-test.log")
+                .get().getAsFile().toPath();
+        Files.createDirectories(log.getParent());
+        getLogger().lifecycle("Running native tests of {} with missing registrations reported as warnings", coordinates);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ExecResult result;
+        try (OutputStream file = Files.newOutputStream(log)) {
+            OutputStream out = new TeeOutputStream(output, new TeeOutputStream(file, System.out));
+            result = getExecOperations().exec(spec -> {
+                spec.commandLine(tckExtension.getRepoRoot().get().getAsFile().toPath().resolve("gradlew").toString(),
+                        "nativeTest", "-P" + WARN_ON_MISSING_REGISTRATIONS_PROPERTY + "=true");
+                spec.workingDir(testDir.toFile());
+                spec.environment(tckEnvironment(coordinates, metadataDir));
+                spec.setIgnoreExitValue(true);
+                spec.setStandardOutput(out);
+                spec.setErrorOutput(out);
+            });
+        }
+
+        MissingRegistrationParser.Harvest harvest = MissingRegistrationParser.parse(output.toString(StandardCharsets.UTF_8));
+        List<ReachabilityMetadataFiles.Entry> entries = MissingRegistrationParser.toEntries(harvest.registrations(), allowedPackages);
+        if (harvest.unparsedErrors() > 0) {
+            getLogger().warn("{} missing registration error(s) without a suggested entry, see {}", harvest.unparsedErrors(), log);
+        }
+        if (entries.isEmpty()) {
+            getLogger().lifecycle("No missing registrations found (native tests exited with {}). Output: {}", result.getExitValue(), log);
+            return;
+        }
+        for (ReachabilityMetadataFiles.Entry entry : entries) {
+            if (!entry.node().has("condition")) {
+                getLogger().warn("No stack frame in allowed-packages {} for {} entry {}; it is added without a condition",
+                        allowedPackages, entry.section(), entry.node());
+            }
+        }
+
+        Path metadataFile = metadataDir.resolve(ReachabilityMetadataFiles.FILE_NAME);
+        JsonNode metadata = Files.isRegularFile(metadataFile) ? ReachabilityMetadataFiles.read(metadataFile) : MAPPER.createObjectNode();
+        ReachabilityMetadataMerger.Result merged = ReachabilityMetadataMerger.merge(metadata, entries);
+        if (getDryRun().getOrElse(false)) {
+            for (ReachabilityMetadataFiles.Entry entry : entries) {
+                getLogger().lifecycle("{}: {}", entry.section(), entry.node());
+            }
+            getLogger().lifecycle("Dry run: {} missing registration(s) would add {} and extend {} entries of {}",
+                    harvest.registrations().size(), merged.added(), merged.extended(), metadataFile);
+            return;
+        }
+        ReachabilityMetadataFiles.write(metadataFile, merged.metadata());
+        getLogger().lifecycle("Harvested {} missing registration(s): added {} and extended {} entries of {}",
+                harvest.registrations().size(), merged.added(), merged.extended(), metadataFile);
+        getLogger().lifecycle("Run `./gradlew test -Pcoordinates={}` to verify the updated metadata.", coordinates);
+    }
+}
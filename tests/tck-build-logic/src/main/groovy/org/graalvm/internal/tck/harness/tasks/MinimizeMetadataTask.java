@@ -0,0 +1,205 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.harness.tasks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.gradle.api.GradleException;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.gradle.process.ExecOperations;
+import org.gradle.process.ExecResult;
+import org.graalvm.internal.tck.Coordinates;
+import org.graalvm.internal.tck.minimizer.DeltaDebugging;
+import org.graalvm.internal.tck.minimizer.MinimizationCache;
+import org.graalvm.internal.tck.utils.CanonicalJson;
+import org.graalvm.internal.tck.utils.IsolatedTestWorkspace;
+import org.graalvm.internal.tck.utils.ReachabilityMetadataFiles;
+import org.jetbrains.annotations.NotNull;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Minimizes the {@code reachability-metadata.json} of a single coordinate with delta debugging.
+ * <p>
+ * Candidate subsets of the metadata entries are written into isolated copies of the repository (see
+ * {@link IsolatedTestWorkspace}) and verified with {@code nativeTest}; up to {@code --parallelism} candidates are
+ * built at the same time. Outcomes are cached by the hash of the candidate's canonical entries in
+ * {@code build/metadata-minimizer/<group>/<artifact>/<version>/results.json}, so an interrupted or repeated run only
+ * builds new candidates. The committed metadata is never modified; the task writes:
+ * <ul>
+ *   <li>{@code reachability-metadata.json} - the smallest passing metadata found</li>
+ *   <li>{@code minimization-report.json} - entry counts, build statistics and the removed entries</li>
+ * </ul>
+ */
+@SuppressWarnings("unused")
+public abstract class MinimizeMetadataTask extends SingleCoordinateTask {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    @Inject
+    public abstract ExecOperations getExecOperations();
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull Integer> getParallelism();
+
+    @Option(option = "parallelism", description = "Number of candidate native builds to run concurrently (default 2)")
+    public void setParallelismOption(String value) {
+        getParallelism().set(Integer.parseInt(value));
+    }
+
+    @TaskAction
+    public void minimize() throws IOException {
+        String coordinates = resolveSingleCoordinate();
+        Coordinates parsed = Coordinates.parse(coordinates);
+        Path repoRoot = tckExtension.getRepoRoot().get().getAsFile().toPath().toAbsolutePath().normalize();
+        Path metadataDir = tckExtension.getMetadataDir(coordinates).toAbsolutePath().normalize();
+        Path testDir = tckExtension.getTestDir(coordinates).toAbsolutePath().normalize();
+        Path metadataFile = metadataDir.resolve(ReachabilityMetadataFiles.FILE_NAME);
+        if (!Files.isRegularFile(metadataFile)) {
+            throw new GradleException("No " + ReachabilityMetadataFiles.FILE_NAME + " found in " + metadataDir);
+        }
+
+        Path workDir = repoRoot.resolve("build")
+                .resolve("metadata-minimizer")
+                .resolve(parsed.group())
+                .resolve(parsed.artifact())
+                .resolve(parsed.version());
+        int parallelism = getParallelism().getOrElse(2);
+
+        JsonNode original = ReachabilityMetadataFiles.read(metadataFile);
+        List<ReachabilityMetadataFiles.Entry> entries = ReachabilityMetadataFiles.entries(original);
+        getLogger().lifecycle("Minimizing {} metadata entries of {} with {} parallel build(s)", entries.size(), coordinates, parallelism);
+
+        BlockingQueue<IsolatedTestWorkspace> workspaces = new ArrayBlockingQueue<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            workspaces.add(IsolatedTestWorkspace.create(repoRoot, workDir.resolve("workspaces").resolve(String.valueOf(i)), testDir, metadataDir));
+        }
+
+        Map<String, String> environment = tckEnvironment(coordinates, metadataDir);
+        MinimizationCache cache = MinimizationCache.load(workDir.resolve("results.json"));
+        DeltaDebugging<ReachabilityMetadataFiles.Entry> deltaDebugging = new DeltaDebugging<>(
+                candidate -> {
+                    IsolatedTestWorkspace workspace = workspaces.take();
+                    try {
+                        return runNativeTest(coordinates, workspace, original, candidate, environment, workDir.resolve("logs"));
+                    } finally {
+                        workspaces.put(workspace);
+                    }
+                },
+                MinimizeMetadataTask::candidateHash,
+                cache,
+                parallelism,
+                message -> getLogger().lifecycle(message)
+        );
+
+        DeltaDebugging.Result<ReachabilityMetadataFiles.Entry> result;
+        try {
+            result = deltaDebugging.minimize(entries);
+        } catch (IllegalStateException e) {
+            throw new GradleException("Minimization of " + coordinates + " failed: " + e.getMessage(), e);
+        }
+
+        Path minimizedFile = workDir.resolve(ReachabilityMetadataFiles.FILE_NAME);
+        ReachabilityMetadataFiles.write(minimizedFile, ReachabilityMetadataFiles.withEntries(original, result.minimized()));
+        Path reportFile = workDir.resolve("minimization-report.json");
+        writeReport(reportFile, coordinates, metadataFile, entries, result);
+
+        getLogger().quiet("Minimized {} from {} to {} entries ({} native builds, {} cached outcomes reused).",
+                coordinates, entries.size(), result.minimized().size(), result.evaluations(), result.cacheHits());
+        getLogger().quiet("Minimized metadata: {}", minimizedFile);
+        getLogger().quiet("Report: {}", reportFile);
+    }
+
+    private boolean runNativeTest(
+            String coordinates,
+            IsolatedTestWorkspace workspace,
+            JsonNode original,
+            List<ReachabilityMetadataFiles.Entry> candidate,
+            Map<String, String> baseEnvironment,
+            Path logDir
+    ) throws IOException {
+        ReachabilityMetadataFiles.write(workspace.metadataFile(), ReachabilityMetadataFiles.withEntries(original, candidate));
+
+        Map<String, String> environment = new HashMap<>(baseEnvironment);
+        environment.put("GVM_TCK_MD", workspace.metadataDir().toString());
+
+        Files.createDirectories(logDir);
+        Path log = logDir.resolve(candidateHash(candidate) + ".log");
+        ExecResult result;
+        try (OutputStream out = Files.newOutputStream(log)) {
+            result = getExecOperations().exec(spec -> {
+                spec.commandLine(tckExtension.getRepoRoot().get().getAsFile().toPath().resolve("gradlew").toString(), "nativeTest");
+                spec.workingDir(workspace.testDir().toFile());
+                spec.environment(environment);
+                spec.setIgnoreExitValue(true);
+                spec.setStandardOutput(out);
+                spec.setErrorOutput(out);
+            });
+        }
+        boolean passed = result.getExitValue() == 0;
+        getLogger().lifecycle("  {} entries: {} ({})", candidate.size(), passed ? "PASSED" : "FAILED", log.getFileName());
+        return passed;
+    }
+
+    /**
+     * Hash of the candidate's entries that is independent of their order and formatting.
+     */
+    private static String candidateHash(List<ReachabilityMetadataFiles.Entry> candidate) {
+        return CanonicalJson.sha256(String.join("\n", candidate.stream()
+                .map(ReachabilityMetadataFiles.Entry::canonicalKey)
+                .sorted()
+                .toList()));
+    }
+
+    private static void writeReport(
+            Path reportFile,
+            String coordinates,
+            Path metadataFile,
+            List<ReachabilityMetadataFiles.Entry> entries,
+            DeltaDebugging.Result<ReachabilityMetadataFiles.Entry> result
+    ) throws IOException {
+        Set<String> kept = new HashSet<>();
+        result.minimized().forEach(entry -> kept.add(entry.canonicalKey()));
+
+        ObjectNode report = MAPPER.createObjectNode();
+        report.put("coordinates", coordinates);
+        report.put("metadataFile", metadataFile.toString());
+        report.put("originalEntries", entries.size());
+        report.put("minimizedEntries", result.minimized().size());
+        report.put("nativeBuilds", result.evaluations());
+        report.put("cacheHits", result.cacheHits());
+        ArrayNode removed = report.putArray("removed");
+        for (ReachabilityMetadataFiles.Entry entry : entries) {
+            if (!kept.contains(entry.canonicalKey())) {
+                ObjectNode removedEntry = removed.addObject();
+                removedEntry.put("section", entry.section());
+                removedEntry.set("entry", entry.node());
+            }
+        }
+        Files.createDirectories(reportFile.getParent());
+        MAPPER.writeValue(reportFile.toFile(), report);
+    }
+}
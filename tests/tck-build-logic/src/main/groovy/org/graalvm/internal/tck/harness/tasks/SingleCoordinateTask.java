@@ -6,9 +6,15 @@
  */
 package org.graalvm.internal.tck.harness.tasks;
 
+import org.graalvm.internal.tck.Coordinates;
 import org.gradle.api.GradleException;
 
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import static org.graalvm.internal.tck.Utils.readIndexFile;
 
 /**
  * Base task for actions that must operate on exactly one coordinate.
@@ -30,4 +36,29 @@ public abstract class SingleCoordinateTask extends CoordinatesAwareTask {
         }
         return coords.get(0);
     }
+
+    /**
+     * Mirrors the TCK environment set up by {@link AllCoordinatesExecTask} for a coordinate whose metadata is in
+     * {@code metadataDir}.
+     */
+    @SuppressWarnings("unchecked")
+    protected Map<String, String> tckEnvironment(String coordinates, Path metadataDir) {
+        String version = Coordinates.parse(coordinates).version();
+        boolean override = false;
+        for (Object entryObj : (Iterable<?>) readIndexFile(metadataDir.getParent())) {
+            Map<String, Object> entry = (Map<String, Object>) entryObj;
+            if (((List<String>) entry.get("tested-versions")).contains(version)) {
+                override = Boolean.parseBoolean(String.valueOf(entry.getOrDefault("override", "false")));
+                break;
+            }
+        }
+
+        Map<String, String> env = new HashMap<>(System.getenv());
+        env.put("GVM_TCK_LC", coordinates);
+        env.put("GVM_TCK_EXCLUDE", Boolean.toString(override));
+        env.putIfAbsent("GVM_TCK_LV", version);
+        env.put("GVM_TCK_MD", metadataDir.toAbsolutePath().toString());
+        env.put("GVM_TCK_TCKDIR", tckExtension.getTckRoot().get().getAsFile().toPath().toAbsolutePath().toString());
+        return env;
+    }
 }
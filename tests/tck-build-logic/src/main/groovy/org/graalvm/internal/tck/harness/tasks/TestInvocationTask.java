@@ -6,22 +6,88 @@
  */
 package org.graalvm.internal.tck.harness.tasks;
 
+import org.graalvm.internal.tck.DockerContainerPool;
+import org.graalvm.internal.tck.DockerImagePuller;
+import org.graalvm.internal.tck.Coordinates;
+import org.graalvm.internal.tck.fingerprint.TestedVersionFingerprinter;
+import org.graalvm.internal.tck.stats.NativeTestRunMetrics;
+import org.graalvm.internal.tck.stats.NativeTestRunSummary;
+import org.gradle.api.GradleException;
 import org.gradle.api.provider.ProviderFactory;
 
 import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
 
 /**
  * Task that is used to start subproject tests for matching coordinates.
  * Coordinate resolution is unified and handled by the base class.
+ * <p>
+ * With {@code -PtestSelection=representative}, only the versions selected by {@link TestedVersionFingerprinter} are
+ * tested: per metadata version the first and last tested version plus one version per distinct bytecode fingerprint
+ * and dependency graph. The default, {@code -PtestSelection=all}, tests every matching coordinate.
+ * <p>
+ * With {@code -PdockerContainerPool=true}, the allowed images supported by {@link DockerContainerPool} are started
+ * once for the whole run and their connection parameters are passed to the tests as {@code GVM_TCK_DOCKER_*}
+ * environment variables; databases are recreated before every coordinate.
+ * <p>
+ * Every run records its phase timings and native-image resource usage (see {@link NativeTestRunMetrics}) in
+ * {@code build/native-test-metrics/<group>/<artifact>/<version>.json}; the aggregate of the whole batch is written to
+ * {@code build/native-test-metrics/summary.json} (see {@link NativeTestRunSummary}).
  */
 @SuppressWarnings("unused")
 public abstract class TestInvocationTask extends AllCoordinatesExecTask {
 
+    public static final String TEST_SELECTION_PROPERTY = "testSelection";
+    public static final String CONTAINER_POOL_PROPERTY = "dockerContainerPool";
+    public static final String METRICS_DIR = "native-test-metrics";
+
+    private DockerContainerPool containerPool;
+
+    private final List<NativeTestRunMetrics> runMetrics = new ArrayList<>();
+
     @Inject
     public abstract ProviderFactory getProviders();
 
+    @Override
+    protected List<String> resolveCoordinates() {
+        List<String> coords = super.resolveCoordinates();
+        if (coords.isEmpty() || !isRepresentativeSelection(Objects.toString(getProject().findProperty(TEST_SELECTION_PROPERTY), "all"))) {
+            return coords;
+        }
+        Path outputDir = getProject().getLayout().getBuildDirectory().dir(TestedVersionFingerprinter.DEFAULT_OUTPUT_DIR).get().getAsFile().toPath();
+        List<String> selected = new TestedVersionFingerprinter(getProject(), tckExtension.getMetadataRoot().get().getAsFile().toPath(), outputDir)
+                .selectRepresentatives(coords);
+        getLogger().lifecycle("Testing {} representative(s) of {} matching coordinate(s)", selected.size(), coords.size());
+        return selected;
+    }
+
+    /**
+     * Parses a {@code testSelection} value: {@code all} (default) or {@code representative}.
+     */
+    public static boolean isRepresentativeSelection(String value) {
+        return switch (value) {
+            case "all" -> false;
+            case "representative" -> true;
+            default -> throw new GradleException("Unknown test selection '" + value + "'. Use 'all' or 'representative'.");
+        };
+    }
+
+    /**
+     * Location of the {@link NativeTestRunMetrics} of the last run of the given coordinates.
+     */
+    public static Path metricsFile(Path buildDir, String coordinates) {
+        Coordinates parsed = Coordinates.parse(coordinates);
+        return buildDir.resolve(METRICS_DIR).resolve(parsed.group()).resolve(parsed.artifact()).resolve(parsed.version() + ".json");
+    }
+
     @Override
     public List<String> commandFor(String coordinates) {
         List<String> defaultArgs = new ArrayList<>(List.of(
@@ -37,6 +103,83 @@ public abstract class TestInvocationTask extends AllCoordinatesExecTask {
     }
 
 
+    @Override
+    protected void beforeAll(List<String> coordinates) {
+        runMetrics.clear();
+        if (!Boolean.parseBoolean(Objects.toString(getProject().findProperty(CONTAINER_POOL_PROPERTY), "false"))) {
+            return;
+        }
+        containerPool = new DockerContainerPool(DockerImagePuller.dockerCli(), UUID.randomUUID().toString(),
+                message -> getLogger().lifecycle(message));
+        try {
+            containerPool.reapOrphans();
+        } catch (IOException e) {
+            throw new GradleException("Failed to remove leftover pooled docker containers", e);
+        }
+    }
+
+    @Override
+    protected Map<String, String> environmentFor(String coordinates) {
+        if (containerPool == null) {
+            return Map.of();
+        }
+        Path requiredImagesFile = tckExtension.getTestDir(coordinates).resolve("required-docker-images.txt");
+        if (!Files.isRegularFile(requiredImagesFile)) {
+            return Map.of();
+        }
+        try {
+            List<String> requiredImages = Files.readAllLines(requiredImagesFile).stream()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .toList();
+            return containerPool.acquire(requiredImages);
+        } catch (IOException e) {
+            throw new GradleException("Failed to prepare pooled docker containers for " + coordinates, e);
+        }
+    }
+
+    @Override
+    protected void afterExec(String coordinates, int exitCode, String output, Duration elapsed) {
+        Path metricsFile = metricsFile(getProject().getLayout().getBuildDirectory().get().getAsFile().toPath(), coordinates);
+        try {
+            NativeTestRunMetrics metrics = NativeTestRunMetrics.collect(coordinates, exitCode == 0, elapsed, output, tckExtension.getTestDir(coordinates));
+            metrics.write(metricsFile);
+            runMetrics.add(metrics);
+            getLogger().lifecycle("Timings for {}: {}s total, {}s image build, {}s test execution ({})",
+                    coordinates, metrics.wallSeconds(), metrics.nativeImageBuildSeconds(), metrics.testExecutionSeconds(), metricsFile);
+        } catch (IOException e) {
+            getLogger().warn("Failed to record native test metrics for {}: {}", coordinates, e.getMessage());
+        }
+    }
+
+    @Override
+    protected void afterAll() {
+        writeMetricsSummary();
+        if (containerPool == null) {
+            return;
+        }
+        try {
+            containerPool.close();
+        } catch (IOException e) {
+            getLogger().warn("Failed to remove pooled docker containers: {}", e.getMessage());
+        } finally {
+            containerPool = null;
+        }
+    }
+
+    private void writeMetricsSummary() {
+        if (runMetrics.isEmpty()) {
+            return;
+        }
+        Path summaryFile = getProject().getLayout().getBuildDirectory().file(METRICS_DIR + "/summary.json").get().getAsFile().toPath();
+        try {
+            NativeTestRunSummary.of(runMetrics).write(summaryFile);
+            getLogger().lifecycle("Native test metrics of {} coordinate(s): {}", runMetrics.size(), summaryFile);
+        } catch (IOException e) {
+            getLogger().warn("Failed to write native test metrics summary: {}", e.getMessage());
+        }
+    }
+
     @Override
     protected String errorMessageFor(String coordinates, int exitCode) {
         return "Test for " + coordinates + " failed with exit code " + exitCode + ".";
@@ -0,0 +1,257 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.harness.tasks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.graalvm.internal.tck.TestedVersionUpdaterTask;
+import org.graalvm.internal.tck.harness.TckExtension;
+import org.graalvm.internal.tck.index.ArtifactVersionIndex;
+import org.graalvm.internal.tck.model.MetadataVersionsIndexEntry;
+import org.graalvm.internal.tck.updates.CompatibilityLedger;
+import org.graalvm.internal.tck.updates.NewVersionCompatibilityPipeline;
+import org.graalvm.internal.tck.utils.IsolatedTestWorkspace;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the new library versions reported by {@code fetchExistingLibrariesWithNewerVersions} in one run and adds the
+ * passing ones to the tested versions.
+ * <p>
+ * Run with {@code gradle testNewLibraryVersions --candidates=<file|json>}, where the candidates have the format
+ * printed by {@code fetchExistingLibrariesWithNewerVersions}: {@code [{"name": "group:artifact", "versions": [...]}]}.
+ * Every version is tested with {@code GVM_TCK_LV} against the metadata and tests of the latest tested version of its
+ * library, in an isolated copy of the test project (see {@link IsolatedTestWorkspace}). Up to {@code --parallelism}
+ * candidates run at the same time; by default one per 8 GiB of physical memory and two processors. Results are
+ * recorded in {@code build/new-version-compatibility/ledger.json}; candidates that already have a result are skipped
+ * unless {@code --retest} is given.
+ * <p>
+ * Passing versions are then written with one {@link TestedVersionUpdaterTask#addTestedVersions} call per artifact,
+ * unless {@code --dryRun} is given. Flaky versions are only kept in the ledger.
+ */
+@SuppressWarnings("unused")
+public abstract class TestNewLibraryVersionsTask extends DefaultTask {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private record LibraryCandidates(String name, List<String> versions) {
+    }
+
+    @Input
+    public abstract Property<@NotNull String> getCandidates();
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull Integer> getParallelism();
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull Integer> getNativeTestAttempts();
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull Integer> getTimeoutMinutes();
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull Boolean> getRetest();
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull Boolean> getDryRun();
+
+    @Option(option = "candidates", description = "JSON array (or file containing it) of {\"name\": \"group:artifact\", \"versions\": [...]} objects")
+    public void setCandidatesOption(String value) {
+        getCandidates().set(value);
+    }
+
+    @Option(option = "parallelism", description = "Number of candidates tested concurrently (default derived from physical memory)")
+    public void setParallelismOption(String value) {
+        getParallelism().set(Integer.parseInt(value));
+    }
+
+    @Option(option = "nativeTestAttempts", description = "Native test runs, including the first one, before the version counts as failed (default 3)")
+    public void setNativeTestAttemptsOption(String value) {
+        getNativeTestAttempts().set(Integer.parseInt(value));
+    }
+
+    @Option(option = "timeoutMinutes", description = "Timeout of a single Gradle invocation in minutes (default 5)")
+    public void setTimeoutMinutesOption(String value) {
+        getTimeoutMinutes().set(Integer.parseInt(value));
+    }
+
+    @Option(option = "retest", description = "Tests candidates again even if the ledger already has a result for them")
+    public void setRetestOption(boolean value) {
+        getRetest().set(value);
+    }
+
+    @Option(option = "dryRun", description = "Records results in the ledger without updating index.json files")
+    public void setDryRunOption(boolean value) {
+        getDryRun().set(value);
+    }
+
+    @TaskAction
+    public void testNewVersions() throws IOException {
+        TckExtension tck = getProject().getExtensions().getByType(TckExtension.class);
+        Path repoRoot = tck.getRepoRoot().get().getAsFile().toPath().toAbsolutePath().normalize();
+        Path metadataRoot = tck.getMetadataRoot().get().getAsFile().toPath().toAbsolutePath().normalize();
+        Path workDir = repoRoot.resolve("build").resolve("new-version-compatibility");
+
+        List<NewVersionCompatibilityPipeline.Candidate> candidates = new ArrayList<>();
+        for (LibraryCandidates library : readCandidates(getCandidates().get())) {
+            String[] ga = library.name().split(":");
+            if (ga.length != 2) {
+                throw new GradleException("Expected group:artifact as candidate name, got " + library.name());
+            }
+            String testedWith = ArtifactVersionIndex.load(metadataRoot, ga[0], ga[1]).latestTestedVersion()
+                    .orElseThrow(() -> new GradleException("Cannot find any tested version for: " + library.name()));
+            for (String version : library.versions()) {
+                candidates.add(new NewVersionCompatibilityPipeline.Candidate(library.name(), version, testedWith));
+            }
+        }
+        if (candidates.isEmpty()) {
+            getLogger().lifecycle("No new library versions to test.");
+            return;
+        }
+
+        int parallelism = getParallelism().getOrElse(NewVersionCompatibilityPipeline.defaultParallelism(totalMemory(), Runtime.getRuntime().availableProcessors()));
+        long timeoutMinutes = getTimeoutMinutes().getOrElse(5);
+        getLogger().lifecycle("Testing {} new version(s) with {} parallel run(s)", candidates.size(), parallelism);
+
+        CompatibilityLedger ledger = CompatibilityLedger.load(workDir.resolve("ledger.json"));
+        NewVersionCompatibilityPipeline pipeline = new NewVersionCompatibilityPipeline(
+                (candidate, slot) -> prepare(tck, repoRoot, workDir.resolve("workspaces").resolve(String.valueOf(slot)), candidate, timeoutMinutes),
+                ledger,
+                workDir.resolve("logs"),
+                parallelism,
+                getNativeTestAttempts().getOrElse(3),
+                message -> getLogger().lifecycle(message)
+        );
+        List<CompatibilityLedger.Result> results = pipeline.run(candidates, getRetest().getOrElse(false));
+
+        Map<String, List<String>> passing = new LinkedHashMap<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            NewVersionCompatibilityPipeline.Candidate candidate = candidates.get(i);
+            CompatibilityLedger.Result result = results.get(i);
+            if (result.status() == CompatibilityLedger.Status.PASSED && candidate.testedWith().equals(result.testedWith())) {
+                passing.computeIfAbsent(candidate.library() + ":" + candidate.testedWith(), key -> new ArrayList<>()).add(candidate.version());
+            }
+        }
+        if (!getDryRun().getOrElse(false)) {
+            for (Map.Entry<String, List<String>> entry : passing.entrySet()) {
+                String[] gav = entry.getKey().split(":");
+                Path indexFile = metadataRoot.resolve(gav[0]).resolve(gav[1]).resolve("index.json");
+                TestedVersionUpdaterTask.addTestedVersions(indexFile, gav[2], entry.getValue());
+                getLogger().lifecycle("Added tested versions {} to {}:{}", entry.getValue(), gav[0], gav[1]);
+            }
+        }
+
+        long failed = results.stream().filter(result -> !result.status().isPassing()).count();
+        long flaky = results.stream().filter(result -> result.status() == CompatibilityLedger.Status.FLAKY).count();
+        getLogger().quiet("Tested {} new version(s): {} passed, {} flaky (not added), {} failed. Ledger: {}",
+                results.size(), results.size() - failed - flaky, flaky, failed, workDir.resolve("ledger.json"));
+    }
+
+    private NewVersionCompatibilityPipeline.Workspace prepare(
+            TckExtension tck,
+            Path repoRoot,
+            Path workspaceRoot,
+            NewVersionCompatibilityPipeline.Candidate candidate,
+            long timeoutMinutes
+    ) throws IOException {
+        String testedCoordinates = candidate.library() + ":" + candidate.testedWith();
+        Path metadataDir = tck.getMetadataDir(testedCoordinates).toAbsolutePath().normalize();
+        Path testDir = tck.getTestDir(testedCoordinates).toAbsolutePath().normalize();
+        IsolatedTestWorkspace workspace = IsolatedTestWorkspace.create(repoRoot, workspaceRoot, testDir, metadataDir);
+
+        Map<String, String> environment = new HashMap<>(System.getenv());
+        environment.put("GVM_TCK_LC", testedCoordinates);
+        environment.put("GVM_TCK_LV", candidate.version());
+        environment.put("GVM_TCK_EXCLUDE", Boolean.toString(isOverride(metadataDir, candidate.testedWith())));
+        environment.put("GVM_TCK_MD", workspace.metadataDir().toString());
+        environment.put("GVM_TCK_TCKDIR", tck.getTckRoot().get().getAsFile().toPath().toAbsolutePath().toString());
+        String installationPaths = System.getenv("TCK_JDK_INSTALLATION_PATHS");
+
+        return (gradleTask, log) -> {
+            List<String> command = new ArrayList<>(List.of(repoRoot.resolve("gradlew").toString(), gradleTask));
+            if (installationPaths != null) {
+                command.add("-Porg.gradle.java.installations.auto-detect=false");
+                command.add("-Porg.gradle.java.installations.paths=" + installationPaths);
+            }
+            Files.createDirectories(log.getParent());
+            ProcessBuilder processBuilder = new ProcessBuilder(command)
+                    .directory(workspace.testDir().toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile());
+            processBuilder.environment().clear();
+            processBuilder.environment().putAll(environment);
+            Process process = processBuilder.start();
+            try {
+                if (!process.waitFor(timeoutMinutes, TimeUnit.MINUTES)) {
+                    process.descendants().forEach(ProcessHandle::destroyForcibly);
+                    process.destroyForcibly();
+                    Files.writeString(log, System.lineSeparator() + "TIMEOUT: " + gradleTask + " took longer than " + timeoutMinutes + " minutes" + System.lineSeparator(),
+                            StandardOpenOption.APPEND);
+                    return false;
+                }
+                return process.exitValue() == 0;
+            } catch (InterruptedException e) {
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while running " + gradleTask + " for " + candidate.coordinates(), e);
+            }
+        };
+    }
+
+    private static boolean isOverride(Path metadataDir, String version) {
+        for (MetadataVersionsIndexEntry entry : ArtifactVersionIndex.load(metadataDir.getParent().resolve("index.json")).entries()) {
+            if (entry.testedVersions() != null && entry.testedVersions().contains(version)) {
+                return Boolean.TRUE.equals(entry.override());
+            }
+        }
+        return false;
+    }
+
+    private static List<LibraryCandidates> readCandidates(String value) throws IOException {
+        String json = value.trim();
+        if (!json.startsWith("[")) {
+            Path file = Path.of(json);
+            if (!Files.isRegularFile(file)) {
+                throw new GradleException("Candidates must be a JSON array or a file containing one, got: " + value);
+            }
+            json = Files.readString(file);
+        }
+        return MAPPER.readValue(json, new TypeReference<>() {
+        });
+    }
+
+    private static long totalMemory() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getTotalMemorySize();
+        }
+        return Runtime.getRuntime().maxMemory();
+    }
+}
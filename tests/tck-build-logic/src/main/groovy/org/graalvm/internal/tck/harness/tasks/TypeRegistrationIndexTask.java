@@ -0,0 +1,143 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.harness.tasks;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+import org.graalvm.internal.tck.index.TypeRegistrationIndex;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains a persisted inverted index (type -> contributing GA:metadata-version) over every
+ * {@code reachability-metadata.json} in the repository and answers queries against it.
+ * <p>
+ * Usage:
+ * - {@code gradle typeRegistrationIndex} refreshes the index (only changed files are re-parsed)
+ * - {@code gradle typeRegistrationIndex --type=java.util.HashMap} lists every registration of a type;
+ *   a trailing {@code *} matches a type prefix
+ * - {@code gradle typeRegistrationIndex --overlap=g:a:v,g:a:v} lists types registered by more than one of the
+ *   given GA:metadata-version coordinates
+ */
+@SuppressWarnings("unused")
+public abstract class TypeRegistrationIndexTask extends CoordinatesAwareTask {
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull String> getType();
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull String> getOverlap();
+
+    @Option(option = "type", description = "Fully qualified type name to look up (a trailing '*' matches a prefix)")
+    public void setTypeOption(String value) {
+        getType().set(value);
+    }
+
+    @Option(option = "overlap", description = "Comma-separated GA:metadata-version coordinates to check for overlapping registrations")
+    public void setOverlapOption(String value) {
+        getOverlap().set(value);
+    }
+
+    @Internal
+    protected Path getIndexFile() {
+        return tckExtension.getRepoRoot().get().getAsFile().toPath()
+                .resolve("build")
+                .resolve("type-registration-index")
+                .resolve("index.json");
+    }
+
+    @TaskAction
+    public void run() {
+        Path metadataRoot = tckExtension.getMetadataRoot().get().getAsFile().toPath();
+        long start = System.nanoTime();
+        TypeRegistrationIndex index = TypeRegistrationIndex.refresh(metadataRoot, getIndexFile());
+        TypeRegistrationIndex.RefreshSummary summary = index.summary();
+        getLogger().lifecycle("Indexed {} type(s) from {} metadata file(s) ({} re-parsed, {} removed) in {} ms: {}",
+                index.typeCount(), summary.files(), summary.reparsed(), summary.removed(),
+                (System.nanoTime() - start) / 1_000_000, getIndexFile());
+
+        if (getType().isPresent()) {
+            printTypeQuery(index, getType().get().trim());
+        }
+        if (getOverlap().isPresent()) {
+            printOverlapQuery(index, getOverlap().get());
+        }
+    }
+
+    private void printTypeQuery(TypeRegistrationIndex index, String query) {
+        Set<String> types = query.endsWith("*")
+                ? index.typesWithPrefix(query.substring(0, query.length() - 1))
+                : Set.of(query);
+        int printed = 0;
+        for (String type : types) {
+            List<TypeRegistrationIndex.Registration> registrations = index.registrationsOf(type);
+            if (registrations.isEmpty()) {
+                continue;
+            }
+            getLogger().quiet(type);
+            registrations.forEach(registration -> getLogger().quiet("  {}", describe(registration)));
+            printed++;
+        }
+        if (printed == 0) {
+            getLogger().quiet("No registrations found for {}", query);
+        }
+    }
+
+    private void printOverlapQuery(TypeRegistrationIndex index, String value) {
+        List<String> coordinates = Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(coordinate -> !coordinate.isEmpty())
+                .toList();
+        if (coordinates.size() < 2) {
+            throw new GradleException("--overlap expects at least two GA:metadata-version coordinates, got: " + value);
+        }
+        Set<String> known = index.coordinates();
+        for (String coordinate : coordinates) {
+            if (!known.contains(coordinate)) {
+                throw new GradleException("Unknown GA:metadata-version coordinate '" + coordinate + "'. "
+                        + "Use the metadata directory version, e.g. com.zaxxer:HikariCP:5.0.1");
+            }
+        }
+
+        Map<String, List<TypeRegistrationIndex.Registration>> overlap = index.overlap(coordinates);
+        overlap.forEach((type, registrations) -> {
+            getLogger().quiet(type);
+            registrations.forEach(registration -> getLogger().quiet("  {}", describe(registration)));
+        });
+        getLogger().quiet("{} type(s) registered by more than one of {}", overlap.size(), String.join(", ", coordinates));
+    }
+
+    private static String describe(TypeRegistrationIndex.Registration registration) {
+        StringBuilder description = new StringBuilder(registration.coordinate())
+                .append(" [").append(registration.section()).append("]");
+        if (!registration.flags().isEmpty()) {
+            description.append(" ").append(String.join(",", registration.flags()));
+        }
+        if (registration.methods() > 0) {
+            description.append(" methods=").append(registration.methods());
+        }
+        if (registration.fields() > 0) {
+            description.append(" fields=").append(registration.fields());
+        }
+        if (registration.condition() != null) {
+            description.append(" if ").append(registration.condition());
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable catalogue of allowed docker images, keyed by image name and tag.
+ * <p>
+ * Every {@code Dockerfile-*} in {@code allowed-docker-images} contributes the image of its single {@code FROM} line.
+ * The catalogue of the plugin resources is built once, on first use, by {@link DockerUtils#getAllowedImageCatalogue()}
+ * and shared by all tasks of the build.
+ */
+public final class AllowedDockerImageCatalogue {
+
+    /**
+     * An allowed image ({@code name:tag}) and the file name of the Dockerfile that allows it.
+     */
+    public record Entry(String image, String name, String tag, String dockerfile) {
+    }
+
+    // image name -> tag -> entry
+    private final Map<String, Map<String, Entry>> entries;
+    private final Set<String> images;
+
+    private AllowedDockerImageCatalogue(Map<String, Map<String, Entry>> entries) {
+        Map<String, Map<String, Entry>> copy = new TreeMap<>();
+        Set<String> allImages = new LinkedHashSet<>();
+        entries.forEach((name, tags) -> {
+            copy.put(name, Collections.unmodifiableMap(new TreeMap<>(tags)));
+            tags.values().forEach(entry -> allImages.add(entry.image()));
+        });
+        this.entries = Collections.unmodifiableMap(copy);
+        this.images = Collections.unmodifiableSet(allImages);
+    }
+
+    /**
+     * Builds a catalogue from Dockerfile contents keyed by Dockerfile name. Fails when a Dockerfile does not contain
+     * exactly one {@code FROM} line.
+     */
+    public static AllowedDockerImageCatalogue of(Map<String, String> dockerfiles) {
+        Map<String, Map<String, Entry>> entries = new TreeMap<>();
+        new TreeMap<>(dockerfiles).forEach((dockerfile, content) -> {
+            String image = DockerUtils.imageFromDockerfile(dockerfile, content);
+            String name = DockerUtils.getImageName(image);
+            String tag = image.length() > name.length() ? image.substring(name.length() + 1) : "";
+            entries.computeIfAbsent(name, ignored -> new TreeMap<>()).put(tag, new Entry(image, name, tag, dockerfile));
+        });
+        return new AllowedDockerImageCatalogue(entries);
+    }
+
+    /**
+     * All allowed images ({@code name:tag}), sorted by name and tag.
+     */
+    public Set<String> images() {
+        return images;
+    }
+
+    /**
+     * Allowed image names mapped to their tags.
+     */
+    public Map<String, Map<String, Entry>> byName() {
+        return entries;
+    }
+
+    /**
+     * Allowed tags of the image {@code name}, empty if no tag of it is allowed.
+     */
+    public Map<String, Entry> tagsOf(String name) {
+        return entries.getOrDefault(name, Map.of());
+    }
+
+    /**
+     * The entry allowing exactly {@code image} ({@code name:tag}).
+     */
+    public Optional<Entry> find(String image) {
+        String name = DockerUtils.getImageName(image);
+        return tagsOf(name).values().stream().filter(entry -> entry.image().equals(image)).findFirst();
+    }
+
+    public boolean isAllowed(String image) {
+        return find(image).isPresent();
+    }
+
+    /**
+     * Entries allowed by the given Dockerfiles, in catalogue order.
+     */
+    public List<Entry> fromDockerfiles(Collection<String> dockerfiles) {
+        return entries.values().stream()
+                .flatMap(tags -> tags.values().stream())
+                .filter(entry -> dockerfiles.contains(entry.dockerfile()))
+                .toList();
+    }
+}
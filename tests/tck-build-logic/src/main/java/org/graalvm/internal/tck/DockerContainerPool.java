@@ -0,0 +1,326 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Containers of allowed docker images shared by all coordinates of a test run.
+ * <p>
+ * Each pooled image is started once, on the first coordinate that lists it in {@code required-docker-images.txt},
+ * with its port published on a random local port. Its connection parameters are handed to the tests as
+ * {@code GVM_TCK_DOCKER_<KEY>_HOST}, {@code _PORT} and, for databases, {@code _USER}, {@code _PASSWORD} and
+ * {@code _DATABASE}. Before every later coordinate the database is dropped and created again. All containers carry
+ * the {@link #LABEL} label with the id of their run, the {@link #OWNER_LABEL} of the process that started them and
+ * their {@link #STARTED_LABEL} time; {@link #close()} removes the containers of this pool and {@link #reapOrphans()}
+ * those left behind by runs whose process is gone or that started more than {@link #ORPHAN_AGE} ago, so pools of
+ * runs in parallel builds are left alone.
+ * <p>
+ * Images without a {@link PooledImage} definition are not pooled; their tests keep starting their own containers.
+ * Pooled images must be in the allowed image catalogue ({@link DockerUtils#getAllowedImageCatalogue()}), like every
+ * image the tests pull.
+ */
+public final class DockerContainerPool implements AutoCloseable {
+
+    public static final String LABEL = "org.graalvm.internal.tck.container-pool";
+    public static final String OWNER_LABEL = LABEL + ".owner";
+    public static final String STARTED_LABEL = LABEL + ".started";
+    public static final Duration ORPHAN_AGE = Duration.ofHours(12);
+    public static final String ENV_PREFIX = "GVM_TCK_DOCKER_";
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final long POLL_INTERVAL_MILLIS = 500;
+
+    /**
+     * How to run, probe and reset one allowed image.
+     *
+     * @param name       image name without tag
+     * @param key        environment variable infix, e.g. {@code POSTGRES}
+     * @param port       container port published to the tests
+     * @param env        container environment
+     * @param command    command overriding the image default, or empty
+     * @param connection connection parameters exported besides host and port
+     * @param readiness  command run in the container that succeeds once it accepts connections; when empty the
+     *                   published port is probed instead
+     * @param reset      command run in the container before every coordinate but the first, or empty
+     */
+    public record PooledImage(
+            String name,
+            String key,
+            int port,
+            Map<String, String> env,
+            List<String> command,
+            Map<String, String> connection,
+            List<String> readiness,
+            List<String> reset
+    ) {
+    }
+
+    private static final String USER = "fred";
+    private static final String PASSWORD = "secret";
+    private static final String DATABASE = "test";
+    private static final Map<String, String> DATABASE_CONNECTION = Map.of("USER", USER, "PASSWORD", PASSWORD, "DATABASE", DATABASE);
+    private static final String RECREATE_MYSQL_DATABASE = "DROP DATABASE IF EXISTS " + DATABASE + "; CREATE DATABASE " + DATABASE
+            + "; GRANT ALL ON " + DATABASE + ".* TO '" + USER + "'@'%'";
+
+    static final List<PooledImage> POOLED_IMAGES = List.of(
+            new PooledImage("postgres", "POSTGRES", 5432,
+                    Map.of("POSTGRES_USER", USER, "POSTGRES_PASSWORD", PASSWORD, "POSTGRES_DB", DATABASE),
+                    List.of(), DATABASE_CONNECTION,
+                    // The init scripts run on a server that only listens on the unix socket.
+                    List.of("pg_isready", "-h", "127.0.0.1", "-U", USER, "-d", DATABASE),
+                    List.of("psql", "-U", USER, "-d", "postgres",
+                            "-c", "DROP DATABASE IF EXISTS " + DATABASE + " WITH (FORCE)", "-c", "CREATE DATABASE " + DATABASE)),
+            new PooledImage("mariadb", "MARIADB", 3306,
+                    Map.of("MARIADB_ROOT_PASSWORD", PASSWORD, "MARIADB_USER", USER, "MARIADB_PASSWORD", PASSWORD, "MARIADB_DATABASE", DATABASE),
+                    List.of(), DATABASE_CONNECTION,
+                    List.of("mariadb-admin", "ping", "-h", "127.0.0.1", "-uroot", "-p" + PASSWORD),
+                    List.of("mariadb", "-uroot", "-p" + PASSWORD, "-e", RECREATE_MYSQL_DATABASE)),
+            new PooledImage("container-registry.oracle.com/mysql/community-server", "MYSQL", 3306,
+                    Map.of("MYSQL_ROOT_PASSWORD", PASSWORD, "MYSQL_USER", USER, "MYSQL_PASSWORD", PASSWORD, "MYSQL_DATABASE", DATABASE),
+                    List.of(), DATABASE_CONNECTION,
+                    List.of("mysqladmin", "ping", "-h", "127.0.0.1", "-uroot", "-p" + PASSWORD),
+                    List.of("mysql", "-uroot", "-p" + PASSWORD, "-e", RECREATE_MYSQL_DATABASE)),
+            new PooledImage("nats", "NATS", 4222, Map.of(), List.of(), Map.of(), List.of(), List.of()),
+            new PooledImage("eclipse-mosquitto", "MOSQUITTO", 1883, Map.of(), List.of("mosquitto", "-c", "/mosquitto-no-auth.conf"),
+                    Map.of(), List.of(), List.of())
+    );
+
+    private record Container(String id, PooledImage image, Map<String, String> environment) {
+    }
+
+    private final DockerImagePuller.Docker docker;
+    private final String runId;
+    private final Consumer<String> log;
+    private final Predicate<String> allowedImage;
+    private final String owner;
+    private final Predicate<String> ownerAlive;
+    private final Clock clock;
+    private final Map<String, Container> containers = new LinkedHashMap<>();
+
+    public DockerContainerPool(DockerImagePuller.Docker docker, String runId, Consumer<String> log) {
+        this(docker, runId, log, image -> DockerUtils.getAllowedImageCatalogue().isAllowed(image), currentOwner(), DockerContainerPool::isOwnerAlive,
+                Clock.systemUTC());
+    }
+
+    DockerContainerPool(DockerImagePuller.Docker docker, String runId, Consumer<String> log, Predicate<String> allowedImage, String owner,
+                        Predicate<String> ownerAlive, Clock clock) {
+        this.docker = docker;
+        this.runId = runId;
+        this.log = log;
+        this.allowedImage = allowedImage;
+        this.owner = owner;
+        this.ownerAlive = ownerAlive;
+        this.clock = clock;
+    }
+
+    /**
+     * Pool definition of {@code image} ({@code name:tag}), if it is pooled.
+     */
+    public static Optional<PooledImage> pooledImage(String image) {
+        String name = DockerUtils.getImageName(image);
+        return POOLED_IMAGES.stream().filter(pooled -> pooled.name().equals(name)).findFirst();
+    }
+
+    /**
+     * Removes pool containers left behind by other runs whose owning process is no longer alive or that started more
+     * than {@link #ORPHAN_AGE} ago. Containers without owner labels predate them and are always removed.
+     */
+    public void reapOrphans() throws IOException {
+        String format = "{{.ID}}\t{{.Label \"" + LABEL + "\"}}\t{{.Label \"" + OWNER_LABEL + "\"}}\t{{.Label \"" + STARTED_LABEL + "\"}}";
+        DockerImagePuller.CommandResult result = docker.run(List.of("ps", "-a", "--filter", "label=" + LABEL, "--format", format));
+        if (result.exitCode() != 0) {
+            return;
+        }
+        List<String> ids = new ArrayList<>();
+        for (String line : result.output().lines().filter(line -> !line.isBlank()).toList()) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length == 4 && !fields[1].equals(runId) && isOrphan(fields[2], fields[3])) {
+                ids.add(fields[0]);
+            }
+        }
+        if (!ids.isEmpty()) {
+            log.accept("Removing " + ids.size() + " container(s) left behind by an earlier test run");
+            List<String> args = new ArrayList<>(List.of("rm", "-f"));
+            args.addAll(ids);
+            docker.run(args);
+        }
+    }
+
+    private boolean isOrphan(String containerOwner, String started) {
+        Instant startedAt;
+        try {
+            startedAt = Instant.ofEpochMilli(Long.parseLong(started));
+        } catch (NumberFormatException e) {
+            return true;
+        }
+        return !ownerAlive.test(containerOwner) || startedAt.isBefore(clock.instant().minus(ORPHAN_AGE));
+    }
+
+    /**
+     * Identifies this process as {@code <pid>:<process start millis>}, so a reused pid is not mistaken for the owner.
+     */
+    static String currentOwner() {
+        ProcessHandle process = ProcessHandle.current();
+        return process.pid() + ":" + process.info().startInstant().map(Instant::toEpochMilli).orElse(0L);
+    }
+
+    static boolean isOwnerAlive(String owner) {
+        String[] parts = owner.split(":");
+        if (parts.length != 2) {
+            return false;
+        }
+        try {
+            long pid = Long.parseLong(parts[0]);
+            long startMillis = Long.parseLong(parts[1]);
+            return ProcessHandle.of(pid)
+                    .filter(ProcessHandle::isAlive)
+                    .map(process -> startMillis == 0 || process.info().startInstant().map(Instant::toEpochMilli).orElse(startMillis) == startMillis)
+                    .orElse(false);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Makes the pooled images among {@code requiredImages} available for the next coordinate and returns the
+     * environment variables describing them. Containers that are already running are reset instead of started.
+     * Fails for a pooled image whose tag is not in the allowed image catalogue.
+     */
+    public synchronized Map<String, String> acquire(Collection<String> requiredImages) throws IOException {
+        Map<String, String> environment = new TreeMap<>();
+        for (String image : requiredImages) {
+            Optional<PooledImage> pooled = pooledImage(image);
+            if (pooled.isEmpty()) {
+                continue;
+            }
+            if (!allowedImage.test(image)) {
+                throw new IOException("Image " + image + " is not listed in allowed docker images list, so it is not started.");
+            }
+            Container container = containers.get(image);
+            if (container == null) {
+                container = start(image, pooled.get());
+                containers.put(image, container);
+            } else if (!container.image().reset().isEmpty()) {
+                exec(container, container.image().reset(), "reset");
+            }
+            environment.putAll(container.environment());
+        }
+        return environment;
+    }
+
+    /**
+     * Removes all containers started by this pool.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (containers.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>(List.of("rm", "-f"));
+        containers.values().forEach(container -> args.add(container.id()));
+        containers.clear();
+        docker.run(args);
+    }
+
+    private Container start(String image, PooledImage pooled) throws IOException {
+        log.accept("Starting pooled container for " + image);
+        List<String> args = new ArrayList<>(List.of("run", "-d",
+                "--label", LABEL + "=" + runId,
+                "--label", OWNER_LABEL + "=" + owner,
+                "--label", STARTED_LABEL + "=" + clock.millis(),
+                "-p", "127.0.0.1::" + pooled.port()));
+        new TreeMap<>(pooled.env()).forEach((name, value) -> {
+            args.add("-e");
+            args.add(name + "=" + value);
+        });
+        args.add(image);
+        args.addAll(pooled.command());
+        DockerImagePuller.CommandResult run = docker.run(args);
+        if (run.exitCode() != 0) {
+            throw new IOException("Failed to start " + image + ": " + run.diagnostics());
+        }
+        List<String> lines = run.output().strip().lines().toList();
+        String id = lines.getLast().strip();
+
+        DockerImagePuller.CommandResult port = docker.run(List.of("port", id, pooled.port() + "/tcp"));
+        if (port.exitCode() != 0 || port.output().isBlank()) {
+            docker.run(List.of("rm", "-f", id));
+            throw new IOException("Cannot find the published port of " + image + ": " + port.diagnostics());
+        }
+        String address = port.output().strip().lines().findFirst().orElseThrow();
+        String host = "localhost";
+        int hostPort = Integer.parseInt(address.substring(address.lastIndexOf(':') + 1));
+
+        Map<String, String> environment = new TreeMap<>();
+        environment.put(ENV_PREFIX + pooled.key() + "_HOST", host);
+        environment.put(ENV_PREFIX + pooled.key() + "_PORT", Integer.toString(hostPort));
+        pooled.connection().forEach((name, value) -> environment.put(ENV_PREFIX + pooled.key() + "_" + name, value));
+        Container container = new Container(id, pooled, Map.copyOf(environment));
+        awaitReady(container, image, hostPort);
+        return container;
+    }
+
+    private void awaitReady(Container container, String image, int hostPort) throws IOException {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (true) {
+            boolean ready = container.image().readiness().isEmpty()
+                    ? isListening(hostPort)
+                    : docker.run(execArgs(container, container.image().readiness())).exitCode() == 0;
+            if (ready) {
+                log.accept("Pooled container for " + image + " is ready on port " + hostPort);
+                return;
+            }
+            if (System.nanoTime() > deadline) {
+                docker.run(List.of("rm", "-f", container.id()));
+                throw new IOException(image + " did not become ready within " + STARTUP_TIMEOUT.toSeconds() + " seconds");
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for " + image, e);
+            }
+        }
+    }
+
+    private void exec(Container container, List<String> command, String purpose) throws IOException {
+        DockerImagePuller.CommandResult result = docker.run(execArgs(container, command));
+        if (result.exitCode() != 0) {
+            throw new IOException("Failed to " + purpose + " pooled container " + container.id() + ": " + result.diagnostics());
+        }
+    }
+
+    private static List<String> execArgs(Container container, List<String> command) {
+        List<String> args = new ArrayList<>(List.of("exec", container.id()));
+        args.addAll(command);
+        return args;
+    }
+
+    private static boolean isListening(int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("127.0.0.1", port), 1000);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+
+/**
+ * Pulls docker images concurrently and skips images that are already present locally at the digest the registry
+ * serves for their reference.
+ * <p>
+ * An image referenced by digest ({@code name@sha256:...}) is up to date as soon as it is present locally. For a tag,
+ * the local repo digests ({@code docker image inspect}) are compared with the digest of the tag in the registry
+ * ({@code docker buildx imagetools inspect}); if either lookup fails or its output cannot be read, the image is
+ * pulled.
+ */
+public final class DockerImagePuller {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public enum Outcome {
+        PULLED,
+        UP_TO_DATE
+    }
+
+    /**
+     * Exit code, standard output and standard error of a command. Standard error is kept apart so that warnings of
+     * the docker CLI do not end up in output that is parsed.
+     */
+    public record CommandResult(int exitCode, String output, String error) {
+        public CommandResult(int exitCode, String output) {
+            this(exitCode, output, "");
+        }
+
+        /**
+         * Text for failure messages: standard error, or the output when nothing was written to standard error.
+         */
+        public String diagnostics() {
+            return error.isBlank() ? output.strip() : error.strip();
+        }
+    }
+
+    /**
+     * Runs {@code docker} with the given arguments.
+     */
+    @FunctionalInterface
+    public interface Docker {
+        CommandResult run(List<String> args) throws IOException;
+    }
+
+    private final Docker docker;
+    private final int concurrency;
+    private final Consumer<String> log;
+
+    public DockerImagePuller(Docker docker, int concurrency, Consumer<String> log) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1, got " + concurrency);
+        }
+        this.docker = docker;
+        this.concurrency = concurrency;
+        this.log = log;
+    }
+
+    /**
+     * {@link Docker} backed by the {@code docker} executable on the path.
+     */
+    public static Docker dockerCli() {
+        return args -> {
+            List<String> command = new ArrayList<>();
+            command.add("docker");
+            command.addAll(args);
+            Process process = new ProcessBuilder(command).start();
+            FutureTask<String> error = new FutureTask<>(() -> new String(process.getErrorStream().readAllBytes(), StandardCharsets.UTF_8));
+            Thread.ofVirtual().start(error);
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            try {
+                return new CommandResult(process.waitFor(), output, error.get());
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while running " + String.join(" ", command), e);
+            } catch (ExecutionException e) {
+                throw new IOException("Failed to read the error output of " + String.join(" ", command), e.getCause());
+            }
+        };
+    }
+
+    /**
+     * Makes all {@code images} available locally, with at most {@code concurrency} pulls at the same time. Returns
+     * the outcome per image in the order of {@code images}; fails with all failed pulls listed.
+     */
+    public Map<String, Outcome> pullAll(Collection<String> images) {
+        Map<String, Future<Outcome>> pending = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(concurrency, images.size())));
+        try {
+            for (String image : images) {
+                pending.put(image, executor.submit(() -> pull(image)));
+            }
+            Map<String, Outcome> outcomes = new LinkedHashMap<>();
+            List<String> failures = new ArrayList<>();
+            for (Map.Entry<String, Future<Outcome>> entry : pending.entrySet()) {
+                try {
+                    outcomes.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause().getMessage());
+                }
+            }
+            if (!failures.isEmpty()) {
+                throw new IllegalStateException("Failed to pull docker images:\n" + String.join("\n", failures));
+            }
+            return outcomes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while pulling docker images", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Outcome pull(String image) throws IOException {
+        if (isUpToDate(image)) {
+            log.accept("Docker image " + image + " is up to date");
+            return Outcome.UP_TO_DATE;
+        }
+        log.accept("Pulling docker image " + image);
+        CommandResult result = docker.run(List.of("pull", "--quiet", image));
+        if (result.exitCode() != 0) {
+            throw new IOException(image + ": " + result.diagnostics());
+        }
+        return Outcome.PULLED;
+    }
+
+    boolean isUpToDate(String image) throws IOException {
+        Set<String> localDigests = localDigests(image);
+        if (localDigests.isEmpty()) {
+            return false;
+        }
+        int at = image.indexOf("@sha256:");
+        if (at >= 0) {
+            return localDigests.contains(image.substring(at + 1));
+        }
+        CommandResult remote = docker.run(List.of("buildx", "imagetools", "inspect", "--format", "{{.Manifest.Digest}}", image));
+        return remote.exitCode() == 0 && localDigests.contains(remote.output().strip());
+    }
+
+    private Set<String> localDigests(String image) throws IOException {
+        CommandResult result = docker.run(List.of("image", "inspect", "--format", "{{json .RepoDigests}}", image));
+        if (result.exitCode() != 0) {
+            return Set.of();
+        }
+        List<String> repoDigests;
+        try {
+            repoDigests = MAPPER.readValue(result.output().strip(), new TypeReference<>() {
+            });
+        } catch (JsonProcessingException e) {
+            log.accept("Cannot read the local digests of docker image " + image + ", pulling it: " + e.getOriginalMessage());
+            return Set.of();
+        }
+        Set<String> digests = new HashSet<>();
+        if (repoDigests != null) {
+            for (String repoDigest : repoDigests) {
+                digests.add(repoDigest.substring(repoDigest.indexOf('@') + 1));
+            }
+        }
+        return digests;
+    }
+}
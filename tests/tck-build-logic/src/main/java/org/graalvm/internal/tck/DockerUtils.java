@@ -6,19 +6,24 @@
  */
 package org.graalvm.internal.tck;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.MalformedURLException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.*;
 import java.util.*;
+import java.util.stream.Stream;
 
 public class DockerUtils {
     public static final String ALLOWED_DOCKER_IMAGES = "/allowed-docker-images";
 
+    private static final String DOCKER_DOCUMENTATION = "https://github.com/oracle/graalvm-reachability-metadata/blob/master/CONTRIBUTING.md#providing-the-tests-that-use-docker";
+
+    private static final class CatalogueHolder {
+        private static final AllowedDockerImageCatalogue CATALOGUE = loadAllowedImageCatalogue();
+    }
+
     private static URL getDockerfileDirectory() {
         URL url = DockerUtils.class.getResource(ALLOWED_DOCKER_IMAGES);
         if (url == null) {
@@ -28,62 +33,70 @@ public class DockerUtils {
         return url;
     }
 
-    public static URL getDockerFile(String name) {
-        try {
-            return new URL(getDockerfileDirectory().toString().concat("/" + name));
-        } catch (MalformedURLException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private static String imageNameFromFile(URL dockerFile) throws IOException, URISyntaxException {
+    /**
+     * Returns the image of the single {@code FROM} line of a Dockerfile.
+     */
+    public static String imageFromDockerfile(String dockerfile, String content) {
         final String FROM = "FROM";
-        List<String> images = new BufferedReader(new InputStreamReader(dockerFile.openStream()))
-                .lines()
+        List<String> images = content.lines()
                 .filter(line -> line.startsWith(FROM))
                 .map(line -> line.substring(FROM.length()).trim())
                 .toList();
         if (images.size() != 1) {
-            throw new RuntimeException("Dockerfile: " + fileNameFromJar(dockerFile) + " must contain only one FROM line, got '" + images.size() + "' (" + images + "). Please read our documentation: "
-                    + new URI("https://github.com/oracle/graalvm-reachability-metadata/blob/master/CONTRIBUTING.md#providing-the-tests-that-use-docker"));
+            throw new RuntimeException("Dockerfile: " + dockerfile + " must contain only one FROM line, got '" + images.size() + "' (" + images + "). Please read our documentation: "
+                    + URI.create(DOCKER_DOCUMENTATION));
         }
 
         return images.get(0);
     }
 
-    public static String fileNameFromJar(URL jarFile) {
-        return jarFile.toString().split("!")[1];
+    /**
+     * Returns the catalogue of allowed images of this plugin, built on first use and shared by the whole build.
+     */
+    public static AllowedDockerImageCatalogue getAllowedImageCatalogue() {
+        return CatalogueHolder.CATALOGUE;
     }
 
-    public static Set<String> extractImagesNames(List<URL> dockerFileNames) throws IOException, URISyntaxException {
-        Set<String> allowedImages = new HashSet<>();
-        for (URL dockerFile : dockerFileNames) {
-            allowedImages.add(imageNameFromFile(dockerFile));
-        }
-
-        return allowedImages;
+    public static Set<String> getAllAllowedImages() {
+        return getAllowedImageCatalogue().images();
     }
 
-    public static Set<String> getAllAllowedImages() {
-        URL url = getDockerfileDirectory();
-        try (FileSystem fs = FileSystems.newFileSystem(url.toURI(), Collections.emptyMap())) {
-            List<URL> result = Files.walk(fs.getPath(ALLOWED_DOCKER_IMAGES))
-                    .filter(Files::isRegularFile)
-                    .map(Path::toString)
-                    .map(path -> path.substring(path.lastIndexOf("/") + 1))
-                    .map(DockerUtils::getDockerFile)
-                    .toList();
-            
-            return extractImagesNames(result);
-        } catch (IOException e) {
-            throw new RuntimeException("Cannot find files in allowed-docker-images directory");
+    private static AllowedDockerImageCatalogue loadAllowedImageCatalogue() {
+        URI uri;
+        try {
+            uri = getDockerfileDirectory().toURI();
         } catch (URISyntaxException e) {
             throw new RuntimeException(e);
         }
+        if (!uri.getScheme().equals("jar")) {
+            return AllowedDockerImageCatalogue.of(readDockerfiles(Path.of(uri)));
+        }
+        try (FileSystem fs = FileSystems.newFileSystem(uri, Collections.emptyMap())) {
+            return AllowedDockerImageCatalogue.of(readDockerfiles(fs.getPath(ALLOWED_DOCKER_IMAGES)));
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot find files in allowed-docker-images directory", e);
+        }
+    }
+
+    private static Map<String, String> readDockerfiles(Path directory) {
+        Map<String, String> dockerfiles = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                dockerfiles.put(file.getFileName().toString(), Files.readString(file));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read files in allowed-docker-images directory", e);
+        }
+        return dockerfiles;
     }
 
+    /**
+     * Returns the name of {@code image} without its tag or digest.
+     */
     public static String getImageName(String imageWithVersion) {
-        return imageWithVersion.split(":")[0];
+        String reference = imageWithVersion.contains("@") ? imageWithVersion.substring(0, imageWithVersion.indexOf('@')) : imageWithVersion;
+        int colon = reference.lastIndexOf(':');
+        return colon > reference.lastIndexOf('/') ? reference.substring(0, colon) : reference;
     }
 
 }
@@ -0,0 +1,276 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.graalvm.internal.tck.utils.CanonicalJson;
+import org.graalvm.internal.tck.utils.FilesUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Scans docker images with Grype and counts their high and critical vulnerabilities.
+ * <p>
+ * Images are scanned concurrently and Grype's JSON report is parsed in-process. Results are cached in a JSON file
+ * keyed by the registry digest of the image and the version of the Grype vulnerability database, so an image is only
+ * scanned again when it or the database changed. Images are scanned by that digest, so a stale local copy of a tag
+ * cannot be scanned in place of the cached image; images whose digest cannot be determined are always scanned by
+ * their tag. The database is updated once before the scans, which then run with automatic updates disabled.
+ */
+public final class GrypeScanner {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public record Vulnerabilities(int critical, int high) {
+        @JsonIgnore
+        public boolean isVulnerable() {
+            return critical > 0 || high > 0;
+        }
+
+        public boolean isNotMoreVulnerableThan(Vulnerabilities other) {
+            return critical <= other.critical() && high <= other.high();
+        }
+    }
+
+    /**
+     * Runs {@code grype} with the given arguments; the output holds its standard output only.
+     */
+    @FunctionalInterface
+    public interface Grype {
+        DockerImagePuller.CommandResult run(List<String> args) throws IOException;
+    }
+
+    private final Grype grype;
+    private final DockerImagePuller.Docker docker;
+    private final int concurrency;
+    private final Path cacheFile;
+    private final Consumer<String> log;
+    private final Map<String, Vulnerabilities> cache = new ConcurrentHashMap<>();
+    private String databaseVersion;
+
+    public GrypeScanner(Grype grype, DockerImagePuller.Docker docker, int concurrency, Path cacheFile, Consumer<String> log) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1, got " + concurrency);
+        }
+        this.grype = grype;
+        this.docker = docker;
+        this.concurrency = concurrency;
+        this.cacheFile = cacheFile;
+        this.log = log;
+        if (cacheFile != null && Files.isRegularFile(cacheFile)) {
+            try {
+                cache.putAll(MAPPER.readValue(cacheFile.toFile(), new TypeReference<Map<String, Vulnerabilities>>() {
+                }));
+            } catch (IOException e) {
+                // An unreadable cache only costs scans.
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * {@link Grype} backed by the {@code grype} executable on the path. Its standard error is inherited. Automatic
+     * database updates are disabled, so concurrent scans do not race on updating the database; {@link #scanAll}
+     * updates it once up front.
+     */
+    public static Grype grypeCli() {
+        return args -> {
+            List<String> command = new ArrayList<>();
+            command.add("grype");
+            command.addAll(args);
+            ProcessBuilder builder = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT);
+            builder.environment().put("GRYPE_DB_AUTO_UPDATE", "false");
+            Process process = builder.start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            try {
+                return new DockerImagePuller.CommandResult(process.waitFor(), output);
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while running " + String.join(" ", command), e);
+            }
+        };
+    }
+
+    /**
+     * Counts the high and critical vulnerabilities in a Grype JSON report ({@code grype -o json}).
+     */
+    public static Vulnerabilities parse(InputStream report) throws IOException {
+        int critical = 0;
+        int high = 0;
+        try (JsonParser parser = MAPPER.getFactory().createParser(report)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Grype report is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (!field.equals("matches")) {
+                    parser.skipChildren();
+                    continue;
+                }
+                // Read the matches one at a time; the rest of the report (sources, descriptor) is skipped.
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    JsonNode match = MAPPER.readTree(parser);
+                    String severity = match.path("vulnerability").path("severity").asText("");
+                    if (severity.equalsIgnoreCase("critical")) {
+                        critical++;
+                    } else if (severity.equalsIgnoreCase("high")) {
+                        high++;
+                    }
+                }
+            }
+        }
+        return new Vulnerabilities(critical, high);
+    }
+
+    /**
+     * Scans {@code images} with at most {@code concurrency} scans at the same time and returns the result per image in
+     * the order of {@code images}. Fails with all failed scans listed.
+     */
+    public Map<String, Vulnerabilities> scanAll(Collection<String> images) {
+        Map<String, Future<Vulnerabilities>> pending = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(concurrency, images.size())));
+        try {
+            String database = databaseVersion();
+            for (String image : images) {
+                if (!pending.containsKey(image)) {
+                    pending.put(image, executor.submit(() -> scan(image, database)));
+                }
+            }
+            Map<String, Vulnerabilities> results = new LinkedHashMap<>();
+            List<String> failures = new ArrayList<>();
+            for (Map.Entry<String, Future<Vulnerabilities>> entry : pending.entrySet()) {
+                try {
+                    results.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause().getMessage());
+                }
+            }
+            if (!failures.isEmpty()) {
+                throw new IllegalStateException("Failed to scan docker images:\n" + String.join("\n", failures));
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning docker images", e);
+        } finally {
+            executor.shutdownNow();
+            save();
+        }
+    }
+
+    private Vulnerabilities scan(String image, String database) throws IOException {
+        String digest = digest(image);
+        String key = digest != null && database != null ? digest + " " + database : null;
+        if (key != null) {
+            Vulnerabilities cached = cache.get(key);
+            if (cached != null) {
+                log.accept("Using cached scan of " + image);
+                return cached;
+            }
+        }
+        String target = digest != null && !image.contains("@") ? DockerUtils.getImageName(image) + "@" + digest : image;
+        log.accept("Scanning docker image " + target);
+        DockerImagePuller.CommandResult result = grype.run(List.of("-o", "json", target));
+        if (result.exitCode() != 0) {
+            throw new IOException(image + ": grype exited with " + result.exitCode());
+        }
+        Vulnerabilities vulnerabilities;
+        try (InputStream report = new ByteArrayInputStream(result.output().getBytes(StandardCharsets.UTF_8))) {
+            vulnerabilities = parse(report);
+        } catch (IOException e) {
+            throw new IOException(image + ": cannot parse grype output: " + e.getMessage(), e);
+        }
+        if (key != null) {
+            cache.put(key, vulnerabilities);
+        }
+        return vulnerabilities;
+    }
+
+    /**
+     * Registry digest of {@code image}, or {@code null} when it cannot be determined.
+     */
+    private String digest(String image) throws IOException {
+        int at = image.indexOf("@sha256:");
+        if (at >= 0) {
+            return image.substring(at + 1);
+        }
+        DockerImagePuller.CommandResult remote = docker.run(List.of("buildx", "imagetools", "inspect", "--format", "{{.Manifest.Digest}}", image));
+        if (remote.exitCode() != 0 || !remote.output().strip().startsWith("sha256:")) {
+            return null;
+        }
+        return remote.output().strip();
+    }
+
+    /**
+     * Version of the vulnerability database after updating it, so that scans do not update it while running.
+     */
+    private synchronized String databaseVersion() {
+        if (databaseVersion != null) {
+            return databaseVersion;
+        }
+        try {
+            DockerImagePuller.CommandResult update = grype.run(List.of("db", "update"));
+            if (update.exitCode() != 0) {
+                log.accept("Updating the grype database failed with exit code " + update.exitCode() + ", scanning with the installed database");
+            }
+            DockerImagePuller.CommandResult status = grype.run(List.of("db", "status", "-o", "json"));
+            if (status.exitCode() != 0) {
+                return null;
+            }
+            JsonNode node = MAPPER.readTree(status.output());
+            String schema = node.path("schemaVersion").asText("");
+            String built = node.path("built").asText("");
+            databaseVersion = schema.isEmpty() && built.isEmpty()
+                    ? CanonicalJson.sha256(status.output().strip())
+                    : schema + "@" + built;
+            return databaseVersion;
+        } catch (IOException e) {
+            log.accept("Cannot determine the grype database version, scan results will not be cached: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Persists the cache, also after failed scans; a cache that cannot be written is only logged, so it neither fails
+     * a successful scan nor hides why a scan failed.
+     */
+    private void save() {
+        if (cacheFile == null) {
+            return;
+        }
+        try {
+            FilesUtils.writeAtomically(cacheFile, tmp -> MAPPER.writeValue(tmp.toFile(), new TreeMap<>(cache)));
+        } catch (IOException e) {
+            log.accept("Failed to persist grype scan cache " + cacheFile + ": " + e.getMessage());
+        }
+    }
+}
@@ -6,27 +6,26 @@
  */
 package org.graalvm.internal.tck;
 
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.graalvm.internal.tck.model.grype.GrypeEntry;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.options.Option;
 import org.gradle.process.ExecOperations;
 
 import javax.inject.Inject;
-import java.io.*;
-import java.net.URISyntaxException;
-import java.net.URL;
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Scans allowed docker images for high and critical vulnerabilities with {@link GrypeScanner}.
+ * <p>
+ * Without options all allowed images are scanned; with {@code --baseCommit} and {@code --newCommit} only the images
+ * changed between the two commits, which are accepted when they are not more vulnerable than the image allowed by the
+ * same Dockerfile on master. Scans run concurrently ({@code --concurrency}) and are cached in
+ * {@code build/grype-cache/scans.json} by image digest and vulnerability database version.
+ */
 @SuppressWarnings("unused")
 public abstract class GrypeTask extends DefaultTask {
 
@@ -43,37 +42,29 @@ public abstract class GrypeTask extends DefaultTask {
         this.newCommit = newCommit;
     }
 
+    @Option(option = "concurrency", description = "Maximum number of concurrent scans (default 4)")
+    void setConcurrency(String concurrency) {
+        this.concurrency = Integer.parseInt(concurrency);
+    }
+
     private String newCommit;
     private String baseCommit;
+    private int concurrency = DEFAULT_CONCURRENCY;
 
-    private static final String JQ_MATCHER = " | jq -c '.matches | .[] | .vulnerability | select(.severity | (contains(\"High\") or contains(\"Critical\")))'";
+    private static final int DEFAULT_CONCURRENCY = 4;
     private static final String DOCKERFILE_DIRECTORY = "allowed-docker-images";
 
-    private static final String HIGH_VULNERABILITY = "HIGH";
-    private static final String CRITICAL_VULNERABILITY = "CRITICAL";
-
-    private record Vulnerabilities(int critical, int high){}
-
-    private record DockerImage(String image, Vulnerabilities vulnerabilities) {
-        public String getImageName() {
-            return DockerUtils.getImageName(image);
-        }
-
-        public boolean isVulnerableImage() {
-            return vulnerabilities.critical() > 0 || vulnerabilities.high() > 0;
-        }
-
-        public boolean isNotMoreVulnerable(DockerImage other) {
-            return this.vulnerabilities.critical() <= other.vulnerabilities().critical() && this.vulnerabilities.high() <= other.vulnerabilities().high();
-        }
+    private static void printVulnerabilityStatus(String image, GrypeScanner.Vulnerabilities vulnerabilities) {
+        System.out.println("Image: " + image + " contains " + vulnerabilities.critical() + " critical and " + vulnerabilities.high() + " high vulnerabilities");
+    }
 
-        public void printVulnerabilityStatus() {
-            System.out.println("Image: " + image + " contains " + vulnerabilities.critical() + " critical and " + vulnerabilities.high() + " high vulnerabilities");
-        }
+    private GrypeScanner scanner() {
+        Path cacheFile = getProject().getLayout().getBuildDirectory().file("grype-cache/scans.json").get().getAsFile().toPath();
+        return new GrypeScanner(GrypeScanner.grypeCli(), DockerImagePuller.dockerCli(), concurrency, cacheFile, System.out::println);
     }
 
     @TaskAction
-    void run() throws IllegalStateException, IOException, URISyntaxException {
+    void run() {
         boolean scanAllAllowedImages = baseCommit == null && newCommit == null;
         if (scanAllAllowedImages) {
             scanAllImages();
@@ -86,42 +77,60 @@ public abstract class GrypeTask extends DefaultTask {
      * Re-scans all images from allowed images list
      */
     private void scanAllImages() {
-        Set<DockerImage> imagesToCheck = DockerUtils.getAllAllowedImages().stream().map(this::makeDockerImage).collect(Collectors.toSet());
-        List<DockerImage> vulnerableImages = imagesToCheck.stream().filter(DockerImage::isVulnerableImage).toList();
+        Map<String, GrypeScanner.Vulnerabilities> results = scanner().scanAll(new TreeSet<>(DockerUtils.getAllAllowedImages()));
+        Map<String, GrypeScanner.Vulnerabilities> vulnerableImages = new TreeMap<>();
+        results.forEach((image, vulnerabilities) -> {
+            if (vulnerabilities.isVulnerable()) {
+                vulnerableImages.put(image, vulnerabilities);
+            }
+        });
 
         if (!vulnerableImages.isEmpty()) {
-            vulnerableImages.forEach(DockerImage::printVulnerabilityStatus);
+            vulnerableImages.forEach(GrypeTask::printVulnerabilityStatus);
             throw new IllegalStateException("Highly vulnerable images found. Please check the list of vulnerable images provided above.");
         }
     }
 
     /**
      * Scans images that have been changed between org.graalvm.internal.tck.GrypeTask#baseCommit and org.graalvm.internal.tck.GrypeTask#newCommit.
-     * If changed images are not more vulnerable than previously allowed images, they won't be reported as vulnerable
+     * A vulnerable changed image is accepted only if it is not more vulnerable than the image its Dockerfile allows on master.
      */
-    private void scanChangedImages() throws IOException, URISyntaxException {
-        Set<DockerImage> imagesToCheck = getChangedImages().stream().map(this::makeDockerImage).collect(Collectors.toSet());
-        List<DockerImage> vulnerableImages = imagesToCheck.stream().filter(DockerImage::isVulnerableImage).toList();
+    private void scanChangedImages() {
+        GrypeScanner scanner = scanner();
+        Map<String, AllowedDockerImageCatalogue.Entry> changedImages = new TreeMap<>();
+        getChangedImages().forEach(entry -> changedImages.putIfAbsent(entry.image(), entry));
+        Map<String, GrypeScanner.Vulnerabilities> results = new HashMap<>(scanner.scanAll(changedImages.keySet()));
+        List<String> vulnerableImages = changedImages.keySet().stream()
+                .filter(image -> results.get(image).isVulnerable())
+                .toList();
 
         if (!vulnerableImages.isEmpty()) {
             int acceptedImages = 0;
-            Set<String> currentlyAllowedImages = getAllowedImagesFromMaster();
+            AllowedDockerImageCatalogue currentlyAllowedImages = getAllowedImagesFromMaster();
+
+            // get the image allowed by the same Dockerfile on master, if the Dockerfile exists there
+            Map<String, String> existingAllowedImages = new LinkedHashMap<>();
+            for (String image : vulnerableImages) {
+                String dockerfile = changedImages.get(image).dockerfile();
+                currentlyAllowedImages.fromDockerfiles(Set.of(dockerfile)).stream()
+                        .findFirst()
+                        .ifPresent(allowedImage -> existingAllowedImages.put(image, allowedImage.image()));
+            }
 
-            for (DockerImage image : vulnerableImages) {
-                image.printVulnerabilityStatus();
+            // master images that were already scanned as changed images are not scanned again
+            results.putAll(scanner.scanAll(existingAllowedImages.values().stream().filter(image -> !results.containsKey(image)).distinct().toList()));
 
-                // get allowed image with the same name, if it exists
-                Optional<String> existingAllowedImage = currentlyAllowedImages.stream()
-                        .filter(allowedImage -> DockerUtils.getImageName(allowedImage).equalsIgnoreCase(image.getImageName()))
-                        .findFirst();
+            for (String image : vulnerableImages) {
+                GrypeScanner.Vulnerabilities vulnerabilities = results.get(image);
+                printVulnerabilityStatus(image, vulnerabilities);
 
                 // check if a new image is not more vulnerable than the existing one
-                if (existingAllowedImage.isPresent()) {
-                    DockerImage imageToCompare = makeDockerImage(existingAllowedImage.get());
-                    imageToCompare.printVulnerabilityStatus();
+                String imageToCompare = existingAllowedImages.get(image);
+                if (imageToCompare != null) {
+                    printVulnerabilityStatus(imageToCompare, results.get(imageToCompare));
 
-                    if (image.isNotMoreVulnerable(imageToCompare)) {
-                        System.out.println("Accepting: " + image.image() + " because it does not have more vulnerabilities than existing: " + imageToCompare.image());
+                    if (vulnerabilities.isNotMoreVulnerableThan(results.get(imageToCompare))) {
+                        System.out.println("Accepting: " + image + " because it does not have more vulnerabilities than existing: " + imageToCompare);
                         acceptedImages++;
                     }
                 }
@@ -133,111 +142,45 @@ public abstract class GrypeTask extends DefaultTask {
         }
     }
 
-    private DockerImage makeDockerImage(String image) {
-        System.out.println("Generating info for docker image: " + image);
-        try {
-            return new DockerImage(image, getVulnerabilities(image));
-        } catch (IOException e) {
-            throw new RuntimeException("Cannot parse grype output for image: " + image + " .Reason: " + e.getMessage());
-        }
-    }
-
-    private Vulnerabilities getVulnerabilities(String image) throws IOException {
-        int numberOfHigh = 0;
-        int numberOfCritical = 0;
-        String[] command = {"-c", "grype -o json " + image + JQ_MATCHER};
-
-        // call Grype to get vulnerabilities
-        ByteArrayOutputStream execOutput = new ByteArrayOutputStream();
-        getExecOperations().exec(execSpec -> {
-            execSpec.setExecutable("/bin/sh");
-            execSpec.setArgs(List.of(command));
-            execSpec.setStandardOutput(execOutput);
-        });
-
-        // parse Grype output
-        ByteArrayInputStream inputStream = new ByteArrayInputStream(execOutput.toByteArray());
-        ObjectMapper mapper = new ObjectMapper();
-        JsonFactory factory = mapper.getFactory();
-        try (JsonParser parser = factory.createParser(inputStream)) {
-            while (!parser.isClosed()) {
-                if (parser.nextToken() == null) {
-                    break;
-                }
-
-                if (parser.currentToken() != com.fasterxml.jackson.core.JsonToken.START_OBJECT) {
-                    continue;
-                }
-
-                GrypeEntry vuln = mapper.readValue(parser, GrypeEntry.class);
-                if (vuln.severity.equalsIgnoreCase(CRITICAL_VULNERABILITY)) {
-                    numberOfCritical++;
-                }
-
-                if (vuln.severity.equalsIgnoreCase(HIGH_VULNERABILITY)) {
-                    numberOfHigh++;
-                }
-            }
-        }
-
-        return new Vulnerabilities(numberOfCritical, numberOfHigh);
-    }
-
     /**
-     * Get all docker images introduced between two commits
+     * Get the allowed image entries of all Dockerfiles changed or introduced between two commits
      */
-    private Set<String> getChangedImages() throws IOException, URISyntaxException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        getExecOperations().exec(spec -> {
-            spec.setStandardOutput(outputStream);
-            spec.commandLine("git", "diff", "--name-only", "--diff-filter=ACMRT", baseCommit, newCommit);
-        });
-
-        String output = outputStream.toString(StandardCharsets.UTF_8);
-        List<URL> diffFiles = Arrays.stream(output.split("\\r?\\n"))
+    private List<AllowedDockerImageCatalogue.Entry> getChangedImages() {
+        String output = git("diff", "--name-only", "--diff-filter=ACMRT", baseCommit, newCommit);
+        Set<String> diffFiles = Arrays.stream(output.split("\\r?\\n"))
                 .filter(path -> path.contains(DOCKERFILE_DIRECTORY))
                 .map(path -> path.substring(path.lastIndexOf("/") + 1))
-                .map(DockerUtils::getDockerFile)
-                .toList();
+                .collect(Collectors.toSet());
 
         if (diffFiles.isEmpty()) {
             throw new RuntimeException("There are no changed or new docker image founded. " +
                     "This task should be executed only if there are changes in allowed-docker-images directory.");
         }
 
-        return DockerUtils.extractImagesNames(diffFiles);
+        return DockerUtils.getAllowedImageCatalogue().fromDockerfiles(diffFiles);
     }
 
     /**
-     * Return all allowed docker images from master branch
+     * Return the catalogue of allowed docker images on the master branch
      */
-    private Set<String> getAllowedImagesFromMaster() throws URISyntaxException, IOException {
-        URL url = GrypeTask.class.getResource(DockerUtils.ALLOWED_DOCKER_IMAGES);
-        if (url == null) {
-            throw new RuntimeException("Cannot find allowed-docker-images directory");
-        }
-
-        Set<String> allowedImages = new HashSet<>();
-        try (FileSystem fs = FileSystems.newFileSystem(url.toURI(), Collections.emptyMap())) {
-            List<String> files = Files.walk(fs.getPath(DockerUtils.ALLOWED_DOCKER_IMAGES))
-                    .filter(Files::isRegularFile)
-                    .map(Path::toString)
-                    .map(path -> path.substring(path.lastIndexOf("/") + 1))
-                    .map(DockerUtils::getDockerFile)
-                    .map(DockerUtils::fileNameFromJar)
-                    .toList();
-
-            for (String file : files) {
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                getExecOperations().exec(spec -> {
-                    spec.setStandardOutput(baos);
-                    spec.commandLine("git", "show", "origin/master:tests/tck-build-logic/src/main/resources" + file);
-                });
-
-                allowedImages.add(baos.toString());
+    private AllowedDockerImageCatalogue getAllowedImagesFromMaster() {
+        String directory = "origin/master:tests/tck-build-logic/src/main/resources" + DockerUtils.ALLOWED_DOCKER_IMAGES + "/";
+        Map<String, String> dockerfiles = new TreeMap<>();
+        for (String file : git("ls-tree", "--name-only", directory).split("\\r?\\n")) {
+            if (!file.isBlank()) {
+                dockerfiles.put(file, git("show", directory + file));
             }
         }
+        return AllowedDockerImageCatalogue.of(dockerfiles);
+    }
 
-        return allowedImages.stream().map(line -> line.substring("FROM".length()).trim()).collect(Collectors.toSet());
+    private String git(String... args) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        getExecOperations().exec(spec -> {
+            spec.setStandardOutput(outputStream);
+            spec.executable("git");
+            spec.args((Object[]) args);
+        });
+        return outputStream.toString(StandardCharsets.UTF_8);
     }
 }
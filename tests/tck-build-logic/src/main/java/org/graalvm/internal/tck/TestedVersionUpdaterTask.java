@@ -29,6 +29,8 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -98,20 +100,35 @@ public abstract class TestedVersionUpdaterTask extends DefaultTask {
 
     @TaskAction
     void run() throws IllegalStateException, IOException {
-        File coordinatesMetadataIndex = getIndexFile().get().getAsFile();
-        String newVersion = getNewVersion().get();
+        addTestedVersions(getIndexFile().get().getAsFile().toPath(), getLastSupportedVersion().get(), List.of(getNewVersion().get()));
+    }
+
+    /**
+     * Adds all {@code newVersions} to the entries that list {@code lastSupportedVersion} with a single read and write
+     * of {@code index.json}. Versions are added in ascending order, each one to the entries of the previously added
+     * version, so pre-release cleanup of one version does not hide the entry from the next.
+     */
+    public static void addTestedVersions(Path indexFile, String lastSupportedVersion, Collection<String> newVersions) throws IOException {
+        File coordinatesMetadataIndex = indexFile.toFile();
         ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).setSerializationInclusion(JsonInclude.Include.NON_NULL);
 
+        List<String> sortedVersions = new ArrayList<>(newVersions);
+        sortedVersions.sort(Comparator.comparing(VersionNumber::parse));
+
         List<MetadataVersionsIndexEntry> entries = objectMapper.readValue(coordinatesMetadataIndex, new TypeReference<>() {});
-        for (int i = 0; i < entries.size(); i++) {
-            MetadataVersionsIndexEntry entry = entries.get(i);
+        String previousVersion = lastSupportedVersion;
+        for (String newVersion : sortedVersions) {
+            for (int i = 0; i < entries.size(); i++) {
+                MetadataVersionsIndexEntry entry = entries.get(i);
 
-            if (entry.testedVersions().contains(getLastSupportedVersion().get())) {
-                entry.testedVersions().add(newVersion);
-                entry.testedVersions().sort(Comparator.comparing(VersionNumber::parse));
+                if (entry.testedVersions().contains(previousVersion) && !entry.testedVersions().contains(newVersion)) {
+                    entry.testedVersions().add(newVersion);
+                    entry.testedVersions().sort(Comparator.comparing(VersionNumber::parse));
 
-                entries.set(i, handlePreReleases(entry, newVersion, coordinatesMetadataIndex.toPath().getParent(), entries));
+                    entries.set(i, handlePreReleases(entry, newVersion, coordinatesMetadataIndex.toPath().getParent(), entries));
+                }
             }
+            previousVersion = newVersion;
         }
 
         DefaultPrettyPrinter prettyPrinter = new DefaultPrettyPrinter();
@@ -139,7 +156,7 @@ public abstract class TestedVersionUpdaterTask extends DefaultTask {
      *   <li>Version parsing follows {@link #VERSION_PATTERN} and treats ".Final" and ".RELEASE" as a base version.</li>
      * </ul>
      */
-    private MetadataVersionsIndexEntry handlePreReleases(MetadataVersionsIndexEntry entry, String newVersion, Path baseDir, List<MetadataVersionsIndexEntry> entries) throws IOException {
+    private static MetadataVersionsIndexEntry handlePreReleases(MetadataVersionsIndexEntry entry, String newVersion, Path baseDir, List<MetadataVersionsIndexEntry> entries) throws IOException {
         Matcher versionMatcher = VERSION_PATTERN.matcher(newVersion);
         if (!versionMatcher.matches()) return entry; // skip invalid formats
 
@@ -197,7 +214,7 @@ public abstract class TestedVersionUpdaterTask extends DefaultTask {
      *   </li>
      * </ol>
      */
-    private void updateTests(Path metadataBaseDir, MetadataVersionsIndexEntry entry, String oldVersion, String newVersion) throws IOException {
+    private static void updateTests(Path metadataBaseDir, MetadataVersionsIndexEntry entry, String oldVersion, String newVersion) throws IOException {
         // metadataBaseDir points to metadata/<group>/<artifact>
         String artifact = metadataBaseDir.getFileName().toString();
         String group = metadataBaseDir.getParent().getFileName().toString();
@@ -216,7 +233,7 @@ public abstract class TestedVersionUpdaterTask extends DefaultTask {
     /**
      * Updates {@code gradle.properties} inside a given test directory to reflect the new version.
      */
-    private void updateGradleProperties(Path testDir, String group, String artifact, MetadataVersionsIndexEntry entry, String newVersion) throws IOException {
+    private static void updateGradleProperties(Path testDir, String group, String artifact, MetadataVersionsIndexEntry entry, String newVersion) throws IOException {
         Path gradleProps = testDir.resolve("gradle.properties");
         if (!Files.exists(gradleProps)) return;
 
@@ -235,7 +252,7 @@ public abstract class TestedVersionUpdaterTask extends DefaultTask {
      * (which was a pre-release) as their 'test-version' override, and updates it to the new
      * full-release version if a match is found.
      */
-    private void updateDependentTestVersions(String oldTestVersion, String newTestVersion, List<MetadataVersionsIndexEntry> entries) {
+    private static void updateDependentTestVersions(String oldTestVersion, String newTestVersion, List<MetadataVersionsIndexEntry> entries) {
         for (int i = 0; i < entries.size(); i++) {
             MetadataVersionsIndexEntry entry = entries.get(i);
 
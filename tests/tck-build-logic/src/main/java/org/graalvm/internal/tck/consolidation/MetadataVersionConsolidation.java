@@ -0,0 +1,324 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.consolidation;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.util.DefaultIndenter;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.graalvm.internal.tck.model.MetadataVersionsIndexEntry;
+import org.graalvm.internal.tck.model.SkippedVersionEntry;
+import org.graalvm.internal.tck.utils.CanonicalJson;
+import org.graalvm.internal.tck.utils.IsolatedTestWorkspace;
+import org.graalvm.internal.tck.utils.ReachabilityMetadataFiles;
+import org.gradle.util.internal.VersionNumber;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Finds and merges adjacent metadata versions of an artifact whose metadata is semantically identical.
+ * <p>
+ * Metadata directories are compared in canonical form: JSON object keys are sorted and the entries of each
+ * top-level section of {@code reachability-metadata.json} are compared as a set, so reordering entries or keys does
+ * not make two versions different. Versions are walked in ascending {@code metadata-version} order; a version that is
+ * equivalent to the preceding kept version is merged into it:
+ * <ul>
+ *   <li>its {@code tested-versions} (and {@code skipped-versions}) move into the older entry,</li>
+ *   <li>{@code latest} and {@code default-for} are carried over to the older entry,</li>
+ *   <li>its metadata directory is deleted and its index entry removed.</li>
+ * </ul>
+ * Because the merged versions were below the metadata version that follows the removed one, the older entry keeps
+ * satisfying the rule checked by {@code validateIndexFiles}: every tested version is lower than the next
+ * {@code metadata-version}.
+ * <p>
+ * Equivalent versions are not merged when their index entries disagree on the test project, {@code allowed-packages},
+ * {@code requires} or {@code override}; they are reported with the reason instead.
+ */
+public final class MetadataVersionConsolidation {
+
+    private static final String INDEX_FILE = "index.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    /**
+     * Two adjacent metadata versions with equivalent content. {@code blocker} is null when the newer version can be
+     * merged into the older one.
+     */
+    public record Proposal(
+            String group,
+            String artifact,
+            String keptVersion,
+            String mergedVersion,
+            List<String> movedTestedVersions,
+            String blocker
+    ) {
+        public boolean mergeable() {
+            return blocker == null;
+        }
+
+        public String coordinates() {
+            return group + ":" + artifact;
+        }
+    }
+
+    private MetadataVersionConsolidation() {
+    }
+
+    /**
+     * Lists the merges that {@link #apply(Path, String, String)} would perform, including blocked ones.
+     */
+    public static List<Proposal> propose(Path metadataRoot, String group, String artifact) throws IOException {
+        Path artifactDir = metadataRoot.resolve(group).resolve(artifact);
+        return plan(artifactDir, group, artifact, readIndex(artifactDir)).proposals();
+    }
+
+    /**
+     * Performs all unblocked merges for an artifact: rewrites {@code index.json} and deletes the merged metadata
+     * directories. Returns all proposals; the unblocked ones have been applied.
+     */
+    public static List<Proposal> apply(Path metadataRoot, String group, String artifact) throws IOException {
+        Path artifactDir = metadataRoot.resolve(group).resolve(artifact);
+        List<MetadataVersionsIndexEntry> entries = readIndex(artifactDir);
+        Plan plan = plan(artifactDir, group, artifact, entries);
+        if (plan.proposals().stream().noneMatch(Proposal::mergeable)) {
+            return plan.proposals();
+        }
+
+        List<String> violations = orderingViolations(plan.entries());
+        if (!violations.isEmpty()) {
+            throw new IllegalStateException("Consolidating " + group + ":" + artifact + " would violate the tested-versions ordering: "
+                    + String.join("; ", violations));
+        }
+        writeIndex(artifactDir.resolve(INDEX_FILE), plan.entries());
+        for (Proposal proposal : plan.proposals()) {
+            if (proposal.mergeable()) {
+                IsolatedTestWorkspace.deleteRecursively(artifactDir.resolve(proposal.mergedVersion()));
+            }
+        }
+        return plan.proposals();
+    }
+
+    private record Plan(List<MetadataVersionsIndexEntry> entries, List<Proposal> proposals) {
+    }
+
+    private static Plan plan(Path artifactDir, String group, String artifact, List<MetadataVersionsIndexEntry> entries) throws IOException {
+        List<MetadataVersionsIndexEntry> ascending = entries.stream()
+                .filter(entry -> entry.metadataVersion() != null && Files.isDirectory(artifactDir.resolve(entry.metadataVersion())))
+                .sorted(Comparator.comparing(entry -> VersionNumber.parse(entry.metadataVersion())))
+                .toList();
+
+        List<MetadataVersionsIndexEntry> result = new ArrayList<>(entries);
+        List<Proposal> proposals = new ArrayList<>();
+        MetadataVersionsIndexEntry kept = null;
+        String keptDigest = null;
+        for (MetadataVersionsIndexEntry entry : ascending) {
+            String digest = contentDigest(artifactDir.resolve(entry.metadataVersion()));
+            if (kept == null || !digest.equals(keptDigest)) {
+                kept = entry;
+                keptDigest = digest;
+                continue;
+            }
+
+            String blocker = blocker(kept, entry);
+            proposals.add(new Proposal(group, artifact, kept.metadataVersion(), entry.metadataVersion(),
+                    List.copyOf(entry.testedVersions()), blocker));
+            if (blocker == null) {
+                MetadataVersionsIndexEntry merged = merge(kept, entry);
+                result.set(result.indexOf(kept), merged);
+                result.remove(entry);
+                kept = merged;
+            } else {
+                // The newer entry stays, so later versions have to be compared against it.
+                kept = entry;
+            }
+        }
+        return new Plan(result, proposals);
+    }
+
+    private static String blocker(MetadataVersionsIndexEntry older, MetadataVersionsIndexEntry newer) {
+        if (!testVersion(older).equals(testVersion(newer))) {
+            return "uses a different test project (" + testVersion(newer) + " instead of " + testVersion(older) + ")";
+        }
+        if (!Objects.equals(asSet(older.allowedPackages()), asSet(newer.allowedPackages()))) {
+            return "declares different allowed-packages";
+        }
+        if (!Objects.equals(asSet(older.requires()), asSet(newer.requires()))) {
+            return "declares different requires";
+        }
+        if (!Objects.equals(Boolean.TRUE.equals(older.override()), Boolean.TRUE.equals(newer.override()))) {
+            return "declares a different override";
+        }
+        return null;
+    }
+
+    private static MetadataVersionsIndexEntry merge(MetadataVersionsIndexEntry older, MetadataVersionsIndexEntry newer) {
+        Set<String> testedVersions = new LinkedHashSet<>(older.testedVersions());
+        testedVersions.addAll(newer.testedVersions());
+        List<String> sortedTestedVersions = new ArrayList<>(testedVersions);
+        sortedTestedVersions.sort(Comparator.comparing(VersionNumber::parse));
+
+        boolean latest = Boolean.TRUE.equals(older.latest()) || Boolean.TRUE.equals(newer.latest());
+        return new MetadataVersionsIndexEntry(
+                latest ? Boolean.TRUE : null,
+                older.override(),
+                mergeDefaultFor(older.defaultFor(), newer.defaultFor()),
+                older.metadataVersion(),
+                older.testVersion(),
+                older.sourceCodeUrl(),
+                older.repositoryUrl(),
+                older.testCodeUrl(),
+                older.documentationUrl(),
+                sortedTestedVersions,
+                mergeSkippedVersions(older.skippedVersions(), newer.skippedVersions()),
+                older.allowedPackages(),
+                older.requires()
+        );
+    }
+
+    /**
+     * Combines two {@code default-for} patterns into one that matches the versions of both.
+     */
+    static String mergeDefaultFor(String older, String newer) {
+        if (older == null || older.equals(newer)) {
+            return newer == null ? older : newer;
+        }
+        if (newer == null) {
+            return older;
+        }
+        return older + "|" + newer;
+    }
+
+    private static List<SkippedVersionEntry> mergeSkippedVersions(List<SkippedVersionEntry> older, List<SkippedVersionEntry> newer) {
+        if (older == null && newer == null) {
+            return null;
+        }
+        Map<String, SkippedVersionEntry> byVersion = new LinkedHashMap<>();
+        Stream.concat(Stream.ofNullable(older).flatMap(List::stream), Stream.ofNullable(newer).flatMap(List::stream))
+                .forEach(skipped -> byVersion.putIfAbsent(skipped.version(), skipped));
+        return new ArrayList<>(byVersion.values());
+    }
+
+    /**
+     * Violations of "every tested version is lower than the next higher metadata-version", as enforced by
+     * {@code validateIndexFiles}.
+     */
+    static List<String> orderingViolations(List<MetadataVersionsIndexEntry> entries) {
+        List<VersionNumber> metadataVersions = entries.stream()
+                .map(MetadataVersionsIndexEntry::metadataVersion)
+                .filter(Objects::nonNull)
+                .map(VersionNumber::parse)
+                .sorted()
+                .toList();
+        List<String> violations = new ArrayList<>();
+        for (MetadataVersionsIndexEntry entry : entries) {
+            if (entry.metadataVersion() == null || entry.testedVersions() == null) {
+                continue;
+            }
+            VersionNumber metadataVersion = VersionNumber.parse(entry.metadataVersion());
+            VersionNumber next = metadataVersions.stream().filter(v -> v.compareTo(metadataVersion) > 0).findFirst().orElse(null);
+            if (next == null) {
+                continue;
+            }
+            for (String testedVersion : entry.testedVersions()) {
+                if (VersionNumber.parse(testedVersion).compareTo(next) >= 0) {
+                    violations.add(testedVersion + " under " + entry.metadataVersion() + " is not lower than " + next);
+                }
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Digest of the canonical form of a metadata directory.
+     */
+    static String contentDigest(Path metadataDir) throws IOException {
+        Map<String, String> canonicalFiles = new TreeMap<>();
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(metadataDir)) {
+            files = stream.filter(Files::isRegularFile).toList();
+        }
+        for (Path file : files) {
+            String relativePath = metadataDir.relativize(file).toString().replace('\\', '/');
+            canonicalFiles.put(relativePath, canonicalContent(file));
+        }
+        StringBuilder digest = new StringBuilder();
+        canonicalFiles.forEach((path, content) -> digest.append(path).append('\0').append(content).append('\n'));
+        return CanonicalJson.sha256(digest.toString());
+    }
+
+    private static String canonicalContent(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        if (!fileName.endsWith(".json")) {
+            return CanonicalJson.sha256(Files.readAllBytes(file));
+        }
+        JsonNode json;
+        try {
+            json = ReachabilityMetadataFiles.read(file);
+        } catch (IOException e) {
+            return CanonicalJson.sha256(Files.readAllBytes(file));
+        }
+        if (!fileName.equals(ReachabilityMetadataFiles.FILE_NAME) || json == null || !json.isObject()) {
+            return CanonicalJson.toCanonicalString(json);
+        }
+
+        // Entry order within a section carries no meaning, so sections are compared as sets of canonical entries.
+        Map<String, Object> sections = new TreeMap<>();
+        json.fields().forEachRemaining(section -> {
+            if (section.getValue().isArray()) {
+                Set<String> sectionEntries = new TreeSet<>();
+                section.getValue().forEach(entry -> sectionEntries.add(CanonicalJson.toCanonicalString(entry)));
+                sections.put(section.getKey(), sectionEntries);
+            } else {
+                sections.put(section.getKey(), CanonicalJson.toCanonicalString(section.getValue()));
+            }
+        });
+        return sections.toString();
+    }
+
+    private static String testVersion(MetadataVersionsIndexEntry entry) {
+        return entry.testVersion() != null ? entry.testVersion() : entry.metadataVersion();
+    }
+
+    private static Set<String> asSet(List<String> values) {
+        return values == null ? Set.of() : new TreeSet<>(values);
+    }
+
+    private static List<MetadataVersionsIndexEntry> readIndex(Path artifactDir) throws IOException {
+        return MAPPER.readValue(artifactDir.resolve(INDEX_FILE).toFile(), new TypeReference<>() {
+        });
+    }
+
+    private static void writeIndex(Path indexFile, List<MetadataVersionsIndexEntry> entries) throws IOException {
+        DefaultPrettyPrinter prettyPrinter = new DefaultPrettyPrinter();
+        prettyPrinter.indentArraysWith(DefaultIndenter.SYSTEM_LINEFEED_INSTANCE);
+
+        String json = MAPPER.writer(prettyPrinter).writeValueAsString(entries);
+        if (!json.endsWith("\n")) {
+            json = json + System.lineSeparator();
+        }
+        Files.writeString(indexFile, json, StandardCharsets.UTF_8);
+    }
+}
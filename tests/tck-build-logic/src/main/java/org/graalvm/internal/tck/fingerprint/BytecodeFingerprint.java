@@ -0,0 +1,210 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.fingerprint;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.graalvm.internal.tck.utils.CanonicalJson;
+import org.graalvm.internal.tck.utils.ClassFileSummary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Fingerprint of the parts of a library JAR that reachability metadata depends on.
+ * <p>
+ * The fingerprint is a SHA-256 over sorted, normalized lines describing:
+ * <ul>
+ *     <li>the declared shape of every class: name, supertypes and non-synthetic fields and methods with their access
+ *     flags. Private members are included because metadata can register them;</li>
+ *     <li>reflective call sites: for every class that references a reflection, resource, proxy, service loading or
+ *     serialization API, the referenced APIs and the string constants of that class (class, member and resource
+ *     names usually are such constants);</li>
+ *     <li>resource names, and the content of {@code META-INF/services} and {@code META-INF/native-image} files;</li>
+ *     <li>optionally, the call sites recorded by {@code -H:TrackDynamicAccess} (see
+ *     {@link org.graalvm.internal.tck.utils.DynamicAccessUtils}), without line numbers.</li>
+ * </ul>
+ * Manifests, signatures, {@code META-INF/maven} descriptors and method bodies that do not use reflective APIs do
+ * not contribute, so versions that differ only there get the same fingerprint.
+ */
+public final class BytecodeFingerprint {
+
+    private static final Pattern DYNAMIC_ACCESS_REPORT = Pattern.compile("(.+)-calls\\.json");
+
+    private static final Pattern FRAME_PATTERN = Pattern.compile("^(.+)\\.([^.(]+|<init>|<clinit>)\\(([^:()]+)(?::(\\d+))?\\)$");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Access flags that matter for metadata: visibility, static, final, interface, abstract, annotation and enum.
+     */
+    private static final int CLASS_ACCESS_MASK = 0x6611;
+
+    /**
+     * Access flags that matter for metadata: visibility, static, final, native and abstract.
+     */
+    private static final int MEMBER_ACCESS_MASK = 0x051F;
+
+    /**
+     * Owners and names of methods whose use makes a class a reflective call site.
+     */
+    static final Map<String, Set<String>> REFLECTIVE_APIS = Map.of(
+            "java/lang/Class", Set.of("forName", "newInstance", "getMethod", "getMethods", "getDeclaredMethod", "getDeclaredMethods",
+                    "getField", "getFields", "getDeclaredField", "getDeclaredFields", "getConstructor", "getConstructors",
+                    "getDeclaredConstructor", "getDeclaredConstructors", "getClasses", "getDeclaredClasses",
+                    "getRecordComponents", "getPermittedSubclasses", "getNestMembers", "getResource", "getResourceAsStream"),
+            "java/lang/ClassLoader", Set.of("loadClass", "getResource", "getResources", "getResourceAsStream",
+                    "getSystemResource", "getSystemResources", "getSystemResourceAsStream"),
+            "java/lang/invoke/MethodHandles$Lookup", Set.of("findClass", "findVirtual", "findStatic", "findSpecial", "findConstructor",
+                    "findGetter", "findSetter", "findStaticGetter", "findStaticSetter", "findVarHandle"),
+            "java/lang/reflect/Proxy", Set.of("newProxyInstance", "getProxyClass"),
+            "java/lang/reflect/Array", Set.of("newInstance"),
+            "java/util/ServiceLoader", Set.of("load", "loadInstalled"),
+            "java/util/ResourceBundle", Set.of("getBundle"),
+            "java/io/ObjectInputStream", Set.of("readObject"),
+            "java/io/ObjectOutputStream", Set.of("writeObject"),
+            "java/lang/foreign/Linker", Set.of("downcallHandle", "upcallStub")
+    );
+
+    private BytecodeFingerprint() {
+    }
+
+    /**
+     * Fingerprint of {@code jars}, optionally including the call sites in the {@code *-calls.json} reports under
+     * {@code dynamicAccessReports} (ignored when null or missing).
+     */
+    public static String of(Collection<Path> jars, Path dynamicAccessReports) throws IOException {
+        return CanonicalJson.sha256(String.join("\n", canonicalLines(jars, dynamicAccessReports)));
+    }
+
+    /**
+     * Sorted lines the fingerprint is computed from; useful to see why two versions differ.
+     */
+    public static List<String> canonicalLines(Collection<Path> jars, Path dynamicAccessReports) throws IOException {
+        Set<String> lines = new TreeSet<>();
+        Set<String> classNames = new TreeSet<>();
+        for (Path jar : jars) {
+            try (ZipFile zip = new ZipFile(jar.toFile())) {
+                for (ZipEntry entry : zip.stream().toList()) {
+                    if (!entry.isDirectory()) {
+                        addEntry(zip, entry, lines, classNames);
+                    }
+                }
+            }
+        }
+        if (dynamicAccessReports != null && Files.isDirectory(dynamicAccessReports)) {
+            addDynamicAccessCallSites(dynamicAccessReports, classNames, lines);
+        }
+        return List.copyOf(lines);
+    }
+
+    private static void addEntry(ZipFile zip, ZipEntry entry, Set<String> lines, Set<String> classNames) throws IOException {
+        String name = entry.getName();
+        if (isIgnored(name)) {
+            return;
+        }
+        if (!name.endsWith(".class")) {
+            lines.add("resource " + name);
+            if (name.startsWith("META-INF/services/") || name.startsWith("META-INF/native-image/")) {
+                lines.add("resource-content " + name + " " + CanonicalJson.sha256(read(zip, entry)));
+            }
+            return;
+        }
+        byte[] bytes = read(zip, entry);
+        ClassFileSummary summary;
+        ClassFileSummary.References references;
+        try {
+            summary = ClassFileSummary.parse(bytes);
+            references = ClassFileSummary.references(bytes);
+        } catch (IOException e) {
+            // Not a class file we can read, e.g. a stripped stub; its bytes are all we can compare.
+            lines.add("unreadable-class " + name + " " + CanonicalJson.sha256(bytes));
+            return;
+        }
+        String prefix = name.startsWith("META-INF/versions/") ? name.substring(0, name.indexOf('/', "META-INF/versions/".length()) + 1) : "";
+        String className = prefix + summary.name();
+        classNames.add(summary.className());
+
+        lines.add("class " + className + " " + Integer.toHexString(summary.access() & CLASS_ACCESS_MASK)
+                + " extends " + summary.superName() + " implements " + new TreeSet<>(summary.interfaces()));
+        for (ClassFileSummary.Member field : summary.fields()) {
+            if (!field.isSynthetic()) {
+                lines.add("field " + className + "." + field.name() + " " + field.descriptor() + " " + Integer.toHexString(field.access() & MEMBER_ACCESS_MASK));
+            }
+        }
+        for (ClassFileSummary.Member method : summary.methods()) {
+            if (!method.isSynthetic()) {
+                lines.add("method " + className + "." + method.name() + method.descriptor() + " " + Integer.toHexString(method.access() & MEMBER_ACCESS_MASK));
+            }
+        }
+
+        Set<String> reflectiveCalls = new TreeSet<>();
+        for (ClassFileSummary.MethodReference method : references.methods()) {
+            if (REFLECTIVE_APIS.getOrDefault(method.owner(), Set.of()).contains(method.name())) {
+                reflectiveCalls.add(method.owner() + "." + method.name());
+            }
+        }
+        if (!reflectiveCalls.isEmpty()) {
+            lines.add("reflective-calls " + className + " " + reflectiveCalls + " " + CanonicalJson.sha256(String.join("\n", new TreeSet<>(references.strings()))));
+        }
+    }
+
+    private static boolean isIgnored(String name) {
+        if (name.equals("META-INF/MANIFEST.MF") || name.equals("META-INF/INDEX.LIST") || name.startsWith("META-INF/maven/")) {
+            return true;
+        }
+        if (name.startsWith("META-INF/") && name.indexOf('/', "META-INF/".length()) < 0) {
+            String upper = name.toUpperCase();
+            return upper.endsWith(".SF") || upper.endsWith(".RSA") || upper.endsWith(".DSA") || upper.endsWith(".EC");
+        }
+        return false;
+    }
+
+    private static void addDynamicAccessCallSites(Path reports, Set<String> classNames, Set<String> lines) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(reports)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(path -> DYNAMIC_ACCESS_REPORT.matcher(path.getFileName().toString()).matches())
+                    .toList();
+        }
+        for (Path file : files) {
+            Matcher report = DYNAMIC_ACCESS_REPORT.matcher(file.getFileName().toString());
+            if (!report.matches()) {
+                continue;
+            }
+            Map<String, List<String>> calls = MAPPER.readValue(file.toFile(), new TypeReference<>() {
+            });
+            for (Map.Entry<String, List<String>> call : calls.entrySet()) {
+                for (String frame : call.getValue()) {
+                    Matcher matcher = FRAME_PATTERN.matcher(frame);
+                    // Only call sites in the library itself; line numbers shift with unrelated changes.
+                    if (matcher.matches() && classNames.contains(matcher.group(1))) {
+                        lines.add("dynamic-access " + report.group(1) + " " + call.getKey() + " " + matcher.group(1) + "." + matcher.group(2));
+                    }
+                }
+            }
+        }
+    }
+
+    private static byte[] read(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream in = zip.getInputStream(entry)) {
+            return in.readAllBytes();
+        }
+    }
+}
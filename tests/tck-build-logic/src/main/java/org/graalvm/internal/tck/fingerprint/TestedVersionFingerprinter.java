@@ -0,0 +1,169 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.fingerprint;
+
+import org.graalvm.internal.tck.graph.DependencyGraph;
+import org.graalvm.internal.tck.graph.GradleDependencyGraphResolver;
+import org.graalvm.internal.tck.index.ArtifactVersionIndex;
+import org.graalvm.internal.tck.model.MetadataVersionsIndexEntry;
+import org.graalvm.internal.tck.utils.CanonicalJson;
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Computes {@link VersionFingerprints} for tested coordinates and selects the versions that have to be tested.
+ * <p>
+ * The fingerprint of a version combines the {@link BytecodeFingerprint} of its JAR, resolved without dependencies,
+ * with its dependency graph from {@link GradleDependencyGraphResolver}. Released artifacts do not change, so the
+ * fingerprints of versions found in an earlier {@code fingerprints.json} below the output directory are reused.
+ */
+public final class TestedVersionFingerprinter {
+
+    /**
+     * Output directory of the fingerprints, relative to the build directory.
+     */
+    public static final String DEFAULT_OUTPUT_DIR = "tested-version-fingerprints";
+
+    private final Project project;
+    private final Path metadataRoot;
+    private final Path outputDir;
+
+    public TestedVersionFingerprinter(Project project, Path metadataRoot, Path outputDir) {
+        this.project = project;
+        this.metadataRoot = metadataRoot;
+        this.outputDir = outputDir;
+    }
+
+    /**
+     * Fingerprints {@code coordinates}, writes the result of every library below the output directory and returns the
+     * results keyed by {@code group:artifact}. When {@code dynamicAccessReports} is set, the reports in
+     * {@code <dynamicAccessReports>/<group>/<artifact>/<version>} are part of the fingerprint and no earlier results are
+     * reused.
+     */
+    public Map<String, VersionFingerprints> fingerprint(List<String> coordinates, Path dynamicAccessReports) {
+        // library -> metadata version -> tested version -> fingerprint
+        Map<String, Map<String, Map<String, String>>> fingerprints = new TreeMap<>();
+        Map<String, VersionFingerprints> previous = new LinkedHashMap<>();
+        for (String coordinate : coordinates) {
+            String[] gav = coordinate.split(":");
+            String library = gav[0] + ":" + gav[1];
+            MetadataVersionsIndexEntry entry = ArtifactVersionIndex.load(metadataRoot, gav[0], gav[1]).findTested(gav[2])
+                    .orElseThrow(() -> new GradleException("No metadata entry tests " + coordinate));
+            String fingerprint;
+            if (dynamicAccessReports == null) {
+                fingerprint = previous.computeIfAbsent(library, this::readPrevious).fingerprintOf(gav[2])
+                        .orElseGet(() -> fingerprint(coordinate, null));
+            } else {
+                fingerprint = fingerprint(coordinate, dynamicAccessReports.resolve(gav[0]).resolve(gav[1]).resolve(gav[2]));
+            }
+            fingerprints.computeIfAbsent(library, ignored -> new TreeMap<>(ArtifactVersionIndex.versionOrder()))
+                    .computeIfAbsent(entry.metadataVersion(), ignored -> new LinkedHashMap<>())
+                    .put(gav[2], fingerprint);
+        }
+
+        Map<String, VersionFingerprints> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Map<String, String>>> library : fingerprints.entrySet()) {
+            List<VersionFingerprints.MetadataVersionGroups> groups = new ArrayList<>();
+            library.getValue().forEach((metadataVersion, versions) -> groups.add(VersionFingerprints.group(metadataVersion, versions)));
+            VersionFingerprints result = new VersionFingerprints(VersionFingerprints.FORMAT_VERSION, library.getKey(), groups);
+            try {
+                result.write(VersionFingerprints.file(outputDir, library.getKey()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            results.put(library.getKey(), result);
+        }
+        return results;
+    }
+
+    /**
+     * Returns the coordinates among {@code coordinates} that have to be tested, in their original order. Versions are
+     * selected per metadata version from the versions present in {@code coordinates}; the other versions are covered
+     * by equivalence and logged.
+     */
+    public List<String> selectRepresentatives(List<String> coordinates) {
+        Map<String, VersionFingerprints> libraries = fingerprint(coordinates, null);
+        Set<String> selected = new HashSet<>();
+        for (VersionFingerprints library : libraries.values()) {
+            for (String version : library.selectedVersions()) {
+                selected.add(library.library() + ":" + version);
+            }
+        }
+        List<String> result = new ArrayList<>();
+        for (String coordinate : coordinates) {
+            if (selected.contains(coordinate)) {
+                result.add(coordinate);
+                continue;
+            }
+            String[] gav = coordinate.split(":");
+            VersionFingerprints library = libraries.get(gav[0] + ":" + gav[1]);
+            project.getLogger().lifecycle("{} is covered by equivalence with version {}", coordinate, library.coveredBy(gav[2]).orElse("?"));
+        }
+        return result;
+    }
+
+    /**
+     * Lines describing the dependency graph without the version of its root, so that versions with the same
+     * dependencies get the same lines.
+     */
+    static List<String> dependencyLines(DependencyGraph graph) {
+        List<String> lines = new ArrayList<>();
+        for (DependencyGraph.Node node : graph.nodes()) {
+            String id = node.id().equals(graph.root()) ? "<root>" : node.id();
+            lines.add("dependency " + id + " -> " + node.dependencies());
+        }
+        lines.sort(null);
+        return lines;
+    }
+
+    private VersionFingerprints readPrevious(String library) {
+        try {
+            return VersionFingerprints.read(VersionFingerprints.file(outputDir, library))
+                    .orElseGet(() -> new VersionFingerprints(VersionFingerprints.FORMAT_VERSION, library, List.of()));
+        } catch (IOException e) {
+            project.getLogger().warn("Ignoring unreadable fingerprints of {}: {}", library, e.getMessage());
+            return new VersionFingerprints(VersionFingerprints.FORMAT_VERSION, library, List.of());
+        }
+    }
+
+    private String fingerprint(String coordinate, Path dynamicAccessReports) {
+        List<Path> jars = new ArrayList<>();
+        DependencyGraph graph;
+        try {
+            Configuration configuration = project.getConfigurations().detachedConfiguration(
+                    project.getDependencies().create(coordinate + "@jar")
+            );
+            configuration.setTransitive(false);
+            for (File file : configuration.resolve()) {
+                jars.add(file.toPath());
+            }
+            graph = new GradleDependencyGraphResolver(project).resolve(coordinate).graph();
+        } catch (RuntimeException e) {
+            project.getLogger().warn("Cannot resolve {}, it will not be grouped with other versions: {}", coordinate, e.getMessage());
+            return null;
+        }
+        try {
+            String bytecode = BytecodeFingerprint.of(jars, dynamicAccessReports);
+            return CanonicalJson.sha256(bytecode + "\n" + String.join("\n", dependencyLines(graph)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to fingerprint " + coordinate, e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.fingerprint;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.graalvm.internal.tck.index.ArtifactVersionIndex;
+import org.graalvm.internal.tck.utils.FilesUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Tested versions of one library grouped by fingerprint, per metadata version.
+ * <p>
+ * A version's fingerprint combines its {@link BytecodeFingerprint} with its dependency graph. Versions in the same
+ * group have the same API surface, reflective call sites and dependencies, so testing one of them covers the others
+ * by equivalence. Versions whose JAR could not be fingerprinted have no fingerprint and form a group of their own.
+ * <p>
+ * The selected versions of a metadata version are the minimal set that still covers every group and always contains
+ * the first and the last tested version: the representative of a group is the last tested version if it belongs to
+ * the group, otherwise the first one if it does, otherwise the group's latest version.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record VersionFingerprints(
+        @JsonProperty("format-version") int formatVersion,
+        String library,
+        @JsonProperty("metadata-versions") List<MetadataVersionGroups> metadataVersions
+) {
+
+    public static final int FORMAT_VERSION = 2;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record MetadataVersionGroups(
+            @JsonProperty("metadata-version") String metadataVersion,
+            @JsonProperty("selected-versions") List<String> selectedVersions,
+            List<Group> groups
+    ) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Group(String fingerprint, String representative, List<String> versions) {
+    }
+
+    /**
+     * Groups the versions of one metadata version by fingerprint and selects the versions to test. {@code fingerprints}
+     * maps each tested version to its fingerprint, or to null if the version could not be fingerprinted. Groups are
+     * ordered by their oldest version.
+     */
+    public static MetadataVersionGroups group(String metadataVersion, Map<String, String> fingerprints) {
+        Comparator<String> order = ArtifactVersionIndex.versionOrder();
+        List<String> sorted = fingerprints.keySet().stream().sorted(order).toList();
+        Map<String, List<String>> versionsByKey = new LinkedHashMap<>();
+        for (String version : sorted) {
+            String fingerprint = fingerprints.get(version);
+            String key = fingerprint == null ? "\u0000" + version : fingerprint;
+            versionsByKey.computeIfAbsent(key, ignored -> new ArrayList<>()).add(version);
+        }
+        String first = sorted.isEmpty() ? null : sorted.getFirst();
+        String last = sorted.isEmpty() ? null : sorted.getLast();
+
+        List<Group> groups = new ArrayList<>();
+        Set<String> selected = new TreeSet<>(order);
+        for (List<String> versions : versionsByKey.values()) {
+            String representative = versions.contains(last) ? last : versions.contains(first) ? first : versions.getLast();
+            groups.add(new Group(fingerprints.get(versions.getFirst()), representative, List.copyOf(versions)));
+            selected.add(representative);
+        }
+        if (first != null) {
+            selected.add(first);
+        }
+        return new MetadataVersionGroups(metadataVersion, List.copyOf(selected), List.copyOf(groups));
+    }
+
+    /**
+     * Versions that have to be tested: the selected versions of every metadata version.
+     */
+    @JsonIgnore
+    public List<String> selectedVersions() {
+        return metadataVersions.stream()
+                .flatMap(entry -> entry.selectedVersions().stream())
+                .toList();
+    }
+
+    /**
+     * The representative whose test covers {@code version}, or empty if {@code version} is selected itself or unknown.
+     */
+    public Optional<String> coveredBy(String version) {
+        return metadataVersions.stream()
+                .filter(entry -> !entry.selectedVersions().contains(version))
+                .flatMap(entry -> entry.groups().stream())
+                .filter(group -> group.versions().contains(version))
+                .map(Group::representative)
+                .findFirst();
+    }
+
+    /**
+     * Fingerprint of {@code version}, or empty if it is unknown or could not be fingerprinted.
+     */
+    public Optional<String> fingerprintOf(String version) {
+        return metadataVersions.stream()
+                .flatMap(entry -> entry.groups().stream())
+                .filter(group -> group.versions().contains(version))
+                .map(Group::fingerprint)
+                .filter(Objects::nonNull)
+                .findFirst();
+    }
+
+    /**
+     * Location of the fingerprints of {@code library} ({@code group:artifact}) below {@code outputDir}.
+     */
+    public static Path file(Path outputDir, String library) {
+        String[] ga = library.split(":");
+        return outputDir.resolve(ga[0]).resolve(ga[1]).resolve("fingerprints.json");
+    }
+
+    public static Optional<VersionFingerprints> read(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        VersionFingerprints fingerprints = MAPPER.readValue(file.toFile(), VersionFingerprints.class);
+        return fingerprints.formatVersion() == FORMAT_VERSION ? Optional.of(fingerprints) : Optional.empty();
+    }
+
+    public void write(Path file) throws IOException {
+        FilesUtils.writeAtomically(file, (MAPPER.writeValueAsString(this) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,458 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.footprint;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.graalvm.internal.tck.index.TypeRegistrationIndex;
+import org.graalvm.internal.tck.utils.ClassFileSummary;
+import org.gradle.api.GradleException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Pattern;
+
+/**
+ * Expands the entries of a {@code reachability-metadata.json} file into the concrete members they make reachable
+ * and estimates their native-image cost.
+ * <p>
+ * Types are resolved against the library JARs first and the JDK second. The cost model is intentionally simple:
+ * every reachable method or constructor costs {@value #METHOD_COST}, every field {@value #FIELD_COST}, every type
+ * {@value #TYPE_COST}, and every included resource {@value #RESOURCE_COST} plus one per started KiB. Members that are
+ * also registered for JNI count twice.
+ */
+public final class MetadataFootprintAnalyzer implements AutoCloseable {
+
+    static final int TYPE_COST = 1;
+    static final int METHOD_COST = 5;
+    static final int FIELD_COST = 1;
+    static final int RESOURCE_COST = 1;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final List<JarFile> jars = new ArrayList<>();
+    private final Map<String, JarFile> classEntries = new HashMap<>();
+    private final Map<String, Long> resourceEntries = new LinkedHashMap<>();
+    private final Map<String, Optional<ClassFileSummary>> classCache = new HashMap<>();
+
+    public MetadataFootprintAnalyzer(List<Path> libraryJars) {
+        for (Path jar : libraryJars) {
+            try {
+                JarFile jarFile = new JarFile(jar.toFile());
+                jars.add(jarFile);
+                jarFile.stream().filter(entry -> !entry.isDirectory()).forEach(entry -> {
+                    String name = entry.getName();
+                    if (name.endsWith(".class")) {
+                        classEntries.putIfAbsent(name.substring(0, name.length() - ".class".length()), jarFile);
+                    } else if (!name.startsWith("META-INF/") || !name.endsWith(".SF")) {
+                        resourceEntries.putIfAbsent(name, Math.max(entry.getSize(), 0));
+                    }
+                });
+            } catch (IOException e) {
+                throw new GradleException("Failed to open library JAR " + jar, e);
+            }
+        }
+    }
+
+    /**
+     * Analyzes a metadata file and returns its entries ordered by the requested sort order.
+     */
+    public MetadataFootprintModels.CoordinateFootprint analyze(
+            String coordinate,
+            String metadataVersion,
+            Path metadataFile,
+            MetadataFootprintModels.SortOrder sortOrder
+    ) {
+        JsonNode metadata;
+        try {
+            metadata = OBJECT_MAPPER.readTree(metadataFile.toFile());
+        } catch (IOException e) {
+            throw new GradleException("Failed to read " + metadataFile, e);
+        }
+
+        List<MetadataFootprintModels.EntryFootprint> entries = new ArrayList<>();
+        for (JsonNode entry : metadata.path("reflection")) {
+            entries.add(typeEntry("reflection", entry));
+        }
+        for (JsonNode entry : metadata.path("jni")) {
+            entries.add(typeEntry("jni", entry));
+        }
+        for (JsonNode entry : metadata.path("serialization")) {
+            entries.add(serializationEntry(entry));
+        }
+        for (JsonNode entry : metadata.path("resources")) {
+            entries.add(resourceEntry(entry));
+        }
+        entries.removeIf(entry -> entry.target() == null);
+        entries.sort(sortOrder.comparator());
+
+        return new MetadataFootprintModels.CoordinateFootprint(
+                coordinate,
+                metadataVersion,
+                sortOrder.name().toLowerCase(Locale.ROOT),
+                totals(entries),
+                entries
+        );
+    }
+
+    public static void writeReport(Path reportFile, MetadataFootprintModels.CoordinateFootprint footprint) {
+        try {
+            Files.createDirectories(reportFile.getParent());
+            OBJECT_MAPPER.writeValue(reportFile.toFile(), footprint);
+        } catch (IOException e) {
+            throw new GradleException("Failed to write footprint report " + reportFile, e);
+        }
+    }
+
+    private MetadataFootprintModels.EntryFootprint typeEntry(String section, JsonNode entry) {
+        String target = TypeRegistrationIndex.typeName(entry.get("type"));
+        List<String> flags = enabledFlags(entry);
+        Optional<ClassFileSummary> type = target == null ? Optional.empty() : lookup(toInternalName(target));
+
+        Set<String> methods = new LinkedHashSet<>();
+        Set<String> constructors = new LinkedHashSet<>();
+        Set<String> fields = new LinkedHashSet<>();
+
+        for (JsonNode method : entry.path("methods")) {
+            String key = method.path("name").asText() + "(" + String.join(",", textValues(method.path("parameterTypes"))) + ")";
+            (method.path("name").asText().equals("<init>") ? constructors : methods).add(key);
+        }
+        for (JsonNode field : entry.path("fields")) {
+            fields.add(toInternalName(String.valueOf(target)) + "." + field.path("name").asText());
+        }
+
+        type.ifPresent(summary -> {
+            if (flags.contains("allDeclaredMethods")) {
+                summary.methods().stream()
+                        .filter(m -> !m.isConstructor() && !m.isClassInitializer())
+                        .forEach(m -> methods.add(methodKey(m)));
+            }
+            if (flags.contains("allPublicMethods")) {
+                collectPublicMethods(summary, methods, new LinkedHashSet<>());
+            }
+            if (flags.contains("allDeclaredConstructors") || flags.contains("allPublicConstructors")) {
+                boolean publicOnly = !flags.contains("allDeclaredConstructors");
+                summary.methods().stream()
+                        .filter(ClassFileSummary.Member::isConstructor)
+                        .filter(m -> !publicOnly || m.isPublic())
+                        .forEach(m -> constructors.add(methodKey(m)));
+            }
+            if (flags.contains("allDeclaredFields")) {
+                summary.fields().forEach(f -> fields.add(summary.name() + "." + f.name()));
+            }
+            if (flags.contains("allPublicFields")) {
+                collectPublicFields(summary, fields, new LinkedHashSet<>());
+            }
+            if (flags.contains("unsafeAllocated")) {
+                collectInstanceFields(summary, fields);
+            }
+        });
+
+        int multiplier = flags.contains("jniAccessible") || section.equals("jni") ? 2 : 1;
+        long cost = TYPE_COST + (long) multiplier * ((methods.size() + constructors.size()) * (long) METHOD_COST + fields.size() * (long) FIELD_COST);
+        return new MetadataFootprintModels.EntryFootprint(
+                section,
+                target,
+                condition(entry),
+                flags,
+                type.isPresent() || target == null,
+                methods.size(),
+                constructors.size(),
+                fields.size(),
+                0,
+                0,
+                cost
+        );
+    }
+
+    /**
+     * Serialization makes the type's serializable fields reflectively accessible and synthesizes a constructor.
+     */
+    private MetadataFootprintModels.EntryFootprint serializationEntry(JsonNode entry) {
+        String target = TypeRegistrationIndex.typeName(entry.get("type"));
+        Optional<ClassFileSummary> type = target == null ? Optional.empty() : lookup(toInternalName(target));
+        Set<String> fields = new LinkedHashSet<>();
+        type.ifPresent(summary -> collectInstanceFields(summary, fields));
+        long cost = TYPE_COST + METHOD_COST + fields.size() * (long) FIELD_COST;
+        return new MetadataFootprintModels.EntryFootprint(
+                "serialization",
+                target,
+                condition(entry),
+                List.of(),
+                type.isPresent(),
+                0,
+                1,
+                fields.size(),
+                0,
+                0,
+                cost
+        );
+    }
+
+    private MetadataFootprintModels.EntryFootprint resourceEntry(JsonNode entry) {
+        if (entry.has("bundle")) {
+            String bundle = entry.get("bundle").asText();
+            Pattern pattern = bundleToPattern(bundle);
+            int matched = 0;
+            long bytes = 0;
+            for (Map.Entry<String, Long> resource : resourceEntries.entrySet()) {
+                if (pattern.matcher(resource.getKey()).matches()) {
+                    matched++;
+                    bytes += resource.getValue();
+                }
+            }
+            return resourceFootprint("bundle:" + bundle, entry, matched, bytes);
+        }
+
+        String glob = entry.path("glob").asText(null);
+        if (glob == null) {
+            return resourceFootprint(null, entry, 0, 0);
+        }
+        Pattern pattern = globToPattern(glob);
+        int matched = 0;
+        long bytes = 0;
+        for (Map.Entry<String, Long> resource : resourceEntries.entrySet()) {
+            if (pattern.matcher(resource.getKey()).matches()) {
+                matched++;
+                bytes += resource.getValue();
+            }
+        }
+        return resourceFootprint(glob, entry, matched, bytes);
+    }
+
+    private MetadataFootprintModels.EntryFootprint resourceFootprint(String target, JsonNode entry, int matched, long bytes) {
+        long cost = (long) matched * RESOURCE_COST + (bytes + 1023) / 1024;
+        return new MetadataFootprintModels.EntryFootprint(
+                "resources",
+                target,
+                condition(entry),
+                List.of(),
+                true,
+                0,
+                0,
+                0,
+                matched,
+                bytes,
+                cost
+        );
+    }
+
+    private void collectPublicMethods(ClassFileSummary summary, Set<String> methods, Set<String> visited) {
+        if (!visited.add(summary.name())) {
+            return;
+        }
+        summary.methods().stream()
+                .filter(ClassFileSummary.Member::isPublic)
+                .filter(m -> !m.isConstructor() && !m.isClassInitializer())
+                .forEach(m -> methods.add(methodKey(m)));
+        for (String supertype : supertypes(summary)) {
+            lookup(supertype).ifPresent(parent -> collectPublicMethods(parent, methods, visited));
+        }
+    }
+
+    private void collectPublicFields(ClassFileSummary summary, Set<String> fields, Set<String> visited) {
+        if (!visited.add(summary.name())) {
+            return;
+        }
+        summary.fields().stream().filter(ClassFileSummary.Member::isPublic).forEach(f -> fields.add(summary.name() + "." + f.name()));
+        for (String supertype : supertypes(summary)) {
+            lookup(supertype).ifPresent(parent -> collectPublicFields(parent, fields, visited));
+        }
+    }
+
+    private void collectInstanceFields(ClassFileSummary summary, Set<String> fields) {
+        ClassFileSummary current = summary;
+        while (current != null) {
+            String owner = current.name();
+            current.fields().stream().filter(f -> !f.isStatic()).forEach(f -> fields.add(owner + "." + f.name()));
+            current = current.superName() == null ? null : lookup(current.superName()).orElse(null);
+        }
+    }
+
+    private static List<String> supertypes(ClassFileSummary summary) {
+        List<String> supertypes = new ArrayList<>(summary.interfaces());
+        if (summary.superName() != null) {
+            supertypes.addFirst(summary.superName());
+        }
+        return supertypes;
+    }
+
+    /**
+     * Resolves a class by internal name from the library JARs, falling back to the running JDK.
+     */
+    private Optional<ClassFileSummary> lookup(String internalName) {
+        return classCache.computeIfAbsent(internalName, name -> {
+            try {
+                JarFile jar = classEntries.get(name);
+                if (jar != null) {
+                    JarEntry entry = jar.getJarEntry(name + ".class");
+                    try (InputStream in = jar.getInputStream(entry)) {
+                        return Optional.of(ClassFileSummary.parse(in.readAllBytes()));
+                    }
+                }
+                try (InputStream in = ClassLoader.getPlatformClassLoader().getResourceAsStream(name + ".class")) {
+                    return in == null ? Optional.empty() : Optional.of(ClassFileSummary.parse(in.readAllBytes()));
+                }
+            } catch (IOException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    private static MetadataFootprintModels.FootprintTotals totals(List<MetadataFootprintModels.EntryFootprint> entries) {
+        int unresolved = 0;
+        long methods = 0;
+        long constructors = 0;
+        long fields = 0;
+        long resources = 0;
+        long resourceBytes = 0;
+        long cost = 0;
+        for (MetadataFootprintModels.EntryFootprint entry : entries) {
+            unresolved += entry.resolved() ? 0 : 1;
+            methods += entry.methods();
+            constructors += entry.constructors();
+            fields += entry.fields();
+            resources += entry.resources();
+            resourceBytes += entry.resourceBytes();
+            cost += entry.estimatedCost();
+        }
+        return new MetadataFootprintModels.FootprintTotals(entries.size(), unresolved, methods, constructors, fields, resources, resourceBytes, cost);
+    }
+
+    private static List<String> enabledFlags(JsonNode entry) {
+        List<String> flags = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = entry.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isBoolean() && field.getValue().asBoolean()) {
+                flags.add(field.getKey());
+            }
+        }
+        flags.sort(null);
+        return flags;
+    }
+
+    private static String condition(JsonNode entry) {
+        JsonNode typeReached = entry.path("condition").get("typeReached");
+        return typeReached == null ? null : typeReached.asText();
+    }
+
+    private static List<String> textValues(JsonNode array) {
+        List<String> values = new ArrayList<>();
+        array.forEach(node -> values.add(node.asText()));
+        return values;
+    }
+
+    /**
+     * Builds the same {@code name(param,...)} key used for explicitly listed methods from a class-file member,
+     * so that explicit and broad registrations of the same method are only counted once.
+     */
+    static String methodKey(ClassFileSummary.Member method) {
+        return method.name() + "(" + String.join(",", parameterTypes(method.descriptor())) + ")";
+    }
+
+    static List<String> parameterTypes(String descriptor) {
+        List<String> types = new ArrayList<>();
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            int dimensions = 0;
+            while (descriptor.charAt(i) == '[') {
+                dimensions++;
+                i++;
+            }
+            String type;
+            char c = descriptor.charAt(i);
+            if (c == 'L') {
+                int end = descriptor.indexOf(';', i);
+                type = descriptor.substring(i + 1, end).replace('/', '.');
+                i = end + 1;
+            } else {
+                type = switch (c) {
+                    case 'Z' -> "boolean";
+                    case 'B' -> "byte";
+                    case 'C' -> "char";
+                    case 'S' -> "short";
+                    case 'I' -> "int";
+                    case 'J' -> "long";
+                    case 'F' -> "float";
+                    case 'D' -> "double";
+                    default -> throw new IllegalArgumentException("Invalid method descriptor " + descriptor);
+                };
+                i++;
+            }
+            types.add(type + "[]".repeat(dimensions));
+        }
+        return types;
+    }
+
+    static String toInternalName(String typeName) {
+        return typeName.replace('.', '/');
+    }
+
+    /**
+     * Matches the property files of a resource bundle: {@code <bundle>.properties} and the localized
+     * {@code <bundle>_<language>[_<script|country|variant>...].properties}, but not other bundles sharing the prefix.
+     */
+    static Pattern bundleToPattern(String bundle) {
+        return Pattern.compile(Pattern.quote(bundle.replace('.', '/')) + "(?:_[a-z]{2,3}(?:_[A-Za-z0-9]+)*)?\\.properties");
+    }
+
+    /**
+     * Converts a native-image resource glob to a regular expression: {@code **} matches across directories,
+     * {@code *} within a single path segment.
+     */
+    static Pattern globToPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                    i++;
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                        i++;
+                        regex.append("(?:.*/)?");
+                    } else {
+                        regex.append(".*");
+                    }
+                } else {
+                    regex.append("[^/]*");
+                }
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    @Override
+    public void close() {
+        for (JarFile jar : jars) {
+            try {
+                jar.close();
+            } catch (IOException ignored) {
+                // best effort
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.footprint;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Models for the per-coordinate metadata footprint report.
+ */
+public final class MetadataFootprintModels {
+
+    private MetadataFootprintModels() {
+    }
+
+    @JsonPropertyOrder({
+            "coordinate",
+            "metadataVersion",
+            "sortedBy",
+            "totals",
+            "entries"
+    })
+    public record CoordinateFootprint(
+            String coordinate,
+            String metadataVersion,
+            String sortedBy,
+            FootprintTotals totals,
+            List<EntryFootprint> entries
+    ) {
+    }
+
+    @JsonPropertyOrder({
+            "entries",
+            "unresolvedTypes",
+            "methods",
+            "constructors",
+            "fields",
+            "resources",
+            "resourceBytes",
+            "estimatedCost"
+    })
+    public record FootprintTotals(
+            int entries,
+            int unresolvedTypes,
+            long methods,
+            long constructors,
+            long fields,
+            long resources,
+            long resourceBytes,
+            long estimatedCost
+    ) {
+    }
+
+    /**
+     * Footprint of a single metadata entry.
+     *
+     * @param section       top-level metadata section of the entry
+     * @param target        registered type, resource glob or bundle name
+     * @param condition     {@code typeReached} condition, or null when unconditional
+     * @param flags         broad access flags enabled on the entry
+     * @param resolved      whether the registered type was found on the library or JDK class path;
+     *                      broad flags of unresolved types cannot be expanded
+     * @param methods       concrete methods made reachable
+     * @param constructors  concrete constructors made reachable
+     * @param fields        concrete fields made reachable
+     * @param resources     resource entries included in the image
+     * @param resourceBytes uncompressed size of the included resources
+     * @param estimatedCost weighted estimate of the analysis and image-size cost of the entry
+     */
+    @JsonPropertyOrder({
+            "section",
+            "target",
+            "condition",
+            "flags",
+            "resolved",
+            "methods",
+            "constructors",
+            "fields",
+            "resources",
+            "resourceBytes",
+            "estimatedCost"
+    })
+    public record EntryFootprint(
+            String section,
+            String target,
+            String condition,
+            List<String> flags,
+            boolean resolved,
+            int methods,
+            int constructors,
+            int fields,
+            int resources,
+            long resourceBytes,
+            long estimatedCost
+    ) {
+        public int members() {
+            return methods + constructors + fields + resources;
+        }
+    }
+
+    /**
+     * Supported report orderings. All orderings fall back to the entry target for stable output.
+     */
+    public enum SortOrder {
+        COST(Comparator.comparingLong(EntryFootprint::estimatedCost).reversed()),
+        MEMBERS(Comparator.comparingInt(EntryFootprint::members).reversed()),
+        RESOURCES(Comparator.comparingLong(EntryFootprint::resourceBytes).reversed()),
+        TARGET(Comparator.comparing(EntryFootprint::target));
+
+        private final Comparator<EntryFootprint> comparator;
+
+        SortOrder(Comparator<EntryFootprint> comparator) {
+            this.comparator = comparator
+                    .thenComparing(EntryFootprint::target)
+                    .thenComparing(EntryFootprint::section);
+        }
+
+        public Comparator<EntryFootprint> comparator() {
+            return comparator;
+        }
+
+        public static SortOrder parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported sort order '" + value + "'. Expected one of: cost, members, resources, target");
+            }
+        }
+    }
+}
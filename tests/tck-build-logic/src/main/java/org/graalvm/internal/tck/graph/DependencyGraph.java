@@ -0,0 +1,96 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.graph;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maven dependency graph of one root coordinate, as printed by {@code generateDependencyGraph}:
+ * {@code {"root": "g:a:v", "nodes": [{"id": "g:a:v", "dependencies": ["g:a:v", ...]}, ...]}}.
+ * <p>
+ * Nodes are ordered by their breadth-first distance from the root and then by id; dependencies of a node are sorted by id.
+ */
+public record DependencyGraph(String root, List<Node> nodes) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    public record Node(String id, List<String> dependencies) {
+    }
+
+    /**
+     * Builds the graph from the direct dependencies of every visited node and the breadth-first depth of each node.
+     */
+    public static DependencyGraph of(String root, Map<String, List<String>> edges, Map<String, Integer> depth) {
+        LinkedHashSet<String> ids = new LinkedHashSet<>();
+        ids.add(root);
+        for (Map.Entry<String, List<String>> entry : edges.entrySet()) {
+            ids.add(entry.getKey());
+            ids.addAll(entry.getValue());
+        }
+        List<String> sorted = new ArrayList<>(ids);
+        sorted.sort(Comparator.comparingInt((String id) -> depth.getOrDefault(id, 0)).thenComparing(Comparator.naturalOrder()));
+
+        List<Node> nodes = new ArrayList<>(sorted.size());
+        for (String id : sorted) {
+            List<String> dependencies = new ArrayList<>(edges.getOrDefault(id, Collections.emptyList()));
+            dependencies.sort(Comparator.naturalOrder());
+            nodes.add(new Node(id, List.copyOf(dependencies)));
+        }
+        return new DependencyGraph(root, List.copyOf(nodes));
+    }
+
+    /**
+     * Breadth-first distance of every node reachable from the root; the root has distance 0.
+     */
+    public Map<String, Integer> distances() {
+        Map<String, List<String>> edges = new HashMap<>();
+        for (Node node : nodes) {
+            edges.put(node.id(), node.dependencies());
+        }
+        Map<String, Integer> distances = new LinkedHashMap<>();
+        distances.put(root, 0);
+        Deque<String> queue = new ArrayDeque<>(List.of(root));
+        while (!queue.isEmpty()) {
+            String current = queue.removeFirst();
+            for (String dependency : edges.getOrDefault(current, List.of())) {
+                if (!distances.containsKey(dependency)) {
+                    distances.put(dependency, distances.get(current) + 1);
+                    queue.addLast(dependency);
+                }
+            }
+        }
+        return distances;
+    }
+
+    public static DependencyGraph parse(String json) throws JsonProcessingException {
+        return MAPPER.readValue(json, DependencyGraph.class);
+    }
+
+    /**
+     * Single-line JSON representation.
+     */
+    public String toJson() {
+        try {
+            return MAPPER.writeValueAsString(this);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize dependency graph for " + root, e);
+        }
+    }
+}
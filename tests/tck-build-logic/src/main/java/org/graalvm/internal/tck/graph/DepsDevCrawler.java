@@ -0,0 +1,384 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.graph;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Asynchronous deps.dev crawler that builds {@link DependencyGraph}s.
+ * <p>
+ * Direct dependencies of a coordinate are fetched at most once per crawler: concurrent requests for the same
+ * coordinate (shared subgraphs of one or several roots) join the same in-flight request. At most
+ * {@code concurrency} HTTP requests are in flight at any time. Results are stored in a {@link DirectDependencyCache}
+ * when one is given, so repeated runs only fetch coordinates whose cache entry has expired.
+ * <p>
+ * API: {@code <base>/v3/systems/maven/versions/{G}:{A}:{V}:dependencies}, with the URL-encoded and
+ * {@code packages/{G}:{A}/versions/{V}} variants as fallbacks. 429 and 5xx responses are retried with exponential
+ * backoff. Only Maven dependencies are followed; test-scoped and optional dependencies are skipped.
+ */
+public final class DepsDevCrawler {
+
+    public static final URI DEFAULT_BASE_URL = URI.create("https://api.deps.dev");
+
+    private static final String USER_AGENT = "graalvm-reachability-metadata/GenerateDependencyGraphTask (+https://github.com/oracle/graalvm-reachability-metadata)";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long MAX_BACKOFF_MILLIS = 8000L;
+
+    private final HttpClient http;
+    private final URI baseUrl;
+    private final DirectDependencyCache cache;
+    private final long initialBackoffMillis;
+    private final Semaphore permits;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+    private final Map<String, CompletableFuture<List<String>>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger cacheHits = new AtomicInteger();
+
+    /**
+     * @param cache may be null to disable the on-disk cache
+     */
+    public DepsDevCrawler(int concurrency, DirectDependencyCache cache) {
+        this(HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(20))
+                .build(), DEFAULT_BASE_URL, concurrency, cache, 750L);
+    }
+
+    DepsDevCrawler(HttpClient http, URI baseUrl, int concurrency, DirectDependencyCache cache, long initialBackoffMillis) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1, got " + concurrency);
+        }
+        this.http = http;
+        this.baseUrl = baseUrl;
+        this.cache = cache;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.permits = new Semaphore(concurrency);
+    }
+
+    /**
+     * Number of HTTP requests sent so far, including retries and URL fallbacks.
+     */
+    public int requestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Number of coordinates whose direct dependencies were served from the on-disk cache.
+     */
+    public int cacheHitCount() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Crawls the graphs of all roots concurrently and returns them in the order of {@code roots}.
+     */
+    public List<DependencyGraph> crawlAll(List<String> roots) {
+        List<CompletableFuture<DependencyGraph>> graphs = roots.stream().map(this::crawl).toList();
+        try {
+            return graphs.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Breadth-first crawl of {@code root}: all nodes of one level are fetched concurrently before the next level.
+     */
+    public CompletableFuture<DependencyGraph> crawl(String root) {
+        Map<String, List<String>> edges = new LinkedHashMap<>();
+        Map<String, Integer> depth = new HashMap<>();
+        depth.put(root, 0);
+        return crawlLevel(List.of(root), 0, edges, depth).thenApply(ignored -> DependencyGraph.of(root, edges, depth));
+    }
+
+    private CompletableFuture<Void> crawlLevel(List<String> level, int levelDepth, Map<String, List<String>> edges, Map<String, Integer> depth) {
+        if (level.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<CompletableFuture<List<String>>> fetches = level.stream().map(this::directDependencies).toList();
+        return CompletableFuture.allOf(fetches.toArray(CompletableFuture[]::new)).thenCompose(ignored -> {
+            LinkedHashSet<String> next = new LinkedHashSet<>();
+            for (int i = 0; i < level.size(); i++) {
+                List<String> direct = fetches.get(i).join();
+                if (direct.isEmpty()) {
+                    continue;
+                }
+                edges.put(level.get(i), direct);
+                for (String child : direct) {
+                    if (!depth.containsKey(child)) {
+                        depth.put(child, levelDepth + 1);
+                        next.add(child);
+                    }
+                }
+            }
+            return crawlLevel(new ArrayList<>(next), levelDepth + 1, edges, depth);
+        });
+    }
+
+    /**
+     * Direct dependencies of {@code gav}; joins an in-flight request for the same coordinate if there is one.
+     */
+    public CompletableFuture<List<String>> directDependencies(String gav) {
+        return inFlight.computeIfAbsent(gav, this::load);
+    }
+
+    private CompletableFuture<List<String>> load(String gav) {
+        String[] parts = gav.split(":");
+        if (parts.length != 3 || parts[0].isBlank() || parts[1].isBlank() || parts[2].isBlank()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid coordinates '" + gav + "'. Expected 'group:artifact:version'."));
+        }
+        if (cache != null) {
+            List<String> cached = cache.get(gav).orElse(null);
+            if (cached != null) {
+                cacheHits.incrementAndGet();
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        return fetch(candidateUrls(parts[0], parts[1], parts[2]), 0).thenApply(result -> {
+            if (result.definitive() && cache != null) {
+                try {
+                    cache.put(gav, result.dependencies());
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to cache dependencies of " + gav, e);
+                }
+            }
+            return result.dependencies();
+        });
+    }
+
+    /**
+     * Dependencies returned by deps.dev; {@code definitive} is false if a request failed, in which case the
+     * (empty) result is not cached.
+     */
+    private record FetchResult(List<String> dependencies, boolean definitive) {
+    }
+
+    private CompletableFuture<FetchResult> fetch(List<URI> urls, int urlIndex) {
+        if (urlIndex >= urls.size()) {
+            return CompletableFuture.completedFuture(new FetchResult(List.of(), true));
+        }
+        return attempt(urls.get(urlIndex), 1, initialBackoffMillis).thenCompose(result -> {
+            if (!result.dependencies().isEmpty()) {
+                return CompletableFuture.completedFuture(result);
+            }
+            return fetch(urls, urlIndex + 1).thenApply(next ->
+                    new FetchResult(next.dependencies(), next.definitive() && (result.definitive() || !next.dependencies().isEmpty())));
+        });
+    }
+
+    private CompletableFuture<FetchResult> attempt(URI url, int attempt, long backoffMillis) {
+        HttpRequest request = HttpRequest.newBuilder(url)
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json")
+                .header("User-Agent", USER_AGENT)
+                .GET()
+                .build();
+        return limited(() -> {
+            requests.incrementAndGet();
+            return http.sendAsync(request, HttpResponse.BodyHandlers.ofString(UTF_8));
+        }).handle((response, failure) -> {
+            boolean retryable = failure != null || response.statusCode() == 429 || response.statusCode() >= 500;
+            if (!retryable) {
+                int code = response.statusCode();
+                List<String> dependencies = code == 200 ? parseDirectDependencies(response.body()) : List.of();
+                return CompletableFuture.completedFuture(new FetchResult(dependencies, code == 200 || code == 404));
+            }
+            if (attempt >= MAX_ATTEMPTS) {
+                return CompletableFuture.completedFuture(new FetchResult(List.<String>of(), false));
+            }
+            return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(backoffMillis, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> attempt(url, attempt + 1, Math.min(MAX_BACKOFF_MILLIS, backoffMillis * 2)));
+        }).thenCompose(result -> result);
+    }
+
+    /**
+     * Runs {@code call} once fewer than {@code concurrency} limited calls are in flight.
+     */
+    private <T> CompletableFuture<T> limited(Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        waiting.add(() -> {
+            CompletableFuture<T> started;
+            try {
+                started = call.get();
+            } catch (RuntimeException e) {
+                started = CompletableFuture.failedFuture(e);
+            }
+            started.whenComplete((value, failure) -> {
+                permits.release();
+                drain();
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                } else {
+                    result.complete(value);
+                }
+            });
+        });
+        drain();
+        return result;
+    }
+
+    private void drain() {
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            Runnable next = waiting.poll();
+            if (next == null) {
+                permits.release();
+                return;
+            }
+            next.run();
+        }
+    }
+
+    private List<URI> candidateUrls(String group, String artifact, String version) {
+        String base = baseUrl.toString().replaceAll("/+$", "");
+        String gav = group + ":" + artifact + ":" + version;
+        String ga = group + ":" + artifact;
+        return List.of(
+                URI.create(base + "/v3/systems/maven/versions/" + URLEncoder.encode(gav, UTF_8) + ":dependencies"),
+                URI.create(base + "/v3/systems/maven/versions/" + gav + ":dependencies"),
+                URI.create(base + "/v3/systems/maven/packages/" + URLEncoder.encode(ga, UTF_8) + "/versions/" + URLEncoder.encode(version, UTF_8) + ":dependencies"),
+                URI.create(base + "/v3/systems/maven/packages/" + ga + "/versions/" + version + ":dependencies")
+        );
+    }
+
+    /**
+     * Parses a deps.dev dependency response into sorted, distinct {@code group:artifact:version} strings, tolerating
+     * minor schema variations:
+     * - dependencies[*].versionKey.{system,name,version} (or resolvedVersionKey / version)
+     * - or a graph with nodes[*].versionKey and edges[*].{fromNode,toNode}, where direct dependencies are edges from node 0
+     * Optional fields read if present: dependencies[*].scope, dependencies[*].optional, dependencies[*].kind
+     */
+    @SuppressWarnings("unchecked")
+    static List<String> parseDirectDependencies(String json) {
+        Map<String, Object> root;
+        try {
+            root = MAPPER.readValue(json, new TypeReference<Map<String, Object>>() {
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to parse deps.dev response: " + e.getMessage(), e);
+        }
+        LinkedHashSet<String> out = new LinkedHashSet<>();
+
+        // Shape A: dependencies array with versionKey objects per entry
+        Object depsObj = root.get("dependencies");
+        if (depsObj instanceof Collection<?> dependencies) {
+            for (Object o : dependencies) {
+                if (!(o instanceof Map)) continue;
+                Map<String, Object> dep = (Map<String, Object>) o;
+
+                Map<String, Object> vk = asMapOrNull(dep.get("versionKey"));
+                if (vk == null) vk = asMapOrNull(dep.get("resolvedVersionKey"));
+                if (vk == null) vk = asMapOrNull(dep.get("version"));
+                Map<String, Object> pk = asMapOrNull(dep.get("packageKey"));
+
+                String system = stringOrNull(vk != null ? vk.get("system") : null);
+                if (system == null && pk != null) system = stringOrNull(pk.get("system"));
+                if (system == null || !system.equalsIgnoreCase("maven")) continue;
+
+                String name = stringOrNull(vk != null ? vk.get("name") : null);
+                if (name == null && pk != null) name = stringOrNull(pk.get("name"));
+
+                String ver = stringOrNull(vk != null ? vk.get("version") : null);
+                if (ver == null) ver = stringOrNull(dep.get("version"));
+                if (ver == null) ver = stringOrNull(dep.get("resolvedVersion"));
+
+                String kind = stringOrNull(dep.get("kind"));
+                if (kind != null) {
+                    String k = kind.toLowerCase(Locale.ROOT);
+                    if (k.contains("test") || k.contains("dev")) continue;
+                }
+                String scope = stringOrNull(dep.get("scope"));
+                if (scope != null && scope.equalsIgnoreCase("test")) continue;
+                if (booleanOrFalse(dep.get("optional"))) continue;
+
+                addGav(out, name, ver);
+            }
+        } else if (root.get("nodes") instanceof List<?> nodes && root.get("edges") instanceof List<?> edges) {
+            // Shape B: graph with nodes[] and edges[]; direct deps are edges from root (node index 0)
+            for (Object eo : edges) {
+                if (!(eo instanceof Map)) continue;
+                Map<String, Object> e = (Map<String, Object>) eo;
+                Integer from = e.get("fromNode") instanceof Number n ? n.intValue() : null;
+                Integer to = e.get("toNode") instanceof Number n2 ? n2.intValue() : null;
+                if (from == null || from != 0 || to == null || to < 0 || to >= nodes.size()) continue;
+                if (!(nodes.get(to) instanceof Map)) continue;
+                Map<String, Object> vk = asMapOrNull(((Map<String, Object>) nodes.get(to)).get("versionKey"));
+                if (vk == null) continue;
+                String system = stringOrNull(vk.get("system"));
+                if (system == null || !system.equalsIgnoreCase("maven")) continue;
+                addGav(out, stringOrNull(vk.get("name")), stringOrNull(vk.get("version")));
+            }
+        }
+
+        List<String> sorted = new ArrayList<>(out);
+        Collections.sort(sorted);
+        return List.copyOf(sorted);
+    }
+
+    private static void addGav(Collection<String> out, String name, String version) {
+        if (name == null || version == null) {
+            return;
+        }
+        int idx = name.indexOf(':');
+        if (idx <= 0 || idx == name.length() - 1) {
+            return;
+        }
+        out.add(name + ":" + version);
+    }
+
+    private static Map<String, Object> asMapOrNull(Object o) {
+        if (o instanceof Map) {
+            //noinspection unchecked
+            return (Map<String, Object>) o;
+        }
+        return null;
+    }
+
+    private static String stringOrNull(Object o) {
+        return o == null ? null : String.valueOf(o);
+    }
+
+    private static boolean booleanOrFalse(Object o) {
+        if (o instanceof Boolean b) return b;
+        if (o == null) return false;
+        String s = String.valueOf(o).trim();
+        return s.equalsIgnoreCase("true") || s.equals("1");
+    }
+}
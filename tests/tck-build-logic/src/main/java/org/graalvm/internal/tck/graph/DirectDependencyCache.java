@@ -0,0 +1,79 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.graph;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.graalvm.internal.tck.utils.FilesUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * On-disk cache of the direct dependencies of Maven coordinates, stored as
+ * {@code <cacheDir>/<group>/<artifact>/<version>.json} with the time they were fetched.
+ * Entries older than the time-to-live are ignored and overwritten by the next fetch.
+ * Unreadable entries are treated as missing.
+ */
+public final class DirectDependencyCache {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private record Entry(long fetchedAt, List<String> dependencies) {
+    }
+
+    private final Path cacheDir;
+    private final Duration timeToLive;
+    private final Clock clock;
+
+    public DirectDependencyCache(Path cacheDir, Duration timeToLive) {
+        this(cacheDir, timeToLive, Clock.systemUTC());
+    }
+
+    DirectDependencyCache(Path cacheDir, Duration timeToLive, Clock clock) {
+        this.cacheDir = cacheDir;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+    }
+
+    public Optional<List<String>> get(String gav) {
+        Path file = file(gav);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try {
+            Entry entry = MAPPER.readValue(file.toFile(), Entry.class);
+            if (clock.millis() - entry.fetchedAt() > timeToLive.toMillis() || entry.dependencies() == null) {
+                return Optional.empty();
+            }
+            return Optional.of(List.copyOf(entry.dependencies()));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    public void put(String gav, List<String> dependencies) throws IOException {
+        FilesUtils.writeAtomically(file(gav), temp -> MAPPER.writeValue(temp.toFile(), new Entry(clock.millis(), dependencies)));
+    }
+
+    private Path file(String gav) {
+        String[] parts = gav.split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid coordinates '" + gav + "'. Expected 'group:artifact:version'.");
+        }
+        for (String part : parts) {
+            if (part.isEmpty() || part.contains("/") || part.contains("\\") || part.equals("..")) {
+                throw new IllegalArgumentException("Invalid coordinates '" + gav + "'.");
+            }
+        }
+        return cacheDir.resolve(parts[0]).resolve(parts[1]).resolve(parts[2] + ".json");
+    }
+}
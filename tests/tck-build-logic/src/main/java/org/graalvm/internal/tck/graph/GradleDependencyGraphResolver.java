@@ -0,0 +1,135 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.graph;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.result.DependencyResult;
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.artifacts.result.ResolvedDependencyResult;
+import org.gradle.api.artifacts.result.UnresolvedDependencyResult;
+import org.gradle.api.attributes.Bundling;
+import org.gradle.api.attributes.Category;
+import org.gradle.api.attributes.LibraryElements;
+import org.gradle.api.attributes.Usage;
+import org.gradle.api.attributes.java.TargetJvmEnvironment;
+import org.gradle.api.model.ObjectFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds {@link DependencyGraph}s from Gradle dependency resolution instead of deps.dev.
+ * <p>
+ * Every coordinate is resolved in its own detached configuration that requests the same variant as the
+ * {@code testRuntimeClasspath} of a test project (Java runtime library, external bundling, standard JVM), using the
+ * repositories of the given project. Only repositories and the Gradle dependency cache are consulted, so with
+ * {@code --offline} no network calls are made. Constraints are not edges; unresolved dependencies are reported in
+ * {@link Result#unresolved()} and left out of the graph.
+ */
+public final class GradleDependencyGraphResolver {
+
+    public record Result(DependencyGraph graph, List<String> unresolved) {
+    }
+
+    private final Project project;
+
+    public GradleDependencyGraphResolver(Project project) {
+        this.project = project;
+    }
+
+    public Result resolve(String coordinate) {
+        Configuration configuration = project.getConfigurations().detachedConfiguration(project.getDependencies().create(coordinate));
+        configuration.setTransitive(true);
+        ObjectFactory objects = project.getObjects();
+        configuration.attributes(attributes -> {
+            attributes.attribute(Usage.USAGE_ATTRIBUTE, objects.named(Usage.class, Usage.JAVA_RUNTIME));
+            attributes.attribute(Category.CATEGORY_ATTRIBUTE, objects.named(Category.class, Category.LIBRARY));
+            attributes.attribute(LibraryElements.LIBRARY_ELEMENTS_ATTRIBUTE, objects.named(LibraryElements.class, LibraryElements.JAR));
+            attributes.attribute(Bundling.BUNDLING_ATTRIBUTE, objects.named(Bundling.class, Bundling.EXTERNAL));
+            attributes.attribute(TargetJvmEnvironment.TARGET_JVM_ENVIRONMENT_ATTRIBUTE, objects.named(TargetJvmEnvironment.class, TargetJvmEnvironment.STANDARD_JVM));
+        });
+
+        ResolvedComponentResult root = configuration.getIncoming().getResolutionResult().getRootComponent().get();
+        List<String> unresolved = new ArrayList<>();
+        ResolvedComponentResult library = null;
+        for (DependencyResult dependency : root.getDependencies()) {
+            if (dependency instanceof ResolvedDependencyResult resolved && !dependency.isConstraint()) {
+                library = resolved.getSelected();
+            } else if (dependency instanceof UnresolvedDependencyResult failed) {
+                unresolved.add(failed.getAttempted().getDisplayName() + ": " + failed.getFailure().getMessage());
+            }
+        }
+        if (library == null) {
+            throw new GradleException("Could not resolve " + coordinate + (unresolved.isEmpty() ? "" : ": " + String.join("; ", unresolved)));
+        }
+        return new Result(toGraph(coordinate, library, unresolved), List.copyOf(unresolved));
+    }
+
+    /**
+     * Breadth-first walk from the library component; the library is reported under {@code coordinate} even if it
+     * was relocated or substituted during resolution.
+     */
+    static DependencyGraph toGraph(String coordinate, ResolvedComponentResult library, List<String> unresolved) {
+        Map<ResolvedComponentResult, String> ids = new HashMap<>();
+        ids.put(library, coordinate);
+        Map<String, List<String>> edges = new LinkedHashMap<>();
+        Map<String, Integer> depth = new HashMap<>();
+        depth.put(coordinate, 0);
+
+        Deque<ResolvedComponentResult> queue = new ArrayDeque<>();
+        Set<ResolvedComponentResult> visited = new LinkedHashSet<>();
+        queue.add(library);
+        while (!queue.isEmpty()) {
+            ResolvedComponentResult component = queue.removeFirst();
+            if (!visited.add(component)) {
+                continue;
+            }
+            String parent = ids.get(component);
+            LinkedHashSet<String> children = new LinkedHashSet<>();
+            for (DependencyResult dependency : component.getDependencies()) {
+                if (dependency.isConstraint()) {
+                    continue;
+                }
+                if (dependency instanceof UnresolvedDependencyResult failed) {
+                    unresolved.add(failed.getAttempted().getDisplayName() + ": " + failed.getFailure().getMessage());
+                    continue;
+                }
+                ResolvedComponentResult selected = ((ResolvedDependencyResult) dependency).getSelected();
+                String child = ids.computeIfAbsent(selected, GradleDependencyGraphResolver::gav);
+                if (child == null || child.equals(parent)) {
+                    continue;
+                }
+                children.add(child);
+                if (!depth.containsKey(child)) {
+                    depth.put(child, depth.get(parent) + 1);
+                }
+                queue.addLast(selected);
+            }
+            if (!children.isEmpty()) {
+                edges.put(parent, new ArrayList<>(children));
+            }
+        }
+        return DependencyGraph.of(coordinate, edges, depth);
+    }
+
+    private static String gav(ResolvedComponentResult component) {
+        if (component.getId() instanceof ModuleComponentIdentifier module) {
+            return module.getGroup() + ":" + module.getModule() + ":" + module.getVersion();
+        }
+        return null;
+    }
+}
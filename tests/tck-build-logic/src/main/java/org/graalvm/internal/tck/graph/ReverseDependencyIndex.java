@@ -0,0 +1,126 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.graph;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.graalvm.internal.tck.utils.FilesUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Maps a library ({@code group:artifact}) to the repository coordinates whose dependency graphs contain it, with the
+ * shortest dependency distance (1 for a direct dependency).
+ * <p>
+ * Built from the {@link DependencyGraph}s of all repository coordinates and persisted as JSON:
+ * {@code {"format-version": 1, "dependents": {"g:a": [{"coordinate": "g2:a2:v2", "distance": 1}, ...]}}}.
+ * Entries are sorted by distance and coordinate so that the file is stable across runs.
+ */
+public final class ReverseDependencyIndex {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private static final Comparator<Dependent> ORDER = Comparator.comparingInt(Dependent::distance).thenComparing(Dependent::coordinate);
+
+    public record Dependent(String coordinate, int distance) {
+    }
+
+    private record IndexFile(@JsonProperty("format-version") int formatVersion, Map<String, List<Dependent>> dependents) {
+    }
+
+    private final Map<String, List<Dependent>> dependents;
+
+    private ReverseDependencyIndex(Map<String, List<Dependent>> dependents) {
+        this.dependents = dependents;
+    }
+
+    public static ReverseDependencyIndex build(Collection<DependencyGraph> graphs) {
+        Map<String, Map<String, Integer>> distances = new TreeMap<>();
+        for (DependencyGraph graph : graphs) {
+            String rootLibrary = groupArtifact(graph.root());
+            for (Map.Entry<String, Integer> node : graph.distances().entrySet()) {
+                String library = groupArtifact(node.getKey());
+                if (node.getValue() == 0 || library.equals(rootLibrary)) {
+                    continue;
+                }
+                distances.computeIfAbsent(library, key -> new HashMap<>()).merge(graph.root(), node.getValue(), Math::min);
+            }
+        }
+        Map<String, List<Dependent>> dependents = new TreeMap<>();
+        distances.forEach((library, byCoordinate) -> {
+            List<Dependent> list = new ArrayList<>();
+            byCoordinate.forEach((coordinate, distance) -> list.add(new Dependent(coordinate, distance)));
+            list.sort(ORDER);
+            dependents.put(library, List.copyOf(list));
+        });
+        return new ReverseDependencyIndex(dependents);
+    }
+
+    public static ReverseDependencyIndex read(Path file) throws IOException {
+        IndexFile index = MAPPER.readValue(file.toFile(), IndexFile.class);
+        if (index.formatVersion() != FORMAT_VERSION) {
+            throw new IOException("Unsupported reverse dependency index format " + index.formatVersion() + " in " + file);
+        }
+        return new ReverseDependencyIndex(new TreeMap<>(index.dependents() == null ? Map.of() : index.dependents()));
+    }
+
+    public void write(Path file) throws IOException {
+        FilesUtils.writeAtomically(file, temp -> MAPPER.writeValue(temp.toFile(), new IndexFile(FORMAT_VERSION, dependents)));
+    }
+
+    /**
+     * Number of libraries that have at least one dependent.
+     */
+    public int size() {
+        return dependents.size();
+    }
+
+    public List<Dependent> dependentsOf(String groupArtifact) {
+        return dependents.getOrDefault(groupArtifact, List.of());
+    }
+
+    /**
+     * Coordinates that transitively depend on any library of {@code changedCoordinates}, excluding the changed
+     * coordinates themselves, ranked by their shortest distance to a changed library and capped at {@code limit}.
+     */
+    public List<Dependent> affectedBy(Collection<String> changedCoordinates, int limit) {
+        Set<String> changed = new HashSet<>(changedCoordinates);
+        Map<String, Integer> best = new HashMap<>();
+        for (String library : changedCoordinates.stream().map(ReverseDependencyIndex::groupArtifact).distinct().toList()) {
+            for (Dependent dependent : dependentsOf(library)) {
+                if (!changed.contains(dependent.coordinate())) {
+                    best.merge(dependent.coordinate(), dependent.distance(), Math::min);
+                }
+            }
+        }
+        List<Dependent> affected = new ArrayList<>();
+        best.forEach((coordinate, distance) -> affected.add(new Dependent(coordinate, distance)));
+        affected.sort(ORDER);
+        return List.copyOf(affected.subList(0, Math.min(Math.max(limit, 0), affected.size())));
+    }
+
+    static String groupArtifact(String coordinate) {
+        int first = coordinate.indexOf(':');
+        int second = first < 0 ? -1 : coordinate.indexOf(':', first + 1);
+        return second < 0 ? coordinate : coordinate.substring(0, second);
+    }
+}
@@ -7,30 +7,70 @@
 package org.graalvm.internal.tck.harness.tasks;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.graalvm.internal.tck.TestedVersionUpdaterTask;
-import org.graalvm.internal.tck.model.MetadataVersionsIndexEntry;
-import org.graalvm.internal.tck.model.SkippedVersionEntry;
+import org.graalvm.internal.tck.index.ArtifactVersionIndex;
+import org.graalvm.internal.tck.updates.MavenMetadataFetcher;
 import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.TaskAction;
-import org.gradle.util.internal.VersionNumber;
+import org.gradle.api.tasks.options.Option;
+import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.URL;
+import java.net.URI;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+/**
+ * Prints the libraries that have versions newer than their latest tested version as
+ * {@code [{"name": "group:artifact", "versions": [...]}, ...]}.
+ * <p>
+ * The {@code maven-metadata.xml} files of all libraries are fetched concurrently by {@link MavenMetadataFetcher} and
+ * revalidated against {@code build/maven-metadata-cache} with conditional requests. Repositories default to Maven
+ * Central and can be replaced with {@code --repositories=<url>[,<url>...]}, for example with a {@code file:} URL of a
+ * local Maven repository. Each {@code index.json} is read once per run.
+ */
 @SuppressWarnings("unused")
 public abstract class FetchExistingLibrariesWithNewerVersionsTask extends DefaultTask {
 
+    private static final int DEFAULT_CONCURRENCY = 8;
+
     @Input
     public abstract ListProperty<String> getAllLibraryCoordinates();
 
+    @Internal
+    public abstract DirectoryProperty getMetadataRoot();
+
+    @Input
+    @Optional
+    public abstract ListProperty<String> getRepositories();
+
+    @Input
+    @Optional
+    public abstract Property<@NotNull Integer> getConcurrency();
+
+    @Option(option = "repositories", description = "Comma-separated Maven repository URLs to read maven-metadata.xml from (default Maven Central)")
+    public void setRepositoriesOption(String repositories) {
+        for (String repository : repositories.split(",")) {
+            if (!repository.isBlank()) {
+                getRepositories().add(repository.trim());
+            }
+        }
+    }
+
+    @Option(option = "concurrency", description = "Maximum number of libraries fetched concurrently (default 8)")
+    public void setConcurrencyOption(String value) {
+        getConcurrency().set(Integer.parseInt(value));
+    }
+
     private static final List<String> INFRASTRUCTURE_TESTS = List.of("samples", "org.example");
 
     @TaskAction
@@ -39,35 +79,36 @@ public abstract class FetchExistingLibrariesWithNewerVersionsTask extends Defaul
         for (String coord : getAllLibraryCoordinates().get()) {
             int last = coord.lastIndexOf(':');
             if (last > 0) {
-                libraries.add(coord.substring(0, last));
+                String libraryName = coord.substring(0, last);
+                if (INFRASTRUCTURE_TESTS.stream().noneMatch(libraryName::startsWith)) {
+                    libraries.add(libraryName);
+                }
             }
         }
 
-        List<String> newerVersions = new ArrayList<>();
+        Path metadataRoot = getMetadataRoot().isPresent() ? getMetadataRoot().get().getAsFile().toPath() : Path.of("metadata");
+        Map<String, ArtifactVersionIndex> indexes = new LinkedHashMap<>();
         for (String libraryName : libraries) {
-            if (INFRASTRUCTURE_TESTS.stream().noneMatch(libraryName::startsWith)) {
-                List<String> versions = getNewerVersionsFor(libraryName, getLatestLibraryVersion(libraryName));
-                List<String> skipped = getSkippedVersions(libraryName);
-                versions.removeAll(skipped);
-                for (String v : versions) {
-                    newerVersions.add(libraryName + ":" + v);
-                }
-            }
+            String[] coordinates = libraryName.split(":");
+            indexes.put(libraryName, ArtifactVersionIndex.load(metadataRoot, coordinates[0], coordinates[1]));
         }
 
-        Map<String, List<String>> grouped = new LinkedHashMap<>();
-        for (String coord : newerVersions) {
-            String[] parts = coord.split(":", -1);
-            String key = parts[0] + ":" + parts[1];
-            grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(parts[2]);
-        }
+        MavenMetadataFetcher fetcher = new MavenMetadataFetcher(repositories(),
+                getProject().getLayout().getBuildDirectory().dir("maven-metadata-cache").get().getAsFile().toPath(),
+                getConcurrency().getOrElse(DEFAULT_CONCURRENCY));
+        Map<String, List<String>> published = fetcher.fetchAll(libraries);
+        getLogger().info("Fetched Maven metadata of {} libraries with {} requests ({} not modified)",
+                libraries.size(), fetcher.requestCount(), fetcher.notModifiedCount());
 
         List<Map<String, Object>> pairs = new ArrayList<>();
-        for (Map.Entry<String, List<String>> e : grouped.entrySet()) {
-            Map<String, Object> m = new LinkedHashMap<>();
-            m.put("name", e.getKey());
-            m.put("versions", e.getValue());
-            pairs.add(m);
+        for (String libraryName : libraries) {
+            List<String> versions = getNewerVersionsFor(libraryName, published.get(libraryName), indexes.get(libraryName));
+            if (!versions.isEmpty()) {
+                Map<String, Object> m = new LinkedHashMap<>();
+                m.put("name", libraryName);
+                m.put("versions", versions);
+                pairs.add(m);
+            }
         }
 
         try {
@@ -79,41 +120,38 @@ public abstract class FetchExistingLibrariesWithNewerVersionsTask extends Defaul
         }
     }
 
-    static List<String> getNewerVersionsFor(String library, String startingVersion) {
-        try {
-            String baseUrl = "https://repo1.maven.org/maven2";
-            String[] libraryParts = library.split(":");
-            String group = libraryParts[0].replace(".", "/");
-            String artifact = libraryParts[1];
-            String data = new String(new URL(baseUrl + "/" + group + "/" + artifact + "/maven-metadata.xml").openStream().readAllBytes());
-
-            List<String> newerVersions = getNewerVersionsFromLibraryIndex(data, startingVersion, library);
-
-            List<String> testedVersions = getTestedVersions(library);
-            newerVersions.removeAll(testedVersions);
-
-            return filterPreReleases(newerVersions);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    private List<URI> repositories() {
+        List<String> configured = getRepositories().getOrElse(List.of());
+        if (configured.isEmpty()) {
+            return List.of(MavenMetadataFetcher.MAVEN_CENTRAL);
         }
+        List<URI> uris = new ArrayList<>();
+        for (String repository : configured) {
+            uris.add(repository.contains("://") || repository.startsWith("file:") ? URI.create(repository) : new File(repository).getAbsoluteFile().toURI());
+        }
+        return uris;
     }
 
-    static List<String> getNewerVersionsFromLibraryIndex(String index, String startingVersion, String libraryName) {
-        Pattern pattern = Pattern.compile("<version>(.*)</version>");
-        Matcher matcher = pattern.matcher(index);
-        List<String> allVersions = new ArrayList<>();
-
-        while (matcher.find()) {
-            allVersions.add(matcher.group(1));
-        }
+    /**
+     * Versions published after the latest tested version that are neither tested nor skipped, without pre-releases
+     * of published releases.
+     */
+    static List<String> getNewerVersionsFor(String library, List<String> publishedVersions, ArtifactVersionIndex index) {
+        String startingVersion = index.latestTestedVersion()
+                .orElseThrow(() -> new IllegalStateException("Cannot find any tested version for: " + library));
+        List<String> newerVersions = getNewerVersionsFromLibraryIndex(publishedVersions, startingVersion);
+        newerVersions.removeAll(index.testedVersions());
+        List<String> result = filterPreReleases(newerVersions);
+        result.removeAll(index.skippedVersions());
+        return result;
+    }
 
+    static List<String> getNewerVersionsFromLibraryIndex(List<String> allVersions, String startingVersion) {
         int indexOfStartingVersion = allVersions.indexOf(startingVersion);
         if (indexOfStartingVersion < 0) {
             return new ArrayList<>();
         }
-
-        allVersions = allVersions.subList(indexOfStartingVersion, allVersions.size());
-        return new ArrayList<>(allVersions.subList(1, allVersions.size()));
+        return new ArrayList<>(allVersions.subList(indexOfStartingVersion + 1, allVersions.size()));
     }
 
     static List<String> filterPreReleases(List<String> versions) {
@@ -140,74 +178,4 @@ public abstract class FetchExistingLibrariesWithNewerVersionsTask extends Defaul
         }
         return result;
     }
-
-    static String getLatestLibraryVersion(String libraryModule) {
-        try {
-            List<String> testedVersions = getTestedVersions(libraryModule);
-            if (testedVersions.isEmpty()) {
-                throw new IllegalStateException("Cannot find any tested version for: " + libraryModule);
-            }
-            testedVersions.sort(Comparator.comparing(VersionNumber::parse));
-            return testedVersions.get(testedVersions.size() - 1);
-        } catch (RuntimeException e) {
-            throw e;
-        }
-    }
-
-    static List<String> getTestedVersions(String libraryModule) {
-        try {
-            String[] coordinates = libraryModule.split(":");
-            String group = coordinates[0];
-            String artifact = coordinates[1];
-
-            File indexFile = new File("metadata/" + group + "/" + artifact + "/index.json");
-            if (!indexFile.exists()) {
-                return Collections.emptyList();
-            }
-
-            ObjectMapper objectMapper = new ObjectMapper()
-                    .setSerializationInclusion(JsonInclude.Include.NON_NULL);
-
-            List<MetadataVersionsIndexEntry> entries = objectMapper.readValue(
-                    indexFile, new TypeReference<List<MetadataVersionsIndexEntry>>() {});
-            List<String> testedVersions = new ArrayList<>();
-            for (MetadataVersionsIndexEntry entry : entries) {
-                testedVersions.addAll(entry.testedVersions());
-            }
-            return testedVersions;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    static List<String> getSkippedVersions(String libraryModule) {
-        try {
-            String[] coordinates = libraryModule.split(":");
-            String group = coordinates[0];
-            String artifact = coordinates[1];
-
-            File coordinatesMetadataIndex = new File("metadata/" + group + "/" + artifact + "/index.json");
-            if (!coordinatesMetadataIndex.exists()) {
-                throw new RuntimeException("Missing index.json for " + libraryModule);
-            }
-
-            ObjectMapper objectMapper = new ObjectMapper()
-                    .setSerializationInclusion(JsonInclude.Include.NON_NULL);
-
-            List<MetadataVersionsIndexEntry> entries = objectMapper.readValue(
-                    coordinatesMetadataIndex, new TypeReference<List<MetadataVersionsIndexEntry>>() {});
-
-            List<String> skipped = new ArrayList<>();
-            for (MetadataVersionsIndexEntry entry : entries) {
-                if (entry.skippedVersions() != null) {
-                    for (SkippedVersionEntry sve : entry.skippedVersions()) {
-                        skipped.add(sve.version());
-                    }
-                }
-            }
-            return skipped;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
 }
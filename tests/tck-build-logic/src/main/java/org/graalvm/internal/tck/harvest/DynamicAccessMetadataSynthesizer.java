@@ -0,0 +1,165 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.harvest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.graalvm.internal.tck.stats.LibraryStatsModels;
+import org.graalvm.internal.tck.utils.ClassFileSummary;
+import org.graalvm.internal.tck.utils.ReachabilityMetadataFiles;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Synthesizes candidate metadata entries from the call sites of a dynamic-access coverage report (see
+ * {@code generateDynamicAccessCoverageReport}) without running the agent.
+ * <p>
+ * Only call sites covered by the JVM tests are used. A call site is resolved when the library's bytecode passes a
+ * string constant straight to the tracked API on the reported line:
+ * <ul>
+ *   <li>{@code Class.forName(String)} and {@code ClassLoader.loadClass(String)} give a {@code reflection} entry for
+ *   the named type;</li>
+ *   <li>the single-argument {@code getResource}, {@code getResources} and {@code getResourceAsStream} methods of
+ *   {@code Class} and {@code ClassLoader} (and their {@code getSystemResource*} variants) give a {@code resources}
+ *   glob. Relative names passed to {@code Class} methods are only resolved when the receiver is a class literal;</li>
+ *   <li>{@code ResourceBundle.getBundle(String)} gives a {@code resources} bundle.</li>
+ * </ul>
+ * Every entry is conditioned on the class containing the call site. Covered call sites that cannot be resolved this
+ * way (computed names, other APIs) are returned as unresolved, so they can be covered with the agent instead.
+ */
+public final class DynamicAccessMetadataSynthesizer {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Pattern FRAME_PATTERN = Pattern.compile("^(.+)\\.([^.(]+|<init>|<clinit>)\\(([^:()]+)(?::(\\d+))?\\)$");
+
+    private static final String STRING_ARGUMENT = "(Ljava/lang/String;)";
+
+    /**
+     * Candidate entries and the covered call sites that could not be resolved statically.
+     */
+    public record Result(List<ReachabilityMetadataFiles.Entry> entries, List<LibraryStatsModels.DynamicAccessCallSiteCoverage> unresolved,
+                         int coveredCallSites) {
+    }
+
+    private DynamicAccessMetadataSynthesizer() {
+    }
+
+    public static Result synthesize(LibraryStatsModels.DynamicAccessCoverageReport report, List<Path> libraryJars) throws IOException {
+        Map<String, List<ClassFileSummary.ConstantCall>> callsByClass = new HashMap<>();
+        Map<String, ReachabilityMetadataFiles.Entry> entries = new LinkedHashMap<>();
+        List<LibraryStatsModels.DynamicAccessCallSiteCoverage> unresolved = new ArrayList<>();
+        int covered = 0;
+        for (LibraryStatsModels.DynamicAccessClassCoverage classCoverage : report.classes()) {
+            for (LibraryStatsModels.DynamicAccessCallSiteCoverage callSite : classCoverage.callSites()) {
+                if (!callSite.covered()) {
+                    continue;
+                }
+                covered++;
+                if (!callsByClass.containsKey(classCoverage.className())) {
+                    callsByClass.put(classCoverage.className(), constantCalls(classCoverage.className(), libraryJars));
+                }
+                List<ReachabilityMetadataFiles.Entry> resolved = resolve(classCoverage.className(), callSite, callsByClass.get(classCoverage.className()));
+                if (resolved.isEmpty()) {
+                    unresolved.add(callSite);
+                }
+                for (ReachabilityMetadataFiles.Entry entry : resolved) {
+                    entries.putIfAbsent(entry.canonicalKey(), entry);
+                }
+            }
+        }
+        return new Result(List.copyOf(entries.values()), List.copyOf(unresolved), covered);
+    }
+
+    private static List<ReachabilityMetadataFiles.Entry> resolve(
+            String className,
+            LibraryStatsModels.DynamicAccessCallSiteCoverage callSite,
+            List<ClassFileSummary.ConstantCall> calls
+    ) {
+        Matcher frame = FRAME_PATTERN.matcher(callSite.frame());
+        if (!frame.matches() || !frame.group(1).equals(className)) {
+            return List.of();
+        }
+        String method = frame.group(2);
+        String api = callSite.trackedApi();
+        int separator = api.indexOf('#');
+        if (separator < 0) {
+            return List.of();
+        }
+        String owner = api.substring(0, separator);
+        String name = api.substring(separator + 1).split("\\(", 2)[0];
+
+        List<ReachabilityMetadataFiles.Entry> entries = new ArrayList<>();
+        for (ClassFileSummary.ConstantCall call : calls) {
+            if (call.method().equals(method)
+                    && (callSite.line() == null || call.line() == callSite.line())
+                    && call.target().owner().replace('/', '.').equals(owner)
+                    && call.target().name().equals(name)
+                    && call.target().descriptor().startsWith(STRING_ARGUMENT)) {
+                ObjectNode node = entry(className, owner, name, call);
+                if (node != null) {
+                    String section = node.has("type") ? "reflection" : "resources";
+                    entries.add(new ReachabilityMetadataFiles.Entry(section, node));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static ObjectNode entry(String className, String owner, String name, ClassFileSummary.ConstantCall call) {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.putObject("condition").put("typeReached", className);
+        String argument = call.argument();
+        switch (owner + "#" + name) {
+            case "java.lang.Class#forName", "java.lang.ClassLoader#loadClass" -> node.put("type", argument);
+            case "java.lang.Class#getResource", "java.lang.Class#getResourceAsStream" -> {
+                if (argument.startsWith("/")) {
+                    node.put("glob", argument.substring(1));
+                } else if (call.receiver() != null) {
+                    int packageEnd = call.receiver().lastIndexOf('.');
+                    node.put("glob", packageEnd < 0 ? argument : call.receiver().substring(0, packageEnd).replace('.', '/') + "/" + argument);
+                } else {
+                    return null;
+                }
+            }
+            case "java.lang.ClassLoader#getResource", "java.lang.ClassLoader#getResources", "java.lang.ClassLoader#getResourceAsStream",
+                 "java.lang.ClassLoader#getSystemResource", "java.lang.ClassLoader#getSystemResources",
+                 "java.lang.ClassLoader#getSystemResourceAsStream" -> node.put("glob", argument);
+            case "java.util.ResourceBundle#getBundle" -> node.put("bundle", argument);
+            default -> {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private static List<ClassFileSummary.ConstantCall> constantCalls(String className, List<Path> libraryJars) throws IOException {
+        String entryName = className.replace('.', '/') + ".class";
+        for (Path jar : libraryJars) {
+            try (ZipFile zip = new ZipFile(jar.toFile())) {
+                ZipEntry entry = zip.getEntry(entryName);
+                if (entry != null) {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        return ClassFileSummary.constantCalls(in.readAllBytes());
+                    }
+                }
+            }
+        }
+        return List.of();
+    }
+}
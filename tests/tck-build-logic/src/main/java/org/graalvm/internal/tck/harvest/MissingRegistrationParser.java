@@ -0,0 +1,176 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.harvest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.graalvm.internal.tck.utils.ReachabilityMetadataFiles;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts missing registrations from the output of a native test run.
+ * <p>
+ * Every {@code Missing*RegistrationError}, thrown or reported with {@code -H:MissingRegistrationReportingMode=Warn},
+ * carries the entry native-image suggests ("add the following to the '<section>' section of
+ * reachability-metadata.json") followed by its stack trace. {@link #parse(String)} returns one
+ * {@link MissingRegistration} per error; {@link #toEntries(Collection, Collection)} turns them into metadata entries
+ * conditioned on the first stack frame inside the library's {@code allowed-packages}.
+ */
+public final class MissingRegistrationParser {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Pattern ERROR = Pattern.compile("Missing\\w*RegistrationError");
+    private static final Pattern SECTION = Pattern.compile("the '(\\w+)' section of");
+    private static final Pattern FRAME = Pattern.compile("^\\s*at\\s+(?:[\\w.\\-@]+/)?([\\w$.]+)\\.[\\w$<>]+\\(");
+    private static final Pattern ELIDED_FRAMES = Pattern.compile("^\\s*\\.\\.\\. \\d+ more\\s*$");
+
+    /**
+     * A suggested entry of {@code section} and the classes of the stack trace that needed it, innermost first.
+     */
+    public record MissingRegistration(String section, ObjectNode entry, List<String> frames) {
+    }
+
+    /**
+     * Result of {@link #parse(String)}: the parsed registrations and the number of errors without a usable suggestion.
+     */
+    public record Harvest(List<MissingRegistration> registrations, int unparsedErrors) {
+    }
+
+    private MissingRegistrationParser() {
+    }
+
+    public static Harvest parse(String output) {
+        List<String> lines = output.lines().toList();
+        List<MissingRegistration> registrations = new ArrayList<>();
+        int unparsed = 0;
+        int i = 0;
+        while (i < lines.size()) {
+            if (!isErrorStart(lines.get(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            // The suggestion ends the message; look for it before the next error.
+            String section = null;
+            int jsonStart = -1;
+            for (i = start; i < lines.size() && (i == start || !isErrorStart(lines.get(i))) && !FRAME.matcher(lines.get(i)).find(); i++) {
+                Matcher matcher = SECTION.matcher(lines.get(i));
+                if (matcher.find()) {
+                    section = matcher.group(1);
+                } else if (section != null && lines.get(i).stripLeading().startsWith("{")) {
+                    jsonStart = i;
+                    break;
+                }
+            }
+            if (jsonStart < 0) {
+                unparsed++;
+                i = Math.max(i, start + 1);
+                continue;
+            }
+            StringBuilder json = new StringBuilder();
+            int depth = 0;
+            boolean inString = false;
+            boolean escaped = false;
+            for (i = jsonStart; i < lines.size(); i++) {
+                String line = lines.get(i);
+                json.append(line).append('\n');
+                for (char c : line.toCharArray()) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == '\\') {
+                        escaped = inString;
+                    } else if (c == '"') {
+                        inString = !inString;
+                    } else if (!inString && c == '{') {
+                        depth++;
+                    } else if (!inString && c == '}') {
+                        depth--;
+                    }
+                }
+                if (depth == 0) {
+                    i++;
+                    break;
+                }
+            }
+            JsonNode entry;
+            try {
+                entry = MAPPER.readTree(json.toString().strip());
+            } catch (JsonProcessingException e) {
+                entry = null;
+            }
+            if (entry == null || !entry.isObject()) {
+                unparsed++;
+                continue;
+            }
+
+            List<String> frames = new ArrayList<>();
+            for (; i < lines.size() && !isErrorStart(lines.get(i)); i++) {
+                String line = lines.get(i);
+                Matcher frame = FRAME.matcher(line);
+                if (frame.find()) {
+                    frames.add(frame.group(1));
+                } else if (!frames.isEmpty() && !line.isBlank() && !ELIDED_FRAMES.matcher(line).matches()) {
+                    break;
+                }
+            }
+            registrations.add(new MissingRegistration(section, (ObjectNode) entry, List.copyOf(frames)));
+        }
+        return new Harvest(List.copyOf(registrations), unparsed);
+    }
+
+    /**
+     * The first class of {@code frames} whose package is one of {@code allowedPackages} or a subpackage of one, or
+     * {@code null}.
+     */
+    public static String typeReached(List<String> frames, Collection<String> allowedPackages) {
+        for (String frame : frames) {
+            for (String allowedPackage : allowedPackages) {
+                if (frame.startsWith(allowedPackage + ".")) {
+                    return frame;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Converts registrations into metadata entries with a {@code typeReached} condition, dropping duplicates.
+     * Registrations without a frame in {@code allowedPackages} are returned without a condition.
+     */
+    public static List<ReachabilityMetadataFiles.Entry> toEntries(Collection<MissingRegistration> registrations, Collection<String> allowedPackages) {
+        Map<String, ReachabilityMetadataFiles.Entry> entries = new LinkedHashMap<>();
+        for (MissingRegistration registration : registrations) {
+            ObjectNode node = MAPPER.createObjectNode();
+            String typeReached = typeReached(registration.frames(), allowedPackages);
+            if (typeReached != null) {
+                node.putObject("condition").put("typeReached", typeReached);
+            }
+            registration.entry().fields().forEachRemaining(field -> {
+                if (!field.getKey().equals("condition")) {
+                    node.set(field.getKey(), field.getValue());
+                }
+            });
+            ReachabilityMetadataFiles.Entry entry = new ReachabilityMetadataFiles.Entry(registration.section(), node);
+            entries.putIfAbsent(entry.canonicalKey(), entry);
+        }
+        return List.copyOf(entries.values());
+    }
+
+    private static boolean isErrorStart(String line) {
+        return ERROR.matcher(line).find() && !FRAME.matcher(line).find();
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.index;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.graalvm.internal.tck.model.MetadataVersionsIndexEntry;
+import org.graalvm.internal.tck.model.SkippedVersionEntry;
+import org.graalvm.internal.tck.pack.VersionOrder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Version ordering and resolution for the entries of one {@code metadata/<group>/<artifact>/index.json}.
+ * <p>
+ * Versions are parsed with {@link VersionOrder} once when the index is built. A version resolves, in this order, to
+ * the entry that lists it in {@code tested-versions}, to the first entry whose {@code default-for} pattern matches it,
+ * and finally to the entry with the closest lower {@code metadata-version} (a binary search over the sorted
+ * metadata versions, whose intervals {@code [metadata-version, next metadata-version)} cover every later version).
+ * <p>
+ * Indexes loaded with {@link #load(Path)} are cached per file and rebuilt when the file changes, so tasks that
+ * need version ordering for the same artifact share one instance.
+ */
+public final class ArtifactVersionIndex {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private static final Map<Path, Cached> CACHE = new ConcurrentHashMap<>();
+
+    public enum MatchKind {
+        /** The version is listed in {@code tested-versions}. */
+        TESTED,
+        /** The version matches a {@code default-for} pattern. */
+        DEFAULT_FOR,
+        /** The entry with the highest {@code metadata-version} that is not greater than the version. */
+        CLOSEST_LOWER
+    }
+
+    public record Resolution(MatchKind kind, MetadataVersionsIndexEntry entry) {
+        public String metadataVersion() {
+            return entry.metadataVersion();
+        }
+
+        /**
+         * Directory name of the test project under {@code tests/src/<group>/<artifact>/}.
+         */
+        public String testVersion() {
+            return testVersionOf(entry);
+        }
+    }
+
+    private record Cached(long lastModified, long size, ArtifactVersionIndex index) {
+    }
+
+    /**
+     * A {@code default-for} pattern that matches a single literal version ({@code 10\.20\.0}) or every version
+     * starting with a literal prefix ({@code 7\.2\..*}).
+     */
+    public record LiteralPattern(String literal, boolean prefix) {
+        public boolean matches(String version) {
+            return prefix ? version.startsWith(literal) : version.equals(literal);
+        }
+    }
+
+    private record DefaultFor(LiteralPattern literal, Pattern pattern, MetadataVersionsIndexEntry entry) {
+        boolean matches(String version) {
+            return literal != null ? literal.matches(version) : pattern.matcher(version).matches();
+        }
+    }
+
+    private final List<MetadataVersionsIndexEntry> entries;
+    private final Map<String, MetadataVersionsIndexEntry> testedEntries = new HashMap<>();
+    private final List<DefaultFor> defaultFor = new ArrayList<>();
+    private final VersionOrder.Key[] metadataKeys;
+    private final MetadataVersionsIndexEntry[] metadataEntries;
+    private final List<String> sortedTestedVersions;
+
+    private ArtifactVersionIndex(List<MetadataVersionsIndexEntry> entries) {
+        this.entries = List.copyOf(entries);
+
+        Map<String, VersionOrder.Key> testedKeys = new HashMap<>();
+        for (MetadataVersionsIndexEntry entry : entries) {
+            if (entry.testedVersions() != null) {
+                for (String version : entry.testedVersions()) {
+                    testedEntries.putIfAbsent(version, entry);
+                    testedKeys.computeIfAbsent(version, VersionOrder::parse);
+                }
+            }
+            if (entry.defaultFor() != null) {
+                LiteralPattern literal = literalPattern(entry.defaultFor());
+                defaultFor.add(new DefaultFor(literal, literal == null ? Pattern.compile(entry.defaultFor()) : null, entry));
+            }
+        }
+        List<String> tested = new ArrayList<>(testedKeys.keySet());
+        tested.sort(Comparator.comparing((String version) -> testedKeys.get(version)).thenComparing(Comparator.naturalOrder()));
+        sortedTestedVersions = Collections.unmodifiableList(tested);
+
+        MetadataVersionsIndexEntry[] withVersion = entries.stream()
+                .filter(entry -> entry.metadataVersion() != null)
+                .toArray(MetadataVersionsIndexEntry[]::new);
+        VersionOrder.Key[] keys = new VersionOrder.Key[withVersion.length];
+        Integer[] order = new Integer[withVersion.length];
+        for (int i = 0; i < withVersion.length; i++) {
+            keys[i] = VersionOrder.parse(withVersion[i].metadataVersion());
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> keys[i]));
+        metadataKeys = new VersionOrder.Key[order.length];
+        metadataEntries = new MetadataVersionsIndexEntry[order.length];
+        for (int i = 0; i < order.length; i++) {
+            metadataKeys[i] = keys[order[i]];
+            metadataEntries[i] = withVersion[order[i]];
+        }
+    }
+
+    public static ArtifactVersionIndex of(List<MetadataVersionsIndexEntry> entries) {
+        return new ArtifactVersionIndex(entries);
+    }
+
+    /**
+     * Returns the index for {@code metadata/<group>/<artifact>/index.json}, or an empty index if the file does not exist.
+     */
+    public static ArtifactVersionIndex load(Path metadataRoot, String groupId, String artifactId) {
+        return load(metadataRoot.resolve(groupId).resolve(artifactId).resolve("index.json"));
+    }
+
+    /**
+     * Returns the index for the given {@code index.json}, or an empty index if the file does not exist.
+     */
+    public static ArtifactVersionIndex load(Path indexFile) {
+        Path key = indexFile.toAbsolutePath().normalize();
+        try {
+            if (!Files.isRegularFile(key)) {
+                CACHE.remove(key);
+                return of(List.of());
+            }
+            BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            Cached cached = CACHE.get(key);
+            if (cached != null && cached.lastModified() == lastModified && cached.size() == attributes.size()) {
+                return cached.index();
+            }
+            ArtifactVersionIndex index = of(MAPPER.readValue(key.toFile(), new TypeReference<List<MetadataVersionsIndexEntry>>() {
+            }));
+            CACHE.put(key, new Cached(lastModified, attributes.size(), index));
+            return index;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + indexFile, e);
+        }
+    }
+
+    public List<MetadataVersionsIndexEntry> entries() {
+        return entries;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * All tested versions of the artifact in ascending version order, without duplicates.
+     */
+    public List<String> testedVersions() {
+        return sortedTestedVersions;
+    }
+
+    public Optional<String> latestTestedVersion() {
+        return sortedTestedVersions.isEmpty() ? Optional.empty() : Optional.of(sortedTestedVersions.get(sortedTestedVersions.size() - 1));
+    }
+
+    /**
+     * The entry marked {@code latest}, or the entry with the highest {@code metadata-version} if none is marked.
+     */
+    public Optional<MetadataVersionsIndexEntry> latestEntry() {
+        for (MetadataVersionsIndexEntry entry : entries) {
+            if (Boolean.TRUE.equals(entry.latest())) {
+                return Optional.of(entry);
+            }
+        }
+        return metadataEntries.length == 0 ? Optional.empty() : Optional.of(metadataEntries[metadataEntries.length - 1]);
+    }
+
+    /**
+     * Metadata versions of the artifact in ascending version order.
+     */
+    public List<String> metadataVersions() {
+        return Arrays.stream(metadataEntries).map(MetadataVersionsIndexEntry::metadataVersion).toList();
+    }
+
+    /**
+     * Versions listed in {@code skipped-versions} of any entry, in index order.
+     */
+    public List<String> skippedVersions() {
+        List<String> skipped = new ArrayList<>();
+        for (MetadataVersionsIndexEntry entry : entries) {
+            if (entry.skippedVersions() != null) {
+                for (SkippedVersionEntry skippedVersion : entry.skippedVersions()) {
+                    skipped.add(skippedVersion.version());
+                }
+            }
+        }
+        return skipped;
+    }
+
+    public Optional<MetadataVersionsIndexEntry> findTested(String version) {
+        return Optional.ofNullable(testedEntries.get(version));
+    }
+
+    public Optional<MetadataVersionsIndexEntry> findDefaultFor(String version) {
+        for (DefaultFor candidate : defaultFor) {
+            if (candidate.matches(version)) {
+                return Optional.of(candidate.entry());
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Optional<MetadataVersionsIndexEntry> findClosestLower(String version) {
+        VersionOrder.Key key = VersionOrder.parse(version);
+        int low = 0;
+        int high = metadataKeys.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (metadataKeys[mid].compareTo(key) <= 0) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found < 0 ? Optional.empty() : Optional.of(metadataEntries[found]);
+    }
+
+    /**
+     * Resolves the metadata entry that applies to {@code version}; empty if the version is lower than every metadata version.
+     */
+    public Optional<Resolution> resolve(String version) {
+        Optional<MetadataVersionsIndexEntry> tested = findTested(version);
+        if (tested.isPresent()) {
+            return Optional.of(new Resolution(MatchKind.TESTED, tested.get()));
+        }
+        Optional<MetadataVersionsIndexEntry> defaultEntry = findDefaultFor(version);
+        if (defaultEntry.isPresent()) {
+            return Optional.of(new Resolution(MatchKind.DEFAULT_FOR, defaultEntry.get()));
+        }
+        return findClosestLower(version).map(entry -> new Resolution(MatchKind.CLOSEST_LOWER, entry));
+    }
+
+    /**
+     * Compares version strings the way the repository orders {@code tested-versions}.
+     */
+    public static Comparator<String> versionOrder() {
+        return VersionOrder.INSTANCE;
+    }
+
+    public static String testVersionOf(MetadataVersionsIndexEntry entry) {
+        String testVersion = entry.testVersion();
+        return testVersion != null && !testVersion.isBlank() ? testVersion : entry.metadataVersion();
+    }
+
+    /**
+     * Returns the literal form of a {@code default-for} pattern, or null for patterns that need the regex engine.
+     */
+    public static LiteralPattern literalPattern(String regex) {
+        StringBuilder literal = new StringBuilder();
+        boolean prefix = false;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\' && i + 1 < regex.length() && !Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                literal.append(regex.charAt(++i));
+            } else if (c == '.' && i == regex.length() - 2 && regex.charAt(i + 1) == '*') {
+                prefix = true;
+                break;
+            } else if (Character.isLetterOrDigit(c) || c == '-' || c == '_') {
+                literal.append(c);
+            } else {
+                return null;
+            }
+        }
+        return literal.isEmpty() ? null : new LiteralPattern(literal.toString(), prefix);
+    }
+}
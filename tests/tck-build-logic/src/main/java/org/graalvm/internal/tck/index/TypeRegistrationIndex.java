@@ -0,0 +1,349 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.index;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.graalvm.internal.tck.utils.FilesUtils;
+import org.gradle.api.GradleException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Inverted index of type registrations across all {@code reachability-metadata.json} files in the repository.
+ * <p>
+ * The persisted form keeps one record per metadata file (content hash plus the registrations it contributes),
+ * so a refresh only re-parses files whose content changed. The type to contributors view is rebuilt in memory
+ * when the index is loaded.
+ */
+public final class TypeRegistrationIndex {
+
+    public static final String METADATA_FILE_NAME = "reachability-metadata.json";
+
+    private static final int FORMAT_VERSION = 1;
+    private static final List<String> TYPE_SECTIONS = List.of("reflection", "jni", "serialization");
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final JsonFactory JSON_FACTORY = OBJECT_MAPPER.getFactory();
+
+    /**
+     * A single registration of a type contributed by one metadata file.
+     *
+     * @param coordinate GA:metadata-version that contributes the registration
+     * @param section    top-level metadata section (reflection, jni or serialization)
+     * @param condition  {@code typeReached} condition, or null when unconditional
+     * @param flags      enabled access flags (for example {@code allDeclaredMethods}), sorted
+     * @param methods    number of explicitly registered methods
+     * @param fields     number of explicitly registered fields
+     */
+    public record Registration(
+            String coordinate,
+            String section,
+            String condition,
+            List<String> flags,
+            int methods,
+            int fields
+    ) {
+    }
+
+    /**
+     * Persisted index record for one metadata file.
+     */
+    public record FileRecord(
+            String coordinate,
+            long size,
+            long lastModified,
+            String sha256,
+            Map<String, List<Registration>> types
+    ) {
+    }
+
+    public record PersistedIndex(
+            int formatVersion,
+            Map<String, FileRecord> files
+    ) {
+    }
+
+    /**
+     * Counts describing the work done by {@link #refresh(Path, Path)}.
+     */
+    public record RefreshSummary(int files, int reparsed, int removed) {
+    }
+
+    private final Map<String, FileRecord> files;
+    private final Map<String, List<Registration>> byType;
+    private final RefreshSummary summary;
+
+    private TypeRegistrationIndex(Map<String, FileRecord> files, RefreshSummary summary) {
+        this.files = files;
+        this.summary = summary;
+        this.byType = new TreeMap<>();
+        for (FileRecord record : files.values()) {
+            record.types().forEach((type, registrations) ->
+                    byType.computeIfAbsent(type, ignored -> new ArrayList<>()).addAll(registrations));
+        }
+        byType.values().forEach(registrations -> registrations.sort(Comparator
+                .comparing(Registration::coordinate)
+                .thenComparing(Registration::section)
+                .thenComparing(r -> r.condition() == null ? "" : r.condition())));
+    }
+
+    /**
+     * Loads the persisted index without checking it against the metadata tree.
+     */
+    public static TypeRegistrationIndex load(Path indexFile) {
+        Map<String, FileRecord> files = readPersisted(indexFile);
+        return new TypeRegistrationIndex(files, new RefreshSummary(files.size(), 0, 0));
+    }
+
+    /**
+     * Brings the persisted index in line with the metadata tree and returns the refreshed index.
+     * Files whose size and modification time are unchanged are reused as-is; other files are hashed and only
+     * re-parsed when their content hash differs from the stored one.
+     */
+    public static TypeRegistrationIndex refresh(Path metadataRoot, Path indexFile) {
+        Map<String, FileRecord> previous = readPersisted(indexFile);
+        Map<String, FileRecord> current = new TreeMap<>();
+        int reparsed = 0;
+        boolean changed = false;
+
+        for (Path metadataFile : listMetadataFiles(metadataRoot)) {
+            String key = metadataRoot.relativize(metadataFile).toString().replace('\\', '/');
+            FileRecord existing = previous.get(key);
+            try {
+                long size = Files.size(metadataFile);
+                long lastModified = Files.getLastModifiedTime(metadataFile).toMillis();
+                if (existing != null && existing.size() == size && existing.lastModified() == lastModified) {
+                    current.put(key, existing);
+                    continue;
+                }
+                byte[] content = Files.readAllBytes(metadataFile);
+                String sha256 = sha256(content);
+                if (existing != null && existing.sha256().equals(sha256)) {
+                    current.put(key, new FileRecord(existing.coordinate(), size, lastModified, sha256, existing.types()));
+                } else {
+                    current.put(key, new FileRecord(coordinateFor(key), size, lastModified, sha256, parseTypes(coordinateFor(key), content)));
+                    reparsed++;
+                }
+                changed = true;
+            } catch (IOException e) {
+                throw new GradleException("Failed to index " + metadataFile, e);
+            }
+        }
+
+        int removed = (int) previous.keySet().stream().filter(key -> !current.containsKey(key)).count();
+        if (changed || removed > 0 || !Files.exists(indexFile)) {
+            writePersisted(indexFile, current);
+        }
+        return new TypeRegistrationIndex(current, new RefreshSummary(current.size(), reparsed, removed));
+    }
+
+    /**
+     * Returns all registrations of the given type, ordered by contributing coordinate.
+     */
+    public List<Registration> registrationsOf(String type) {
+        return byType.getOrDefault(type, List.of());
+    }
+
+    /**
+     * Returns all indexed types whose name starts with the given prefix.
+     */
+    public Set<String> typesWithPrefix(String prefix) {
+        Set<String> result = new TreeSet<>();
+        for (String type : byType.keySet()) {
+            if (type.startsWith(prefix)) {
+                result.add(type);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the types registered by at least two of the given GA:metadata-version coordinates, together with the
+     * registrations contributed by those coordinates.
+     */
+    public Map<String, List<Registration>> overlap(Collection<String> coordinates) {
+        Set<String> selected = new LinkedHashSet<>(coordinates);
+        Map<String, List<Registration>> result = new TreeMap<>();
+        byType.forEach((type, registrations) -> {
+            List<Registration> matching = registrations.stream()
+                    .filter(registration -> selected.contains(registration.coordinate()))
+                    .toList();
+            long distinctCoordinates = matching.stream().map(Registration::coordinate).distinct().count();
+            if (distinctCoordinates > 1) {
+                result.put(type, matching);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns every GA:metadata-version coordinate present in the index.
+     */
+    public Set<String> coordinates() {
+        Set<String> result = new TreeSet<>();
+        files.values().forEach(record -> result.add(record.coordinate()));
+        return result;
+    }
+
+    /**
+     * Returns how many files were indexed, re-parsed and dropped when this index was loaded or refreshed.
+     */
+    public RefreshSummary summary() {
+        return summary;
+    }
+
+    public int typeCount() {
+        return byType.size();
+    }
+
+    /**
+     * Parses the type-bearing sections of a single metadata file with a streaming parser,
+     * materializing one entry at a time.
+     */
+    static Map<String, List<Registration>> parseTypes(String coordinate, byte[] content) throws IOException {
+        Map<String, List<Registration>> types = new TreeMap<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return types;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String section = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!TYPE_SECTIONS.contains(section) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    JsonNode entry = OBJECT_MAPPER.readTree(parser);
+                    String type = typeName(entry.get("type"));
+                    if (type != null) {
+                        types.computeIfAbsent(type, ignored -> new ArrayList<>()).add(toRegistration(coordinate, section, entry));
+                    }
+                }
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Returns the indexed name of a metadata {@code type} value. Proxy registrations are keyed by their
+     * interface list, for example {@code proxy(java.sql.Connection,java.lang.AutoCloseable)}.
+     */
+    public static String typeName(JsonNode type) {
+        if (type == null) {
+            return null;
+        }
+        if (type.isTextual()) {
+            return type.asText();
+        }
+        JsonNode proxy = type.get("proxy");
+        if (proxy != null && proxy.isArray()) {
+            List<String> interfaces = new ArrayList<>();
+            proxy.forEach(node -> interfaces.add(node.asText()));
+            return "proxy(" + String.join(",", interfaces) + ")";
+        }
+        return null;
+    }
+
+    private static Registration toRegistration(String coordinate, String section, JsonNode entry) {
+        JsonNode condition = entry.path("condition").get("typeReached");
+        List<String> flags = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = entry.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isBoolean() && field.getValue().asBoolean()) {
+                flags.add(field.getKey());
+            }
+        }
+        flags.sort(null);
+        return new Registration(
+                coordinate,
+                section,
+                condition == null ? null : condition.asText(),
+                flags,
+                entry.path("methods").size(),
+                entry.path("fields").size()
+        );
+    }
+
+    private static List<Path> listMetadataFiles(Path metadataRoot) {
+        if (!Files.isDirectory(metadataRoot)) {
+            throw new GradleException("Metadata directory does not exist: " + metadataRoot);
+        }
+        try (Stream<Path> stream = Files.walk(metadataRoot)) {
+            return stream
+                    .filter(path -> path.getFileName().toString().equals(METADATA_FILE_NAME))
+                    .filter(path -> metadataRoot.relativize(path).getNameCount() == 4)
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new GradleException("Failed to list metadata files under " + metadataRoot, e);
+        }
+    }
+
+    /**
+     * Maps {@code <group>/<artifact>/<metadata-version>/reachability-metadata.json} to {@code group:artifact:metadata-version}.
+     */
+    private static String coordinateFor(String relativePath) {
+        String[] parts = relativePath.split("/");
+        return parts[0] + ":" + parts[1] + ":" + parts[2];
+    }
+
+    private static Map<String, FileRecord> readPersisted(Path indexFile) {
+        if (!Files.isRegularFile(indexFile)) {
+            return new TreeMap<>();
+        }
+        try (InputStream in = Files.newInputStream(indexFile)) {
+            PersistedIndex persisted = OBJECT_MAPPER.readValue(in, PersistedIndex.class);
+            if (persisted.formatVersion() != FORMAT_VERSION || persisted.files() == null) {
+                return new TreeMap<>();
+            }
+            return new TreeMap<>(persisted.files());
+        } catch (IOException e) {
+            // A corrupt or outdated index is simply rebuilt from scratch.
+            return new TreeMap<>();
+        }
+    }
+
+    private static void writePersisted(Path indexFile, Map<String, FileRecord> files) {
+        try {
+            FilesUtils.writeAtomically(indexFile, tmp -> OBJECT_MAPPER.writeValue(tmp.toFile(), new PersistedIndex(FORMAT_VERSION, new LinkedHashMap<>(files))));
+        } catch (IOException e) {
+            throw new GradleException("Failed to write type registration index " + indexFile, e);
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
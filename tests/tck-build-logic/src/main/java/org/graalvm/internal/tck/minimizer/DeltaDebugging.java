@@ -0,0 +1,188 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.minimizer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Parallel variant of Zeller's {@code ddmin} algorithm that reduces a list to a 1-minimal sublist for which the
+ * oracle still passes.
+ * <p>
+ * In every round the current list is split into {@code n} chunks. All chunks and their complements are candidates;
+ * they are evaluated in waves of {@code parallelism} builds in a fixed priority order (chunks first, then
+ * complements), and the first passing candidate in that order is taken, so the result does not depend on which
+ * build finishes first. Outcomes are cached by candidate hash, so re-running a minimization only builds candidates
+ * that were never evaluated before.
+ *
+ * @param <T> element type
+ */
+public final class DeltaDebugging<T> {
+
+    /**
+     * Decides whether a candidate still satisfies the property being preserved (e.g. native tests pass).
+     */
+    @FunctionalInterface
+    public interface Oracle<T> {
+        boolean passes(List<T> candidate) throws Exception;
+    }
+
+    public record Result<T>(List<T> minimized, int evaluations, int cacheHits) {
+    }
+
+    private final Oracle<T> oracle;
+    private final Function<List<T>, String> hasher;
+    private final MinimizationCache cache;
+    private final int parallelism;
+    private final Consumer<String> log;
+
+    private int evaluations;
+    private int cacheHits;
+
+    public DeltaDebugging(Oracle<T> oracle, Function<List<T>, String> hasher, MinimizationCache cache, int parallelism, Consumer<String> log) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, got " + parallelism);
+        }
+        this.oracle = oracle;
+        this.hasher = hasher;
+        this.cache = cache;
+        this.parallelism = parallelism;
+        this.log = log;
+    }
+
+    public Result<T> minimize(List<T> input) {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            if (firstPassing(List.of(input), executor) < 0) {
+                throw new IllegalStateException("The unmodified input does not pass; nothing to minimize.");
+            }
+            if (firstPassing(List.of(List.of()), executor) == 0) {
+                return new Result<>(List.of(), evaluations, cacheHits);
+            }
+
+            List<T> current = List.copyOf(input);
+            int n = 2;
+            while (current.size() >= 2) {
+                List<List<T>> chunks = split(current, n);
+                List<List<T>> candidates = new ArrayList<>(chunks);
+                if (n > 2) {
+                    for (int i = 0; i < chunks.size(); i++) {
+                        candidates.add(complement(chunks, i));
+                    }
+                }
+                log.accept("Testing " + candidates.size() + " candidate(s) of " + current.size() + " element(s) split into " + n + " chunk(s)");
+
+                int passing = firstPassing(candidates, executor);
+                if (passing >= 0 && passing < chunks.size()) {
+                    current = candidates.get(passing);
+                    n = 2;
+                } else if (passing >= 0) {
+                    current = candidates.get(passing);
+                    n = Math.max(n - 1, 2);
+                } else if (n < current.size()) {
+                    n = Math.min(n * 2, current.size());
+                } else {
+                    break;
+                }
+            }
+            return new Result<>(current, evaluations, cacheHits);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the index of the first passing candidate in priority order, or -1 when none passes.
+     * Cached outcomes are consulted first; only the uncached candidates ahead of the earliest cached pass are built,
+     * in waves, so the result is the same as with an empty cache.
+     */
+    private int firstPassing(List<List<T>> candidates, ExecutorService executor) {
+        Map<String, Integer> firstIndexByHash = new LinkedHashMap<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            firstIndexByHash.putIfAbsent(hasher.apply(candidates.get(i)), i);
+        }
+
+        int cachedPassing = -1;
+        List<Map.Entry<String, Integer>> pending = new ArrayList<>();
+        for (Map.Entry<String, Integer> candidate : firstIndexByHash.entrySet()) {
+            Boolean cached = cache.get(candidate.getKey());
+            if (cached != null) {
+                cacheHits++;
+                if (cached) {
+                    cachedPassing = candidate.getValue();
+                    break;
+                }
+            } else {
+                pending.add(candidate);
+            }
+        }
+
+        for (int start = 0; start < pending.size(); start += parallelism) {
+            List<Map.Entry<String, Integer>> wave = pending.subList(start, Math.min(start + parallelism, pending.size()));
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (Map.Entry<String, Integer> candidate : wave) {
+                List<T> elements = candidates.get(candidate.getValue());
+                futures.add(executor.submit(() -> oracle.passes(elements)));
+            }
+
+            int passing = -1;
+            for (int i = 0; i < wave.size(); i++) {
+                boolean passed = await(futures.get(i));
+                evaluations++;
+                cache.put(wave.get(i).getKey(), passed);
+                if (passed && passing < 0) {
+                    passing = wave.get(i).getValue();
+                }
+            }
+            cache.save();
+            if (passing >= 0) {
+                return passing;
+            }
+        }
+        return cachedPassing;
+    }
+
+    private static boolean await(Future<Boolean> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a candidate build", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Candidate evaluation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    static <T> List<List<T>> split(List<T> elements, int n) {
+        List<List<T>> chunks = new ArrayList<>(n);
+        int start = 0;
+        for (int i = 0; i < n; i++) {
+            int end = start + (elements.size() - start) / (n - i);
+            chunks.add(List.copyOf(elements.subList(start, end)));
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static <T> List<T> complement(List<List<T>> chunks, int excluded) {
+        List<T> result = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            if (i != excluded) {
+                result.addAll(chunks.get(i));
+            }
+        }
+        return List.copyOf(result);
+    }
+}
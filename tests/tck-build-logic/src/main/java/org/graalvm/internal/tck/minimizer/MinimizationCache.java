@@ -0,0 +1,80 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.minimizer;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.graalvm.internal.tck.utils.FilesUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Candidate outcomes keyed by candidate hash, persisted as a JSON object ({@code hash -> passed}).
+ * A missing file yields an empty cache, so a cache can be discarded by deleting it.
+ */
+public final class MinimizationCache {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Path file;
+    private final Map<String, Boolean> outcomes = new ConcurrentHashMap<>();
+
+    private MinimizationCache(Path file) {
+        this.file = file;
+    }
+
+    public static MinimizationCache load(Path file) {
+        MinimizationCache cache = new MinimizationCache(file);
+        if (file != null && Files.isRegularFile(file)) {
+            try {
+                cache.outcomes.putAll(MAPPER.readValue(file.toFile(), new TypeReference<Map<String, Boolean>>() {
+                }));
+            } catch (IOException e) {
+                // An unreadable cache only costs rebuilds.
+                cache.outcomes.clear();
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns a cache that is never persisted.
+     */
+    public static MinimizationCache inMemory() {
+        return new MinimizationCache(null);
+    }
+
+    public Boolean get(String hash) {
+        return outcomes.get(hash);
+    }
+
+    public void put(String hash, boolean passed) {
+        outcomes.put(hash, passed);
+    }
+
+    public int size() {
+        return outcomes.size();
+    }
+
+    public synchronized void save() {
+        if (file == null) {
+            return;
+        }
+        try {
+            FilesUtils.writeAtomically(file, tmp -> MAPPER.writeValue(tmp.toFile(), new TreeMap<>(outcomes)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to persist minimization cache " + file, e);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.pack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Memory-mapped reader for the binary metadata lookup index written by {@link MetadataLookupIndexWriter}.
+ * <p>
+ * Resolving a {@code group:artifact:version} needs two binary searches and no JSON parsing: one over the sorted
+ * artifact table and one over the sorted tested versions of that artifact. Untested versions are matched against
+ * the {@code default-for} entries; patterns that are a literal or a literal prefix are stored as ranges of strings,
+ * the remaining patterns are compiled once on first use. Matching follows
+ * {@link org.graalvm.internal.tck.index.ArtifactVersionIndex}, which defines version resolution for the rest of the
+ * build, and versions are ordered with {@link VersionOrder}, so the reader needs neither Gradle nor Jackson.
+ * <p>
+ * Layout (big-endian; a string reference is an {@code u32 offset, u32 length} pair into the string pool):
+ * <pre>
+ * header    magic "RMIX", u16 format version, u16 reserved, u32 artifact count,
+ *           u32 offsets of the artifact, metadata, tested, range and pattern tables and of the string pool,
+ *           u32 string pool length, string archive file name
+ * artifact  string group:artifact, then (u32 start, u32 count) into the metadata, tested, range and pattern tables;
+ *           sorted by the UTF-8 bytes of group:artifact
+ * metadata  string directory, string metadata-version, u32 flags (1 = latest, 2 = override),
+ *           u64 archive offset of the local file header (-1 if absent), u64 compressed size,
+ *           u64 uncompressed size, u32 compression method; in index.json order per artifact
+ * tested    string version, u32 metadata index (relative to the artifact); sorted by version bytes
+ * range     string low (inclusive), string high (exclusive, empty = unbounded), u32 metadata index; sorted by low
+ * pattern   string regular expression, u32 metadata index
+ * </pre>
+ */
+public final class MetadataLookupIndex {
+
+    static final int MAGIC = 0x524D4958;
+    static final int FORMAT_VERSION = 1;
+    static final ByteOrder BYTE_ORDER = ByteOrder.BIG_ENDIAN;
+
+    static final int HEADER_SIZE = 48;
+    static final int ARTIFACT_RECORD_SIZE = 40;
+    static final int METADATA_RECORD_SIZE = 48;
+    static final int TESTED_RECORD_SIZE = 12;
+    static final int RANGE_RECORD_SIZE = 20;
+    static final int PATTERN_RECORD_SIZE = 12;
+
+    static final int FLAG_LATEST = 1;
+    static final int FLAG_OVERRIDE = 2;
+
+    /**
+     * How a version was matched to its metadata.
+     */
+    public enum MatchKind {
+        /** The version is listed in {@code tested-versions}. */
+        TESTED,
+        /** The version matches a {@code default-for} pattern. */
+        DEFAULT_FOR,
+        /** The entry with the highest {@code metadata-version} that is not greater than the version. */
+        CLOSEST_LOWER
+    }
+
+    /**
+     * Metadata resolved for a version. {@code archiveOffset} is -1 when the archive does not contain the metadata file.
+     */
+    public record Match(
+            MatchKind kind,
+            String directory,
+            String metadataVersion,
+            boolean latest,
+            boolean override,
+            long archiveOffset,
+            long compressedSize,
+            long uncompressedSize,
+            int compressionMethod
+    ) {
+    }
+
+    private final ByteBuffer buffer;
+    private final int artifactCount;
+    private final int artifactOffset;
+    private final int metadataOffset;
+    private final int testedOffset;
+    private final int rangeOffset;
+    private final int patternOffset;
+    private final int stringPoolOffset;
+    private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+    private MetadataLookupIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.order(BYTE_ORDER);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a metadata lookup index");
+        }
+        int formatVersion = Short.toUnsignedInt(buffer.getShort(4));
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported metadata lookup index format version " + formatVersion);
+        }
+        this.artifactCount = buffer.getInt(8);
+        this.artifactOffset = buffer.getInt(12);
+        this.metadataOffset = buffer.getInt(16);
+        this.testedOffset = buffer.getInt(20);
+        this.rangeOffset = buffer.getInt(24);
+        this.patternOffset = buffer.getInt(28);
+        this.stringPoolOffset = buffer.getInt(32);
+    }
+
+    /**
+     * Maps the index file into memory. The mapping stays valid after the file channel is closed.
+     */
+    public static MetadataLookupIndex open(Path indexFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MetadataLookupIndex(mapped);
+        }
+    }
+
+    public int artifactCount() {
+        return artifactCount;
+    }
+
+    /**
+     * File name of the archive the offsets refer to, or an empty string if the index was written without one.
+     */
+    public String archiveName() {
+        return string(40);
+    }
+
+    /**
+     * Resolves metadata for an exactly tested version or a version matched by {@code default-for}.
+     */
+    public Optional<Match> resolve(String group, String artifact, String version) {
+        return resolve(group, artifact, version, false);
+    }
+
+    /**
+     * Resolves metadata like {@link #resolve(String, String, String)}; when nothing matches and {@code useClosestLower}
+     * is set, falls back to the closest lower {@code metadata-version} like
+     * {@link org.graalvm.internal.tck.index.ArtifactVersionIndex#resolve}.
+     * Versions lower than every metadata version stay unresolved.
+     */
+    public Optional<Match> resolve(String group, String artifact, String version, boolean useClosestLower) {
+        int artifactRecord = findArtifact(utf8(group + ":" + artifact));
+        if (artifactRecord < 0) {
+            return Optional.empty();
+        }
+        int metadataStart = buffer.getInt(artifactRecord + 8);
+        int metadataCount = buffer.getInt(artifactRecord + 12);
+        byte[] versionBytes = utf8(version);
+
+        int tested = findTested(versionBytes, buffer.getInt(artifactRecord + 16), buffer.getInt(artifactRecord + 20));
+        if (tested >= 0) {
+            return Optional.of(match(MatchKind.TESTED, metadataStart + tested));
+        }
+
+        int defaultFor = findDefaultFor(version, versionBytes, artifactRecord);
+        if (defaultFor >= 0) {
+            return Optional.of(match(MatchKind.DEFAULT_FOR, metadataStart + defaultFor));
+        }
+
+        if (useClosestLower) {
+            int closestLower = findClosestLower(version, metadataStart, metadataCount);
+            if (closestLower >= 0) {
+                return Optional.of(match(MatchKind.CLOSEST_LOWER, metadataStart + closestLower));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Reads and, if needed, inflates the metadata file of a match from the archive the index was written for.
+     */
+    public static byte[] readFromArchive(Path archive, Match match) throws IOException {
+        if (match.archiveOffset() < 0) {
+            throw new IOException("Metadata of " + match.directory() + " is not stored in " + archive);
+        }
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            ByteBuffer localHeader = ByteBuffer.allocate(30).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(localHeader, match.archiveOffset());
+            if (localHeader.getInt(0) != 0x04034b50) {
+                throw new IOException("No zip entry at offset " + match.archiveOffset() + " of " + archive);
+            }
+            long dataOffset = match.archiveOffset() + 30
+                    + Short.toUnsignedInt(localHeader.getShort(26))
+                    + Short.toUnsignedInt(localHeader.getShort(28));
+            ByteBuffer data = ByteBuffer.allocate((int) match.compressedSize());
+            while (data.hasRemaining() && channel.read(data, dataOffset + data.position()) > 0) {
+                // read until the buffer is full
+            }
+            if (match.compressionMethod() == 0) {
+                return data.array();
+            }
+            if (match.compressionMethod() != 8) {
+                throw new IOException("Unsupported zip compression method " + match.compressionMethod() + " in " + archive);
+            }
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(data.array());
+                byte[] content = new byte[(int) match.uncompressedSize()];
+                int length = 0;
+                while (length < content.length && !inflater.finished()) {
+                    int inflated = inflater.inflate(content, length, content.length - length);
+                    if (inflated == 0 && inflater.needsInput()) {
+                        break;
+                    }
+                    length += inflated;
+                }
+                return content;
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt zip entry for " + match.directory() + " in " + archive, e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    private int findArtifact(byte[] ga) {
+        int low = 0;
+        int high = artifactCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int record = artifactOffset + mid * ARTIFACT_RECORD_SIZE;
+            int comparison = compare(record, ga);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return record;
+            }
+        }
+        return -1;
+    }
+
+    private int findTested(byte[] version, int start, int count) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int record = testedOffset + (start + mid) * TESTED_RECORD_SIZE;
+            int comparison = compare(record, version);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return buffer.getInt(record + 8);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first entry in index.json order whose {@code default-for} matches, or -1.
+     */
+    private int findDefaultFor(String version, byte[] versionBytes, int artifactRecord) {
+        int best = Integer.MAX_VALUE;
+
+        int rangeStart = buffer.getInt(artifactRecord + 24);
+        int rangeCount = buffer.getInt(artifactRecord + 28);
+        // Ranges are sorted by their lower bound; only ranges starting at or below the version can contain it.
+        int low = 0;
+        int high = rangeCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(rangeOffset + (rangeStart + mid) * RANGE_RECORD_SIZE, versionBytes) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low - 1; i >= 0; i--) {
+            int record = rangeOffset + (rangeStart + i) * RANGE_RECORD_SIZE;
+            boolean unbounded = buffer.getInt(record + 12) == 0;
+            if (unbounded || compare(record + 8, versionBytes) > 0) {
+                best = Math.min(best, buffer.getInt(record + 16));
+            }
+        }
+
+        int patternStart = buffer.getInt(artifactRecord + 32);
+        int patternCount = buffer.getInt(artifactRecord + 36);
+        for (int i = 0; i < patternCount; i++) {
+            int record = patternOffset + (patternStart + i) * PATTERN_RECORD_SIZE;
+            int metadataIndex = buffer.getInt(record + 8);
+            if (metadataIndex < best && patterns.computeIfAbsent(string(record), Pattern::compile).matcher(version).matches()) {
+                best = metadataIndex;
+            }
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    /**
+     * Returns the entry with the highest metadata version not greater than {@code version}, the later one in
+     * index.json order on ties, or -1. Artifacts have few metadata entries, so a linear scan is enough.
+     */
+    private int findClosestLower(String version, int metadataStart, int metadataCount) {
+        VersionOrder.Key key = VersionOrder.parse(version);
+        int found = -1;
+        VersionOrder.Key foundVersion = null;
+        for (int i = 0; i < metadataCount; i++) {
+            VersionOrder.Key metadataVersion = VersionOrder.parse(string(metadataOffset + (metadataStart + i) * METADATA_RECORD_SIZE + 8));
+            if (metadataVersion.compareTo(key) <= 0 && (foundVersion == null || metadataVersion.compareTo(foundVersion) >= 0)) {
+                found = i;
+                foundVersion = metadataVersion;
+            }
+        }
+        return found;
+    }
+
+    private Match match(MatchKind kind, int metadataIndex) {
+        int record = metadataOffset + metadataIndex * METADATA_RECORD_SIZE;
+        int flags = buffer.getInt(record + 16);
+        return new Match(
+                kind,
+                string(record),
+                string(record + 8),
+                (flags & FLAG_LATEST) != 0,
+                (flags & FLAG_OVERRIDE) != 0,
+                buffer.getLong(record + 20),
+                buffer.getLong(record + 28),
+                buffer.getLong(record + 36),
+                buffer.getInt(record + 44)
+        );
+    }
+
+    /**
+     * Compares the string referenced at {@code refPosition} with {@code value} by unsigned bytes.
+     */
+    private int compare(int refPosition, byte[] value) {
+        int offset = stringPoolOffset + buffer.getInt(refPosition);
+        int length = buffer.getInt(refPosition + 4);
+        int common = Math.min(length, value.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = Integer.compare(buffer.get(offset + i) & 0xFF, value[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, value.length);
+    }
+
+    private String string(int refPosition) {
+        int offset = stringPoolOffset + buffer.getInt(refPosition);
+        int length = buffer.getInt(refPosition + 4);
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.pack;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes the binary metadata lookup index (see {@link MetadataLookupIndex}) next to the packaged archive.
+ * <p>
+ * Run with {@code gradle metadataLookupIndex}; the index is also produced by {@code gradle package}.
+ */
+@SuppressWarnings("unused")
+public abstract class MetadataLookupIndexTask extends DefaultTask {
+
+    @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract DirectoryProperty getMetadataRoot();
+
+    @InputFile
+    @Optional
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    public abstract RegularFileProperty getArchive();
+
+    @OutputFile
+    public abstract RegularFileProperty getIndexFile();
+
+    @TaskAction
+    public void write() {
+        Path metadataRoot = getMetadataRoot().get().getAsFile().toPath();
+        Path archive = getArchive().isPresent() ? getArchive().get().getAsFile().toPath() : null;
+        Path indexFile = getIndexFile().get().getAsFile().toPath();
+        try {
+            MetadataLookupIndexWriter.write(metadataRoot, archive, indexFile);
+            MetadataLookupIndex index = MetadataLookupIndex.open(indexFile);
+            getLogger().lifecycle("Indexed {} artifacts{}: {}", index.artifactCount(),
+                    archive == null ? "" : " with offsets into " + archive.getFileName(), indexFile);
+        } catch (IOException e) {
+            throw new GradleException("Failed to write metadata lookup index " + indexFile, e);
+        }
+    }
+}
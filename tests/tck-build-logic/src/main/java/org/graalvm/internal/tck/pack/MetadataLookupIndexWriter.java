@@ -0,0 +1,308 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.pack;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.graalvm.internal.tck.index.ArtifactVersionIndex;
+import org.graalvm.internal.tck.model.MetadataVersionsIndexEntry;
+import org.graalvm.internal.tck.utils.FilesUtils;
+import org.graalvm.internal.tck.utils.ReachabilityMetadataFiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Writes the binary lookup index read by {@link MetadataLookupIndex}.
+ * <p>
+ * The index is built from every {@code metadata/<group>/<artifact>/index.json}. When the packaged archive is given,
+ * every metadata entry also records where its {@code reachability-metadata.json} is stored in the archive, so a
+ * consumer can read it without scanning the zip.
+ */
+public final class MetadataLookupIndexWriter {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    /**
+     * Location of a stored file in a zip archive.
+     */
+    record ArchiveEntry(long localHeaderOffset, long compressedSize, long uncompressedSize, int method) {
+    }
+
+    record Range(byte[] low, byte[] high, int metadataIndex) {
+    }
+
+    private record Pattern(String regex, int metadataIndex) {
+    }
+
+    private final ByteArrayOutputStream stringPool = new ByteArrayOutputStream();
+    private final Map<String, Long> stringRefs = new HashMap<>();
+
+    private MetadataLookupIndexWriter() {
+    }
+
+    /**
+     * Writes the lookup index for {@code metadataRoot} to {@code indexFile}. {@code archive} may be null.
+     */
+    public static void write(Path metadataRoot, Path archive, Path indexFile) throws IOException {
+        new MetadataLookupIndexWriter().writeIndex(metadataRoot, archive, indexFile);
+    }
+
+    private void writeIndex(Path metadataRoot, Path archive, Path indexFile) throws IOException {
+        Map<String, ArchiveEntry> archiveEntries = archive == null ? Map.of() : readCentralDirectory(archive);
+
+        TreeMap<byte[], List<MetadataVersionsIndexEntry>> artifacts = new TreeMap<>(Arrays::compareUnsigned);
+        List<Path> indexFiles;
+        try (Stream<Path> stream = Files.walk(metadataRoot, 3)) {
+            indexFiles = stream
+                    .filter(path -> path.getFileName().toString().equals("index.json"))
+                    .filter(path -> metadataRoot.relativize(path).getNameCount() == 3)
+                    .sorted()
+                    .toList();
+        }
+        for (Path artifactIndex : indexFiles) {
+            Path artifactDir = artifactIndex.getParent();
+            String ga = artifactDir.getParent().getFileName() + ":" + artifactDir.getFileName();
+            artifacts.put(utf8(ga), MAPPER.readValue(artifactIndex.toFile(), new TypeReference<>() {
+            }));
+        }
+
+        ByteBuffer artifactTable = buffer(artifacts.size() * MetadataLookupIndex.ARTIFACT_RECORD_SIZE);
+        List<byte[]> metadataRecords = new ArrayList<>();
+        List<byte[]> testedRecords = new ArrayList<>();
+        List<byte[]> rangeRecords = new ArrayList<>();
+        List<byte[]> patternRecords = new ArrayList<>();
+
+        for (Map.Entry<byte[], List<MetadataVersionsIndexEntry>> artifact : artifacts.entrySet()) {
+            String ga = new String(artifact.getKey(), StandardCharsets.UTF_8);
+            String directoryPrefix = ga.replace(':', '/') + "/";
+            List<MetadataVersionsIndexEntry> entries = artifact.getValue();
+
+            TreeMap<byte[], Integer> tested = new TreeMap<>(Arrays::compareUnsigned);
+            List<Range> ranges = new ArrayList<>();
+            List<Pattern> patterns = new ArrayList<>();
+            int metadataStart = metadataRecords.size();
+            // Metadata records keep the index.json order, which decides between several matching default-for entries.
+            for (int i = 0; i < entries.size(); i++) {
+                MetadataVersionsIndexEntry entry = entries.get(i);
+                String directory = directoryPrefix + entry.metadataVersion();
+                metadataRecords.add(metadataRecord(directory, entry, archiveEntries.get(directory + "/" + ReachabilityMetadataFiles.FILE_NAME)));
+                if (entry.testedVersions() != null) {
+                    for (String testedVersion : entry.testedVersions()) {
+                        tested.putIfAbsent(utf8(testedVersion), i);
+                    }
+                }
+                if (entry.defaultFor() != null) {
+                    Range range = literalRange(entry.defaultFor(), i);
+                    if (range != null) {
+                        ranges.add(range);
+                    } else {
+                        patterns.add(new Pattern(entry.defaultFor(), i));
+                    }
+                }
+            }
+            ranges.sort(Comparator.comparing(Range::low, Arrays::compareUnsigned));
+
+            artifactTable.putLong(stringRef(ga));
+            artifactTable.putInt(metadataStart).putInt(entries.size());
+            artifactTable.putInt(testedRecords.size()).putInt(tested.size());
+            artifactTable.putInt(rangeRecords.size()).putInt(ranges.size());
+            artifactTable.putInt(patternRecords.size()).putInt(patterns.size());
+
+            tested.forEach((version, metadataIndex) -> testedRecords.add(buffer(MetadataLookupIndex.TESTED_RECORD_SIZE)
+                    .putLong(stringRef(version))
+                    .putInt(metadataIndex)
+                    .array()));
+            for (Range range : ranges) {
+                rangeRecords.add(buffer(MetadataLookupIndex.RANGE_RECORD_SIZE)
+                        .putLong(stringRef(range.low()))
+                        .putLong(stringRef(range.high()))
+                        .putInt(range.metadataIndex())
+                        .array());
+            }
+            for (Pattern pattern : patterns) {
+                patternRecords.add(buffer(MetadataLookupIndex.PATTERN_RECORD_SIZE)
+                        .putLong(stringRef(pattern.regex()))
+                        .putInt(pattern.metadataIndex())
+                        .array());
+            }
+        }
+
+        long archiveName = stringRef(archive == null ? "" : archive.getFileName().toString());
+
+        int artifactOffset = MetadataLookupIndex.HEADER_SIZE;
+        int metadataOffset = artifactOffset + artifactTable.capacity();
+        int testedOffset = metadataOffset + metadataRecords.size() * MetadataLookupIndex.METADATA_RECORD_SIZE;
+        int rangeOffset = testedOffset + testedRecords.size() * MetadataLookupIndex.TESTED_RECORD_SIZE;
+        int patternOffset = rangeOffset + rangeRecords.size() * MetadataLookupIndex.RANGE_RECORD_SIZE;
+        int stringPoolOffset = patternOffset + patternRecords.size() * MetadataLookupIndex.PATTERN_RECORD_SIZE;
+
+        ByteBuffer header = buffer(MetadataLookupIndex.HEADER_SIZE)
+                .putInt(MetadataLookupIndex.MAGIC)
+                .putShort((short) MetadataLookupIndex.FORMAT_VERSION)
+                .putShort((short) 0)
+                .putInt(artifacts.size())
+                .putInt(artifactOffset)
+                .putInt(metadataOffset)
+                .putInt(testedOffset)
+                .putInt(rangeOffset)
+                .putInt(patternOffset)
+                .putInt(stringPoolOffset)
+                .putInt(stringPool.size())
+                .putLong(archiveName);
+
+        FilesUtils.writeAtomically(indexFile, tmp -> {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(channel, header.flip());
+                writeFully(channel, artifactTable.flip());
+                for (List<byte[]> table : List.of(metadataRecords, testedRecords, rangeRecords, patternRecords)) {
+                    for (byte[] record : table) {
+                        writeFully(channel, ByteBuffer.wrap(record));
+                    }
+                }
+                writeFully(channel, ByteBuffer.wrap(stringPool.toByteArray()));
+            }
+        });
+    }
+
+    private byte[] metadataRecord(String directory, MetadataVersionsIndexEntry entry, ArchiveEntry archiveEntry) {
+        int flags = (Boolean.TRUE.equals(entry.latest()) ? MetadataLookupIndex.FLAG_LATEST : 0)
+                | (Boolean.TRUE.equals(entry.override()) ? MetadataLookupIndex.FLAG_OVERRIDE : 0);
+        ByteBuffer record = buffer(MetadataLookupIndex.METADATA_RECORD_SIZE)
+                .putLong(stringRef(directory))
+                .putLong(stringRef(entry.metadataVersion()))
+                .putInt(flags);
+        if (archiveEntry == null) {
+            record.putLong(-1L).putLong(0L).putLong(0L).putInt(0);
+        } else {
+            record.putLong(archiveEntry.localHeaderOffset())
+                    .putLong(archiveEntry.compressedSize())
+                    .putLong(archiveEntry.uncompressedSize())
+                    .putInt(archiveEntry.method());
+        }
+        return record.array();
+    }
+
+    /**
+     * Turns a {@link ArtifactVersionIndex#literalPattern literal} {@code default-for} pattern into a half-open range
+     * of UTF-8 strings, so lookups need no regular expression. Returns null for all other patterns.
+     */
+    static Range literalRange(String regex, int metadataIndex) {
+        ArtifactVersionIndex.LiteralPattern literal = ArtifactVersionIndex.literalPattern(regex);
+        if (literal == null) {
+            return null;
+        }
+        byte[] low = utf8(literal.literal());
+        byte[] high = literal.prefix() ? prefixUpperBound(low) : Arrays.copyOf(low, low.length + 1);
+        return new Range(low, high, metadataIndex);
+    }
+
+    /**
+     * Smallest byte string that is greater than every string starting with {@code prefix}; empty when unbounded.
+     */
+    private static byte[] prefixUpperBound(byte[] prefix) {
+        byte[] high = prefix.clone();
+        for (int i = high.length - 1; i >= 0; i--) {
+            if ((high[i] & 0xFF) != 0xFF) {
+                high[i]++;
+                return Arrays.copyOf(high, i + 1);
+            }
+        }
+        return new byte[0];
+    }
+
+    /**
+     * Reads file locations from the central directory of a (non-zip64) zip archive.
+     */
+    static Map<String, ArchiveEntry> readCentralDirectory(Path archive) throws IOException {
+        Map<String, ArchiveEntry> entries = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int tailLength = (int) Math.min(size, 22 + 0xFFFF);
+            ByteBuffer tail = ByteBuffer.allocate(tailLength).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(tail, size - tailLength);
+            int eocd = -1;
+            for (int i = tailLength - 22; i >= 0; i--) {
+                if (tail.getInt(i) == 0x06054b50) {
+                    eocd = i;
+                    break;
+                }
+            }
+            if (eocd < 0) {
+                throw new IOException("No zip end of central directory record found in " + archive);
+            }
+            long directorySize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+            long directoryOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+            if (directoryOffset == 0xFFFFFFFFL || directorySize == 0xFFFFFFFFL) {
+                throw new IOException("Zip64 archives are not supported: " + archive);
+            }
+
+            ByteBuffer directory = ByteBuffer.allocate((int) directorySize).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(directory, directoryOffset);
+            int position = 0;
+            while (position + 46 <= directorySize && directory.getInt(position) == 0x02014b50) {
+                int method = Short.toUnsignedInt(directory.getShort(position + 10));
+                long compressedSize = Integer.toUnsignedLong(directory.getInt(position + 20));
+                long uncompressedSize = Integer.toUnsignedLong(directory.getInt(position + 24));
+                int nameLength = Short.toUnsignedInt(directory.getShort(position + 28));
+                int extraLength = Short.toUnsignedInt(directory.getShort(position + 30));
+                int commentLength = Short.toUnsignedInt(directory.getShort(position + 32));
+                long localHeaderOffset = Integer.toUnsignedLong(directory.getInt(position + 42));
+                byte[] name = new byte[nameLength];
+                directory.get(position + 46, name);
+                entries.put(new String(name, StandardCharsets.UTF_8), new ArchiveEntry(localHeaderOffset, compressedSize, uncompressedSize, method));
+                position += 46 + nameLength + extraLength + commentLength;
+            }
+        }
+        return entries;
+    }
+
+    private long stringRef(String value) {
+        return stringRef(utf8(value));
+    }
+
+    /**
+     * Interns a string in the string pool and returns {@code offset << 32 | length}.
+     */
+    private long stringRef(byte[] value) {
+        return stringRefs.computeIfAbsent(new String(value, StandardCharsets.ISO_8859_1), ignored -> {
+            long offset = stringPool.size();
+            stringPool.writeBytes(value);
+            return (offset << 32) | value.length;
+        });
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(MetadataLookupIndex.BYTE_ORDER);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.pack;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.graalvm.internal.tck.utils.CanonicalJson;
+import org.graalvm.internal.tck.utils.ReachabilityMetadataFiles;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads packs written by {@link MetadataPackWriter} and reconstructs the original files byte-for-byte.
+ * <p>
+ * A pack is a gzip-compressed stream of JSON lines:
+ * <ol>
+ *   <li>a header ({@code format}, {@code formatVersion}, counts and {@code treeSha256} of the packed tree),</li>
+ *   <li>one line per unique metadata entry in compact JSON; its content address is the SHA-256 of the line,</li>
+ *   <li>one line per unique blob, either {@code {"text": ...}} or {@code {"base64": ...}},</li>
+ *   <li>the manifest that maps every relative path either to {@code {"blob": index}} or to
+ *   {@code {"sections": [[name, [entry references]], ...]}}. Entry references of a section are delta-encoded
+ *   positions in the entry table. {@code "trailingNewline": false} marks files that do not end with a newline.</li>
+ * </ol>
+ */
+public final class MetadataPackReader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<String> entries;
+    private final List<byte[]> blobs;
+    private final ObjectNode manifest;
+    private final String treeSha256;
+
+    private MetadataPackReader(List<String> entries, List<byte[]> blobs, ObjectNode manifest, String treeSha256) {
+        this.entries = entries;
+        this.blobs = blobs;
+        this.manifest = manifest;
+        this.treeSha256 = treeSha256;
+    }
+
+    public static MetadataPackReader open(Path packFile) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(packFile)), StandardCharsets.UTF_8))) {
+            JsonNode header = MAPPER.readTree(requireLine(reader, packFile));
+            if (!MetadataPackWriter.FORMAT.equals(header.path("format").asText())) {
+                throw new IOException(packFile + " is not a metadata pack");
+            }
+            int formatVersion = header.path("formatVersion").asInt();
+            if (formatVersion != MetadataPackWriter.FORMAT_VERSION) {
+                throw new IOException("Unsupported metadata pack format version " + formatVersion + " in " + packFile);
+            }
+
+            int entryCount = header.path("entries").asInt();
+            List<String> entries = new ArrayList<>(entryCount);
+            for (int i = 0; i < entryCount; i++) {
+                entries.add(requireLine(reader, packFile));
+            }
+            int blobCount = header.path("blobs").asInt();
+            List<byte[]> blobs = new ArrayList<>(blobCount);
+            for (int i = 0; i < blobCount; i++) {
+                blobs.add(decodeBlob(MAPPER.readTree(requireLine(reader, packFile))));
+            }
+            JsonNode manifest = MAPPER.readTree(requireLine(reader, packFile));
+            if (!manifest.isObject()) {
+                throw new IOException("Malformed manifest in " + packFile);
+            }
+            return new MetadataPackReader(entries, blobs, (ObjectNode) manifest, header.path("treeSha256").asText());
+        }
+    }
+
+    /**
+     * Relative paths of all packed files in manifest order.
+     */
+    public List<String> files() {
+        List<String> files = new ArrayList<>();
+        manifest.fieldNames().forEachRemaining(files::add);
+        return files;
+    }
+
+    /**
+     * Content address of an entry in the entry table.
+     */
+    public String entryHash(int index) {
+        return CanonicalJson.sha256(entries.get(index));
+    }
+
+    public int entryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Reconstructs a single file.
+     */
+    public byte[] read(String path) throws IOException {
+        JsonNode fileManifest = manifest.get(path);
+        if (fileManifest == null) {
+            throw new IOException("No file " + path + " in metadata pack");
+        }
+        if (fileManifest.has("blob")) {
+            return blobs.get(fileManifest.get("blob").asInt());
+        }
+
+        ObjectNode metadata = MAPPER.createObjectNode();
+        for (JsonNode section : fileManifest.get("sections")) {
+            var sectionEntries = metadata.putArray(section.get(0).asText());
+            int index = 0;
+            for (JsonNode delta : section.get(1)) {
+                index += delta.asInt();
+                sectionEntries.add(MAPPER.readTree(entries.get(index)));
+            }
+        }
+        String json = format(metadata);
+        if (!fileManifest.path("trailingNewline").asBoolean(true)) {
+            json = json.substring(0, json.length() - 1);
+        }
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reconstructs all files below {@code targetDir} and verifies the result against the digest of the packed tree.
+     */
+    public void extractTo(Path targetDir) throws IOException {
+        Map<String, String> fileHashes = new TreeMap<>();
+        for (String path : files()) {
+            Path target = targetDir.resolve(path).normalize();
+            if (!target.startsWith(targetDir.normalize())) {
+                throw new IOException("Refusing to extract " + path + " outside of " + targetDir);
+            }
+            byte[] content = read(path);
+            fileHashes.put(path, CanonicalJson.sha256(content));
+            Files.createDirectories(target.getParent());
+            Files.write(target, content);
+        }
+        String actual = treeDigest(fileHashes);
+        if (!actual.equals(treeSha256)) {
+            throw new IOException("Extracted metadata does not match the packed tree (expected " + treeSha256 + ", got " + actual + ")");
+        }
+    }
+
+    /**
+     * Formats metadata like the committed files, independently of the platform line separator.
+     */
+    static String format(JsonNode metadata) throws IOException {
+        String json = ReachabilityMetadataFiles.toJson(metadata);
+        return "\n".equals(System.lineSeparator()) ? json : json.replace(System.lineSeparator(), "\n");
+    }
+
+    /**
+     * Digest over the sorted relative paths and content hashes of a file tree.
+     */
+    static String treeDigest(Map<String, String> fileHashes) {
+        StringBuilder tree = new StringBuilder();
+        new TreeMap<>(fileHashes).forEach((path, hash) -> tree.append(path).append('\0').append(hash).append('\n'));
+        return CanonicalJson.sha256(tree.toString());
+    }
+
+    private static byte[] decodeBlob(JsonNode blob) {
+        if (blob.has("base64")) {
+            return Base64.getDecoder().decode(blob.get("base64").asText());
+        }
+        return blob.get("text").asText().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String requireLine(BufferedReader reader, Path packFile) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            throw new IOException("Unexpected end of metadata pack " + packFile);
+        }
+        return line;
+    }
+}
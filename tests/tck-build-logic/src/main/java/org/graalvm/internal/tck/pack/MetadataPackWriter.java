@@ -0,0 +1,209 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.pack;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.graalvm.internal.tck.utils.CanonicalJson;
+import org.graalvm.internal.tck.utils.FilesUtils;
+import org.graalvm.internal.tck.utils.ReachabilityMetadataFiles;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a metadata tree as a content-addressed, deduplicated pack.
+ * <p>
+ * Every entry of every {@code reachability-metadata.json} (one element of {@code reflection}, {@code resources}, ...)
+ * is stored once, addressed by the SHA-256 of its compact JSON. A metadata file becomes a manifest that lists its
+ * sections and references its entries. Files that cannot be reproduced byte-for-byte from entries, and all other
+ * files ({@code index.json}, schemas, ...), are stored as deduplicated blobs. See {@link MetadataPackReader} for the
+ * layout.
+ */
+public final class MetadataPackWriter {
+
+    public static final String FORMAT = "graalvm-reachability-metadata-pack";
+    public static final int FORMAT_VERSION = 1;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Size statistics of a written pack.
+     */
+    public record PackSummary(int files, int metadataFiles, int entryReferences, int uniqueEntries, int uniqueBlobs, long sourceBytes, long packBytes) {
+    }
+
+    private final Map<String, Integer> entryIndexByHash = new LinkedHashMap<>();
+    private final List<String> entries = new ArrayList<>();
+    private final Map<String, Integer> blobIndexByHash = new LinkedHashMap<>();
+    private final List<byte[]> blobs = new ArrayList<>();
+    private final ObjectNode manifest = MAPPER.createObjectNode();
+    private final Map<String, String> fileHashes = new TreeMap<>();
+    private int metadataFiles;
+    private int entryReferences;
+    private long sourceBytes;
+
+    /**
+     * Packs all regular files under {@code root} into {@code packFile}.
+     */
+    public static PackSummary pack(Path root, Path packFile) throws IOException {
+        MetadataPackWriter writer = new MetadataPackWriter();
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(Files::isRegularFile).sorted().toList();
+        }
+        for (Path file : files) {
+            writer.add(root.relativize(file).toString().replace('\\', '/'), Files.readAllBytes(file));
+        }
+        return writer.write(packFile);
+    }
+
+    void add(String path, byte[] content) throws IOException {
+        sourceBytes += content.length;
+        fileHashes.put(path, CanonicalJson.sha256(content));
+        if (path.endsWith("/" + ReachabilityMetadataFiles.FILE_NAME) || path.equals(ReachabilityMetadataFiles.FILE_NAME)) {
+            ObjectNode fileManifest = metadataManifest(content);
+            if (fileManifest != null) {
+                manifest.set(path, fileManifest);
+                metadataFiles++;
+                return;
+            }
+        }
+        ObjectNode blobManifest = MAPPER.createObjectNode();
+        blobManifest.put("blob", blobIndex(content));
+        manifest.set(path, blobManifest);
+    }
+
+    /**
+     * Splits a metadata file into entries, or returns null if the file cannot be reconstructed exactly from them.
+     */
+    private ObjectNode metadataManifest(byte[] content) throws IOException {
+        JsonNode metadata;
+        try {
+            metadata = MAPPER.readTree(content);
+        } catch (IOException e) {
+            return null;
+        }
+        if (metadata == null || !metadata.isObject()) {
+            return null;
+        }
+
+        ObjectNode fileManifest = MAPPER.createObjectNode();
+        ArrayNode sections = fileManifest.putArray("sections");
+        List<Integer> references = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = metadata.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> section = fields.next();
+            if (!section.getValue().isArray()) {
+                return null;
+            }
+            ArrayNode sectionManifest = sections.addArray();
+            sectionManifest.add(section.getKey());
+            ArrayNode sectionEntries = sectionManifest.addArray();
+            int previous = 0;
+            for (JsonNode entry : section.getValue()) {
+                int index = entryIndex(MAPPER.writeValueAsString(entry));
+                // Entry references are delta-encoded; entries of one file are mostly stored consecutively.
+                sectionEntries.add(index - previous);
+                previous = index;
+                references.add(index);
+            }
+        }
+
+        String formatted = MetadataPackReader.format(metadata);
+        String original = new String(content, StandardCharsets.UTF_8);
+        boolean trailingNewline = original.endsWith("\n");
+        if (!trailingNewline) {
+            formatted = formatted.substring(0, formatted.length() - 1);
+        }
+        if (!formatted.equals(original)) {
+            return null;
+        }
+        if (!trailingNewline) {
+            fileManifest.put("trailingNewline", false);
+        }
+        entryReferences += references.size();
+        return fileManifest;
+    }
+
+    private int entryIndex(String compactJson) {
+        return entryIndexByHash.computeIfAbsent(CanonicalJson.sha256(compactJson), hash -> {
+            entries.add(compactJson);
+            return entries.size() - 1;
+        });
+    }
+
+    private int blobIndex(byte[] content) {
+        return blobIndexByHash.computeIfAbsent(CanonicalJson.sha256(content), hash -> {
+            blobs.add(content);
+            return blobs.size() - 1;
+        });
+    }
+
+    private PackSummary write(Path packFile) throws IOException {
+        FilesUtils.writeAtomically(packFile, tmp -> {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp));
+                 BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+                ObjectNode header = MAPPER.createObjectNode();
+                header.put("format", FORMAT);
+                header.put("formatVersion", FORMAT_VERSION);
+                header.put("entries", entries.size());
+                header.put("blobs", blobs.size());
+                header.put("files", manifest.size());
+                header.put("treeSha256", MetadataPackReader.treeDigest(fileHashes));
+                writeLine(writer, MAPPER.writeValueAsString(header));
+                for (String entry : entries) {
+                    writeLine(writer, entry);
+                }
+                for (byte[] blob : blobs) {
+                    writeLine(writer, MAPPER.writeValueAsString(encodeBlob(blob)));
+                }
+                writeLine(writer, MAPPER.writeValueAsString(manifest));
+            }
+        });
+        return new PackSummary(manifest.size(), metadataFiles, entryReferences, entries.size(), blobs.size(), sourceBytes, Files.size(packFile));
+    }
+
+    private static ObjectNode encodeBlob(byte[] content) {
+        ObjectNode blob = MAPPER.createObjectNode();
+        try {
+            String text = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(content))
+                    .toString();
+            blob.put("text", text);
+        } catch (CharacterCodingException e) {
+            blob.put("base64", Base64.getEncoder().encodeToString(content));
+        }
+        return blob;
+    }
+
+    private static void writeLine(BufferedWriter writer, String line) throws IOException {
+        writer.write(line);
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.pack;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes the metadata tree as a deduplicated metadata pack (see {@link MetadataPackReader} for the format).
+ * <p>
+ * Run with {@code gradle packMetadata}; the pack is also produced by {@code gradle package}.
+ */
+@SuppressWarnings("unused")
+public abstract class PackMetadataTask extends DefaultTask {
+
+    @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract DirectoryProperty getMetadataRoot();
+
+    @OutputFile
+    public abstract RegularFileProperty getPackFile();
+
+    @TaskAction
+    public void pack() {
+        Path root = getMetadataRoot().get().getAsFile().toPath();
+        Path packFile = getPackFile().get().getAsFile().toPath();
+        MetadataPackWriter.PackSummary summary;
+        try {
+            summary = MetadataPackWriter.pack(root, packFile);
+        } catch (IOException e) {
+            throw new GradleException("Failed to write metadata pack " + packFile, e);
+        }
+        getLogger().lifecycle("Packed {} files ({} metadata files, {} entry references to {} unique entries, {} unique blobs): {} -> {} bytes",
+                summary.files(), summary.metadataFiles(), summary.entryReferences(), summary.uniqueEntries(), summary.uniqueBlobs(),
+                summary.sourceBytes(), summary.packBytes());
+        getLogger().lifecycle("Metadata pack: {}", packFile);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.pack;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Reconstructs a metadata tree from a metadata pack, e.g. to populate an offline mirror.
+ * <p>
+ * Run with {@code gradle unpackMetadata --pack=<file> --into=<directory>}.
+ */
+@SuppressWarnings("unused")
+public abstract class UnpackMetadataTask extends DefaultTask {
+
+    @InputFile
+    public abstract RegularFileProperty getPackFile();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getTargetDir();
+
+    @Option(option = "pack", description = "Metadata pack to unpack")
+    public void setPackOption(String pack) {
+        getPackFile().set(new File(pack).getAbsoluteFile());
+    }
+
+    @Option(option = "into", description = "Directory to reconstruct the metadata tree in")
+    public void setIntoOption(String into) {
+        getTargetDir().set(new File(into).getAbsoluteFile());
+    }
+
+    @TaskAction
+    public void unpack() {
+        Path packFile = getPackFile().get().getAsFile().toPath();
+        Path targetDir = getTargetDir().get().getAsFile().toPath().toAbsolutePath();
+        try {
+            MetadataPackReader reader = MetadataPackReader.open(packFile);
+            reader.extractTo(targetDir);
+            getLogger().lifecycle("Unpacked {} files from {} into {}", reader.files().size(), packFile, targetDir);
+        } catch (IOException e) {
+            throw new GradleException("Failed to unpack metadata pack " + packFile + ": " + e.getMessage(), e);
+        }
+    }
+}
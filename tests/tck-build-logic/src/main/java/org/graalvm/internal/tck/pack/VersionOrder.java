@@ -0,0 +1,90 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.pack;
+
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Orders version strings like Gradle's {@code VersionNumber.parse(a).compareTo(VersionNumber.parse(b))} without
+ * depending on Gradle, so that {@link MetadataLookupIndex} can be read on a plain JVM.
+ * <p>
+ * A version is parsed into up to three numeric components separated by {@code .} and an optional qualifier after a
+ * {@code .} or {@code -}; missing components are 0. Components compare numerically, then the qualifiers compare
+ * case-insensitively, with a version without qualifier ordered after every qualified one ({@code 1.0-rc1 < 1.0}).
+ * Strings that do not start with a digit or have trailing characters that are not a qualifier parse as {@code 0.0.0}.
+ */
+public final class VersionOrder implements Comparator<String> {
+
+    public static final VersionOrder INSTANCE = new VersionOrder();
+
+    private static final Key UNKNOWN = new Key(0, 0, 0, null);
+
+    /**
+     * A parsed version; {@code qualifier} is lower case, or null when the version has none.
+     */
+    public record Key(int major, int minor, int micro, String qualifier) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            if (major != other.major) {
+                return Integer.compare(major, other.major);
+            }
+            if (minor != other.minor) {
+                return Integer.compare(minor, other.minor);
+            }
+            if (micro != other.micro) {
+                return Integer.compare(micro, other.micro);
+            }
+            if (qualifier == null || other.qualifier == null) {
+                return qualifier == null ? (other.qualifier == null ? 0 : 1) : -1;
+            }
+            return qualifier.compareTo(other.qualifier);
+        }
+    }
+
+    private VersionOrder() {
+    }
+
+    @Override
+    public int compare(String first, String second) {
+        return parse(first).compareTo(parse(second));
+    }
+
+    public static Key parse(String version) {
+        if (version == null || version.isEmpty() || !isDigit(version, 0)) {
+            return UNKNOWN;
+        }
+        int[] components = new int[3];
+        int pos = 0;
+        for (int i = 0; i < components.length; i++) {
+            if (i > 0) {
+                if (pos >= version.length() - 1 || version.charAt(pos) != '.' || !isDigit(version, pos + 1)) {
+                    break;
+                }
+                pos++;
+            }
+            int start = pos;
+            while (isDigit(version, pos)) {
+                pos++;
+            }
+            components[i] = Integer.parseInt(version.substring(start, pos));
+        }
+
+        if (pos == version.length()) {
+            return new Key(components[0], components[1], components[2], null);
+        }
+        char separator = version.charAt(pos);
+        if (pos < version.length() - 1 && (separator == '.' || separator == '-')) {
+            return new Key(components[0], components[1], components[2], version.substring(pos + 1).toLowerCase(Locale.ROOT));
+        }
+        return UNKNOWN;
+    }
+
+    private static boolean isDigit(String version, int pos) {
+        return pos < version.length() && Character.isDigit(version.charAt(pos));
+    }
+}
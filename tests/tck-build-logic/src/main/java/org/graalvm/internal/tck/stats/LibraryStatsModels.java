@@ -6,6 +6,7 @@
  */
 package org.graalvm.internal.tck.stats;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
@@ -49,16 +50,59 @@ public final class LibraryStatsModels {
     @JsonPropertyOrder({
             "version",
             "dynamicAccess",
-            "libraryCoverage"
+            "libraryCoverage",
+            "nativeImage"
     })
     public record VersionStats(
             String version,
             DynamicAccessStatsValue dynamicAccess,
-            LibraryCoverage libraryCoverage
+            LibraryCoverage libraryCoverage,
+            @JsonInclude(JsonInclude.Include.NON_NULL)
+            NativeImageStatsValue nativeImage
     ) {
+        public VersionStats(String version, DynamicAccessStatsValue dynamicAccess, LibraryCoverage libraryCoverage) {
+            this(version, dynamicAccess, libraryCoverage, null);
+        }
+
         public VersionStats(String version, DynamicAccessStats dynamicAccess, LibraryCoverage libraryCoverage) {
             this(version, DynamicAccessStatsValue.available(dynamicAccess), libraryCoverage);
         }
+
+        public VersionStats withNativeImage(NativeImageStatsValue nativeImage) {
+            return new VersionStats(version, dynamicAccess, libraryCoverage, nativeImage);
+        }
+    }
+
+    /**
+     * Cost of a version's metadata in its native test image: image size, methods reachable after analysis, wall time
+     * of the image build and the time the test binary run took beyond the tests themselves (see {@link NativeTestRunMetrics}).
+     */
+    public record NativeImageStats(
+            long imageSizeBytes,
+            long reachableMethods,
+            BigDecimal buildWallSeconds,
+            long testBinaryOverheadMillis
+    ) {
+    }
+
+    @JsonSerialize(using = NativeImageStatsValueSerializer.class)
+    @JsonDeserialize(using = NativeImageStatsValueDeserializer.class)
+    public record NativeImageStatsValue(
+            NativeImageStats nativeImageStats
+    ) {
+        private static final String NOT_AVAILABLE = "N/A";
+
+        public static NativeImageStatsValue available(NativeImageStats nativeImageStats) {
+            return new NativeImageStatsValue(nativeImageStats);
+        }
+
+        public static NativeImageStatsValue notAvailable() {
+            return new NativeImageStatsValue(null);
+        }
+
+        public boolean isAvailable() {
+            return nativeImageStats != null;
+        }
     }
 
     public record DynamicAccessStats(
@@ -250,6 +294,44 @@ public final class LibraryStatsModels {
         }
     }
 
+    public static final class NativeImageStatsValueSerializer extends JsonSerializer<NativeImageStatsValue> {
+
+        @Override
+        public void serialize(NativeImageStatsValue value, JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            if (value == null || !value.isAvailable()) {
+                generator.writeString(NativeImageStatsValue.NOT_AVAILABLE);
+                return;
+            }
+            generator.writeObject(value.nativeImageStats());
+        }
+    }
+
+    public static final class NativeImageStatsValueDeserializer extends JsonDeserializer<NativeImageStatsValue> {
+
+        @Override
+        public NativeImageStatsValue deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonNode node = parser.getCodec().readTree(parser);
+            if (node != null && node.isTextual() && NativeImageStatsValue.NOT_AVAILABLE.equals(node.textValue())) {
+                return NativeImageStatsValue.notAvailable();
+            }
+            if (node != null && node.isObject()) {
+                JsonNode imageSizeNode = node.get("imageSizeBytes");
+                JsonNode reachableMethodsNode = node.get("reachableMethods");
+                JsonNode buildWallSecondsNode = node.get("buildWallSeconds");
+                JsonNode testBinaryOverheadMillisNode = node.get("testBinaryOverheadMillis");
+                if (imageSizeNode != null && reachableMethodsNode != null && buildWallSecondsNode != null && testBinaryOverheadMillisNode != null) {
+                    return NativeImageStatsValue.available(new NativeImageStats(
+                            imageSizeNode.longValue(),
+                            reachableMethodsNode.longValue(),
+                            buildWallSecondsNode.decimalValue(),
+                            testBinaryOverheadMillisNode.longValue()
+                    ));
+                }
+            }
+            throw JsonMappingException.from(parser, "Native image stats must be an object or the string 'N/A'");
+        }
+    }
+
     public static final class DynamicAccessStatsValueSerializer extends JsonSerializer<DynamicAccessStatsValue> {
 
         @Override
@@ -164,6 +164,32 @@ public final class LibraryStatsSupport {
         return new LibraryStatsModels.LibraryStats(entries);
     }
 
+    /**
+     * Moves the version stats of {@code mergedMetadataVersion} into {@code keptMetadataVersion} and drops the merged
+     * metadata-version entry. Stats of the kept metadata version win for versions present in both.
+     */
+    public static LibraryStatsModels.LibraryStats withMergedMetadataVersion(
+            LibraryStatsModels.LibraryStats libraryStats,
+            String artifact,
+            String keptMetadataVersion,
+            String mergedMetadataVersion
+    ) {
+        LibraryStatsModels.ArtifactStats artifactStats = libraryStats.entries() == null ? null : libraryStats.entries().get(artifact);
+        if (artifactStats == null || artifactStats.metadataVersions() == null
+                || !artifactStats.metadataVersions().containsKey(mergedMetadataVersion)) {
+            return libraryStats;
+        }
+
+        LibraryStatsModels.MetadataVersionStats merged = mergeStats(
+                metadataVersionStats(libraryStats, artifact, mergedMetadataVersion),
+                metadataVersionStats(libraryStats, artifact, keptMetadataVersion).versions(),
+                false
+        );
+        LibraryStatsModels.LibraryStats updated = withMetadataVersionStats(libraryStats, artifact, keptMetadataVersion, merged);
+        updated.entries().get(artifact).metadataVersions().remove(mergedMetadataVersion);
+        return updated;
+    }
+
     public static LibraryStatsModels.VersionStats requireVersionStats(LibraryStatsModels.MetadataVersionStats metadataVersionStats, String coordinate) {
         String version = versionFromCoordinate(coordinate);
         return metadataVersionStats.versions().stream()
@@ -209,6 +235,42 @@ public final class LibraryStatsSupport {
         );
     }
 
+    /**
+     * Native image stats of a passed {@code nativeTest} run, or N/A if the run failed or did not record every figure
+     * (see {@link #missingNativeImageFigures}).
+     */
+    public static LibraryStatsModels.NativeImageStatsValue buildNativeImageStats(NativeTestRunMetrics metrics) {
+        if (metrics == null || !metrics.passed() || !missingNativeImageFigures(metrics).isEmpty()) {
+            return LibraryStatsModels.NativeImageStatsValue.notAvailable();
+        }
+        return LibraryStatsModels.NativeImageStatsValue.available(new LibraryStatsModels.NativeImageStats(
+                metrics.imageSizeBytes(),
+                metrics.reachableMethods(),
+                BigDecimal.valueOf(metrics.nativeImageBuildSeconds()),
+                Math.round(metrics.testBinaryOverheadSeconds() * 1000)
+        ));
+    }
+
+    /**
+     * Describes the figures of {@code metrics} that native image stats need but the run did not record, and why;
+     * empty when all are present.
+     */
+    public static List<String> missingNativeImageFigures(NativeTestRunMetrics metrics) {
+        List<String> missing = new ArrayList<>();
+        if (metrics.imageSizeBytes() == null || metrics.reachableMethods() == null) {
+            missing.add("image size and reachable methods (no build output JSON written by this run)");
+        }
+        if (metrics.nativeImageBuildSeconds() == null) {
+            missing.add("image build time (no 'Finished generating' line in the output)");
+        }
+        if (metrics.testExecutionSeconds() == null) {
+            missing.add("test run time (no 'Test run finished after' line in the output)");
+        } else if (metrics.testBinaryOverheadSeconds() == null) {
+            missing.add("test binary time (no " + NativeTestRunMetrics.TEST_BINARY_TIME_FILE + " written by this run)");
+        }
+        return missing;
+    }
+
     public static ExternalDynamicAccessSummary buildExternalDynamicAccessSummary(List<Path> libraryJars, Path dynamicAccessDir) {
         Set<String> libraryClasses = loadLibraryClasses(libraryJars);
         ParsedDynamicAccess parsedDynamicAccess = parseDynamicAccessReports(dynamicAccessDir, libraryClasses, Map.of());
@@ -337,10 +399,27 @@ public final class LibraryStatsSupport {
         return new LibraryStatsModels.VersionStats(
                 versionStats.version(),
                 normalizeDynamicAccessStatsValue(versionStats.dynamicAccess()),
-                normalizeLibraryCoverage(versionStats.libraryCoverage())
+                normalizeLibraryCoverage(versionStats.libraryCoverage()),
+                normalizeNativeImageStatsValue(versionStats.nativeImage())
         );
     }
 
+    private static LibraryStatsModels.NativeImageStatsValue normalizeNativeImageStatsValue(
+            LibraryStatsModels.NativeImageStatsValue nativeImage
+    ) {
+        if (nativeImage == null || !nativeImage.isAvailable()) {
+            return nativeImage;
+        }
+
+        LibraryStatsModels.NativeImageStats stats = nativeImage.nativeImageStats();
+        return LibraryStatsModels.NativeImageStatsValue.available(new LibraryStatsModels.NativeImageStats(
+                stats.imageSizeBytes(),
+                stats.reachableMethods(),
+                normalizeRatio(stats.buildWallSeconds()),
+                stats.testBinaryOverheadMillis()
+        ));
+    }
+
     private static LibraryStatsModels.DynamicAccessStatsValue normalizeDynamicAccessStatsValue(
             LibraryStatsModels.DynamicAccessStatsValue dynamicAccess
     ) {
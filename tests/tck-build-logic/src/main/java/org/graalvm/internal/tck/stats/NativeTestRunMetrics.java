@@ -0,0 +1,187 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.stats;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Timing and resource usage of one {@code nativeTest} run of a coordinate.
+ * <p>
+ * The native-image figures come from two sources written by the test project's build:
+ * <ul>
+ *   <li>the {@code --verbose} progress output ({@code [2/8] Performing analysis... (12.3s @ 0.98GB)}), which gives
+ *   the duration of every builder stage, the total build time and the test execution time reported by the JUnit
+ *   console launcher;</li>
+ *   <li>the JSON file written with {@code -H:BuildOutputJSONFile} ({@link #BUILD_OUTPUT_FILE}), which gives the peak
+ *   RSS of the builder, the image size and the reachable types, methods and fields.</li>
+ * </ul>
+ * {@code testBinaryOverheadSeconds} is the time of the {@code nativeTest} task action ({@link #TEST_BINARY_TIME_FILE})
+ * minus the test run time reported by the launcher: launching the test binary, image startup, test discovery and the
+ * task's own overhead. It is not the startup time of the image alone.
+ * {@code gradleSeconds} is the part of the wall-clock time spent outside of the image build and the test binary:
+ * Gradle startup and configuration, dependency resolution, Java compilation and task overhead. Values that cannot
+ * be determined, e.g. because the image was up to date and not rebuilt, are null.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record NativeTestRunMetrics(
+        String coordinates,
+        boolean passed,
+        double wallSeconds,
+        Double gradleSeconds,
+        Double nativeImageBuildSeconds,
+        Map<String, Double> nativeImageStages,
+        Double testExecutionSeconds,
+        Double testBinaryOverheadSeconds,
+        Long peakRssBytes,
+        Long imageSizeBytes,
+        Long reachableTypes,
+        Long reachableMethods,
+        Long reachableFields
+) {
+
+    /**
+     * Location of the native-image build output JSON, relative to the test project directory; the convention plugin
+     * writes it there.
+     */
+    public static final String BUILD_OUTPUT_FILE = "build/native/nativeTestCompile/build-output.json";
+
+    /**
+     * Wall-clock milliseconds of the last {@code nativeTest} task action, relative to the test project directory; the
+     * convention plugin writes it there.
+     */
+    public static final String TEST_BINARY_TIME_FILE = "build/native/nativeTest/test-binary-millis.txt";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final Pattern STAGE_PATTERN = Pattern.compile("^\\[\\d+/\\d+] ([A-Z][a-z]+(?: [a-z]+)*)\\.\\.\\.");
+    private static final Pattern STAGE_TIME_PATTERN = Pattern.compile("\\((\\d+(?:\\.\\d+)?)s @ \\d+(?:\\.\\d+)?GB\\)\\s*$");
+    private static final Pattern FINISHED_PATTERN = Pattern.compile(
+            "^Finished generating '[^']+' in (?:(\\d+)h )?(?:(\\d+)m )?(\\d+(?:\\.\\d+)?)s\\.");
+    private static final Pattern TEST_RUN_PATTERN = Pattern.compile("Test run finished after (\\d+) ms");
+
+    /**
+     * Builds the metrics of a run that just finished in {@code testDir}, reading the files written by this run.
+     */
+    public static NativeTestRunMetrics collect(String coordinates, boolean passed, Duration elapsed, String output, Path testDir) throws IOException {
+        Instant start = Instant.now().minus(elapsed);
+        Path timeFile = testDir.resolve(TEST_BINARY_TIME_FILE);
+        Long testBinaryMillis = isWrittenSince(timeFile, start) ? Long.valueOf(Files.readString(timeFile).trim()) : null;
+        return of(coordinates, passed, elapsed, output, readBuildOutput(testDir, start), testBinaryMillis);
+    }
+
+    /**
+     * Builds the metrics of one run from its standard output, the build output JSON and the wall-clock time of the
+     * test binary; the last two may be null.
+     */
+    public static NativeTestRunMetrics of(String coordinates, boolean passed, Duration elapsed, String output, JsonNode buildOutput,
+                                          Long testBinaryMillis) {
+        Map<String, Double> stages = new LinkedHashMap<>();
+        Double buildSeconds = null;
+        Double testSeconds = null;
+        String currentStage = null;
+        for (String line : output.split("\\R")) {
+            Matcher stage = STAGE_PATTERN.matcher(line);
+            if (stage.find()) {
+                currentStage = stageKey(stage.group(1));
+            }
+            Matcher stageTime = STAGE_TIME_PATTERN.matcher(line);
+            if (currentStage != null && stageTime.find()) {
+                stages.put(currentStage, Double.parseDouble(stageTime.group(1)));
+                currentStage = null;
+            }
+            Matcher finished = FINISHED_PATTERN.matcher(line);
+            if (finished.find()) {
+                buildSeconds = round(parseLong(finished.group(1)) * 3600 + parseLong(finished.group(2)) * 60
+                        + Double.parseDouble(finished.group(3)));
+            }
+            Matcher testRun = TEST_RUN_PATTERN.matcher(line);
+            if (testRun.find()) {
+                testSeconds = Long.parseLong(testRun.group(1)) / 1000.0;
+            }
+        }
+
+        double wallSeconds = elapsed.toMillis() / 1000.0;
+        double testBinarySeconds = testBinaryMillis != null ? testBinaryMillis / 1000.0 : testSeconds != null ? testSeconds : 0;
+        double nativeSeconds = (buildSeconds == null ? 0 : buildSeconds) + testBinarySeconds;
+        Double gradleSeconds = buildSeconds == null && testSeconds == null ? null : round(Math.max(0, wallSeconds - nativeSeconds));
+        Double overheadSeconds = testBinaryMillis == null || testSeconds == null ? null : round(Math.max(0, testBinarySeconds - testSeconds));
+        JsonNode json = buildOutput == null ? MAPPER.missingNode() : buildOutput;
+        return new NativeTestRunMetrics(
+                coordinates,
+                passed,
+                wallSeconds,
+                gradleSeconds,
+                buildSeconds,
+                stages.isEmpty() ? null : stages,
+                testSeconds,
+                overheadSeconds,
+                longValue(json.at("/resource_usage/memory/peak_rss_bytes")),
+                longValue(json.at("/image_details/total_bytes")),
+                longValue(json.at("/analysis_results/types/reachable")),
+                longValue(json.at("/analysis_results/methods/reachable")),
+                longValue(json.at("/analysis_results/fields/reachable"))
+        );
+    }
+
+    /**
+     * Reads the build output JSON of a test project if it was written at or after {@code notBefore}; an older file
+     * belongs to a previous run whose image was reused.
+     */
+    public static JsonNode readBuildOutput(Path testDir, Instant notBefore) throws IOException {
+        Path file = testDir.resolve(BUILD_OUTPUT_FILE);
+        return isWrittenSince(file, notBefore) ? MAPPER.readTree(file.toFile()) : null;
+    }
+
+    public static NativeTestRunMetrics read(Path file) throws IOException {
+        return MAPPER.readValue(file.toFile(), NativeTestRunMetrics.class);
+    }
+
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        MAPPER.writeValue(file.toFile(), this);
+    }
+
+    private static boolean isWrittenSince(Path file, Instant notBefore) throws IOException {
+        return Files.isRegularFile(file) && !Files.getLastModifiedTime(file).toInstant().isBefore(notBefore);
+    }
+
+    /**
+     * Turns a stage name such as {@code Performing analysis} into {@code performingAnalysis}.
+     */
+    private static String stageKey(String stage) {
+        StringBuilder key = new StringBuilder();
+        for (String word : stage.split(" ")) {
+            key.append(key.isEmpty() ? word.toLowerCase() : Character.toUpperCase(word.charAt(0)) + word.substring(1));
+        }
+        return key.toString();
+    }
+
+    private static long parseLong(String value) {
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    private static Long longValue(JsonNode node) {
+        return node.isNumber() ? node.asLong() : null;
+    }
+
+    static double round(double seconds) {
+        return Math.round(seconds * 1000) / 1000.0;
+    }
+}
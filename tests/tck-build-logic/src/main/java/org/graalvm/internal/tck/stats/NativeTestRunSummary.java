@@ -0,0 +1,82 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.stats;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Aggregate of the {@link NativeTestRunMetrics} of one batch of coordinates: the total time per phase and native-image
+ * stage, the highest builder peak RSS and the slowest coordinates, to show where the time of a batch goes.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record NativeTestRunSummary(
+        int coordinates,
+        int passed,
+        double wallSeconds,
+        Map<String, Double> phaseSeconds,
+        Map<String, Double> nativeImageStageSeconds,
+        Long maxPeakRssBytes,
+        List<NativeTestRunMetrics> slowest
+) {
+
+    public static final int SLOWEST_COORDINATES = 10;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public static NativeTestRunSummary of(List<NativeTestRunMetrics> runs) {
+        Map<String, Double> phases = new LinkedHashMap<>();
+        phases.put("gradle", total(runs, NativeTestRunMetrics::gradleSeconds));
+        phases.put("nativeImageBuild", total(runs, NativeTestRunMetrics::nativeImageBuildSeconds));
+        phases.put("testBinaryOverhead", total(runs, NativeTestRunMetrics::testBinaryOverheadSeconds));
+        phases.put("testExecution", total(runs, NativeTestRunMetrics::testExecutionSeconds));
+
+        Map<String, Double> stages = new LinkedHashMap<>();
+        for (NativeTestRunMetrics run : runs) {
+            if (run.nativeImageStages() != null) {
+                run.nativeImageStages().forEach((stage, seconds) -> stages.merge(stage, seconds, (a, b) -> NativeTestRunMetrics.round(a + b)));
+            }
+        }
+
+        return new NativeTestRunSummary(
+                runs.size(),
+                (int) runs.stream().filter(NativeTestRunMetrics::passed).count(),
+                total(runs, NativeTestRunMetrics::wallSeconds),
+                phases,
+                stages,
+                runs.stream().map(NativeTestRunMetrics::peakRssBytes).filter(Objects::nonNull).max(Long::compare).orElse(null),
+                runs.stream()
+                        .sorted(Comparator.comparingDouble(NativeTestRunMetrics::wallSeconds).reversed())
+                        .limit(SLOWEST_COORDINATES)
+                        .toList()
+        );
+    }
+
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        MAPPER.writeValue(file.toFile(), this);
+    }
+
+    private static double total(List<NativeTestRunMetrics> runs, Function<NativeTestRunMetrics, Double> value) {
+        return NativeTestRunMetrics.round(runs.stream()
+                .map(value)
+                .filter(Objects::nonNull)
+                .mapToDouble(Double::doubleValue)
+                .sum());
+    }
+}
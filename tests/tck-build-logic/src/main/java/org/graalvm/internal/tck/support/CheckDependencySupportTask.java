@@ -0,0 +1,103 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Checks all dependencies of a project against the repository in one invocation, replacing one
+ * {@code check-library-support.sh} call per coordinate.
+ * <p>
+ * Run with {@code gradle checkDependencySupport --dependencies=<file>[,<file>...] [--index=<file.rmidx>] [--report=<file.json>]}.
+ * The dependency files may be plain coordinate lists, Gradle lockfiles, {@code gradle dependencies} output or
+ * {@code mvn dependency:list} output. Without {@code --index} the local metadata directory is indexed first.
+ */
+@SuppressWarnings("unused")
+public abstract class CheckDependencySupportTask extends DefaultTask {
+
+    @Internal
+    public abstract DirectoryProperty getMetadataRoot();
+
+    @Input
+    public abstract ListProperty<String> getDependencyFiles();
+
+    @Internal
+    @Optional
+    public abstract RegularFileProperty getIndexFile();
+
+    @Internal
+    @Optional
+    public abstract RegularFileProperty getReportFile();
+
+    @Option(option = "dependencies", description = "Comma-separated dependency files (coordinate lists, lockfiles, gradle dependencies or mvn dependency:list output)")
+    public void setDependenciesOption(String dependencies) {
+        for (String file : dependencies.split(",")) {
+            if (!file.isBlank()) {
+                getDependencyFiles().add(new File(file.trim()).getAbsolutePath());
+            }
+        }
+    }
+
+    @Option(option = "index", description = "Prebuilt metadata lookup index (.rmidx) to check against instead of the local metadata directory")
+    public void setIndexOption(String index) {
+        getIndexFile().set(new File(index).getAbsoluteFile());
+    }
+
+    @Option(option = "report", description = "Writes the per-dependency result as JSON to this file")
+    public void setReportOption(String report) {
+        getReportFile().set(new File(report).getAbsoluteFile());
+    }
+
+    @TaskAction
+    public void check() {
+        List<Path> inputs = getDependencyFiles().get().stream().map(Path::of).toList();
+        if (inputs.isEmpty()) {
+            throw new GradleException("No dependency files given. Rerun with '--dependencies=<file>[,<file>...]'");
+        }
+        try {
+            DependencySupportChecker checker = getIndexFile().isPresent()
+                    ? DependencySupportChecker.forIndex(getIndexFile().get().getAsFile().toPath())
+                    : DependencySupportChecker.forMetadataRoot(getMetadataRoot().get().getAsFile().toPath(), getTemporaryDir().toPath());
+            List<DependencySupportChecker.Dependency> dependencies = DependencySupportChecker.readDependencies(inputs);
+            List<DependencySupportChecker.DependencyStatus> results = checker.check(dependencies);
+            getLogger().lifecycle("Checked {} dependencies", dependencies.size());
+            getLogger().lifecycle(DependencySupportChecker.format(results));
+
+            if (getReportFile().isPresent()) {
+                Path report = getReportFile().get().getAsFile().toPath();
+                if (report.getParent() != null) {
+                    Files.createDirectories(report.getParent());
+                }
+                new ObjectMapper()
+                        .enable(SerializationFeature.INDENT_OUTPUT)
+                        .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                        .writeValue(report.toFile(), results);
+                getLogger().lifecycle("Report written to {}", report);
+            }
+        } catch (IOException e) {
+            throw new GradleException("Failed to check dependency support: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.support;
+
+import org.graalvm.internal.tck.pack.MetadataLookupIndex;
+import org.graalvm.internal.tck.pack.MetadataLookupIndexWriter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Checks a whole dependency list against the repository in one pass.
+ * <p>
+ * Dependencies are resolved with a {@link MetadataLookupIndex}, either a prebuilt {@code .rmidx} file (as shipped
+ * with {@code package}) or one built from a local {@code metadata/} directory. Accepted inputs, one dependency per
+ * line, are plain {@code group:artifact:version} coordinates, Gradle lockfiles ({@code g:a:v=configurations}),
+ * the output of {@code gradle dependencies} ({@code +--- g:a:v -> v2 (*)}) and of {@code mvn dependency:list}
+ * ({@code g:a:jar[:classifier]:v:scope}). Other lines are ignored.
+ * <p>
+ * Command line usage:
+ * <pre>
+ * java -cp &lt;classpath&gt; org.graalvm.internal.tck.support.DependencySupportChecker (--index=&lt;file.rmidx&gt; | --metadata=&lt;dir&gt;) &lt;dependency-file&gt;...
+ * </pre>
+ */
+public final class DependencySupportChecker {
+
+    private static final Pattern TREE_PREFIX = Pattern.compile("^(?:\\[INFO]\\s*)?[\\s|+\\\\-]*");
+    private static final Pattern TREE_SUFFIX = Pattern.compile("\\s+\\((?:\\*|c|n)\\)\\s*$");
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_.\\-]+");
+    private static final Set<String> PACKAGINGS = Set.of("jar", "pom", "war", "ear", "aar", "bundle", "test-jar", "zip", "maven-plugin", "module");
+
+    public enum Status {
+        /** The exact version is listed in {@code tested-versions}. */
+        SUPPORTED,
+        /**
+         * The version is untested, but metadata of the artifact applies to it: a {@code default-for} pattern matches,
+         * or the closest lower {@code metadata-version} is used, as when the build resolves the metadata directory.
+         */
+        NEAREST_METADATA,
+        /** The repository has no metadata for the artifact or version. */
+        UNSUPPORTED
+    }
+
+    public record Dependency(String group, String artifact, String version) {
+        public String coordinates() {
+            return group + ":" + artifact + ":" + version;
+        }
+    }
+
+    /**
+     * Result for one dependency; {@code metadataVersion} is null for unsupported dependencies.
+     */
+    public record DependencyStatus(String coordinates, Status status, String metadataVersion, String matchedBy) {
+    }
+
+    private final MetadataLookupIndex index;
+
+    public DependencySupportChecker(MetadataLookupIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Builds a lookup index for a local {@code metadata/} directory in {@code workDir} and opens it.
+     */
+    public static DependencySupportChecker forMetadataRoot(Path metadataRoot, Path workDir) throws IOException {
+        Files.createDirectories(workDir);
+        Path indexFile = workDir.resolve("metadata-lookup.rmidx");
+        MetadataLookupIndexWriter.write(metadataRoot, null, indexFile);
+        return new DependencySupportChecker(MetadataLookupIndex.open(indexFile));
+    }
+
+    public static DependencySupportChecker forIndex(Path indexFile) throws IOException {
+        return new DependencySupportChecker(MetadataLookupIndex.open(indexFile));
+    }
+
+    public List<DependencyStatus> check(List<Dependency> dependencies) {
+        List<DependencyStatus> results = new ArrayList<>(dependencies.size());
+        for (Dependency dependency : dependencies) {
+            Optional<MetadataLookupIndex.Match> match = index.resolve(dependency.group(), dependency.artifact(), dependency.version(), true);
+            if (match.isEmpty()) {
+                results.add(new DependencyStatus(dependency.coordinates(), Status.UNSUPPORTED, null, null));
+            } else if (match.get().kind() == MetadataLookupIndex.MatchKind.TESTED) {
+                results.add(new DependencyStatus(dependency.coordinates(), Status.SUPPORTED, match.get().metadataVersion(), "tested-versions"));
+            } else {
+                String matchedBy = match.get().kind() == MetadataLookupIndex.MatchKind.DEFAULT_FOR ? "default-for" : "closest-lower";
+                results.add(new DependencyStatus(dependency.coordinates(), Status.NEAREST_METADATA, match.get().metadataVersion(), matchedBy));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Reads dependencies from the given files, keeping the first occurrence of every coordinate.
+     */
+    public static List<Dependency> readDependencies(List<Path> files) throws IOException {
+        Set<Dependency> dependencies = new LinkedHashSet<>();
+        for (Path file : files) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                parseLine(line).ifPresent(dependencies::add);
+            }
+        }
+        return new ArrayList<>(dependencies);
+    }
+
+    static Optional<Dependency> parseLine(String rawLine) {
+        String line = rawLine.strip();
+        if (line.isEmpty() || line.startsWith("#") || line.startsWith("empty=")) {
+            return Optional.empty();
+        }
+        line = TREE_PREFIX.matcher(line).replaceFirst("");
+        line = TREE_SUFFIX.matcher(line).replaceFirst("");
+        int lockfileSeparator = line.indexOf('=');
+        if (lockfileSeparator >= 0) {
+            line = line.substring(0, lockfileSeparator);
+        }
+
+        String resolvedVersion = null;
+        int arrow = line.indexOf(" -> ");
+        if (arrow >= 0) {
+            resolvedVersion = line.substring(arrow + 4).strip();
+            line = line.substring(0, arrow).strip();
+        }
+        String token = line.split("\\s+")[0];
+        String[] parts = token.split(":");
+
+        String version;
+        switch (parts.length) {
+            case 2 -> version = resolvedVersion;
+            case 3 -> version = parts[2];
+            case 4 -> version = PACKAGINGS.contains(parts[2]) ? parts[3] : parts[2];
+            case 5 -> version = parts[3];
+            case 6 -> version = parts[4];
+            default -> version = null;
+        }
+        if (resolvedVersion != null) {
+            version = resolvedVersion;
+        }
+        if (version == null || !isName(parts[0]) || !isName(parts[1]) || !isName(version)) {
+            return Optional.empty();
+        }
+        return Optional.of(new Dependency(parts[0], parts[1], version));
+    }
+
+    private static boolean isName(String value) {
+        return NAME.matcher(value).matches();
+    }
+
+    /**
+     * Formats a summary followed by one line per dependency, grouped by status.
+     */
+    public static String format(List<DependencyStatus> results) {
+        StringBuilder report = new StringBuilder();
+        for (Status status : Status.values()) {
+            List<DependencyStatus> matching = results.stream().filter(result -> result.status() == status).toList();
+            report.append(status).append(" (").append(matching.size()).append(")").append(System.lineSeparator());
+            for (DependencyStatus result : matching) {
+                report.append("  ").append(result.coordinates());
+                if (result.metadataVersion() != null) {
+                    report.append(" -> metadata ").append(result.metadataVersion()).append(" (").append(result.matchedBy()).append(")");
+                }
+                report.append(System.lineSeparator());
+            }
+        }
+        return report.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path indexFile = null;
+        Path metadataRoot = null;
+        List<Path> inputs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--index=")) {
+                indexFile = Path.of(arg.substring("--index=".length()));
+            } else if (arg.startsWith("--metadata=")) {
+                metadataRoot = Path.of(arg.substring("--metadata=".length()));
+            } else {
+                inputs.add(Path.of(arg));
+            }
+        }
+        if ((indexFile == null) == (metadataRoot == null) || inputs.isEmpty()) {
+            System.err.println("Usage: DependencySupportChecker (--index=<file.rmidx> | --metadata=<dir>) <dependency-file>...");
+            System.exit(2);
+            return;
+        }
+
+        DependencySupportChecker checker = indexFile != null
+                ? forIndex(indexFile)
+                : forMetadataRoot(metadataRoot, Files.createTempDirectory("dependency-support"));
+        List<DependencyStatus> results = checker.check(readDependencies(inputs));
+        System.out.print(format(results));
+        System.exit(results.stream().anyMatch(result -> result.status() == Status.UNSUPPORTED) ? 1 : 0);
+    }
+}
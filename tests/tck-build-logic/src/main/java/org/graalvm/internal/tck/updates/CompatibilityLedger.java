@@ -0,0 +1,109 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.updates;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.graalvm.internal.tck.utils.FilesUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Local record of new library version compatibility runs, one result per {@code group:artifact:version}.
+ * <p>
+ * The ledger is a JSON array sorted by coordinates. It is rewritten after every recorded result, so an interrupted
+ * sweep keeps the results of all finished candidates and a rerun can skip them.
+ */
+public final class CompatibilityLedger {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    public enum Status {
+        /** The native test passed on the first run. */
+        PASSED,
+        /** The native test failed at first but passed when it was run again. */
+        FLAKY,
+        /** A stage failed on every attempt. */
+        FAILED;
+
+        public boolean isPassing() {
+            return this != FAILED;
+        }
+    }
+
+    /**
+     * @param coordinates  tested {@code group:artifact:version}
+     * @param testedWith   version whose metadata and tests were used
+     * @param failedStage  first failing stage ({@code javac compile}, {@code java run}, {@code native-image build} or
+     *                     {@code native-image run}); null unless {@link Status#FAILED}
+     * @param runs         number of Gradle invocations for the candidate
+     * @param log          log of the last invocation
+     * @param recordedAt   ISO-8601 time of the result
+     */
+    public record Result(
+            String coordinates,
+            Status status,
+            String testedWith,
+            String failedStage,
+            int runs,
+            long durationMillis,
+            String log,
+            String recordedAt
+    ) {
+    }
+
+    private final Path file;
+    private final Map<String, Result> results;
+
+    private CompatibilityLedger(Path file, Map<String, Result> results) {
+        this.file = file;
+        this.results = results;
+    }
+
+    /**
+     * Loads the ledger from {@code file}, or starts an empty one if the file does not exist.
+     */
+    public static CompatibilityLedger load(Path file) throws IOException {
+        Map<String, Result> results = new TreeMap<>();
+        if (Files.isRegularFile(file)) {
+            for (Result result : MAPPER.readValue(file.toFile(), new TypeReference<List<Result>>() {
+            })) {
+                results.put(result.coordinates(), result);
+            }
+        }
+        return new CompatibilityLedger(file, results);
+    }
+
+    public synchronized Optional<Result> get(String coordinates) {
+        return Optional.ofNullable(results.get(coordinates));
+    }
+
+    public synchronized List<Result> results() {
+        return List.copyOf(results.values());
+    }
+
+    /**
+     * Stores {@code result}, replacing an earlier result for the same coordinates, and writes the ledger.
+     */
+    public synchronized void record(Result result) throws IOException {
+        results.put(result.coordinates(), result);
+        FilesUtils.writeAtomically(file, temp -> MAPPER.writeValue(temp.toFile(), new ArrayList<>(results.values())));
+    }
+}
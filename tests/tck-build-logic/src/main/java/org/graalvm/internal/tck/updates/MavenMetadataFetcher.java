@@ -0,0 +1,297 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.updates;
+
+import org.graalvm.internal.tck.utils.FilesUtils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches the published versions of libraries from the {@code maven-metadata.xml} files of one or more Maven
+ * repositories.
+ * <p>
+ * Libraries are fetched concurrently, at most {@code concurrency} at a time; the repositories of one library are
+ * queried in order and their versions are merged in that order without duplicates. For HTTP repositories the last
+ * response is kept in {@code cacheDir} together with its {@code ETag} and {@code Last-Modified} headers, and sent
+ * back as {@code If-None-Match}/{@code If-Modified-Since} so unchanged files are answered with 304 and read from the
+ * cache. {@code file:} repositories are read directly. Versions are read with a streaming XML parser that stops at
+ * the end of {@code <versions>}.
+ */
+public final class MavenMetadataFetcher {
+
+    public static final URI MAVEN_CENTRAL = URI.create("https://repo1.maven.org/maven2/");
+
+    private static final String USER_AGENT = "graalvm-reachability-metadata/FetchExistingLibrariesWithNewerVersionsTask (+https://github.com/oracle/graalvm-reachability-metadata)";
+    private static final String METADATA_FILE = "maven-metadata.xml";
+    private static final String VALIDATORS_FILE = METADATA_FILE + ".validators";
+    private static final int MAX_ATTEMPTS = 3;
+    private static final XMLInputFactory XML = createXmlInputFactory();
+
+    private final HttpClient http;
+    private final List<URI> repositories;
+    private final Path cacheDir;
+    private final int concurrency;
+    private final long initialBackoffMillis;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    public MavenMetadataFetcher(List<URI> repositories, Path cacheDir, int concurrency) {
+        this(HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(20))
+                .build(), repositories, cacheDir, concurrency, 1000L);
+    }
+
+    MavenMetadataFetcher(HttpClient http, List<URI> repositories, Path cacheDir, int concurrency, long initialBackoffMillis) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1, got " + concurrency);
+        }
+        if (repositories.isEmpty()) {
+            throw new IllegalArgumentException("At least one repository is required");
+        }
+        this.http = http;
+        this.repositories = repositories.stream().map(MavenMetadataFetcher::asDirectory).toList();
+        this.cacheDir = cacheDir;
+        this.concurrency = concurrency;
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    /**
+     * Number of HTTP requests sent so far, including retries.
+     */
+    public int requestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Number of HTTP responses that were answered with 304 and served from the cache.
+     */
+    public int notModifiedCount() {
+        return notModified.get();
+    }
+
+    /**
+     * Published versions of every {@code group:artifact} in {@code libraries}, in the order of the input. Libraries
+     * that are not present in any repository map to an empty list.
+     */
+    public Map<String, List<String>> fetchAll(Collection<String> libraries) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, Math.max(libraries.size(), 1)));
+        try {
+            Map<String, Future<List<String>>> pending = new LinkedHashMap<>();
+            for (String library : libraries) {
+                pending.put(library, executor.submit(() -> fetch(library)));
+            }
+            for (Map.Entry<String, Future<List<String>>> entry : pending.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching Maven metadata", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * Published versions of {@code group:artifact}, merged over all repositories in metadata order.
+     */
+    public List<String> fetch(String library) {
+        String[] parts = library.split(":");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Expected group:artifact, got " + library);
+        }
+        String path = parts[0].replace('.', '/') + "/" + parts[1] + "/" + METADATA_FILE;
+        LinkedHashSet<String> versions = new LinkedHashSet<>();
+        for (URI repository : repositories) {
+            URI uri = repository.resolve(path);
+            try {
+                versions.addAll("file".equals(uri.getScheme()) ? readFile(Path.of(uri)) : readHttp(uri, parts[0], parts[1], repository));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to fetch " + uri, e);
+            }
+        }
+        return List.copyOf(versions);
+    }
+
+    private static List<String> readFile(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return parseVersions(in);
+        } catch (NoSuchFileException e) {
+            return List.of();
+        }
+    }
+
+    private List<String> readHttp(URI uri, String group, String artifact, URI repository) throws IOException {
+        Path cached = cacheDir.resolve(repositoryKey(repository)).resolve(group).resolve(artifact).resolve(METADATA_FILE);
+        Path validatorsFile = cached.resolveSibling(VALIDATORS_FILE);
+        Properties validators = new Properties();
+        if (Files.isRegularFile(cached) && Files.isRegularFile(validatorsFile)) {
+            try (InputStream in = Files.newInputStream(validatorsFile)) {
+                validators.load(in);
+            }
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("User-Agent", USER_AGENT)
+                .GET();
+        String etag = validators.getProperty("etag");
+        String lastModified = validators.getProperty("last-modified");
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            request.header("If-Modified-Since", lastModified);
+        }
+
+        HttpResponse<byte[]> response = send(request.build());
+        int status = response.statusCode();
+        if (status == 304 && Files.isRegularFile(cached)) {
+            notModified.incrementAndGet();
+            try (InputStream in = Files.newInputStream(cached)) {
+                return parseVersions(in);
+            }
+        }
+        if (status == 404) {
+            return List.of();
+        }
+        if (status != 200) {
+            throw new IOException("Unexpected HTTP " + status + " for " + uri);
+        }
+
+        byte[] body = response.body();
+        List<String> versions = parseVersions(new ByteArrayInputStream(body));
+        Properties updated = new Properties();
+        response.headers().firstValue("ETag").ifPresent(value -> updated.setProperty("etag", value));
+        response.headers().firstValue("Last-Modified").ifPresent(value -> updated.setProperty("last-modified", value));
+        Files.createDirectories(cached.getParent());
+        Files.deleteIfExists(validatorsFile);
+        FilesUtils.writeAtomically(cached, body);
+        if (!updated.isEmpty()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            updated.store(out, uri.toString());
+            FilesUtils.writeAtomically(validatorsFile, out.toByteArray());
+        }
+        return versions;
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws IOException {
+        long backoff = initialBackoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            requests.incrementAndGet();
+            try {
+                HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                int status = response.statusCode();
+                if ((status != 429 && status < 500) || attempt == MAX_ATTEMPTS) {
+                    return response;
+                }
+            } catch (IOException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while fetching " + request.uri(), e);
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while fetching " + request.uri(), e);
+            }
+            backoff *= 2;
+        }
+    }
+
+    /**
+     * Values of {@code metadata/versioning/versions/version} in document order.
+     */
+    static List<String> parseVersions(InputStream in) throws IOException {
+        List<String> versions = new ArrayList<>();
+        try {
+            XMLStreamReader reader = XML.createXMLStreamReader(in);
+            try {
+                int depth = 0;
+                boolean inVersions = false;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        String name = reader.getLocalName();
+                        if (depth == 3 && name.equals("versions")) {
+                            inVersions = true;
+                        } else if (inVersions && depth == 4 && name.equals("version")) {
+                            versions.add(reader.getElementText().trim());
+                            depth--;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (inVersions && depth == 3) {
+                            break;
+                        }
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed maven-metadata.xml: " + e.getMessage(), e);
+        }
+        return versions;
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private static URI asDirectory(URI repository) {
+        String value = repository.toString();
+        return value.endsWith("/") ? repository : URI.create(value + "/");
+    }
+
+    private static String repositoryKey(URI repository) {
+        return (repository.getHost() + repository.getPath()).replaceAll("[^A-Za-z0-9.-]+", "_").replaceAll("_+$", "");
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.updates;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Tests new library versions against the metadata and tests of their last supported version and records the outcome
+ * in a {@link CompatibilityLedger}.
+ * <p>
+ * Every candidate is first run with {@code nativeTest}. When that fails, the stages are run one by one, as in
+ * {@code run-consecutive-tests.sh}, to find the failing one: {@code compileTestJava} (javac compile), {@code test}
+ * (java run), {@code nativeTestCompile} (native-image build) and {@code nativeTest} (native-image run), which is
+ * run again until {@code nativeTestAttempts} native test runs were made, counting the first one. A candidate whose
+ * native test passes only on a later run is {@link CompatibilityLedger.Status#FLAKY}.
+ * <p>
+ * At most {@code parallelism} candidates run at the same time; each holds one worker slot, which the {@link Runner}
+ * maps to an isolated copy of the test project.
+ */
+public final class NewVersionCompatibilityPipeline {
+
+    /**
+     * Memory reserved per concurrent native build when the parallelism is derived from the machine size.
+     */
+    public static final long NATIVE_BUILD_MEMORY_BYTES = 8L * 1024 * 1024 * 1024;
+
+    private record Stage(String name, String gradleTask) {
+    }
+
+    private static final List<Stage> BISECT_STAGES = List.of(
+            new Stage("javac compile", "compileTestJava"),
+            new Stage("java run", "test"),
+            new Stage("native-image build", "nativeTestCompile")
+    );
+    private static final Stage NATIVE_RUN = new Stage("native-image run", "nativeTest");
+
+    /**
+     * A new version of {@code library} ({@code group:artifact}) that is tested with the metadata and tests of
+     * {@code testedWith}.
+     */
+    public record Candidate(String library, String version, String testedWith) {
+        public String coordinates() {
+            return library + ":" + version;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Runner {
+        /**
+         * Prepares the test project for {@code candidate} in worker {@code slot}; all stages of the candidate run in
+         * the returned workspace.
+         */
+        Workspace prepare(Candidate candidate, int slot) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface Workspace {
+        /**
+         * Runs {@code gradleTask} and writes its output to {@code log}; returns whether it succeeded.
+         */
+        boolean run(String gradleTask, Path log) throws IOException;
+    }
+
+    private final Runner runner;
+    private final CompatibilityLedger ledger;
+    private final Path logDir;
+    private final int parallelism;
+    private final int nativeTestAttempts;
+    private final Consumer<String> log;
+
+    public NewVersionCompatibilityPipeline(Runner runner, CompatibilityLedger ledger, Path logDir, int parallelism, int nativeTestAttempts, Consumer<String> log) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1, got " + parallelism);
+        }
+        if (nativeTestAttempts < 1) {
+            throw new IllegalArgumentException("nativeTestAttempts must be at least 1, got " + nativeTestAttempts);
+        }
+        this.runner = runner;
+        this.ledger = ledger;
+        this.logDir = logDir;
+        this.parallelism = parallelism;
+        this.nativeTestAttempts = nativeTestAttempts;
+        this.log = log;
+    }
+
+    /**
+     * Number of concurrent native builds that fit into {@code totalMemoryBytes}, at most one per two processors.
+     */
+    public static int defaultParallelism(long totalMemoryBytes, int processors) {
+        long byMemory = totalMemoryBytes / NATIVE_BUILD_MEMORY_BYTES;
+        return (int) Math.max(1, Math.min(byMemory, Math.max(1, processors / 2)));
+    }
+
+    /**
+     * Tests all candidates and returns their results in the order of {@code candidates}. Candidates that already
+     * have a result in the ledger are not run again unless {@code retest} is set.
+     */
+    public List<CompatibilityLedger.Result> run(List<Candidate> candidates, boolean retest) {
+        List<Future<CompatibilityLedger.Result>> pending = new ArrayList<>();
+        BlockingQueue<Integer> slots = new ArrayBlockingQueue<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            slots.add(i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            for (Candidate candidate : candidates) {
+                CompatibilityLedger.Result previous = retest ? null : ledger.get(candidate.coordinates()).orElse(null);
+                if (previous != null) {
+                    log.accept("Skipping " + candidate.coordinates() + ": already " + previous.status() + " in the ledger");
+                    pending.add(CompletableFuture.completedFuture(previous));
+                    continue;
+                }
+                pending.add(executor.submit(() -> {
+                    int slot = slots.take();
+                    try {
+                        CompatibilityLedger.Result result = test(candidate, slot);
+                        ledger.record(result);
+                        log.accept(candidate.coordinates() + ": " + result.status()
+                                + (result.failedStage() == null ? "" : " (" + result.failedStage() + ")"));
+                        return result;
+                    } finally {
+                        slots.put(slot);
+                    }
+                }));
+            }
+            List<CompatibilityLedger.Result> results = new ArrayList<>();
+            for (Future<CompatibilityLedger.Result> future : pending) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while testing new library versions", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private CompatibilityLedger.Result test(Candidate candidate, int slot) throws IOException {
+        long start = System.nanoTime();
+        Path candidateLogs = logDir.resolve(candidate.library().replace(':', '/')).resolve(candidate.version());
+        Workspace workspace = runner.prepare(candidate, slot);
+
+        int runs = 0;
+        Path lastLog = candidateLogs.resolve(++runs + "-" + NATIVE_RUN.gradleTask() + ".log");
+        if (workspace.run(NATIVE_RUN.gradleTask(), lastLog)) {
+            return result(candidate, CompatibilityLedger.Status.PASSED, null, runs, start, lastLog);
+        }
+        for (Stage stage : BISECT_STAGES) {
+            lastLog = candidateLogs.resolve(++runs + "-" + stage.gradleTask() + ".log");
+            if (!workspace.run(stage.gradleTask(), lastLog)) {
+                return result(candidate, CompatibilityLedger.Status.FAILED, stage.name(), runs, start, lastLog);
+            }
+        }
+        // The first nativeTest run above counts as the first attempt.
+        for (int attempt = 1; attempt < nativeTestAttempts; attempt++) {
+            lastLog = candidateLogs.resolve(++runs + "-" + NATIVE_RUN.gradleTask() + ".log");
+            if (workspace.run(NATIVE_RUN.gradleTask(), lastLog)) {
+                return result(candidate, CompatibilityLedger.Status.FLAKY, null, runs, start, lastLog);
+            }
+        }
+        return result(candidate, CompatibilityLedger.Status.FAILED, NATIVE_RUN.name(), runs, start, lastLog);
+    }
+
+    private static CompatibilityLedger.Result result(Candidate candidate, CompatibilityLedger.Status status, String failedStage, int runs, long start, Path log) {
+        return new CompatibilityLedger.Result(
+                candidate.coordinates(),
+                status,
+                candidate.testedWith(),
+                failedStage,
+                runs,
+                (System.nanoTime() - start) / 1_000_000,
+                log.toString(),
+                Instant.now().toString()
+        );
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Canonical JSON form used to compare and hash metadata content independently of formatting and key order.
+ * Object keys are sorted recursively; array order is preserved.
+ */
+public abstract class CanonicalJson {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static JsonNode canonicalize(JsonNode node) {
+        if (node.isObject()) {
+            List<String> names = new ArrayList<>();
+            node.fieldNames().forEachRemaining(names::add);
+            names.sort(null);
+            ObjectNode sorted = MAPPER.createObjectNode();
+            for (String name : names) {
+                sorted.set(name, canonicalize(node.get(name)));
+            }
+            return sorted;
+        }
+        if (node.isArray()) {
+            ArrayNode array = MAPPER.createArrayNode();
+            node.forEach(element -> array.add(canonicalize(element)));
+            return array;
+        }
+        return node;
+    }
+
+    /**
+     * Returns the compact canonical serialization of the given node.
+     */
+    public static String toCanonicalString(JsonNode node) {
+        try {
+            return MAPPER.writeValueAsString(canonicalize(node));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize JSON node", e);
+        }
+    }
+
+    public static String sha256(String content) {
+        return sha256(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal class-file reader that extracts the declared shape of a class (name, supertypes, fields and methods)
+ * without loading it. Only the parts of the format needed by the metadata tooling are decoded; method bodies are only
+ * decoded by {@link #constantCalls(byte[])}.
+ */
+public record ClassFileSummary(
+        int access,
+        String name,
+        String superName,
+        List<String> interfaces,
+        List<Member> fields,
+        List<Member> methods
+) {
+
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    /**
+     * A field or method declared by a class. Names and descriptors use the class-file (internal) form.
+     */
+    public record Member(int access, String name, String descriptor) {
+
+        public boolean isPublic() {
+            return (access & ACC_PUBLIC) != 0;
+        }
+
+        public boolean isStatic() {
+            return (access & ACC_STATIC) != 0;
+        }
+
+        public boolean isSynthetic() {
+            return (access & ACC_SYNTHETIC) != 0;
+        }
+
+        public boolean isConstructor() {
+            return "<init>".equals(name);
+        }
+
+        public boolean isClassInitializer() {
+            return "<clinit>".equals(name);
+        }
+    }
+
+    /**
+     * Returns the class name in Java source form, e.g. {@code com.example.Outer$Inner}.
+     */
+    public String className() {
+        return name.replace('/', '.');
+    }
+
+    public boolean isPublic() {
+        return (access & ACC_PUBLIC) != 0;
+    }
+
+    public static ClassFileSummary parse(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        ConstantPool pool = readHeader(in);
+
+        int access = in.readUnsignedShort();
+        String name = pool.className(in.readUnsignedShort());
+        int superIndex = in.readUnsignedShort();
+        String superName = superIndex == 0 ? null : pool.className(superIndex);
+
+        int interfaceCount = in.readUnsignedShort();
+        List<String> interfaces = new ArrayList<>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces.add(pool.className(in.readUnsignedShort()));
+        }
+
+        List<Member> fields = readMembers(in, pool);
+        List<Member> methods = readMembers(in, pool);
+        return new ClassFileSummary(access, name, superName, List.copyOf(interfaces), fields, methods);
+    }
+
+    /**
+     * Methods referenced by a class and string constants it uses, as found in its constant pool.
+     * Method owners use the class-file (internal) form, e.g. {@code java/lang/Class}.
+     */
+    public record References(List<MethodReference> methods, List<String> strings) {
+    }
+
+    public record MethodReference(String owner, String name, String descriptor) {
+    }
+
+    /**
+     * Reads the method references and string constants of a class without decoding the rest of the class file.
+     */
+    public static References references(byte[] bytes) throws IOException {
+        ConstantPool pool = readHeader(new DataInputStream(new ByteArrayInputStream(bytes)));
+        List<MethodReference> methods = new ArrayList<>();
+        List<String> strings = new ArrayList<>();
+        for (int i = 1; i < pool.tags().length; i++) {
+            switch (pool.tags()[i]) {
+                case 8 -> strings.add(pool.utf8(pool.first()[i]));
+                case 10, 11 -> {
+                    int nameAndType = pool.second()[i];
+                    methods.add(new MethodReference(
+                            pool.className(pool.first()[i]),
+                            pool.utf8(pool.first()[nameAndType]),
+                            pool.utf8(pool.second()[nameAndType])
+                    ));
+                }
+                default -> {
+                }
+            }
+        }
+        return new References(List.copyOf(methods), List.copyOf(strings));
+    }
+
+    /**
+     * A call of {@code target} in {@code method} at source line {@code line} whose last argument is the string
+     * constant {@code argument}, pushed by the instruction right before the call. {@code receiver} is the class
+     * constant pushed right before {@code argument} (as in {@code Foo.class.getResource("x")}), or {@code null}.
+     * The line is {@code -1} when the class has no line numbers.
+     */
+    public record ConstantCall(String method, int line, MethodReference target, String argument, String receiver) {
+    }
+
+    /**
+     * Decodes the method bodies of a class and returns every call that takes a string constant as its last argument.
+     */
+    public static List<ConstantCall> constantCalls(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        ConstantPool pool = readHeader(in);
+        in.readUnsignedShort(); // access
+        in.readUnsignedShort(); // this class
+        in.readUnsignedShort(); // super class
+        in.skipNBytes(2L * in.readUnsignedShort());
+        readMembers(in, pool);
+
+        List<ConstantCall> calls = new ArrayList<>();
+        int methodCount = in.readUnsignedShort();
+        for (int i = 0; i < methodCount; i++) {
+            in.readUnsignedShort(); // access
+            String name = pool.utf8(in.readUnsignedShort());
+            in.readUnsignedShort(); // descriptor
+            int attributes = in.readUnsignedShort();
+            for (int j = 0; j < attributes; j++) {
+                String attribute = pool.utf8(in.readUnsignedShort());
+                byte[] content = in.readNBytes(in.readInt());
+                if (attribute.equals("Code")) {
+                    readConstantCalls(name, content, pool, calls);
+                }
+            }
+        }
+        return List.copyOf(calls);
+    }
+
+    private static void readConstantCalls(String method, byte[] attribute, ConstantPool pool, List<ConstantCall> calls) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(attribute));
+        in.readUnsignedShort(); // max stack
+        in.readUnsignedShort(); // max locals
+        byte[] code = in.readNBytes(in.readInt());
+        in.skipNBytes(8L * in.readUnsignedShort());
+        int[][] lineNumbers = new int[0][];
+        int attributes = in.readUnsignedShort();
+        for (int i = 0; i < attributes; i++) {
+            String name = pool.utf8(in.readUnsignedShort());
+            int length = in.readInt();
+            if (name.equals("LineNumberTable")) {
+                lineNumbers = new int[in.readUnsignedShort()][];
+                for (int j = 0; j < lineNumbers.length; j++) {
+                    lineNumbers[j] = new int[]{in.readUnsignedShort(), in.readUnsignedShort()};
+                }
+            } else {
+                in.skipNBytes(length);
+            }
+        }
+
+        // Constants pushed by the two previous instructions: [pc, pool index] or null.
+        int[] previous = null;
+        int[] beforePrevious = null;
+        int pc = 0;
+        while (pc < code.length) {
+            int opcode = code[pc] & 0xFF;
+            int[] constant = null;
+            if (opcode == 0x12) {
+                constant = new int[]{pc, code[pc + 1] & 0xFF};
+            } else if (opcode == 0x13) {
+                constant = new int[]{pc, u2(code, pc + 1)};
+            } else if (opcode >= 0xB6 && opcode <= 0xB9 && previous != null && pool.tags()[previous[1]] == 8) {
+                int reference = u2(code, pc + 1);
+                int nameAndType = pool.second()[reference];
+                String receiver = beforePrevious != null && pool.tags()[beforePrevious[1]] == 7 ? pool.className(beforePrevious[1]).replace('/', '.') : null;
+                calls.add(new ConstantCall(
+                        method,
+                        line(lineNumbers, pc),
+                        new MethodReference(pool.className(pool.first()[reference]), pool.utf8(pool.first()[nameAndType]), pool.utf8(pool.second()[nameAndType])),
+                        pool.utf8(pool.first()[previous[1]]),
+                        receiver
+                ));
+            }
+            beforePrevious = previous;
+            previous = constant;
+            pc += instructionLength(code, pc);
+        }
+    }
+
+    private static int line(int[][] lineNumbers, int pc) {
+        int line = -1;
+        int start = -1;
+        for (int[] entry : lineNumbers) {
+            if (entry[0] <= pc && entry[0] > start) {
+                start = entry[0];
+                line = entry[1];
+            }
+        }
+        return line;
+    }
+
+    private static int instructionLength(byte[] code, int pc) {
+        int opcode = code[pc] & 0xFF;
+        return switch (opcode) {
+            case 0x10, 0x12, 0x15, 0x16, 0x17, 0x18, 0x19, 0x36, 0x37, 0x38, 0x39, 0x3A, 0xA9, 0xBC -> 2;
+            case 0x11, 0x13, 0x14, 0x84, 0xBB, 0xBD, 0xC0, 0xC1, 0xC6, 0xC7 -> 3;
+            case 0xC5 -> 4;
+            case 0xB9, 0xBA, 0xC8, 0xC9 -> 5;
+            case 0xC4 -> (code[pc + 1] & 0xFF) == 0x84 ? 6 : 4;
+            case 0xAA -> {
+                int base = (pc + 4) & ~3;
+                yield base - pc + 12 + 4 * (s4(code, base + 8) - s4(code, base + 4) + 1);
+            }
+            case 0xAB -> {
+                int base = (pc + 4) & ~3;
+                yield base - pc + 8 + 8 * s4(code, base + 4);
+            }
+            default -> opcode >= 0x99 && opcode <= 0xA8 || opcode >= 0xB2 && opcode <= 0xB8 ? 3 : 1;
+        };
+    }
+
+    private static int u2(byte[] code, int index) {
+        return ((code[index] & 0xFF) << 8) | (code[index + 1] & 0xFF);
+    }
+
+    private static int s4(byte[] code, int index) {
+        return ((code[index] & 0xFF) << 24) | ((code[index + 1] & 0xFF) << 16) | ((code[index + 2] & 0xFF) << 8) | (code[index + 3] & 0xFF);
+    }
+
+    private static ConstantPool readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+        return ConstantPool.read(in);
+    }
+
+    private static List<Member> readMembers(DataInputStream in, ConstantPool pool) throws IOException {
+        int count = in.readUnsignedShort();
+        List<Member> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int access = in.readUnsignedShort();
+            String name = pool.utf8(in.readUnsignedShort());
+            String descriptor = pool.utf8(in.readUnsignedShort());
+            skipAttributes(in);
+            members.add(new Member(access, name, descriptor));
+        }
+        return List.copyOf(members);
+    }
+
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        int attributes = in.readUnsignedShort();
+        for (int i = 0; i < attributes; i++) {
+            in.readUnsignedShort();
+            in.skipNBytes(Integer.toUnsignedLong(in.readInt()));
+        }
+    }
+
+    /**
+     * Constant pool with just enough structure to resolve UTF-8, class, string and method reference entries.
+     * {@code first} and {@code second} hold the index operands of an entry.
+     */
+    private record ConstantPool(int[] tags, String[] utf8, int[] first, int[] second) {
+
+        static ConstantPool read(DataInputStream in) throws IOException {
+            int count = in.readUnsignedShort();
+            int[] tags = new int[count];
+            String[] utf8 = new String[count];
+            int[] first = new int[count];
+            int[] second = new int[count];
+            for (int i = 1; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                tags[i] = tag;
+                switch (tag) {
+                    case 1 -> utf8[i] = in.readUTF();
+                    case 7, 8 -> first[i] = in.readUnsignedShort();
+                    case 16, 19, 20 -> in.readUnsignedShort();
+                    case 15 -> {
+                        in.readUnsignedByte();
+                        in.readUnsignedShort();
+                    }
+                    case 9, 10, 11, 12 -> {
+                        first[i] = in.readUnsignedShort();
+                        second[i] = in.readUnsignedShort();
+                    }
+                    case 3, 4, 17, 18 -> in.readInt();
+                    case 5, 6 -> {
+                        in.readLong();
+                        i++;
+                    }
+                    default -> throw new IOException("Unknown constant pool tag " + tag + " at index " + i);
+                }
+            }
+            return new ConstantPool(tags, utf8, first, second);
+        }
+
+        String utf8(int index) {
+            return utf8[index];
+        }
+
+        String className(int index) {
+            return utf8[first[index]];
+        }
+    }
+}
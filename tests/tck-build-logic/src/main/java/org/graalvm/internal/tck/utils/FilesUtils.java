@@ -8,15 +8,51 @@ package org.graalvm.internal.tck.utils;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
+import java.util.UUID;
 
 public class FilesUtils {
 
+    /**
+     * Fills the temporary file that {@link #writeAtomically(Path, TemporaryFileWriter)} moves into place.
+     */
+    @FunctionalInterface
+    public interface TemporaryFileWriter {
+        void write(Path temporaryFile) throws IOException;
+    }
+
+    /**
+     * Writes {@code file} through a sibling temporary file that is moved over it once {@code writer} is done, so
+     * readers never see a partially written file. The temporary file is created like any other new file, with the
+     * permissions the umask gives it, and not with the owner-only permissions of {@link Files#createTempFile}.
+     */
+    public static void writeAtomically(Path file, TemporaryFileWriter writer) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporaryFile = Files.createFile(parent.resolve(file.getFileName() + "." + UUID.randomUUID() + ".tmp"));
+        try {
+            writer.write(temporaryFile);
+            try {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    public static void writeAtomically(Path file, byte[] content) throws IOException {
+        writeAtomically(file, temporaryFile -> Files.write(temporaryFile, content));
+    }
+
     public static void findJavaFiles(Path root, List<Path> result) throws IOException {
         Files.walkFileTree(root, new SimpleFileVisitor<>() {
             @Override
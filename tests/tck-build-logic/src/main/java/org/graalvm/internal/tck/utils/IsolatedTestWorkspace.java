@@ -0,0 +1,103 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.utils;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * A minimal copy of the repository layout that lets a single test project run against its own metadata copy,
+ * so that several Gradle builds for the same coordinates can run side by side without sharing build directories
+ * or metadata files.
+ * <p>
+ * The workspace contains the files the TCK plugins locate by walking up from the test project
+ * ({@code LICENSE}, {@code ci.json}, {@code gradle/}), a copy of the {@code metadata/} tree and the test project. Build logic is still taken from the original repository via {@code GVM_TCK_TCKDIR}.
+ *
+ * @param root        workspace root (acts as repository root)
+ * @param testDir     copied test project
+ * @param metadataDir copied metadata directory for the tested coordinates
+ */
+public record IsolatedTestWorkspace(Path root, Path testDir, Path metadataDir) {
+
+    private static final List<String> ROOT_FILES = List.of("LICENSE", "ci.json");
+    private static final Set<String> EXCLUDED_DIRECTORIES = Set.of("build", ".gradle", "wrapper");
+
+    /**
+     * Creates (or recreates) a workspace under {@code workspaceRoot}.
+     *
+     * @param repoRoot    root of the repository
+     * @param testDir     test project inside the repository
+     * @param metadataDir metadata directory inside the repository ({@code metadata/<group>/<artifact>/<version>})
+     */
+    public static IsolatedTestWorkspace create(Path repoRoot, Path workspaceRoot, Path testDir, Path metadataDir) throws IOException {
+        deleteRecursively(workspaceRoot);
+        Files.createDirectories(workspaceRoot);
+
+        for (String file : ROOT_FILES) {
+            Path source = repoRoot.resolve(file);
+            if (Files.exists(source)) {
+                Files.copy(source, workspaceRoot.resolve(file), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        copyDirectory(repoRoot.resolve("gradle"), workspaceRoot.resolve("gradle"));
+
+        // The whole metadata tree is small; copying it keeps metadata of the test project's other dependencies available.
+        copyDirectory(repoRoot.resolve("metadata"), workspaceRoot.resolve("metadata"));
+        Path workspaceMetadataDir = workspaceRoot.resolve(repoRoot.relativize(metadataDir.toAbsolutePath().normalize()));
+
+        Path workspaceTestDir = workspaceRoot.resolve(repoRoot.relativize(testDir.toAbsolutePath().normalize()));
+        copyDirectory(testDir, workspaceTestDir);
+
+        return new IsolatedTestWorkspace(workspaceRoot, workspaceTestDir, workspaceMetadataDir);
+    }
+
+    public Path metadataFile() {
+        return metadataDir.resolve(ReachabilityMetadataFiles.FILE_NAME);
+    }
+
+    private static void copyDirectory(Path source, Path target) throws IOException {
+        if (!Files.isDirectory(source)) {
+            return;
+        }
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (source.equals(dir.getParent()) && EXCLUDED_DIRECTORIES.contains(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.copy(file, target.resolve(source.relativize(file).toString()), StandardCopyOption.REPLACE_EXISTING);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    public static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(path)) {
+            for (Path p : stream.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+}
@@ -36,6 +36,7 @@ public final class MetadataGenerationUtils {
 
     public static final String BUILD_FILE = "build.gradle";
     private static final String USER_CODE_FILTER_FILE = "user-code-filter.json";
+    public static final String AGENT_OUTPUT_DIRECTORY = "build/native/agent-output/test";
 
     private static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
 
@@ -104,33 +105,41 @@ public final class MetadataGenerationUtils {
     }
 
     /**
-     * Runs Gradle tasks to generate metadata using the agent and then copies
-     * the results into the computed metadata directory for the given coordinates.
+     * Runs the tests with the agent and merges its output into the computed metadata directory for the given
+     * coordinates.
      */
     public static void collectMetadata(ExecOperations execOps, Path testsDirectory, ProjectLayout layout,  String coordinates, Path gradlew) {
-        Path metadataDirectory = GeneralUtils.computeMetadataDirectory(layout, coordinates);
-
-        GeneralUtils.printInfo("Generating metadata");
-        GeneralUtils.invokeCommand(execOps, gradlew.toString(), List.of("-Pagent", "test"), "Cannot generate metadata", testsDirectory);
-
-        GeneralUtils.printInfo("Performing metadata copy");
-        GeneralUtils.invokeCommand(execOps, gradlew + " metadataCopy --task test --dir " + metadataDirectory, "Cannot perform metadata copy", testsDirectory);
+        collectMetadata(execOps, testsDirectory, layout, coordinates, gradlew, Map.of());
     }
 
     /**
-     * Runs Gradle tasks to generate metadata using the agent with a specific GVM_TCK_LV
-     * and then copies the results into the computed metadata directory for the given coordinates.
+     * Runs the tests with the agent and a specific GVM_TCK_LV and merges its output into the computed metadata
+     * directory for the given coordinates.
      */
     public static void collectMetadata(ExecOperations execOps, Path testsDirectory, ProjectLayout layout, String coordinates, Path gradlew, String gvmTckLv) {
-        Path metadataDirectory = GeneralUtils.computeMetadataDirectory(layout, coordinates);
+        collectMetadata(execOps, testsDirectory, layout, coordinates, gradlew, Map.of("GVM_TCK_LV", gvmTckLv));
+    }
 
-        Map<String, String> env = Map.of("GVM_TCK_LV", gvmTckLv);
+    private static void collectMetadata(ExecOperations execOps, Path testsDirectory, ProjectLayout layout, String coordinates, Path gradlew, Map<String, String> env) {
+        Path metadataDirectory = GeneralUtils.computeMetadataDirectory(layout, coordinates);
+        Path agentOutputDirectory = testsDirectory.resolve(AGENT_OUTPUT_DIRECTORY);
 
         GeneralUtils.printInfo("Generating metadata");
+        try {
+            // Only merge the output of this run.
+            IsolatedTestWorkspace.deleteRecursively(agentOutputDirectory);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot delete previous agent output " + agentOutputDirectory, e);
+        }
         GeneralUtils.invokeCommand(execOps, gradlew.toString(), List.of("-Pagent", "test"), env, "Cannot generate metadata", testsDirectory);
 
-        GeneralUtils.printInfo("Performing metadata copy");
-        GeneralUtils.invokeCommand(execOps, gradlew.toString(), List.of("metadataCopy", "--task", "test", "--dir", metadataDirectory.toString()), env, "Cannot perform metadata copy", testsDirectory);
+        GeneralUtils.printInfo("Merging agent output into " + metadataDirectory);
+        try {
+            ReachabilityMetadataMerger.Result result = ReachabilityMetadataMerger.mergeAgentOutput(agentOutputDirectory, metadataDirectory);
+            GeneralUtils.printInfo("Added " + result.added() + " and extended " + result.extended() + " entries");
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot merge agent output into " + metadataDirectory, e);
+        }
     }
 
     /**
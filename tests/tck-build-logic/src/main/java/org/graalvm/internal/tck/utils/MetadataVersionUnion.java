@@ -0,0 +1,70 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Union of the metadata collected for several versions of a library, with the entries that were not collected for
+ * every version.
+ * <p>
+ * Entries are compared by {@link ReachabilityMetadataFiles.Entry#canonicalKey()}: an entry whose members differ
+ * between versions is reported once per variant, while the union combines the variants with
+ * {@link ReachabilityMetadataMerger}.
+ *
+ * @param metadata        sorted union of the metadata of all versions
+ * @param commonEntries   number of entries collected for every version
+ * @param versionSpecific entries collected for only some of the versions, ordered by their canonical key
+ */
+public record MetadataVersionUnion(ObjectNode metadata, int commonEntries, List<VersionSpecificEntry> versionSpecific) {
+
+    /**
+     * An entry of {@code section} and the versions it was collected for.
+     */
+    public record VersionSpecificEntry(String section, JsonNode entry, List<String> versions) {
+    }
+
+    /**
+     * Computes the union of {@code metadataByVersion}, whose iteration order is used for the reported versions.
+     */
+    public static MetadataVersionUnion of(Map<String, JsonNode> metadataByVersion) {
+        Map<String, ReachabilityMetadataFiles.Entry> entries = new TreeMap<>();
+        Map<String, List<String>> versionsByKey = new LinkedHashMap<>();
+        metadataByVersion.forEach((version, metadata) -> {
+            for (ReachabilityMetadataFiles.Entry entry : ReachabilityMetadataFiles.entries(metadata)) {
+                String key = entry.canonicalKey();
+                entries.putIfAbsent(key, entry);
+                List<String> versions = versionsByKey.computeIfAbsent(key, ignored -> new ArrayList<>());
+                if (!versions.contains(version)) {
+                    versions.add(version);
+                }
+            }
+        });
+
+        ObjectNode union = ReachabilityMetadataMerger.sorted(
+                ReachabilityMetadataMerger.merge(JsonNodeFactory.instance.objectNode(), entries.values()).metadata());
+        int common = 0;
+        List<VersionSpecificEntry> versionSpecific = new ArrayList<>();
+        for (Map.Entry<String, ReachabilityMetadataFiles.Entry> entry : entries.entrySet()) {
+            List<String> versions = versionsByKey.get(entry.getKey());
+            if (versions.size() == metadataByVersion.size()) {
+                common++;
+            } else {
+                versionSpecific.add(new VersionSpecificEntry(entry.getValue().section(), entry.getValue().node(), List.copyOf(versions)));
+            }
+        }
+        return new MetadataVersionUnion(union, common, List.copyOf(versionSpecific));
+    }
+}
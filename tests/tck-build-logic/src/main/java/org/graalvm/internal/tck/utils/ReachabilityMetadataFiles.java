@@ -0,0 +1,145 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultIndenter;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.core.util.Separators;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reading, splitting and writing of {@code reachability-metadata.json} files at the granularity of single entries.
+ */
+public abstract class ReachabilityMetadataFiles {
+
+    public static final String FILE_NAME = "reachability-metadata.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * A single entry of a top-level metadata section (for example one {@code reflection} element).
+     */
+    public record Entry(String section, JsonNode node) {
+
+        /**
+         * Key that is equal for entries with the same section and semantically equal content,
+         * regardless of the key order inside the entry.
+         */
+        public String canonicalKey() {
+            return section + ":" + CanonicalJson.toCanonicalString(node);
+        }
+    }
+
+    public static JsonNode read(Path file) throws IOException {
+        return MAPPER.readTree(file.toFile());
+    }
+
+    /**
+     * Returns all entries of all array-valued top-level sections in file order.
+     */
+    public static List<Entry> entries(JsonNode metadata) {
+        List<Entry> entries = new ArrayList<>();
+        metadata.fields().forEachRemaining(section -> {
+            if (section.getValue().isArray()) {
+                section.getValue().forEach(node -> entries.add(new Entry(section.getKey(), node)));
+            }
+        });
+        return entries;
+    }
+
+    /**
+     * Builds a metadata document that keeps the top-level layout of {@code template} but contains only the given
+     * entries. Non-array sections of the template are copied unchanged; array sections that end up empty are omitted
+     * unless they were already empty in the template.
+     */
+    public static ObjectNode withEntries(JsonNode template, Collection<Entry> entries) {
+        Map<String, ArrayNode> sections = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            sections.computeIfAbsent(entry.section(), ignored -> MAPPER.createArrayNode()).add(entry.node());
+        }
+
+        ObjectNode result = MAPPER.createObjectNode();
+        template.fields().forEachRemaining(section -> {
+            JsonNode value = section.getValue();
+            if (!value.isArray()) {
+                result.set(section.getKey(), value);
+            } else if (sections.containsKey(section.getKey())) {
+                result.set(section.getKey(), sections.remove(section.getKey()));
+            } else if (value.isEmpty()) {
+                result.set(section.getKey(), value);
+            }
+        });
+        sections.forEach(result::set);
+        return result;
+    }
+
+    /**
+     * Writes metadata in the repository layout (two-space indentation, one array element per line, trailing newline).
+     * The file is written to a sibling temporary file first and then moved into place.
+     */
+    public static void write(Path file, JsonNode metadata) throws IOException {
+        FilesUtils.writeAtomically(file, toJson(metadata).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Formats metadata the way {@link #write(Path, JsonNode)} stores it.
+     */
+    public static String toJson(JsonNode metadata) throws IOException {
+        String json = MAPPER.writer(new MetadataPrettyPrinter()).writeValueAsString(metadata);
+        if (!json.endsWith("\n")) {
+            json = json + System.lineSeparator();
+        }
+        return json;
+    }
+
+    /**
+     * Pretty printer matching the formatting of the committed metadata files: {@code "key": value} and
+     * {@code []} for empty arrays.
+     */
+    private static final class MetadataPrettyPrinter extends DefaultPrettyPrinter {
+
+        private static final long serialVersionUID = 1L;
+
+        MetadataPrettyPrinter() {
+            super(Separators.createDefaultInstance().withObjectFieldValueSpacing(Separators.Spacing.AFTER));
+            indentArraysWith(DefaultIndenter.SYSTEM_LINEFEED_INSTANCE);
+        }
+
+        MetadataPrettyPrinter(MetadataPrettyPrinter base) {
+            super(base);
+        }
+
+        @Override
+        public DefaultPrettyPrinter createInstance() {
+            return new MetadataPrettyPrinter(this);
+        }
+
+        @Override
+        public void writeEndArray(JsonGenerator generator, int nrOfValues) throws IOException {
+            if (!_arrayIndenter.isInline()) {
+                --_nesting;
+            }
+            if (nrOfValues > 0) {
+                _arrayIndenter.writeIndentation(generator, _nesting);
+            }
+            generator.writeRaw(']');
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Merges entries into a {@code reachability-metadata.json} document.
+ * <p>
+ * Entries of the same section that differ only in their members ({@code methods}, {@code fields}) and boolean flags
+ * (such as {@code allDeclaredFields} or {@code unsafeAllocated}) describe the same registration: they are combined
+ * into one entry with the union of the members and the flags of both. Other entries are appended to their section.
+ * <p>
+ * {@link #mergeAgentOutput(Path, Path)} merges the output of the native-image agent into a metadata directory in
+ * process and writes the result {@link #sorted(JsonNode) sorted}, so that merging the same output again produces the
+ * same bytes.
+ */
+public final class ReachabilityMetadataMerger {
+
+    private static final Set<String> MEMBER_FIELDS = Set.of("methods", "fields");
+
+    /**
+     * Order of the sections in written files; other sections follow in alphabetical order.
+     */
+    private static final List<String> SECTION_ORDER = List.of("reflection", "jni", "resources", "bundles", "serialization");
+
+    /**
+     * Entry fields naming the registered element, used as the primary sort key of an entry.
+     */
+    private static final List<String> TARGET_FIELDS = List.of("type", "glob", "bundle", "module", "name");
+
+    /**
+     * Merged document and the number of entries that were added as new entries or merged into existing ones.
+     */
+    public record Result(ObjectNode metadata, int added, int extended) {
+    }
+
+    private ReachabilityMetadataMerger() {
+    }
+
+    public static Result merge(JsonNode metadata, Collection<ReachabilityMetadataFiles.Entry> additions) {
+        Map<String, ReachabilityMetadataFiles.Entry> entries = new LinkedHashMap<>();
+        for (ReachabilityMetadataFiles.Entry entry : ReachabilityMetadataFiles.entries(metadata)) {
+            entries.merge(identity(entry), entry, ReachabilityMetadataMerger::combine);
+        }
+        int added = 0;
+        int extended = 0;
+        for (ReachabilityMetadataFiles.Entry addition : additions) {
+            String identity = identity(addition);
+            ReachabilityMetadataFiles.Entry existing = entries.get(identity);
+            if (existing == null) {
+                entries.put(identity, addition);
+                added++;
+            } else {
+                ReachabilityMetadataFiles.Entry combined = combine(existing, addition);
+                if (!combined.canonicalKey().equals(existing.canonicalKey())) {
+                    entries.put(identity, combined);
+                    extended++;
+                }
+            }
+        }
+        return new Result(ReachabilityMetadataFiles.withEntries(metadata, entries.values()), added, extended);
+    }
+
+    /**
+     * Merges all {@code reachability-metadata.json} files below {@code agentOutputDirectory} into
+     * {@code metadataDirectory/reachability-metadata.json} with {@link #mergeInto(Path, Collection)}.
+     */
+    public static Result mergeAgentOutput(Path agentOutputDirectory, Path metadataDirectory) throws IOException {
+        List<Path> outputs;
+        try (Stream<Path> files = Files.isDirectory(agentOutputDirectory) ? Files.walk(agentOutputDirectory) : Stream.empty()) {
+            outputs = files.filter(file -> file.getFileName().toString().equals(ReachabilityMetadataFiles.FILE_NAME))
+                    .sorted()
+                    .toList();
+        }
+        if (outputs.isEmpty()) {
+            throw new IOException("No " + ReachabilityMetadataFiles.FILE_NAME + " found in agent output " + agentOutputDirectory);
+        }
+        List<ReachabilityMetadataFiles.Entry> additions = new ArrayList<>();
+        for (Path output : outputs) {
+            additions.addAll(ReachabilityMetadataFiles.entries(ReachabilityMetadataFiles.read(output)));
+        }
+        return mergeInto(metadataDirectory, additions);
+    }
+
+    /**
+     * Merges {@code additions} into {@code metadataDirectory/reachability-metadata.json} and writes the result
+     * {@link #sorted(JsonNode) sorted}. The file is only rewritten when its content changes.
+     */
+    public static Result mergeInto(Path metadataDirectory, Collection<ReachabilityMetadataFiles.Entry> additions) throws IOException {
+        Path metadataFile = metadataDirectory.resolve(ReachabilityMetadataFiles.FILE_NAME);
+        JsonNode existing = Files.isRegularFile(metadataFile) ? ReachabilityMetadataFiles.read(metadataFile) : JsonNodeFactory.instance.objectNode();
+        Result merged = merge(existing, additions);
+        ObjectNode sorted = sorted(merged.metadata());
+        if (!Files.isRegularFile(metadataFile) || !Files.readString(metadataFile).equals(ReachabilityMetadataFiles.toJson(sorted))) {
+            ReachabilityMetadataFiles.write(metadataFile, sorted);
+        }
+        return new Result(sorted, merged.added(), merged.extended());
+    }
+
+    /**
+     * Returns {@code metadata} in a canonical order: non-array fields first, then the sections in the usual order of
+     * the repository, each with its entries sorted by the registered element and then by content, and with the
+     * {@code methods} and {@code fields} of every entry sorted.
+     */
+    public static ObjectNode sorted(JsonNode metadata) {
+        ObjectNode result = JsonNodeFactory.instance.objectNode();
+        metadata.fields().forEachRemaining(field -> {
+            if (!field.getValue().isArray()) {
+                result.set(field.getKey(), field.getValue());
+            }
+        });
+        List<String> sections = new ArrayList<>();
+        metadata.fields().forEachRemaining(field -> {
+            if (field.getValue().isArray()) {
+                sections.add(field.getKey());
+            }
+        });
+        sections.sort(Comparator.comparingInt(ReachabilityMetadataMerger::sectionRank).thenComparing(Comparator.naturalOrder()));
+        for (String section : sections) {
+            List<JsonNode> entries = new ArrayList<>();
+            metadata.get(section).forEach(entry -> entries.add(sortMembers(entry)));
+            entries.sort(Comparator.comparing(ReachabilityMetadataMerger::target).thenComparing(CanonicalJson::toCanonicalString));
+            result.putArray(section).addAll(entries);
+        }
+        return result;
+    }
+
+    private static int sectionRank(String section) {
+        int rank = SECTION_ORDER.indexOf(section);
+        return rank < 0 ? SECTION_ORDER.size() : rank;
+    }
+
+    private static String target(JsonNode entry) {
+        for (String field : TARGET_FIELDS) {
+            if (entry.has(field)) {
+                return CanonicalJson.toCanonicalString(entry.get(field));
+            }
+        }
+        return "";
+    }
+
+    private static JsonNode sortMembers(JsonNode entry) {
+        if (!entry.isObject()) {
+            return entry;
+        }
+        ObjectNode result = ((ObjectNode) entry).deepCopy();
+        for (String field : MEMBER_FIELDS) {
+            if (result.get(field) instanceof ArrayNode members) {
+                List<JsonNode> sorted = new ArrayList<>();
+                members.forEach(sorted::add);
+                sorted.sort(Comparator.comparing(CanonicalJson::toCanonicalString));
+                members.removeAll();
+                members.addAll(sorted);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Key that is equal for entries describing the same registration: the entry without members and flags.
+     */
+    static String identity(ReachabilityMetadataFiles.Entry entry) {
+        if (!entry.node().isObject()) {
+            return entry.canonicalKey();
+        }
+        ObjectNode copy = ((ObjectNode) entry.node()).deepCopy();
+        List<String> mergeable = new ArrayList<>();
+        copy.fieldNames().forEachRemaining(name -> {
+            if (isMergeable(name, copy.get(name))) {
+                mergeable.add(name);
+            }
+        });
+        copy.remove(mergeable);
+        return entry.section() + ":" + CanonicalJson.toCanonicalString(copy);
+    }
+
+    private static ReachabilityMetadataFiles.Entry combine(ReachabilityMetadataFiles.Entry existing, ReachabilityMetadataFiles.Entry addition) {
+        if (!existing.node().isObject() || !addition.node().isObject()) {
+            return existing;
+        }
+        ObjectNode result = ((ObjectNode) existing.node()).deepCopy();
+        addition.node().fields().forEachRemaining(field -> {
+            JsonNode current = result.get(field.getKey());
+            JsonNode value = field.getValue();
+            if (current == null) {
+                result.set(field.getKey(), value);
+            } else if (current.isBoolean() && value.isBoolean()) {
+                result.set(field.getKey(), BooleanNode.valueOf(current.booleanValue() || value.booleanValue()));
+            } else if (current.isArray() && value.isArray() && MEMBER_FIELDS.contains(field.getKey())) {
+                result.set(field.getKey(), union((ArrayNode) current, (ArrayNode) value));
+            }
+        });
+        return new ReachabilityMetadataFiles.Entry(existing.section(), result);
+    }
+
+    private static ArrayNode union(ArrayNode first, ArrayNode second) {
+        ArrayNode result = first.deepCopy();
+        Set<String> seen = new HashSet<>();
+        first.forEach(member -> seen.add(CanonicalJson.toCanonicalString(member)));
+        second.forEach(member -> {
+            if (seen.add(CanonicalJson.toCanonicalString(member))) {
+                result.add(member);
+            }
+        });
+        return result;
+    }
+
+    private static boolean isMergeable(String name, JsonNode value) {
+        return value.isBoolean() || (value.isArray() && MEMBER_FIELDS.contains(name));
+    }
+}
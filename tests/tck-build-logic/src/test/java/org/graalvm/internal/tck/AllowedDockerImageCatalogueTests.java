@@ -0,0 +1,66 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AllowedDockerImageCatalogueTests {
+
+    private static final AllowedDockerImageCatalogue CATALOGUE = AllowedDockerImageCatalogue.of(Map.of(
+            "Dockerfile-postgres", "FROM postgres:18-alpine\n",
+            "Dockerfile-postgres-17", "# previous major\nFROM postgres:17\n",
+            "Dockerfile-mysql_community-server", "FROM container-registry.oracle.com/mysql/community-server:9.6.0\n",
+            "Dockerfile-registry", "FROM localhost:5000/tools/echo:1.0\n"
+    ));
+
+    @Test
+    void indexesImagesByNameAndTag() {
+        assertThat(CATALOGUE.images()).containsExactly(
+                "container-registry.oracle.com/mysql/community-server:9.6.0",
+                "localhost:5000/tools/echo:1.0",
+                "postgres:17",
+                "postgres:18-alpine");
+        assertThat(CATALOGUE.tagsOf("postgres").keySet()).containsExactly("17", "18-alpine");
+        assertThat(CATALOGUE.tagsOf("localhost:5000/tools/echo").get("1.0").dockerfile()).isEqualTo("Dockerfile-registry");
+        assertThat(CATALOGUE.tagsOf("nginx")).isEmpty();
+        assertThat(CATALOGUE.isAllowed("postgres:17")).isTrue();
+        assertThat(CATALOGUE.isAllowed("postgres:16")).isFalse();
+        assertThat(CATALOGUE.fromDockerfiles(Set.of("Dockerfile-postgres-17")))
+                .containsExactly(new AllowedDockerImageCatalogue.Entry("postgres:17", "postgres", "17", "Dockerfile-postgres-17"));
+    }
+
+    @Test
+    void isImmutable() {
+        assertThatThrownBy(() -> CATALOGUE.byName().remove("postgres")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> CATALOGUE.tagsOf("postgres").clear()).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> CATALOGUE.images().add("nginx:1")).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void rejectsDockerfilesWithoutSingleFromLine() {
+        assertThatThrownBy(() -> AllowedDockerImageCatalogue.of(Map.of("Dockerfile-multi", "FROM a:1\nFROM b:2\n")))
+                .hasMessageContaining("Dockerfile-multi must contain only one FROM line");
+    }
+
+    @Test
+    void loadsPluginCatalogueOnce() {
+        AllowedDockerImageCatalogue catalogue = DockerUtils.getAllowedImageCatalogue();
+
+        assertThat(catalogue).isSameAs(DockerUtils.getAllowedImageCatalogue());
+        assertThat(catalogue.tagsOf("postgres")).isNotEmpty();
+        assertThat(DockerUtils.getAllAllowedImages()).isEqualTo(catalogue.images());
+        assertThat(List.of(DockerUtils.getImageName("postgres:18-alpine"), DockerUtils.getImageName("localhost:5000/echo@sha256:ab")))
+                .containsExactly("postgres", "localhost:5000/echo");
+    }
+}
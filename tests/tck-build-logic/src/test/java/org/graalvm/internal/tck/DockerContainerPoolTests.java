@@ -0,0 +1,117 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DockerContainerPoolTests {
+
+    private static final String POSTGRES = "postgres:18-alpine";
+
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    private final List<List<String>> commands = new ArrayList<>();
+
+    private DockerImagePuller.CommandResult fakeDocker(List<String> args) {
+        commands.add(args);
+        return switch (args.getFirst()) {
+            case "run" -> new DockerImagePuller.CommandResult(0, "c0ffee\n");
+            case "port" -> new DockerImagePuller.CommandResult(0, "127.0.0.1:49153\n");
+            case "ps" -> new DockerImagePuller.CommandResult(0, String.join("\n",
+                    "own\trun-1\t1:0\t" + NOW.toEpochMilli(),
+                    "parallel\trun-2\t2:0\t" + NOW.minusSeconds(60).toEpochMilli(),
+                    "dead\trun-3\t3:0\t" + NOW.minusSeconds(60).toEpochMilli(),
+                    "stale\trun-4\t2:0\t" + NOW.minus(DockerContainerPool.ORPHAN_AGE).minusSeconds(1).toEpochMilli(),
+                    "legacy\trun-5\t\t") + "\n");
+            default -> new DockerImagePuller.CommandResult(0, "");
+        };
+    }
+
+    private DockerContainerPool pool() {
+        return new DockerContainerPool(this::fakeDocker, "run-1", message -> { }, Set.of(POSTGRES, "mariadb:12.2")::contains, "1:0",
+                owner -> !owner.equals("3:0"), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void startsEachImageOnceAndResetsItBetweenCoordinates() throws IOException {
+        DockerContainerPool pool = pool();
+
+        Map<String, String> first = pool.acquire(List.of(POSTGRES, "nginx:1-alpine-slim"));
+        Map<String, String> second = pool.acquire(List.of(POSTGRES));
+
+        assertThat(first).containsEntry("GVM_TCK_DOCKER_POSTGRES_HOST", "localhost")
+                .containsEntry("GVM_TCK_DOCKER_POSTGRES_PORT", "49153")
+                .containsEntry("GVM_TCK_DOCKER_POSTGRES_DATABASE", "test")
+                .hasSize(5);
+        assertThat(second).isEqualTo(first);
+        assertThat(commands.stream().filter(args -> args.getFirst().equals("run")).count()).isEqualTo(1);
+        assertThat(commands.getFirst()).contains("--label", DockerContainerPool.LABEL + "=run-1", "-p", "127.0.0.1::5432", POSTGRES)
+                .contains(DockerContainerPool.OWNER_LABEL + "=1:0", DockerContainerPool.STARTED_LABEL + "=" + NOW.toEpochMilli());
+        assertThat(commands.getLast().subList(0, 3)).containsExactly("exec", "c0ffee", "psql");
+    }
+
+    @Test
+    void removesOwnAndOrphanedContainers() throws IOException {
+        DockerContainerPool pool = pool();
+
+        pool.reapOrphans();
+        assertThat(commands.getLast()).containsExactly("rm", "-f", "dead", "stale", "legacy");
+
+        pool.acquire(List.of("mariadb:12.2", POSTGRES));
+        commands.clear();
+        pool.close();
+        pool.close();
+
+        assertThat(commands).containsExactly(List.of("rm", "-f", "c0ffee", "c0ffee"));
+    }
+
+    @Test
+    void failsWhenContainerCannotBeStarted() {
+        DockerContainerPool pool = new DockerContainerPool(args -> new DockerImagePuller.CommandResult(125, "port is already allocated"),
+                "run-1", message -> { });
+
+        assertThatThrownBy(() -> pool.acquire(List.of(POSTGRES)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("port is already allocated");
+    }
+
+    @Test
+    void rejectsPooledImagesThatAreNotAllowed() {
+        DockerContainerPool pool = pool();
+
+        assertThatThrownBy(() -> pool.acquire(List.of("postgres:9.6")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("postgres:9.6 is not listed in allowed docker images");
+        assertThat(commands).isEmpty();
+    }
+
+    @Test
+    void recognizesTheOwningProcess() {
+        assertThat(DockerContainerPool.isOwnerAlive(DockerContainerPool.currentOwner())).isTrue();
+        assertThat(DockerContainerPool.isOwnerAlive(ProcessHandle.current().pid() + ":1")).isFalse();
+        assertThat(DockerContainerPool.isOwnerAlive("")).isFalse();
+    }
+
+    @Test
+    void poolsOnlyImagesWithKnownSetup() {
+        assertThat(DockerContainerPool.pooledImage("mariadb:12.2")).isPresent();
+        assertThat(DockerContainerPool.pooledImage("container-registry.oracle.com/mysql/community-server:9.6.0")).isPresent();
+        assertThat(DockerContainerPool.pooledImage("greenmail/standalone:2.1.0-alpha-4")).isEmpty();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DockerImagePullerTests {
+
+    private static final String DIGEST = "sha256:1111";
+
+    @Test
+    void pullsOnlyMissingOrOutdatedImages() {
+        List<String> pulls = Collections.synchronizedList(new ArrayList<>());
+        DockerImagePuller.Docker docker = args -> {
+            String image = args.getLast();
+            return switch (args.getFirst()) {
+                case "image" -> switch (image) {
+                    case "postgres:16", "mariadb:12@" + DIGEST -> new DockerImagePuller.CommandResult(0, "[\"library/x@" + DIGEST + "\"]");
+                    case "nats:2" -> new DockerImagePuller.CommandResult(0, "[\"library/nats@sha256:old\"]");
+                    default -> new DockerImagePuller.CommandResult(1, "Error: No such image: " + image);
+                };
+                case "buildx" -> new DockerImagePuller.CommandResult(0, DIGEST + "\n");
+                case "pull" -> {
+                    pulls.add(image);
+                    yield new DockerImagePuller.CommandResult(0, "");
+                }
+                default -> throw new IllegalArgumentException(args.toString());
+            };
+        };
+
+        Map<String, DockerImagePuller.Outcome> outcomes = new DockerImagePuller(docker, 2, message -> { })
+                .pullAll(List.of("postgres:16", "mariadb:12@" + DIGEST, "nats:2", "nginx:1"));
+
+        assertThat(outcomes).containsExactly(
+                Map.entry("postgres:16", DockerImagePuller.Outcome.UP_TO_DATE),
+                Map.entry("mariadb:12@" + DIGEST, DockerImagePuller.Outcome.UP_TO_DATE),
+                Map.entry("nats:2", DockerImagePuller.Outcome.PULLED),
+                Map.entry("nginx:1", DockerImagePuller.Outcome.PULLED));
+        assertThat(pulls).containsExactlyInAnyOrder("nats:2", "nginx:1");
+    }
+
+    @Test
+    void pullsImagesWhoseLocalDigestsCannotBeRead() {
+        List<String> pulls = Collections.synchronizedList(new ArrayList<>());
+        DockerImagePuller.Docker docker = args -> switch (args.getFirst()) {
+            case "image" -> new DockerImagePuller.CommandResult(0, "WARNING: context \"remote\" is not reachable\n[\"library/x@" + DIGEST + "\"]");
+            case "pull" -> {
+                pulls.add(args.getLast());
+                yield new DockerImagePuller.CommandResult(0, "");
+            }
+            default -> throw new IllegalArgumentException(args.toString());
+        };
+
+        Map<String, DockerImagePuller.Outcome> outcomes = new DockerImagePuller(docker, 1, message -> { }).pullAll(List.of("postgres:16"));
+
+        assertThat(outcomes).containsExactly(Map.entry("postgres:16", DockerImagePuller.Outcome.PULLED));
+        assertThat(pulls).containsExactly("postgres:16");
+    }
+
+    @Test
+    void reportsAllFailedPulls() {
+        DockerImagePuller.Docker docker = args -> args.getFirst().equals("pull")
+                ? new DockerImagePuller.CommandResult(1, "manifest unknown")
+                : new DockerImagePuller.CommandResult(1, "");
+
+        assertThatThrownBy(() -> new DockerImagePuller(docker, 4, message -> { }).pullAll(List.of("a:1", "b:1")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("a:1: manifest unknown")
+                .hasMessageContaining("b:1: manifest unknown");
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GrypeScannerTests {
+
+    private static final String REPORT = """
+            {
+              "matches": [
+                {"vulnerability": {"id": "CVE-1", "severity": "Critical"}, "artifact": {"name": "openssl"}},
+                {"vulnerability": {"id": "CVE-2", "severity": "High"}},
+                {"vulnerability": {"id": "CVE-3", "severity": "High"}},
+                {"vulnerability": {"id": "CVE-4", "severity": "Medium"}}
+              ],
+              "source": {"type": "image", "target": {"userInput": "postgres:18-alpine"}},
+              "descriptor": {"name": "grype", "version": "0.104.0"}
+            }
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    private final List<String> scans = Collections.synchronizedList(new ArrayList<>());
+
+    private DockerImagePuller.CommandResult fakeGrype(List<String> args) {
+        if (args.getFirst().equals("db")) {
+            return new DockerImagePuller.CommandResult(0, args.get(1).equals("status") ? "{\"schemaVersion\": \"v6.0.2\", \"built\": \"2026-10-18T00:00:00Z\"}" : "");
+        }
+        scans.add(args.getLast());
+        return new DockerImagePuller.CommandResult(0, args.getLast().startsWith("nats") ? "{\"matches\": []}" : REPORT);
+    }
+
+    private static DockerImagePuller.CommandResult fakeDocker(List<String> args) {
+        return args.getLast().startsWith("nginx")
+                ? new DockerImagePuller.CommandResult(1, "no such manifest")
+                : new DockerImagePuller.CommandResult(0, digest(args.getLast()) + "\n");
+    }
+
+    private static String digest(String image) {
+        return "sha256:" + Integer.toHexString(image.hashCode());
+    }
+
+    @Test
+    void countsHighAndCriticalMatches() throws IOException {
+        GrypeScanner.Vulnerabilities vulnerabilities = GrypeScanner.parse(new ByteArrayInputStream(REPORT.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(vulnerabilities).isEqualTo(new GrypeScanner.Vulnerabilities(1, 2));
+        assertThat(vulnerabilities.isNotMoreVulnerableThan(new GrypeScanner.Vulnerabilities(1, 3))).isTrue();
+        assertThat(vulnerabilities.isNotMoreVulnerableThan(new GrypeScanner.Vulnerabilities(2, 1))).isFalse();
+    }
+
+    @Test
+    void reusesCachedScansOfUnchangedDigests() {
+        Path cacheFile = tempDir.resolve("grype-cache/scans.json");
+        List<String> images = List.of("postgres:18-alpine", "nats:2.12.6", "nginx:1-alpine-slim");
+
+        Map<String, GrypeScanner.Vulnerabilities> first = new GrypeScanner(this::fakeGrype, GrypeScannerTests::fakeDocker, 2, cacheFile, message -> { })
+                .scanAll(images);
+        Map<String, GrypeScanner.Vulnerabilities> second = new GrypeScanner(this::fakeGrype, GrypeScannerTests::fakeDocker, 2, cacheFile, message -> { })
+                .scanAll(images);
+
+        assertThat(first).containsExactly(
+                Map.entry("postgres:18-alpine", new GrypeScanner.Vulnerabilities(1, 2)),
+                Map.entry("nats:2.12.6", new GrypeScanner.Vulnerabilities(0, 0)),
+                Map.entry("nginx:1-alpine-slim", new GrypeScanner.Vulnerabilities(1, 2)));
+        assertThat(second).isEqualTo(first);
+        // Images are scanned by the digest they are cached under; nginx has no registry digest, so it is scanned every time.
+        assertThat(scans).containsExactlyInAnyOrder(
+                "postgres@" + digest("postgres:18-alpine"), "nats@" + digest("nats:2.12.6"), "nginx:1-alpine-slim", "nginx:1-alpine-slim");
+        assertThat(cacheFile).exists();
+    }
+
+    @Test
+    void reportsAllFailedScans() {
+        GrypeScanner scanner = new GrypeScanner(args -> new DockerImagePuller.CommandResult(args.getFirst().equals("db") ? 0 : 1, "{}"),
+                GrypeScannerTests::fakeDocker, 4, null, message -> { });
+
+        assertThatThrownBy(() -> scanner.scanAll(List.of("a:1", "b:1")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("a:1: grype exited with 1")
+                .hasMessageContaining("b:1: grype exited with 1");
+    }
+
+    @Test
+    void failingCacheWriteDoesNotHideScanFailures() throws IOException {
+        Path notADirectory = Files.writeString(tempDir.resolve("file"), "");
+        List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        GrypeScanner scanner = new GrypeScanner(args -> new DockerImagePuller.CommandResult(args.getFirst().equals("db") ? 0 : 1, "{}"),
+                GrypeScannerTests::fakeDocker, 2, notADirectory.resolve("scans.json"), messages::add);
+
+        assertThatThrownBy(() -> scanner.scanAll(List.of("a:1")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("a:1: grype exited with 1");
+        assertThat(messages).anyMatch(message -> message.startsWith("Failed to persist grype scan cache"));
+    }
+}
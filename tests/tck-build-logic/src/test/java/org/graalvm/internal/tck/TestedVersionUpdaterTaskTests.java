@@ -0,0 +1,54 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.graalvm.internal.tck.model.MetadataVersionsIndexEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestedVersionUpdaterTaskTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void addsSeveralVersionsInOneUpdate() throws IOException {
+        Path indexFile = tempDir.resolve("metadata/org.example/lib/index.json");
+        Files.createDirectories(indexFile.getParent());
+        Files.writeString(indexFile, """
+                [
+                  {
+                    "metadata-version": "1.0",
+                    "tested-versions": ["1.0"]
+                  },
+                  {
+                    "latest": true,
+                    "metadata-version": "2.0",
+                    "tested-versions": ["2.0", "2.1-RC1"]
+                  }
+                ]
+                """, StandardCharsets.UTF_8);
+
+        TestedVersionUpdaterTask.addTestedVersions(indexFile, "2.1-RC1", List.of("2.2", "2.1", "2.1"));
+
+        List<MetadataVersionsIndexEntry> entries = new ObjectMapper().readValue(indexFile.toFile(), new TypeReference<>() {
+        });
+        assertThat(entries.get(0).testedVersions()).containsExactly("1.0");
+        assertThat(entries.get(1).testedVersions()).containsExactly("2.0", "2.1", "2.2");
+        assertThat(Files.readString(indexFile)).endsWith("\n");
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.consolidation;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.graalvm.internal.tck.model.MetadataVersionsIndexEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetadataVersionConsolidationTests {
+
+    private static final String METADATA = """
+            {
+              "reflection": [
+                { "type": "org.example.A", "allDeclaredFields": true },
+                { "type": "org.example.B" }
+              ]
+            }
+            """;
+
+    private static final String REORDERED_METADATA = """
+            {
+              "reflection": [
+                { "type": "org.example.B" },
+                { "allDeclaredFields": true, "type": "org.example.A" }
+              ]
+            }
+            """;
+
+    private static final String DIFFERENT_METADATA = """
+            {
+              "reflection": [
+                { "type": "org.example.C" }
+              ]
+            }
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void mergesEquivalentAdjacentVersionsIntoTheOlderOne() throws IOException {
+        Path metadataRoot = tempDir.resolve("metadata");
+        Path artifactDir = metadataRoot.resolve("org.example").resolve("lib");
+        writeMetadata(artifactDir, "1.0.0", METADATA);
+        writeMetadata(artifactDir, "1.1.0", REORDERED_METADATA);
+        writeMetadata(artifactDir, "2.0.0", DIFFERENT_METADATA);
+        write(artifactDir.resolve("index.json"), """
+                [
+                  { "latest": true, "metadata-version": "2.0.0", "tested-versions": ["2.0.0"], "allowed-packages": ["org.example"] },
+                  { "default-for": "1\\\\.1\\\\..*", "metadata-version": "1.1.0", "test-version": "1.0.0", "tested-versions": ["1.1.0", "1.1.1"], "allowed-packages": ["org.example"] },
+                  { "default-for": "1\\\\.0\\\\..*", "metadata-version": "1.0.0", "tested-versions": ["1.0.0"], "allowed-packages": ["org.example"] }
+                ]
+                """);
+
+        List<MetadataVersionConsolidation.Proposal> proposals = MetadataVersionConsolidation.apply(metadataRoot, "org.example", "lib");
+
+        assertThat(proposals).containsExactly(new MetadataVersionConsolidation.Proposal(
+                "org.example", "lib", "1.0.0", "1.1.0", List.of("1.1.0", "1.1.1"), null));
+        assertThat(artifactDir.resolve("1.1.0")).doesNotExist();
+        assertThat(artifactDir.resolve("1.0.0")).isDirectory();
+
+        List<MetadataVersionsIndexEntry> entries = new ObjectMapper().readValue(artifactDir.resolve("index.json").toFile(), new TypeReference<>() {
+        });
+        assertThat(entries).extracting(MetadataVersionsIndexEntry::metadataVersion).containsExactly("2.0.0", "1.0.0");
+        assertThat(entries.get(1).testedVersions()).containsExactly("1.0.0", "1.1.0", "1.1.1");
+        assertThat(entries.get(1).defaultFor()).isEqualTo("1\\.0\\..*|1\\.1\\..*");
+        assertThat(MetadataVersionConsolidation.orderingViolations(entries)).isEmpty();
+    }
+
+    @Test
+    void doesNotMergeVersionsWithDifferentTestProjects() throws IOException {
+        Path metadataRoot = tempDir.resolve("metadata");
+        Path artifactDir = metadataRoot.resolve("org.example").resolve("lib");
+        writeMetadata(artifactDir, "1.0.0", METADATA);
+        writeMetadata(artifactDir, "1.1.0", METADATA);
+        String index = """
+                [
+                  { "metadata-version": "1.1.0", "tested-versions": ["1.1.0"], "allowed-packages": ["org.example"] },
+                  { "metadata-version": "1.0.0", "tested-versions": ["1.0.0"], "allowed-packages": ["org.example"] }
+                ]
+                """;
+        write(artifactDir.resolve("index.json"), index);
+
+        List<MetadataVersionConsolidation.Proposal> proposals = MetadataVersionConsolidation.apply(metadataRoot, "org.example", "lib");
+
+        assertThat(proposals).singleElement().satisfies(proposal -> {
+            assertThat(proposal.mergeable()).isFalse();
+            assertThat(proposal.blocker()).contains("different test project");
+        });
+        assertThat(artifactDir.resolve("1.1.0")).isDirectory();
+        assertThat(Files.readString(artifactDir.resolve("index.json"))).isEqualTo(index);
+    }
+
+    @Test
+    void mergeDefaultForKeepsBothRanges() {
+        assertThat(MetadataVersionConsolidation.mergeDefaultFor(null, "1\\.1\\..*")).isEqualTo("1\\.1\\..*");
+        assertThat(MetadataVersionConsolidation.mergeDefaultFor("1\\.0\\..*", null)).isEqualTo("1\\.0\\..*");
+        assertThat(MetadataVersionConsolidation.mergeDefaultFor("1\\.0\\..*", "1\\.0\\..*")).isEqualTo("1\\.0\\..*");
+        assertThat(MetadataVersionConsolidation.mergeDefaultFor(null, null)).isNull();
+    }
+
+    private static void writeMetadata(Path artifactDir, String version, String content) throws IOException {
+        write(artifactDir.resolve(version).resolve("reachability-metadata.json"), content);
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.fingerprint;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BytecodeFingerprintTests {
+
+    @TempDir
+    Path tempDir;
+
+    static class Plain {
+        public int size() {
+            return 1;
+        }
+    }
+
+    static class Reflective {
+        Object load() throws ClassNotFoundException {
+            return Class.forName("org.example.Target");
+        }
+    }
+
+    @Test
+    void ignoresManifestAndMavenDescriptors() throws IOException {
+        Path first = jar("first.jar", Map.of(
+                "META-INF/MANIFEST.MF", "Implementation-Version: 1.0\n",
+                "META-INF/maven/org.example/lib/pom.properties", "version=1.0\n"
+        ), Plain.class);
+        Path second = jar("second.jar", Map.of(
+                "META-INF/MANIFEST.MF", "Implementation-Version: 1.1\n",
+                "META-INF/maven/org.example/lib/pom.properties", "version=1.1\n"
+        ), Plain.class);
+
+        assertThat(BytecodeFingerprint.of(List.of(first), null)).isEqualTo(BytecodeFingerprint.of(List.of(second), null));
+    }
+
+    @Test
+    void detectsApiReflectiveCallsAndServiceChanges() throws IOException {
+        String plain = BytecodeFingerprint.of(List.of(jar("plain.jar", Map.of(), Plain.class)), null);
+        String reflective = BytecodeFingerprint.of(List.of(jar("reflective.jar", Map.of(), Plain.class, Reflective.class)), null);
+        String services = BytecodeFingerprint.of(List.of(jar("services.jar", Map.of("META-INF/services/java.sql.Driver", "org.example.Driver\n"), Plain.class)), null);
+
+        assertThat(List.of(plain, reflective, services)).doesNotHaveDuplicates();
+        assertThat(BytecodeFingerprint.canonicalLines(List.of(jar("lines.jar", Map.of(), Reflective.class)), null))
+                .anyMatch(line -> line.startsWith("reflective-calls ") && line.contains("java/lang/Class.forName"));
+    }
+
+    @Test
+    void addsDynamicAccessCallSitesWithoutLineNumbers() throws IOException {
+        Path jar = jar("lib.jar", Map.of(), Reflective.class);
+        Path reports = tempDir.resolve("reports");
+        Files.createDirectories(reports);
+        String className = Reflective.class.getName();
+        Files.writeString(reports.resolve("reflection-calls.json"),
+                "{\"java.lang.Class#forName\": [\"" + className + ".load(BytecodeFingerprintTests.java:38)\", \"org.other.Caller.run(Caller.java:1)\"]}");
+
+        List<String> lines = BytecodeFingerprint.canonicalLines(List.of(jar), reports);
+
+        assertThat(lines).contains("dynamic-access reflection java.lang.Class#forName " + className + ".load");
+        assertThat(lines).noneMatch(line -> line.contains("org.other.Caller"));
+    }
+
+    @Test
+    void selectsFirstLastAndOneVersionPerFingerprint() {
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        fingerprints.put("6.0.1", "a");
+        fingerprints.put("6.0.0", "a");
+        fingerprints.put("6.1.0", "b");
+        fingerprints.put("6.1.1", "b");
+        fingerprints.put("6.2.0", null);
+        fingerprints.put("6.2.1", "a");
+
+        VersionFingerprints.MetadataVersionGroups groups = VersionFingerprints.group("6.0.0", fingerprints);
+        VersionFingerprints result = new VersionFingerprints(VersionFingerprints.FORMAT_VERSION, "org.example:lib", List.of(groups));
+
+        assertThat(groups.groups()).extracting(VersionFingerprints.Group::versions)
+                .containsExactly(List.of("6.0.0", "6.0.1", "6.2.1"), List.of("6.1.0", "6.1.1"), List.of("6.2.0"));
+        assertThat(groups.groups()).extracting(VersionFingerprints.Group::representative).containsExactly("6.2.1", "6.1.1", "6.2.0");
+        assertThat(result.selectedVersions()).containsExactly("6.0.0", "6.1.1", "6.2.0", "6.2.1");
+        assertThat(result.coveredBy("6.0.1")).contains("6.2.1");
+        assertThat(result.coveredBy("6.1.0")).contains("6.1.1");
+        assertThat(result.coveredBy("6.0.0")).isEmpty();
+        assertThat(result.fingerprintOf("6.1.0")).contains("b");
+        assertThat(result.fingerprintOf("6.2.0")).isEmpty();
+    }
+
+    @Test
+    void representativeOfFirstGroupIsFirstVersion() {
+        VersionFingerprints.MetadataVersionGroups groups = VersionFingerprints.group("1.0", Map.of("1.0", "a", "1.1", "a", "1.2", "b"));
+
+        assertThat(groups.groups()).extracting(VersionFingerprints.Group::representative).containsExactly("1.0", "1.2");
+        assertThat(groups.selectedVersions()).containsExactly("1.0", "1.2");
+    }
+
+    @Test
+    void roundTripsThroughJson() throws IOException {
+        VersionFingerprints fingerprints = new VersionFingerprints(VersionFingerprints.FORMAT_VERSION, "org.example:lib",
+                List.of(VersionFingerprints.group("1.0", Map.of("1.0", "a", "1.1", "a"))));
+        Path file = VersionFingerprints.file(tempDir, "org.example:lib");
+
+        fingerprints.write(file);
+
+        assertThat(file).isEqualTo(tempDir.resolve("org.example/lib/fingerprints.json"));
+        assertThat(VersionFingerprints.read(file)).contains(fingerprints);
+    }
+
+    private Path jar(String name, Map<String, String> resources, Class<?>... classes) throws IOException {
+        Path jar = tempDir.resolve(name);
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (Class<?> type : classes) {
+                String entry = type.getName().replace('.', '/') + ".class";
+                out.putNextEntry(new JarEntry(entry));
+                try (InputStream in = type.getClassLoader().getResourceAsStream(entry)) {
+                    out.write(in.readAllBytes());
+                }
+                out.closeEntry();
+            }
+            for (Map.Entry<String, String> resource : resources.entrySet()) {
+                out.putNextEntry(new JarEntry(resource.getKey()));
+                out.write(resource.getValue().getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
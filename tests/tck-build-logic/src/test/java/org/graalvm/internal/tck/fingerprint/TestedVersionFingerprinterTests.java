@@ -0,0 +1,33 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.fingerprint;
+
+import org.graalvm.internal.tck.graph.DependencyGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestedVersionFingerprinterTests {
+
+    @Test
+    void dependencyLinesIgnoreTheRootVersion() {
+        DependencyGraph first = DependencyGraph.of("com.zaxxer:HikariCP:6.0.0",
+                Map.of("com.zaxxer:HikariCP:6.0.0", List.of("org.slf4j:slf4j-api:2.0.13")), Map.of("org.slf4j:slf4j-api:2.0.13", 1));
+        DependencyGraph second = DependencyGraph.of("com.zaxxer:HikariCP:6.0.1",
+                Map.of("com.zaxxer:HikariCP:6.0.1", List.of("org.slf4j:slf4j-api:2.0.13")), Map.of("org.slf4j:slf4j-api:2.0.13", 1));
+        DependencyGraph upgraded = DependencyGraph.of("com.zaxxer:HikariCP:6.1.0",
+                Map.of("com.zaxxer:HikariCP:6.1.0", List.of("org.slf4j:slf4j-api:2.0.16")), Map.of("org.slf4j:slf4j-api:2.0.16", 1));
+
+        assertThat(TestedVersionFingerprinter.dependencyLines(first))
+                .containsExactly("dependency <root> -> [org.slf4j:slf4j-api:2.0.13]", "dependency org.slf4j:slf4j-api:2.0.13 -> []")
+                .isEqualTo(TestedVersionFingerprinter.dependencyLines(second));
+        assertThat(TestedVersionFingerprinter.dependencyLines(upgraded)).isNotEqualTo(TestedVersionFingerprinter.dependencyLines(first));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.footprint;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetadataFootprintAnalyzerTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void globToPatternDistinguishesSingleAndMultiSegmentWildcards() {
+        Pattern everything = MetadataFootprintAnalyzer.globToPattern("**");
+        Pattern services = MetadataFootprintAnalyzer.globToPattern("META-INF/services/*");
+        Pattern nested = MetadataFootprintAnalyzer.globToPattern("org/example/**/*.properties");
+
+        assertThat(everything.matcher("a/b/c.txt").matches()).isTrue();
+        assertThat(services.matcher("META-INF/services/java.sql.Driver").matches()).isTrue();
+        assertThat(services.matcher("META-INF/services/nested/file").matches()).isFalse();
+        assertThat(nested.matcher("org/example/messages.properties").matches()).isTrue();
+        assertThat(nested.matcher("org/example/a/b/messages.properties").matches()).isTrue();
+        assertThat(nested.matcher("org/example/messages.xml").matches()).isFalse();
+    }
+
+    @Test
+    void bundleToPatternMatchesOnlyTheBundleAndItsLocales() {
+        Pattern bundle = MetadataFootprintAnalyzer.bundleToPattern("jakarta.servlet.LocalStrings");
+
+        assertThat(bundle.matcher("jakarta/servlet/LocalStrings.properties").matches()).isTrue();
+        assertThat(bundle.matcher("jakarta/servlet/LocalStrings_fr.properties").matches()).isTrue();
+        assertThat(bundle.matcher("jakarta/servlet/LocalStrings_zh_Hant_TW.properties").matches()).isTrue();
+        assertThat(bundle.matcher("jakarta/servlet/LocalStringsExtra.properties").matches()).isFalse();
+        assertThat(bundle.matcher("jakarta/servlet/LocalStrings_Extra.properties").matches()).isFalse();
+        assertThat(bundle.matcher("jakarta/servlet/http/LocalStrings.properties").matches()).isFalse();
+    }
+
+    @Test
+    void parameterTypesDecodesPrimitivesArraysAndObjects() {
+        assertThat(MetadataFootprintAnalyzer.parameterTypes("(I[JLjava/lang/String;[[Ljava/util/Map;)V"))
+                .containsExactly("int", "long[]", "java.lang.String", "java.util.Map[][]");
+        assertThat(MetadataFootprintAnalyzer.parameterTypes("()V")).isEmpty();
+    }
+
+    @Test
+    void analyzeExpandsJdkTypesAndMatchesLibraryResources() throws IOException {
+        Path jar = tempDir.resolve("library.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new JarEntry("org/example/messages.properties"));
+            out.write("key=value".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        Path metadata = tempDir.resolve("reachability-metadata.json");
+        Files.writeString(metadata, """
+                {
+                  "reflection": [
+                    { "type": "java.util.ArrayList", "allPublicConstructors": true },
+                    { "type": "org.example.Missing", "allDeclaredMethods": true }
+                  ],
+                  "resources": [ { "glob": "org/example/*.properties" } ]
+                }
+                """, StandardCharsets.UTF_8);
+
+        MetadataFootprintModels.CoordinateFootprint footprint;
+        try (MetadataFootprintAnalyzer analyzer = new MetadataFootprintAnalyzer(List.of(jar))) {
+            footprint = analyzer.analyze("org.example:library:1.0.0", "1.0.0", metadata, MetadataFootprintModels.SortOrder.COST);
+        }
+
+        assertThat(footprint.entries()).extracting(MetadataFootprintModels.EntryFootprint::target)
+                .containsExactly("java.util.ArrayList", "org/example/*.properties", "org.example.Missing");
+        MetadataFootprintModels.EntryFootprint arrayList = footprint.entries().getFirst();
+        assertThat(arrayList.constructors()).isEqualTo(3);
+        assertThat(arrayList.estimatedCost()).isEqualTo(1 + 3 * MetadataFootprintAnalyzer.METHOD_COST);
+        assertThat(footprint.entries().get(1).resources()).isEqualTo(1);
+        assertThat(footprint.totals().unresolvedTypes()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.graph;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DepsDevCrawlerTests {
+
+    private static final Map<String, List<String>> DEPENDENCIES = Map.of(
+            "org.example:app:1.0", List.of("org.example:core:1.0", "org.example:util:1.0"),
+            "org.example:tool:1.0", List.of("org.example:core:1.0"),
+            "org.example:core:1.0", List.of("org.example:util:1.0"),
+            "org.example:util:1.0", List.of()
+    );
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/v3/systems/maven/versions/", exchange -> {
+            String path = URLDecoder.decode(exchange.getRequestURI().getRawPath(), StandardCharsets.UTF_8);
+            String gav = path.substring("/v3/systems/maven/versions/".length(), path.length() - ":dependencies".length());
+            hits.computeIfAbsent(gav, key -> new AtomicInteger()).incrementAndGet();
+            if (failuresLeft.getAndDecrement() > 0) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            List<String> dependencies = DEPENDENCIES.get(gav);
+            if (dependencies == null) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            StringBuilder body = new StringBuilder("{\"nodes\":[{\"versionKey\":{\"system\":\"MAVEN\",\"name\":\"root\",\"version\":\"0\"}}");
+            StringBuilder edges = new StringBuilder();
+            for (int i = 0; i < dependencies.size(); i++) {
+                String[] parts = dependencies.get(i).split(":");
+                body.append(",{\"versionKey\":{\"system\":\"MAVEN\",\"name\":\"").append(parts[0]).append(':').append(parts[1])
+                        .append("\",\"version\":\"").append(parts[2]).append("\"}}");
+                edges.append(i == 0 ? "" : ",").append("{\"fromNode\":0,\"toNode\":").append(i + 1).append('}');
+            }
+            body.append("],\"edges\":[").append(edges).append("]}");
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void crawlsSharedSubgraphsOnce() {
+        DepsDevCrawler crawler = crawler(2, null);
+
+        List<DependencyGraph> graphs = crawler.crawlAll(List.of("org.example:app:1.0", "org.example:tool:1.0"));
+
+        assertThat(graphs.get(0).toJson()).isEqualTo("{\"root\":\"org.example:app:1.0\",\"nodes\":["
+                + "{\"id\":\"org.example:app:1.0\",\"dependencies\":[\"org.example:core:1.0\",\"org.example:util:1.0\"]},"
+                + "{\"id\":\"org.example:core:1.0\",\"dependencies\":[\"org.example:util:1.0\"]},"
+                + "{\"id\":\"org.example:util:1.0\",\"dependencies\":[]}]}");
+        assertThat(graphs.get(1).nodes()).extracting(DependencyGraph.Node::id)
+                .containsExactly("org.example:tool:1.0", "org.example:core:1.0", "org.example:util:1.0");
+        assertThat(hits.get("org.example:core:1.0")).hasValue(1);
+    }
+
+    @Test
+    void repeatedRunsAreServedFromTheDiskCacheUntilTheEntriesExpire() {
+        Path cacheDir = tempDir.resolve("cache");
+        DepsDevCrawler first = crawler(4, new DirectDependencyCache(cacheDir, Duration.ofHours(1)));
+        first.crawlAll(List.of("org.example:app:1.0"));
+        assertThat(first.requestCount()).isPositive();
+
+        DepsDevCrawler second = crawler(4, new DirectDependencyCache(cacheDir, Duration.ofHours(1)));
+        List<DependencyGraph> cached = second.crawlAll(List.of("org.example:app:1.0"));
+        assertThat(second.requestCount()).isZero();
+        assertThat(second.cacheHitCount()).isEqualTo(3);
+        assertThat(cached.get(0).nodes()).hasSize(3);
+
+        Clock later = Clock.fixed(Instant.now().plus(Duration.ofHours(2)), ZoneOffset.UTC);
+        DepsDevCrawler expired = crawler(4, new DirectDependencyCache(cacheDir, Duration.ofHours(1), later));
+        expired.crawlAll(List.of("org.example:app:1.0"));
+        assertThat(expired.cacheHitCount()).isZero();
+    }
+
+    @Test
+    void retriesServerErrors() {
+        failuresLeft.set(2);
+        DepsDevCrawler crawler = crawler(1, null);
+
+        List<String> dependencies = crawler.directDependencies("org.example:core:1.0").join();
+
+        assertThat(dependencies).containsExactly("org.example:util:1.0");
+        assertThat(hits.get("org.example:core:1.0")).hasValue(3);
+    }
+
+    private DepsDevCrawler crawler(int concurrency, DirectDependencyCache cache) {
+        URI baseUrl = URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+        return new DepsDevCrawler(HttpClient.newHttpClient(), baseUrl, concurrency, cache, 1L);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.graph;
+
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradleDependencyGraphResolverTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void buildsGraphFromLocalRepositoryResolution() throws IOException {
+        Path repository = tempDir.resolve("repo");
+        pom(repository, "app", "1.0", """
+                <dependency><groupId>org.example</groupId><artifactId>core</artifactId><version>1.0</version></dependency>
+                <dependency><groupId>org.example</groupId><artifactId>util</artifactId><version>1.0</version><scope>runtime</scope></dependency>
+                <dependency><groupId>org.example</groupId><artifactId>testing</artifactId><version>1.0</version><scope>test</scope></dependency>
+                <dependency><groupId>org.example</groupId><artifactId>extra</artifactId><version>1.0</version><optional>true</optional></dependency>
+                """);
+        pom(repository, "core", "1.0", """
+                <dependency><groupId>org.example</groupId><artifactId>util</artifactId><version>2.0</version></dependency>
+                """);
+        pom(repository, "util", "1.0", "");
+        pom(repository, "util", "2.0", "");
+
+        Project project = ProjectBuilder.builder().withProjectDir(tempDir.resolve("project").toFile()).build();
+        project.getRepositories().maven(maven -> maven.setUrl(repository.toUri()));
+
+        GradleDependencyGraphResolver.Result result = new GradleDependencyGraphResolver(project).resolve("org.example:app:1.0");
+
+        assertThat(result.unresolved()).isEmpty();
+        assertThat(result.graph().toJson()).isEqualTo("{\"root\":\"org.example:app:1.0\",\"nodes\":["
+                + "{\"id\":\"org.example:app:1.0\",\"dependencies\":[\"org.example:core:1.0\",\"org.example:util:2.0\"]},"
+                + "{\"id\":\"org.example:core:1.0\",\"dependencies\":[\"org.example:util:2.0\"]},"
+                + "{\"id\":\"org.example:util:2.0\",\"dependencies\":[]}]}");
+    }
+
+    private static void pom(Path repository, String artifact, String version, String dependencies) throws IOException {
+        Path pom = repository.resolve("org/example/" + artifact + "/" + version + "/" + artifact + "-" + version + ".pom");
+        Files.createDirectories(pom.getParent());
+        Files.writeString(pom, """
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                  <modelVersion>4.0.0</modelVersion>
+                  <groupId>org.example</groupId>
+                  <artifactId>%s</artifactId>
+                  <version>%s</version>
+                  <dependencies>
+                %s  </dependencies>
+                </project>
+                """.formatted(artifact, version, dependencies), StandardCharsets.UTF_8);
+    }
+}
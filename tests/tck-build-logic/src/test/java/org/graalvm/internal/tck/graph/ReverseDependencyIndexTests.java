@@ -0,0 +1,49 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.graph;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReverseDependencyIndexTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void ranksTransitivelyAffectedCoordinatesByDistance() throws IOException {
+        DependencyGraph grpc = DependencyGraph.of("io.grpc:grpc-netty:1.60.0",
+                Map.of("io.grpc:grpc-netty:1.60.0", List.of("io.netty:netty-codec-http2:4.1.100.Final"),
+                        "io.netty:netty-codec-http2:4.1.100.Final", List.of("io.netty:netty-common:4.1.100.Final")),
+                Map.of("io.netty:netty-codec-http2:4.1.100.Final", 1, "io.netty:netty-common:4.1.100.Final", 2));
+        DependencyGraph handler = DependencyGraph.of("io.netty:netty-handler:4.1.80.Final",
+                Map.of("io.netty:netty-handler:4.1.80.Final", List.of("io.netty:netty-common:4.1.80.Final")),
+                Map.of("io.netty:netty-common:4.1.80.Final", 1));
+        DependencyGraph common = DependencyGraph.of("io.netty:netty-common:4.1.80.Final", Map.of(), Map.of());
+
+        ReverseDependencyIndex index = ReverseDependencyIndex.build(List.of(grpc, handler, common));
+        Path file = tempDir.resolve("reverse-dependency-index.json");
+        index.write(file);
+        ReverseDependencyIndex reread = ReverseDependencyIndex.read(file);
+
+        assertThat(reread.dependentsOf("io.netty:netty-common")).containsExactly(
+                new ReverseDependencyIndex.Dependent("io.netty:netty-handler:4.1.80.Final", 1),
+                new ReverseDependencyIndex.Dependent("io.grpc:grpc-netty:1.60.0", 2));
+        assertThat(reread.affectedBy(List.of("io.netty:netty-common:4.1.80.Final", "io.netty:netty-handler:4.1.80.Final"), 10))
+                .containsExactly(new ReverseDependencyIndex.Dependent("io.grpc:grpc-netty:1.60.0", 2));
+        assertThat(reread.affectedBy(List.of("io.netty:netty-common:4.1.80.Final"), 1))
+                .containsExactly(new ReverseDependencyIndex.Dependent("io.netty:netty-handler:4.1.80.Final", 1));
+        assertThat(reread.affectedBy(List.of("org.unknown:lib:1.0"), 10)).isEmpty();
+    }
+}
@@ -17,6 +17,7 @@ import java.nio.file.Path;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class TckExtensionTests {
 
@@ -102,6 +103,31 @@ class TckExtensionTests {
                 .isEqualTo(tempDir.resolve("tests/src/com.example/demo/0.9.0").toRealPath());
     }
 
+    @Test
+    void getMetadataDirResolvesUntestedVersionToClosestLowerMetadataVersion() throws IOException {
+        TckExtension extension = createExtension(
+                """
+                [
+                  {
+                    "latest": true,
+                    "allowed-packages": [
+                      "com.example"
+                    ],
+                    "metadata-version": "1.0.0",
+                    "tested-versions": [
+                      "1.0.0"
+                    ]
+                  }
+                ]
+                """
+        );
+
+        assertThat(extension.getMetadataDir("com.example:demo:1.2.0"))
+                .isEqualTo(tempDir.resolve("metadata/com.example/demo/1.0.0").toRealPath());
+        assertThatThrownBy(() -> extension.getMetadataDir("com.example:demo:0.5.0"))
+                .hasMessageContaining("Missing metadata for com.example:demo:0.5.0");
+    }
+
     private TckExtension createExtension(String metadataIndexJson) throws IOException {
         Files.createDirectories(tempDir.resolve("metadata/com.example/demo/1.0.0"));
         Files.writeString(tempDir.resolve("metadata/com.example/demo/index.json"), metadataIndexJson);
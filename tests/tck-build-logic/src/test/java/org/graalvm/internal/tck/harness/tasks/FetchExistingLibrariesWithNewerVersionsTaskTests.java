@@ -0,0 +1,83 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.harness.tasks;
+
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FetchExistingLibrariesWithNewerVersionsTaskTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void listsUntestedNewerVersionsFromLocalRepository() throws IOException {
+        Path metadataRoot = tempDir.resolve("metadata");
+        write(metadataRoot.resolve("com.acme/widget/index.json"), """
+                [
+                  {
+                    "latest": true,
+                    "metadata-version": "1.0",
+                    "tested-versions": ["1.0", "1.1"],
+                    "skipped-versions": [{"version": "1.3", "reason": "broken release"}]
+                  }
+                ]
+                """);
+        write(metadataRoot.resolve("com.acme/gadget/index.json"), """
+                [{"latest": true, "metadata-version": "2.0", "tested-versions": ["2.0"]}]
+                """);
+        Path repository = tempDir.resolve("repo");
+        write(repository.resolve("com/acme/widget/maven-metadata.xml"), metadata("0.9", "1.0", "1.1", "1.2", "1.3", "1.4-RC1", "1.4", "1.5-beta"));
+        write(repository.resolve("com/acme/gadget/maven-metadata.xml"), metadata("2.0"));
+
+        Project project = ProjectBuilder.builder().withProjectDir(tempDir.resolve("project").toFile()).build();
+        FetchExistingLibrariesWithNewerVersionsTask task = project.getTasks().create(
+                "fetchExistingLibrariesWithNewerVersions",
+                FetchExistingLibrariesWithNewerVersionsTask.class
+        );
+        task.getAllLibraryCoordinates().set(List.of("com.acme:widget:1.0", "com.acme:widget:1.1", "com.acme:gadget:2.0", "samples:docker:image-pull"));
+        task.getMetadataRoot().set(metadataRoot.toFile());
+        task.setRepositoriesOption(repository.toUri().toString());
+
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream outputBuffer = new ByteArrayOutputStream();
+        try (PrintStream capturedOut = new PrintStream(outputBuffer, true, StandardCharsets.UTF_8)) {
+            System.setOut(capturedOut);
+            task.action();
+        } finally {
+            System.setOut(originalOut);
+        }
+
+        assertThat(outputBuffer.toString(StandardCharsets.UTF_8).trim())
+                .isEqualTo("[{\"name\":\"com.acme:widget\",\"versions\":[\"1.2\",\"1.4\",\"1.5-beta\"]}]");
+    }
+
+    private static String metadata(String... versions) {
+        StringBuilder xml = new StringBuilder("<metadata><versioning><versions>");
+        for (String version : versions) {
+            xml.append("<version>").append(version).append("</version>");
+        }
+        return xml.append("</versions></versioning></metadata>").toString();
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+}
@@ -563,9 +563,9 @@ class ValidateLibraryStatsTaskTests {
         Files.createDirectories(tempDir.resolve("stats/schemas"));
         Files.writeString(tempDir.resolve("LICENSE"), "test", StandardCharsets.UTF_8);
         Files.writeString(
-                tempDir.resolve("stats/schemas/library-stats-schema-v1.0.2.json"),
+                tempDir.resolve("stats/schemas/library-stats-schema-v1.1.0.json"),
                 Files.readString(
-                        locateRepoFile("stats/schemas/library-stats-schema-v1.0.2.json"),
+                        locateRepoFile("stats/schemas/library-stats-schema-v1.1.0.json"),
                         StandardCharsets.UTF_8
                 ),
                 StandardCharsets.UTF_8
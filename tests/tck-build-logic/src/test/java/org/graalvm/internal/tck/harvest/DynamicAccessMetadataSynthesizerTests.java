@@ -0,0 +1,115 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.harvest;
+
+import org.graalvm.internal.tck.stats.LibraryStatsModels;
+import org.graalvm.internal.tck.utils.ClassFileSummary;
+import org.graalvm.internal.tck.utils.ReachabilityMetadataFiles;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DynamicAccessMetadataSynthesizerTests {
+
+    @SuppressWarnings("unused")
+    static class Library {
+        Class<?> load() throws ClassNotFoundException {
+            return Class.forName("org.example.Plugin");
+        }
+
+        URL config() {
+            return Library.class.getResource("config.properties");
+        }
+
+        Class<?> computed(String name) throws ClassNotFoundException {
+            return Class.forName("org.example." + name);
+        }
+    }
+
+    @Test
+    void resolvesCoveredCallSitesWithConstantArguments(@TempDir Path tempDir) throws IOException {
+        String className = Library.class.getName();
+        byte[] classFile;
+        try (InputStream in = Library.class.getResourceAsStream("/" + className.replace('.', '/') + ".class")) {
+            classFile = in.readAllBytes();
+        }
+        Path jar = tempDir.resolve("library.jar");
+        try (OutputStream out = Files.newOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry(className.replace('.', '/') + ".class"));
+            zip.write(classFile);
+            zip.closeEntry();
+        }
+        int loadLine = constantCallLine(classFile, "load");
+        int configLine = constantCallLine(classFile, "config");
+        int computedLine = computedCallLine();
+
+        LibraryStatsModels.DynamicAccessCoverageReport report = new LibraryStatsModels.DynamicAccessCoverageReport(
+                "org.example:library:1.0",
+                true,
+                new LibraryStatsModels.DynamicAccessCoverageTotals(4, 3),
+                List.of(new LibraryStatsModels.DynamicAccessClassCoverage(className, "DynamicAccessMetadataSynthesizerTests.java", 4, 3, List.of(
+                        callSite("reflection", "java.lang.Class#forName(java.lang.String)", className, "load", loadLine, true),
+                        callSite("resources", "java.lang.Class#getResource(java.lang.String)", className, "config", configLine, true),
+                        callSite("reflection", "java.lang.Class#forName(java.lang.String)", className, "computed", computedLine, true),
+                        callSite("reflection", "java.lang.Class#forName(java.lang.String)", className, "load", computedLine + 100, false)
+                )))
+        );
+
+        DynamicAccessMetadataSynthesizer.Result result = DynamicAccessMetadataSynthesizer.synthesize(report, List.of(jar));
+
+        assertThat(result.coveredCallSites()).isEqualTo(3);
+        assertThat(result.entries().stream().map(ReachabilityMetadataFiles.Entry::section).toList()).containsExactly("reflection", "resources");
+        assertThat(result.entries().get(0).node().toString())
+                .isEqualTo("{\"condition\":{\"typeReached\":\"" + className + "\"},\"type\":\"org.example.Plugin\"}");
+        assertThat(result.entries().get(1).node().get("glob").asText()).isEqualTo("org/graalvm/internal/tck/harvest/config.properties");
+        assertThat(result.unresolved().size()).isEqualTo(1);
+        assertThat(result.unresolved().get(0).frame()).contains(".computed(");
+    }
+
+    private static LibraryStatsModels.DynamicAccessCallSiteCoverage callSite(String type, String api, String className, String method, int line, boolean covered) {
+        String frame = className + "." + method + "(DynamicAccessMetadataSynthesizerTests.java:" + line + ")";
+        return new LibraryStatsModels.DynamicAccessCallSiteCoverage(type, api, frame, line, covered);
+    }
+
+    /**
+     * Source line of the call with a constant argument in {@code method} of the compiled {@code Library}.
+     */
+    private static int constantCallLine(byte[] classFile, String method) throws IOException {
+        return ClassFileSummary.constantCalls(classFile).stream()
+                .filter(call -> call.method().equals(method))
+                .findFirst()
+                .orElseThrow()
+                .line();
+    }
+
+    /**
+     * Source line of the {@code Class.forName} call in {@code Library.computed}, which has no constant argument.
+     */
+    private static int computedCallLine() {
+        try {
+            new Library().computed("Missing");
+        } catch (ClassNotFoundException e) {
+            for (StackTraceElement frame : e.getStackTrace()) {
+                if (frame.getClassName().equals(Library.class.getName()) && frame.getMethodName().equals("computed")) {
+                    return frame.getLineNumber();
+                }
+            }
+        }
+        throw new AssertionError("Library.computed did not fail with its call site on the stack");
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.harvest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.graalvm.internal.tck.utils.ReachabilityMetadataFiles;
+import org.graalvm.internal.tck.utils.ReachabilityMetadataMerger;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MissingRegistrationParserTests {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String OUTPUT = """
+            > Task :nativeTest
+            JUnit Jupiter:HibernateTest:generator()
+                => org.graalvm.nativeimage.MissingReflectionRegistrationError: Cannot reflectively invoke constructor 'public org.hibernate.id.enhanced.SequenceStyleGenerator()'. To allow this operation, add the following to the 'reflection' section of 'reachability-metadata.json' and rebuild the native image:
+
+                {
+                  "type": "org.hibernate.id.enhanced.SequenceStyleGenerator",
+                  "methods": [{"name": "<init>", "parameterTypes": []}]
+                }
+
+                The 'reachability-metadata.json' file should be located in 'META-INF/native-image/<group-id>/<artifact-id>/' of your project.
+                   java.base@25/java.lang.reflect.Constructor.newInstance(Constructor.java:483)
+                   at org.graalvm.nativeimage.builder/com.oracle.svm.core.reflect.MissingReflectionRegistrationUtils.report(MissingReflectionRegistrationUtils.java:97)
+                   at java.base@25/java.lang.Class.getConstructor(Class.java:2298)
+                   at org.hibernate.boot.model.internal.GeneratorBinder.instantiateGeneratorViaDefaultConstructor(GeneratorBinder.java:541)
+                   at org.hibernate.resource.beans.internal.Helper$2.produceBeanInstance(Helper.java:80)
+                   ... 12 more
+            Missing resource registration: org.graalvm.nativeimage.MissingResourceRegistrationError: Resource at path org/hibernate/default.properties has not been registered as reachable. To allow this operation, add the following to the 'resources' section of 'reachability-metadata.json' and rebuild the native image:
+            {
+              "glob": "org/hibernate/default.properties"
+            }
+                at java.base/java.lang.ClassLoader.getResource(ClassLoader.java:1)
+                at org.hibernate.cfg.Environment.<clinit>(Environment.java:210)
+            org.graalvm.nativeimage.MissingReflectionRegistrationError: Cannot reflectively access the proxy class
+                at org.hibernate.Foo.bar(Foo.java:1)
+            org.graalvm.nativeimage.MissingReflectionRegistrationError: Cannot reflectively invoke constructor 'public org.hibernate.id.enhanced.SequenceStyleGenerator()'. To allow this operation, add the following to the 'reflection' section of 'reachability-metadata.json' and rebuild the native image:
+            {
+              "type": "org.hibernate.id.enhanced.SequenceStyleGenerator",
+              "methods": [{"name": "<init>", "parameterTypes": []}]
+            }
+                at org.hibernate.boot.model.internal.GeneratorBinder.instantiateGeneratorViaDefaultConstructor(GeneratorBinder.java:541)
+            HibernateTest > generator() FAILED
+            """;
+
+    @Test
+    void parsesSuggestedEntriesAndStackTraces() {
+        MissingRegistrationParser.Harvest harvest = MissingRegistrationParser.parse(OUTPUT);
+
+        assertThat(harvest.registrations()).hasSize(3);
+        assertThat(harvest.unparsedErrors()).isEqualTo(1);
+        MissingRegistrationParser.MissingRegistration first = harvest.registrations().getFirst();
+        assertThat(first.section()).isEqualTo("reflection");
+        assertThat(first.entry().get("type").asText()).isEqualTo("org.hibernate.id.enhanced.SequenceStyleGenerator");
+        assertThat(first.frames()).containsExactly(
+                "com.oracle.svm.core.reflect.MissingReflectionRegistrationUtils",
+                "java.lang.Class",
+                "org.hibernate.boot.model.internal.GeneratorBinder",
+                "org.hibernate.resource.beans.internal.Helper$2");
+        assertThat(harvest.registrations().get(1).section()).isEqualTo("resources");
+        assertThat(harvest.registrations().get(1).frames()).containsExactly("java.lang.ClassLoader", "org.hibernate.cfg.Environment");
+    }
+
+    @Test
+    void conditionsEntriesOnFirstFrameInAllowedPackages() {
+        List<ReachabilityMetadataFiles.Entry> entries = MissingRegistrationParser.toEntries(
+                MissingRegistrationParser.parse(OUTPUT).registrations(), List.of("org.hibernate"));
+
+        assertThat(entries).hasSize(2);
+        assertThat(entries.getFirst().node().toString()).isEqualTo("{\"condition\":{\"typeReached\":\"org.hibernate.boot.model.internal.GeneratorBinder\"},"
+                + "\"type\":\"org.hibernate.id.enhanced.SequenceStyleGenerator\",\"methods\":[{\"name\":\"<init>\",\"parameterTypes\":[]}]}");
+        assertThat(entries.get(1).node().get("condition").get("typeReached").asText()).isEqualTo("org.hibernate.cfg.Environment");
+        assertThat(MissingRegistrationParser.typeReached(List.of("java.lang.Class", "org.hibernateextra.Foo"), List.of("org.hibernate"))).isNull();
+    }
+
+    @Test
+    void mergesIntoExistingEntriesInOneStep() throws IOException {
+        String existing = """
+                {
+                  "reflection": [
+                    {
+                      "condition": {"typeReached": "org.hibernate.boot.model.internal.GeneratorBinder"},
+                      "type": "org.hibernate.id.enhanced.SequenceStyleGenerator",
+                      "fields": [{"name": "INSTANCE"}]
+                    }
+                  ]
+                }
+                """;
+        List<ReachabilityMetadataFiles.Entry> entries = MissingRegistrationParser.toEntries(
+                MissingRegistrationParser.parse(OUTPUT).registrations(), List.of("org.hibernate"));
+
+        ReachabilityMetadataMerger.Result result = ReachabilityMetadataMerger.merge(MAPPER.readTree(existing), entries);
+
+        assertThat(result.added()).isEqualTo(1);
+        assertThat(result.extended()).isEqualTo(1);
+        assertThat(result.metadata().get("reflection").size()).isEqualTo(1);
+        assertThat(result.metadata().get("reflection").get(0).get("fields").size()).isEqualTo(1);
+        assertThat(result.metadata().get("reflection").get(0).get("methods").size()).isEqualTo(1);
+        assertThat(result.metadata().get("resources").get(0).get("glob").asText()).isEqualTo("org/hibernate/default.properties");
+        assertThat(ReachabilityMetadataMerger.merge(result.metadata(), entries).added()).isEqualTo(0);
+    }
+}
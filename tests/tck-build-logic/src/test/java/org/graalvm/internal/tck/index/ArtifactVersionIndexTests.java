@@ -0,0 +1,89 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArtifactVersionIndexTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void resolvesTestedDefaultForAndClosestLowerVersions() throws IOException {
+        Path indexFile = write(tempDir.resolve("metadata/org.example/lib/index.json"), """
+                [
+                  { "latest": true, "metadata-version": "2.10.0", "tested-versions": ["2.10.0", "2.10.3"], "allowed-packages": ["org.example"] },
+                  { "metadata-version": "2.2.0", "test-version": "2.0.0", "tested-versions": ["2.2.0", "2.9.1"], "allowed-packages": ["org.example"] },
+                  { "default-for": "1\\\\.[0-4]\\\\..*", "metadata-version": "1.5.0", "tested-versions": ["1.5.0"], "allowed-packages": ["org.example"] }
+                ]
+                """);
+
+        ArtifactVersionIndex index = ArtifactVersionIndex.load(tempDir.resolve("metadata"), "org.example", "lib");
+
+        assertThat(index.testedVersions()).containsExactly("1.5.0", "2.2.0", "2.9.1", "2.10.0", "2.10.3");
+        assertThat(index.metadataVersions()).containsExactly("1.5.0", "2.2.0", "2.10.0");
+        assertThat(index.latestTestedVersion()).hasValue("2.10.3");
+        assertThat(index.latestEntry()).hasValueSatisfying(entry -> assertThat(entry.metadataVersion()).isEqualTo("2.10.0"));
+
+        assertThat(index.resolve("2.9.1")).hasValueSatisfying(resolution -> {
+            assertThat(resolution.kind()).isEqualTo(ArtifactVersionIndex.MatchKind.TESTED);
+            assertThat(resolution.metadataVersion()).isEqualTo("2.2.0");
+            assertThat(resolution.testVersion()).isEqualTo("2.0.0");
+        });
+        assertThat(index.resolve("1.3.7")).hasValueSatisfying(resolution -> {
+            assertThat(resolution.kind()).isEqualTo(ArtifactVersionIndex.MatchKind.DEFAULT_FOR);
+            assertThat(resolution.metadataVersion()).isEqualTo("1.5.0");
+        });
+        assertThat(index.resolve("2.9.5")).hasValueSatisfying(resolution -> {
+            assertThat(resolution.kind()).isEqualTo(ArtifactVersionIndex.MatchKind.CLOSEST_LOWER);
+            assertThat(resolution.metadataVersion()).isEqualTo("2.2.0");
+        });
+        assertThat(index.resolve("3.0.0")).hasValueSatisfying(resolution -> assertThat(resolution.metadataVersion()).isEqualTo("2.10.0"));
+        assertThat(index.resolve("0.9.0")).isEmpty();
+
+        assertThat(ArtifactVersionIndex.load(indexFile)).isSameAs(index);
+    }
+
+    @Test
+    void reloadsChangedIndexFilesAndTreatsMissingFilesAsEmpty() throws IOException {
+        Path indexFile = write(tempDir.resolve("index.json"), """
+                [ { "metadata-version": "1.0.0", "tested-versions": ["1.0.0"] } ]
+                """);
+        assertThat(ArtifactVersionIndex.load(indexFile).testedVersions()).containsExactly("1.0.0");
+
+        write(indexFile, """
+                [ { "metadata-version": "1.0.0", "tested-versions": ["1.0.0", "1.0.1"] } ]
+                """);
+        assertThat(ArtifactVersionIndex.load(indexFile).testedVersions()).containsExactly("1.0.0", "1.0.1");
+
+        assertThat(ArtifactVersionIndex.load(tempDir.resolve("missing/index.json")).isEmpty()).isTrue();
+    }
+
+    @Test
+    void literalDefaultForPatternsNeedNoRegex() {
+        assertThat(ArtifactVersionIndex.literalPattern("2\\.7\\..*")).isEqualTo(new ArtifactVersionIndex.LiteralPattern("2.7.", true));
+        assertThat(ArtifactVersionIndex.literalPattern("6\\..*")).isEqualTo(new ArtifactVersionIndex.LiteralPattern("6.", true));
+        assertThat(ArtifactVersionIndex.literalPattern("4\\.2\\.0")).isEqualTo(new ArtifactVersionIndex.LiteralPattern("4.2.0", false));
+        assertThat(ArtifactVersionIndex.literalPattern("1\\.[0-3]\\..*")).isNull();
+        assertThat(ArtifactVersionIndex.literalPattern("5\\.1\\d\\..*")).isNull();
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
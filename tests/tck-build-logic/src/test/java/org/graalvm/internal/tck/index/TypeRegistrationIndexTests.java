@@ -0,0 +1,97 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TypeRegistrationIndexTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void refreshIndexesTypesWithFlagsConditionsAndProxies() throws IOException {
+        Path metadataRoot = tempDir.resolve("metadata");
+        writeMetadata(metadataRoot, "org.example", "lib", "1.0.0", """
+                {
+                  "reflection": [
+                    {
+                      "condition": { "typeReached": "org.example.Entry" },
+                      "type": "java.util.HashMap",
+                      "allDeclaredMethods": true,
+                      "allDeclaredFields": true,
+                      "methods": [ { "name": "<init>", "parameterTypes": [] } ]
+                    },
+                    {
+                      "type": { "proxy": [ "java.sql.Connection" ] }
+                    }
+                  ],
+                  "resources": [ { "glob": "**" } ]
+                }
+                """);
+
+        TypeRegistrationIndex index = TypeRegistrationIndex.refresh(metadataRoot, tempDir.resolve("index.json"));
+
+        assertThat(index.registrationsOf("java.util.HashMap")).containsExactly(new TypeRegistrationIndex.Registration(
+                "org.example:lib:1.0.0",
+                "reflection",
+                "org.example.Entry",
+                List.of("allDeclaredFields", "allDeclaredMethods"),
+                1,
+                0
+        ));
+        assertThat(index.registrationsOf("proxy(java.sql.Connection)")).hasSize(1);
+        assertThat(index.typeCount()).isEqualTo(2);
+    }
+
+    @Test
+    void refreshOnlyReparsesChangedFilesAndDropsRemovedOnes() throws IOException {
+        Path metadataRoot = tempDir.resolve("metadata");
+        Path indexFile = tempDir.resolve("index.json");
+        writeMetadata(metadataRoot, "org.example", "a", "1.0.0", "{ \"reflection\": [ { \"type\": \"com.A\" } ] }");
+        Path second = writeMetadata(metadataRoot, "org.example", "b", "1.0.0", "{ \"reflection\": [ { \"type\": \"com.B\" } ] }");
+        TypeRegistrationIndex.refresh(metadataRoot, indexFile);
+
+        writeMetadata(metadataRoot, "org.example", "a", "1.0.0", "{ \"reflection\": [ { \"type\": \"com.Changed\" } ] }");
+        Files.delete(second);
+        TypeRegistrationIndex refreshed = TypeRegistrationIndex.refresh(metadataRoot, indexFile);
+
+        assertThat(refreshed.summary()).isEqualTo(new TypeRegistrationIndex.RefreshSummary(1, 1, 1));
+        assertThat(refreshed.registrationsOf("com.A")).isEmpty();
+        assertThat(refreshed.registrationsOf("com.B")).isEmpty();
+        assertThat(TypeRegistrationIndex.load(indexFile).registrationsOf("com.Changed")).hasSize(1);
+    }
+
+    @Test
+    void overlapReturnsTypesRegisteredByMoreThanOneCoordinate() throws IOException {
+        Path metadataRoot = tempDir.resolve("metadata");
+        writeMetadata(metadataRoot, "org.example", "a", "1.0.0", "{ \"reflection\": [ { \"type\": \"com.Shared\" }, { \"type\": \"com.A\" } ] }");
+        writeMetadata(metadataRoot, "org.example", "b", "2.0.0", "{ \"reflection\": [ { \"type\": \"com.Shared\", \"allPublicMethods\": true } ] }");
+        writeMetadata(metadataRoot, "org.example", "c", "3.0.0", "{ \"reflection\": [ { \"type\": \"com.A\" } ] }");
+
+        TypeRegistrationIndex index = TypeRegistrationIndex.refresh(metadataRoot, tempDir.resolve("index.json"));
+
+        assertThat(index.overlap(List.of("org.example:a:1.0.0", "org.example:b:2.0.0"))).containsOnlyKeys("com.Shared");
+        assertThat(index.overlap(List.of("org.example:a:1.0.0", "org.example:c:3.0.0"))).containsOnlyKeys("com.A");
+    }
+
+    private static Path writeMetadata(Path metadataRoot, String group, String artifact, String version, String json) throws IOException {
+        Path file = metadataRoot.resolve(group).resolve(artifact).resolve(version).resolve("reachability-metadata.json");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, json, StandardCharsets.UTF_8);
+        return file;
+    }
+}
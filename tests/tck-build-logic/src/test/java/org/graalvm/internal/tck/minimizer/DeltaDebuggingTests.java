@@ -0,0 +1,106 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.minimizer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeltaDebuggingTests {
+
+    @TempDir
+    Path tempDir;
+
+    private static final List<Integer> INPUT = IntStream.rangeClosed(1, 16).boxed().toList();
+
+    @Test
+    void minimizeFindsTheRequiredElements() {
+        DeltaDebugging<Integer> deltaDebugging = new DeltaDebugging<>(
+                candidate -> candidate.contains(3) && candidate.contains(11),
+                DeltaDebuggingTests::hash,
+                MinimizationCache.inMemory(),
+                3,
+                message -> { }
+        );
+
+        DeltaDebugging.Result<Integer> result = deltaDebugging.minimize(INPUT);
+
+        assertThat(result.minimized()).containsExactly(3, 11);
+        assertThat(result.evaluations()).isPositive();
+    }
+
+    @Test
+    void minimizeReturnsEmptyListWhenNothingIsRequired() {
+        DeltaDebugging<Integer> deltaDebugging = new DeltaDebugging<>(
+                candidate -> true,
+                DeltaDebuggingTests::hash,
+                MinimizationCache.inMemory(),
+                2,
+                message -> { }
+        );
+
+        assertThat(deltaDebugging.minimize(INPUT).minimized()).isEmpty();
+    }
+
+    @Test
+    void minimizeFailsWhenTheInputDoesNotPass() {
+        DeltaDebugging<Integer> deltaDebugging = new DeltaDebugging<>(
+                candidate -> false,
+                DeltaDebuggingTests::hash,
+                MinimizationCache.inMemory(),
+                2,
+                message -> { }
+        );
+
+        assertThatThrownBy(() -> deltaDebugging.minimize(INPUT)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void persistedCacheAvoidsRepeatedEvaluations() {
+        Path cacheFile = tempDir.resolve("results.json");
+        AtomicInteger oracleCalls = new AtomicInteger();
+        DeltaDebugging.Oracle<Integer> oracle = candidate -> {
+            oracleCalls.incrementAndGet();
+            return candidate.contains(7);
+        };
+
+        new DeltaDebugging<>(oracle, DeltaDebuggingTests::hash, MinimizationCache.load(cacheFile), 2, message -> { }).minimize(INPUT);
+        int firstRunCalls = oracleCalls.getAndSet(0);
+        DeltaDebugging.Result<Integer> secondRun = new DeltaDebugging<>(oracle, DeltaDebuggingTests::hash, MinimizationCache.load(cacheFile), 2, message -> { })
+                .minimize(INPUT);
+
+        assertThat(firstRunCalls).isPositive();
+        assertThat(oracleCalls.get()).isZero();
+        assertThat(secondRun.minimized()).containsExactly(7);
+        assertThat(secondRun.evaluations()).isZero();
+    }
+
+    @Test
+    void cachedPassOfALaterCandidateDoesNotChangeTheResult() {
+        DeltaDebugging.Oracle<Integer> oracle = candidate -> candidate.contains(3) || candidate.contains(11);
+        MinimizationCache cache = MinimizationCache.inMemory();
+        cache.put(hash(INPUT.subList(8, 16)), true);
+
+        DeltaDebugging.Result<Integer> withCache = new DeltaDebugging<>(oracle, DeltaDebuggingTests::hash, cache, 2, message -> { }).minimize(INPUT);
+        DeltaDebugging.Result<Integer> withoutCache = new DeltaDebugging<>(oracle, DeltaDebuggingTests::hash, MinimizationCache.inMemory(), 2, message -> { })
+                .minimize(INPUT);
+
+        assertThat(withCache.minimized()).containsExactly(3);
+        assertThat(withoutCache.minimized()).containsExactly(3);
+    }
+
+    private static String hash(List<Integer> candidate) {
+        return candidate.toString();
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.pack;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MetadataLookupIndexTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void resolvesTestedVersionsDefaultForRangesAndPatterns() throws IOException {
+        Path metadataRoot = tempDir.resolve("metadata");
+        write(metadataRoot.resolve("org.example/lib/index.json"), """
+                [
+                  { "latest": true, "default-for": "2\\\\..*", "metadata-version": "2.0.0", "tested-versions": ["2.0.0", "2.1.0"], "allowed-packages": ["org.example"] },
+                  { "default-for": "1\\\\.(0|1)\\\\..*", "metadata-version": "1.0.0", "tested-versions": ["1.0.0"], "allowed-packages": ["org.example"] }
+                ]
+                """);
+        write(metadataRoot.resolve("org.example/lib/2.0.0/reachability-metadata.json"), "{ \"reflection\": [] }\n");
+        write(metadataRoot.resolve("org.example/lib/1.0.0/reachability-metadata.json"), "{ \"resources\": [] }\n");
+        write(metadataRoot.resolve("org.other/tool/index.json"), """
+                [ { "metadata-version": "3.0", "tested-versions": ["3.0"], "allowed-packages": ["org.other"] } ]
+                """);
+        write(metadataRoot.resolve("org.other/tool/3.0/reachability-metadata.json"), "{}\n");
+
+        Path indexFile = tempDir.resolve("metadata.rmidx");
+        MetadataLookupIndexWriter.write(metadataRoot, null, indexFile);
+        MetadataLookupIndex index = MetadataLookupIndex.open(indexFile);
+
+        assertThat(index.artifactCount()).isEqualTo(2);
+        assertThat(index.resolve("org.example", "lib", "2.1.0")).hasValueSatisfying(match -> {
+            assertThat(match.kind()).isEqualTo(MetadataLookupIndex.MatchKind.TESTED);
+            assertThat(match.directory()).isEqualTo("org.example/lib/2.0.0");
+            assertThat(match.latest()).isTrue();
+            assertThat(match.archiveOffset()).isEqualTo(-1);
+        });
+        assertThat(index.resolve("org.example", "lib", "2.5.3")).hasValueSatisfying(match -> {
+            assertThat(match.kind()).isEqualTo(MetadataLookupIndex.MatchKind.DEFAULT_FOR);
+            assertThat(match.metadataVersion()).isEqualTo("2.0.0");
+        });
+        assertThat(index.resolve("org.example", "lib", "1.1.7")).hasValueSatisfying(match ->
+                assertThat(match.metadataVersion()).isEqualTo("1.0.0"));
+        assertThat(index.resolve("org.example", "lib", "3.0.0")).isEmpty();
+        assertThat(index.resolve("org.example", "lib", "3.0.0", true)).hasValueSatisfying(match -> {
+            assertThat(match.kind()).isEqualTo(MetadataLookupIndex.MatchKind.CLOSEST_LOWER);
+            assertThat(match.metadataVersion()).isEqualTo("2.0.0");
+        });
+        assertThat(index.resolve("org.example", "lib", "1.5.0", true)).hasValueSatisfying(match ->
+                assertThat(match.metadataVersion()).isEqualTo("1.0.0"));
+        assertThat(index.resolve("org.example", "lib", "0.9.0", true)).isEmpty();
+        assertThat(index.resolve("org.other", "tool", "3.0")).isPresent();
+        assertThat(index.resolve("org.missing", "lib", "1.0.0")).isEmpty();
+    }
+
+    @Test
+    void readsMatchedMetadataFromTheArchive() throws IOException {
+        Path metadataRoot = tempDir.resolve("metadata");
+        write(metadataRoot.resolve("org.example/lib/index.json"), """
+                [ { "metadata-version": "1.0.0", "tested-versions": ["1.0.0"], "allowed-packages": ["org.example"] } ]
+                """);
+        String metadata = "{\n  \"reflection\": [\n    {\n      \"type\": \"org.example.Type\"\n    }\n  ]\n}\n";
+        write(metadataRoot.resolve("org.example/lib/1.0.0/reachability-metadata.json"), metadata);
+        Path archive = tempDir.resolve("metadata.zip");
+        zip(metadataRoot, archive);
+
+        Path indexFile = tempDir.resolve("metadata.rmidx");
+        MetadataLookupIndexWriter.write(metadataRoot, archive, indexFile);
+        MetadataLookupIndex index = MetadataLookupIndex.open(indexFile);
+
+        assertThat(index.archiveName()).isEqualTo("metadata.zip");
+        MetadataLookupIndex.Match match = index.resolve("org.example", "lib", "1.0.0").orElseThrow();
+        assertThat(match.archiveOffset()).isNotNegative();
+        assertThat(new String(MetadataLookupIndex.readFromArchive(archive, match), StandardCharsets.UTF_8)).isEqualTo(metadata);
+    }
+
+    @Test
+    void readerNeedsNeitherGradleNorJackson() throws Exception {
+        Path metadataRoot = tempDir.resolve("metadata");
+        write(metadataRoot.resolve("org.example/lib/index.json"), """
+                [
+                  { "metadata-version": "2.0.0", "tested-versions": ["2.0.0"], "allowed-packages": ["org.example"] },
+                  { "metadata-version": "1.0.0", "tested-versions": ["1.0.0"], "allowed-packages": ["org.example"] }
+                ]
+                """);
+        Path indexFile = tempDir.resolve("metadata.rmidx");
+        MetadataLookupIndexWriter.write(metadataRoot, null, indexFile);
+
+        URL classes = MetadataLookupIndex.class.getProtectionDomain().getCodeSource().getLocation();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes}, ClassLoader.getPlatformClassLoader())) {
+            assertThatThrownBy(() -> loader.loadClass("org.gradle.util.internal.VersionNumber")).isInstanceOf(ClassNotFoundException.class);
+            assertThatThrownBy(() -> loader.loadClass("com.fasterxml.jackson.databind.ObjectMapper")).isInstanceOf(ClassNotFoundException.class);
+
+            Class<?> reader = loader.loadClass(MetadataLookupIndex.class.getName());
+            Object index = reader.getMethod("open", Path.class).invoke(null, indexFile);
+            Optional<?> match = (Optional<?>) reader.getMethod("resolve", String.class, String.class, String.class, boolean.class)
+                    .invoke(index, "org.example", "lib", "1.5.0-rc1", true);
+            Object closestLower = match.orElseThrow();
+            assertThat(closestLower.getClass().getMethod("kind").invoke(closestLower)).hasToString("CLOSEST_LOWER");
+            assertThat(closestLower.getClass().getMethod("metadataVersion").invoke(closestLower)).isEqualTo("1.0.0");
+        }
+    }
+
+    @Test
+    void literalDefaultForPatternsBecomeRanges() {
+        assertThat(MetadataLookupIndexWriter.literalRange("7\\.2\\..*", 0)).isNotNull();
+        assertThat(MetadataLookupIndexWriter.literalRange("10\\.20\\.0", 0)).isNotNull();
+        assertThat(MetadataLookupIndexWriter.literalRange("1\\.[0-3]\\..*", 0)).isNull();
+        assertThat(MetadataLookupIndexWriter.literalRange("^(4\\.25\\.(0|1)|4\\.26\\.0)$", 0)).isNull();
+    }
+
+    private static void zip(Path root, Path archive) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(Files::isRegularFile).sorted().toList();
+        }
+        try (OutputStream out = Files.newOutputStream(archive); ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (Path file : files) {
+                zip.putNextEntry(new ZipEntry(root.relativize(file).toString().replace('\\', '/')));
+                zip.write(Files.readAllBytes(file));
+                zip.closeEntry();
+            }
+        }
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.pack;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MetadataPackTests {
+
+    private static final String METADATA = """
+            {
+              "reflection": [
+                {
+                  "type": "org.example.Shared",
+                  "allDeclaredFields": true
+                },
+                {
+                  "type": "org.example.V%s",
+                  "methods": [
+                    {
+                      "name": "<init>",
+                      "parameterTypes": []
+                    }
+                  ]
+                }
+              ],
+              "resources": []
+            }
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void packDeduplicatesEntriesAndRestoresFilesExactly() throws IOException {
+        Path metadataRoot = tempDir.resolve("metadata");
+        write(metadataRoot.resolve("org.example/lib/1.0.0/reachability-metadata.json"), METADATA.formatted("1"));
+        write(metadataRoot.resolve("org.example/lib/2.0.0/reachability-metadata.json"), METADATA.formatted("2").stripTrailing());
+        write(metadataRoot.resolve("org.example/lib/index.json"), "[ {\"metadata-version\": \"1.0.0\"} ]\n");
+        // Not in the repository layout, so it has to be kept as a blob.
+        write(metadataRoot.resolve("org.example/lib/3.0.0/reachability-metadata.json"), "{\"reflection\":[]}");
+
+        Path packFile = tempDir.resolve("metadata.rmpack");
+        MetadataPackWriter.PackSummary summary = MetadataPackWriter.pack(metadataRoot, packFile);
+
+        assertThat(summary.files()).isEqualTo(4);
+        assertThat(summary.metadataFiles()).isEqualTo(2);
+        assertThat(summary.entryReferences()).isEqualTo(4);
+        assertThat(summary.uniqueEntries()).isEqualTo(3);
+
+        MetadataPackReader reader = MetadataPackReader.open(packFile);
+        assertThat(reader.files()).containsExactlyInAnyOrder(
+                "org.example/lib/1.0.0/reachability-metadata.json",
+                "org.example/lib/2.0.0/reachability-metadata.json",
+                "org.example/lib/3.0.0/reachability-metadata.json",
+                "org.example/lib/index.json"
+        );
+
+        Path extracted = tempDir.resolve("extracted");
+        reader.extractTo(extracted);
+        for (String file : reader.files()) {
+            assertThat(Files.readAllBytes(extracted.resolve(file))).isEqualTo(Files.readAllBytes(metadataRoot.resolve(file)));
+        }
+    }
+
+    @Test
+    void openRejectsFilesThatAreNotPacks() throws IOException {
+        Path notAPack = tempDir.resolve("not-a-pack");
+        write(notAPack, "plain text");
+
+        assertThatThrownBy(() -> MetadataPackReader.open(notAPack)).isInstanceOf(IOException.class);
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.pack;
+
+import org.gradle.util.internal.VersionNumber;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VersionOrderTests {
+
+    private static final List<String> VERSIONS = List.of(
+            "1", "1.0", "1.0.0", "1.0.0.0", "1.0.1", "1.2", "1.10", "1.2.3.4", "1.2.3_4", "2.0.0-rc1", "2.0.0-RC2",
+            "2.0.0.Final", "2.0.0-SNAPSHOT", "2.0.0", "2.0.0.", "2.0.0-", "2.0.0+build", "2.0.0a", "2.0", "2.0.",
+            "2..0", "10.0.0", "v1.0", "", "release", "3.0.0-alpha.1", "3.0.0-alpha.10", "3.0.0-beta", "3-jre", "31.1-android"
+    );
+
+    @Test
+    void ordersVersionsLikeGradle() {
+        for (String first : VERSIONS) {
+            for (String second : VERSIONS) {
+                int expected = Integer.signum(VersionNumber.parse(first).compareTo(VersionNumber.parse(second)));
+                assertThat(Integer.signum(VersionOrder.INSTANCE.compare(first, second)))
+                        .as("%s vs %s", first, second)
+                        .isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void ordersQualifiedVersionsBeforeTheRelease() {
+        assertThat(List.of("2.0.0", "2.0.0-SNAPSHOT", "2.0.0-rc1", "2.0.0.Final").stream().sorted(VersionOrder.INSTANCE).toList())
+                .containsExactly("2.0.0.Final", "2.0.0-rc1", "2.0.0-SNAPSHOT", "2.0.0");
+        assertThat(VersionOrder.parse("2.0.0-RC2")).isEqualTo(new VersionOrder.Key(2, 0, 0, "rc2"));
+        assertThat(VersionOrder.parse("2.0.0+build")).isEqualTo(new VersionOrder.Key(0, 0, 0, null));
+    }
+}
@@ -467,9 +467,9 @@ class LibraryStatsSupportTests {
 
     @Test
     void writeStatsProducesPayloadValidAgainstSchema() throws IOException {
-        Path schemaFile = tempDir.resolve("library-stats-schema-v1.0.2.json");
+        Path schemaFile = tempDir.resolve("library-stats-schema-v1.1.0.json");
         Files.copy(
-                locateRepoFile("stats/schemas/library-stats-schema-v1.0.2.json"),
+                locateRepoFile("stats/schemas/library-stats-schema-v1.1.0.json"),
                 schemaFile
         );
 
@@ -600,6 +600,50 @@ class LibraryStatsSupportTests {
         ).dynamicAccess().isAvailable()).isFalse();
     }
 
+    @Test
+    void writeStatsSerializesNativeImageStatsAndOmitsThemWhenNotMeasured() throws IOException {
+        NativeTestRunMetrics metrics = new NativeTestRunMetrics("com.example:demo:1.1.0", true, 90.0, 26.0, 62.5, Map.of(), 1.25, 0.042,
+                2147483648L, 31457280L, 9812L, 24571L, 12001L);
+        LibraryStatsModels.LibraryStats libraryStats = new LibraryStatsModels.LibraryStats(Map.of(
+                "com.example:demo",
+                new LibraryStatsModels.ArtifactStats(
+                        Map.of(
+                                "1.0.0",
+                                new LibraryStatsModels.MetadataVersionStats(
+                                        List.of(
+                                                createVersionStats("1.0.0", 1, 1),
+                                                createVersionStats("1.1.0", 1, 1).withNativeImage(LibraryStatsSupport.buildNativeImageStats(metrics)),
+                                                createVersionStats("1.2.0", 1, 1).withNativeImage(LibraryStatsSupport.buildNativeImageStats(null))
+                                        )
+                                )
+                        )
+                )
+        ));
+        Path statsFile = tempDir.resolve("stats.json");
+
+        LibraryStatsSupport.writeStats(statsFile, libraryStats);
+        LibraryStatsModels.MetadataVersionStats loaded = LibraryStatsSupport.metadataVersionStats(
+                LibraryStatsSupport.loadStats(statsFile), "com.example:demo", "1.0.0");
+
+        String content = Files.readString(statsFile, StandardCharsets.UTF_8);
+        assertThat(content).contains("\"nativeImage\" : \"N/A\"");
+        assertThat(LibraryStatsSupport.requireVersionStats(loaded, "com.example:demo:1.0.0").nativeImage()).isNull();
+        assertThat(LibraryStatsSupport.requireVersionStats(loaded, "com.example:demo:1.1.0").nativeImage()).isEqualTo(
+                LibraryStatsModels.NativeImageStatsValue.available(new LibraryStatsModels.NativeImageStats(31457280L, 24571L,
+                        new java.math.BigDecimal("62.5"), 42L)));
+        assertThat(LibraryStatsSupport.requireVersionStats(loaded, "com.example:demo:1.2.0").nativeImage().isAvailable()).isFalse();
+    }
+
+    @Test
+    void buildNativeImageStatsExplainsMissingFiguresOfPassedRuns() {
+        NativeTestRunMetrics withoutTestRun = new NativeTestRunMetrics("com.example:demo:1.1.0", true, 90.0, 26.0, 62.5, Map.of(), null, null,
+                2147483648L, 31457280L, 9812L, 24571L, 12001L);
+
+        assertThat(LibraryStatsSupport.missingNativeImageFigures(withoutTestRun))
+                .containsExactly("test run time (no 'Test run finished after' line in the output)");
+        assertThat(LibraryStatsSupport.buildNativeImageStats(withoutTestRun).isAvailable()).isFalse();
+    }
+
     @Test
     void writeStatsCanonicalizesTrailingZeroRatios() throws IOException {
         LibraryStatsModels.LibraryStats libraryStats = new LibraryStatsModels.LibraryStats(Map.of(
@@ -0,0 +1,105 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.stats;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NativeTestRunMetricsTests {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String OUTPUT = """
+            > Task :nativeTestCompile
+            ========================================================================================================================
+            GraalVM Native Image: Generating 'main-tests' (executable)...
+            ========================================================================================================================
+            [1/8] Initializing...                                                                                    (4.2s @ 0.12GB)
+            [2/8] Performing analysis...  [******]
+            Warning: something happened during analysis
+                                                                                                                     (21.5s @ 1.02GB)
+                9,812 reachable types   (88.0% of   11,150 total)
+            [3/8] Building universe...                                                                               (2.1s @ 1.10GB)
+            [8/8] Creating image...                                                                                  (3.0s @ 1.21GB)
+            ------------------------------------------------------------------------------------------------------------------------
+            Finished generating 'main-tests' in 1m 2.5s.
+
+            > Task :nativeTest
+            Test run finished after 1250 ms
+            """;
+
+    @Test
+    void parsesStagesAndBuildOutput() throws IOException {
+        NativeTestRunMetrics metrics = NativeTestRunMetrics.of("org.example:library:1.0", true, Duration.ofSeconds(90), OUTPUT,
+                MAPPER.readTree("""
+                        {"analysis_results": {"types": {"reachable": 9812}, "methods": {"reachable": 51234}, "fields": {"reachable": 12001}},
+                         "image_details": {"total_bytes": 41234567},
+                         "resource_usage": {"memory": {"peak_rss_bytes": 2147483648}}}
+                        """), 1450L);
+
+        assertThat(List.copyOf(metrics.nativeImageStages().keySet()))
+                .containsExactly("initializing", "performingAnalysis", "buildingUniverse", "creatingImage");
+        assertThat(metrics.nativeImageStages().get("performingAnalysis")).isEqualTo(21.5);
+        assertThat(metrics.nativeImageBuildSeconds()).isEqualTo(62.5);
+        assertThat(metrics.testExecutionSeconds()).isEqualTo(1.25);
+        assertThat(metrics.testBinaryOverheadSeconds()).isEqualTo(0.2);
+        assertThat(metrics.gradleSeconds()).isEqualTo(26.05);
+        assertThat(metrics.reachableMethods()).isEqualTo(51234L);
+        assertThat(metrics.peakRssBytes()).isEqualTo(2147483648L);
+        assertThat(metrics.imageSizeBytes()).isEqualTo(41234567L);
+    }
+
+    @Test
+    void leavesNativeFiguresEmptyWhenTheImageWasNotBuilt() {
+        NativeTestRunMetrics metrics = NativeTestRunMetrics.of("org.example:library:1.0", false, Duration.ofMillis(4321),
+                "> Task :nativeTestCompile UP-TO-DATE\n", null, null);
+
+        assertThat(metrics.wallSeconds()).isEqualTo(4.321);
+        assertThat(metrics.gradleSeconds()).isNull();
+        assertThat(metrics.nativeImageStages()).isNull();
+        assertThat(metrics.reachableMethods()).isNull();
+    }
+
+    @Test
+    void ignoresBuildOutputOfPreviousRuns(@TempDir Path testDir) throws IOException {
+        Path file = testDir.resolve(NativeTestRunMetrics.BUILD_OUTPUT_FILE);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "{\"image_details\": {\"total_bytes\": 1}}");
+        Instant start = Instant.now();
+        Files.setLastModifiedTime(file, FileTime.from(start.minusSeconds(60)));
+
+        assertThat(NativeTestRunMetrics.readBuildOutput(testDir, start)).isNull();
+        Files.setLastModifiedTime(file, FileTime.from(start.plusSeconds(1)));
+        assertThat(NativeTestRunMetrics.readBuildOutput(testDir, start).at("/image_details/total_bytes").asLong()).isEqualTo(1L);
+    }
+
+    @Test
+    void summarizesPhasesOfABatch() {
+        NativeTestRunMetrics first = NativeTestRunMetrics.of("org.example:a:1.0", true, Duration.ofSeconds(90), OUTPUT, null, null);
+        NativeTestRunMetrics second = NativeTestRunMetrics.of("org.example:b:1.0", false, Duration.ofSeconds(10), "", null, null);
+
+        NativeTestRunSummary summary = NativeTestRunSummary.of(List.of(second, first));
+
+        assertThat(summary.coordinates()).isEqualTo(2);
+        assertThat(summary.passed()).isEqualTo(1);
+        assertThat(summary.wallSeconds()).isEqualTo(100.0);
+        assertThat(summary.phaseSeconds().get("nativeImageBuild")).isEqualTo(62.5);
+        assertThat(summary.nativeImageStageSeconds().get("creatingImage")).isEqualTo(3.0);
+        assertThat(summary.slowest().get(0).coordinates()).isEqualTo("org.example:a:1.0");
+    }
+}
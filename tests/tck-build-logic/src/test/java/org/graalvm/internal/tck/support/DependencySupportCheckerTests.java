@@ -0,0 +1,97 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.support;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DependencySupportCheckerTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parsesCoordinateListsLockfilesAndDependencyTrees() throws IOException {
+        Path coordinates = write(tempDir.resolve("deps.txt"), """
+                # direct dependencies
+                org.example:lib:2.1.0
+                """);
+        Path lockfile = write(tempDir.resolve("gradle.lockfile"), """
+                # This is a Gradle generated file for dependency locking.
+                org.example:lib:2.1.0=compileClasspath,runtimeClasspath
+                org.other:tool:3.0=runtimeClasspath
+                empty=annotationProcessor
+                """);
+        Path tree = write(tempDir.resolve("tree.txt"), """
+                runtimeClasspath - Runtime classpath of source set 'main'.
+                +--- project :core
+                +--- org.example:lib:1.1.0 -> 1.1.7
+                |    \\--- org.other:tool:{strictly 3.0} -> 3.0 (c)
+                \\--- org.missing:lib:1.0.0 (*)
+                """);
+        Path maven = write(tempDir.resolve("mvn.txt"), """
+                [INFO] The following files have been resolved:
+                [INFO]    org.example:lib:jar:2.5.3:compile
+                [INFO]    org.example:lib:jar:tests:2.5.3:test
+                """);
+
+        List<DependencySupportChecker.Dependency> dependencies = DependencySupportChecker.readDependencies(List.of(coordinates, lockfile, tree, maven));
+
+        assertThat(dependencies).extracting(DependencySupportChecker.Dependency::coordinates).containsExactly(
+                "org.example:lib:2.1.0",
+                "org.other:tool:3.0",
+                "org.example:lib:1.1.7",
+                "org.missing:lib:1.0.0",
+                "org.example:lib:2.5.3"
+        );
+    }
+
+    @Test
+    void classifiesDependenciesBySupport() throws IOException {
+        Path metadataRoot = tempDir.resolve("metadata");
+        write(metadataRoot.resolve("org.example/lib/index.json"), """
+                [
+                  { "latest": true, "default-for": "2\\\\..*", "metadata-version": "2.0.0", "tested-versions": ["2.0.0", "2.1.0"], "allowed-packages": ["org.example"] },
+                  { "default-for": "1\\\\..*", "metadata-version": "1.0.0", "tested-versions": ["1.0.0"], "allowed-packages": ["org.example"] }
+                ]
+                """);
+        write(metadataRoot.resolve("org.example/lib/2.0.0/reachability-metadata.json"), "{}\n");
+        write(metadataRoot.resolve("org.example/lib/1.0.0/reachability-metadata.json"), "{}\n");
+
+        DependencySupportChecker checker = DependencySupportChecker.forMetadataRoot(metadataRoot, tempDir.resolve("work"));
+        List<DependencySupportChecker.DependencyStatus> results = checker.check(List.of(
+                new DependencySupportChecker.Dependency("org.example", "lib", "2.1.0"),
+                new DependencySupportChecker.Dependency("org.example", "lib", "1.4.0"),
+                new DependencySupportChecker.Dependency("org.example", "lib", "3.0.0"),
+                new DependencySupportChecker.Dependency("org.example", "lib", "0.9.0"),
+                new DependencySupportChecker.Dependency("org.missing", "lib", "1.0.0")
+        ));
+
+        assertThat(results).containsExactly(
+                new DependencySupportChecker.DependencyStatus("org.example:lib:2.1.0", DependencySupportChecker.Status.SUPPORTED, "2.0.0", "tested-versions"),
+                new DependencySupportChecker.DependencyStatus("org.example:lib:1.4.0", DependencySupportChecker.Status.NEAREST_METADATA, "1.0.0", "default-for"),
+                new DependencySupportChecker.DependencyStatus("org.example:lib:3.0.0", DependencySupportChecker.Status.NEAREST_METADATA, "2.0.0", "closest-lower"),
+                new DependencySupportChecker.DependencyStatus("org.example:lib:0.9.0", DependencySupportChecker.Status.UNSUPPORTED, null, null),
+                new DependencySupportChecker.DependencyStatus("org.missing:lib:1.0.0", DependencySupportChecker.Status.UNSUPPORTED, null, null)
+        );
+        assertThat(DependencySupportChecker.format(results)).contains("UNSUPPORTED (2)", "org.missing:lib:1.0.0");
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.updates;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MavenMetadataFetcherTests {
+
+    private static final String METADATA = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <metadata>
+              <groupId>org.example</groupId>
+              <artifactId>lib</artifactId>
+              <version>1.0</version>
+              <versioning>
+                <latest>2.0</latest>
+                <release>2.0</release>
+                <versions>
+                  <version>1.0</version>
+                  <version> 1.1 </version>
+                  <version>2.0</version>
+                </versions>
+                <lastUpdated>20240101000000</lastUpdated>
+              </versioning>
+            </metadata>
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(2));
+        server.createContext("/maven2/org/example/lib/maven-metadata.xml", exchange -> {
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedResponses.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            fullResponses.incrementAndGet();
+            byte[] bytes = METADATA.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.createContext("/maven2/", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void parsesOnlyTheVersionsElement() throws IOException {
+        assertThat(MavenMetadataFetcher.parseVersions(new ByteArrayInputStream(METADATA.getBytes(StandardCharsets.UTF_8))))
+                .containsExactly("1.0", "1.1", "2.0");
+    }
+
+    @Test
+    void revalidatesCachedMetadataWithConditionalRequests() {
+        Path cacheDir = tempDir.resolve("cache");
+
+        MavenMetadataFetcher first = fetcher(cacheDir);
+        assertThat(first.fetchAll(List.of("org.example:lib", "org.example:missing"))).isEqualTo(Map.of(
+                "org.example:lib", List.of("1.0", "1.1", "2.0"),
+                "org.example:missing", List.of()));
+
+        MavenMetadataFetcher second = fetcher(cacheDir);
+        assertThat(second.fetch("org.example:lib")).containsExactly("1.0", "1.1", "2.0");
+        assertThat(second.notModifiedCount()).isEqualTo(1);
+        assertThat(fullResponses.get()).isEqualTo(1);
+        assertThat(notModifiedResponses.get()).isEqualTo(1);
+    }
+
+    @Test
+    void mergesRepositoriesInOrder() throws IOException {
+        Path local = tempDir.resolve("repo");
+        Path metadata = local.resolve("org/example/lib/maven-metadata.xml");
+        Files.createDirectories(metadata.getParent());
+        Files.writeString(metadata, """
+                <metadata><versioning><versions><version>2.0</version><version>3.0-SNAPSHOT</version></versions></versioning></metadata>
+                """);
+
+        MavenMetadataFetcher fetcher = new MavenMetadataFetcher(HttpClient.newHttpClient(),
+                List.of(local.toUri(), baseUri()), tempDir.resolve("cache"), 2, 1L);
+
+        assertThat(fetcher.fetch("org.example:lib")).containsExactly("2.0", "3.0-SNAPSHOT", "1.0", "1.1");
+    }
+
+    private MavenMetadataFetcher fetcher(Path cacheDir) {
+        return new MavenMetadataFetcher(HttpClient.newHttpClient(), List.of(baseUri()), cacheDir, 4, 1L);
+    }
+
+    private URI baseUri() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/maven2");
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.updates;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NewVersionCompatibilityPipelineTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void classifiesCandidatesAndSkipsRecordedResults() throws IOException {
+        // Version -> gradle tasks that fail; "flaky" fails only the first nativeTest run.
+        Map<String, List<String>> failing = Map.of(
+                "1.1", List.of(),
+                "1.2", List.of("nativeTest", "nativeTestCompile"),
+                "1.3", List.of("flaky"),
+                "1.4", List.of("nativeTest")
+        );
+        List<String> invocations = Collections.synchronizedList(new ArrayList<>());
+        Map<String, AtomicInteger> nativeRuns = new ConcurrentHashMap<>();
+        NewVersionCompatibilityPipeline.Runner runner = (candidate, slot) -> (gradleTask, log) -> {
+            invocations.add(candidate.version() + ":" + gradleTask);
+            List<String> failures = failing.get(candidate.version());
+            if (failures.contains("flaky") && gradleTask.equals("nativeTest")) {
+                return nativeRuns.computeIfAbsent(candidate.version(), key -> new AtomicInteger()).incrementAndGet() > 1;
+            }
+            return !failures.contains(gradleTask);
+        };
+        Path ledgerFile = tempDir.resolve("ledger.json");
+        List<NewVersionCompatibilityPipeline.Candidate> candidates = failing.keySet().stream().sorted()
+                .map(version -> new NewVersionCompatibilityPipeline.Candidate("org.example:lib", version, "1.0"))
+                .toList();
+
+        List<CompatibilityLedger.Result> results = new NewVersionCompatibilityPipeline(
+                runner, CompatibilityLedger.load(ledgerFile), tempDir.resolve("logs"), 2, 2, message -> { }
+        ).run(candidates, false);
+
+        assertThat(results.stream().map(result -> result.coordinates() + " " + result.status() + " " + result.failedStage() + " " + result.runs()).toList())
+                .containsExactly(
+                        "org.example:lib:1.1 PASSED null 1",
+                        "org.example:lib:1.2 FAILED native-image build 4",
+                        "org.example:lib:1.3 FLAKY null 5",
+                        "org.example:lib:1.4 FAILED native-image run 5");
+        assertThat(results.get(0).testedWith()).isEqualTo("1.0");
+        assertThat(results.get(1).log()).endsWith("org.example/lib/1.2/4-nativeTestCompile.log");
+
+        invocations.clear();
+        List<CompatibilityLedger.Result> rerun = new NewVersionCompatibilityPipeline(
+                runner, CompatibilityLedger.load(ledgerFile), tempDir.resolve("logs"), 2, 2, message -> { }
+        ).run(candidates, false);
+
+        assertThat(invocations).isEmpty();
+        assertThat(rerun).isEqualTo(results);
+    }
+
+    @Test
+    void derivesParallelismFromMemoryAndProcessors() {
+        long gib = 1024L * 1024 * 1024;
+        assertThat(NewVersionCompatibilityPipeline.defaultParallelism(4 * gib, 16)).isEqualTo(1);
+        assertThat(NewVersionCompatibilityPipeline.defaultParallelism(64 * gib, 16)).isEqualTo(8);
+        assertThat(NewVersionCompatibilityPipeline.defaultParallelism(64 * gib, 4)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class FilesUtilsTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writeAtomicallyReplacesTheFileAndLeavesNoTemporaryFiles() throws IOException {
+        Path file = tempDir.resolve("nested/index.json");
+
+        FilesUtils.writeAtomically(file, "first".getBytes(StandardCharsets.UTF_8));
+        FilesUtils.writeAtomically(file, temporaryFile -> Files.writeString(temporaryFile, "second"));
+
+        assertThat(Files.readString(file)).isEqualTo("second");
+        try (var files = Files.list(file.getParent())) {
+            assertThat(files.toList()).containsExactly(file);
+        }
+    }
+
+    @Test
+    void writeAtomicallyKeepsTheFileWhenWritingFails() throws IOException {
+        Path file = tempDir.resolve("index.json");
+        Files.writeString(file, "original");
+
+        assertThatThrownBy(() -> FilesUtils.writeAtomically(file, temporaryFile -> {
+            throw new IOException("disk full");
+        })).isInstanceOf(IOException.class);
+
+        assertThat(Files.readString(file)).isEqualTo("original");
+        try (var files = Files.list(tempDir)) {
+            assertThat(files.toList()).containsExactly(file);
+        }
+    }
+
+    @Test
+    void writeAtomicallyUsesThePermissionsOfNewFiles() throws IOException {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Path reference = Files.createFile(tempDir.resolve("reference"));
+        Path file = tempDir.resolve("pack.rmpack");
+
+        FilesUtils.writeAtomically(file, new byte[0]);
+
+        assertThat(Files.getPosixFilePermissions(file)).isEqualTo(Files.getPosixFilePermissions(reference));
+    }
+}
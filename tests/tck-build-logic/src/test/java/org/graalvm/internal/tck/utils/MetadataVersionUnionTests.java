@@ -0,0 +1,60 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetadataVersionUnionTests {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void reportsEntriesNotCollectedForEveryVersion() throws IOException {
+        Map<String, JsonNode> metadataByVersion = new LinkedHashMap<>();
+        metadataByVersion.put("1.0", MAPPER.readTree("""
+                {"reflection": [{"type": "com.example.A"}, {"type": "com.example.B", "fields": [{"name": "x"}]}]}
+                """));
+        metadataByVersion.put("1.1", MAPPER.readTree("""
+                {"reflection": [{"type": "com.example.B", "fields": [{"name": "y"}]}, {"type": "com.example.A"}],
+                 "resources": [{"glob": "new.properties"}]}
+                """));
+        metadataByVersion.put("1.2", MAPPER.readTree("""
+                {"reflection": [{"type": "com.example.A"}], "resources": [{"glob": "new.properties"}]}
+                """));
+
+        MetadataVersionUnion union = MetadataVersionUnion.of(metadataByVersion);
+
+        assertThat(union.commonEntries()).isEqualTo(1);
+        assertThat(union.metadata().get("reflection").toString())
+                .isEqualTo("[{\"type\":\"com.example.A\"},{\"type\":\"com.example.B\",\"fields\":[{\"name\":\"x\"},{\"name\":\"y\"}]}]");
+        assertThat(union.metadata().get("resources").size()).isEqualTo(1);
+        assertThat(union.versionSpecific().stream().map(MetadataVersionUnion.VersionSpecificEntry::versions).toList())
+                .containsExactly(List.of("1.0"), List.of("1.1"), List.of("1.1", "1.2"));
+        assertThat(union.versionSpecific().get(2).section()).isEqualTo("resources");
+    }
+
+    @Test
+    void hasNoVersionSpecificEntriesForIdenticalMetadata() throws IOException {
+        JsonNode metadata = MAPPER.readTree("""
+                {"reflection": [{"type": "com.example.A"}]}
+                """);
+
+        MetadataVersionUnion union = MetadataVersionUnion.of(Map.of("1.0", metadata, "2.0", metadata));
+
+        assertThat(union.commonEntries()).isEqualTo(1);
+        assertThat(union.versionSpecific()).isEmpty();
+    }
+}
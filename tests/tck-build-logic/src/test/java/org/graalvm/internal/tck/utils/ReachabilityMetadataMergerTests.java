@@ -0,0 +1,99 @@
+/*
+ * Copyright and related rights waived via CC0
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <http://creativecommons.org/publicdomain/zero/1.0/>.
+ */
+package org.graalvm.internal.tck.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReachabilityMetadataMergerTests {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String EXISTING = """
+            {
+              "resources": [
+                {"glob": "b.properties"}
+              ],
+              "reflection": [
+                {"type": "com.example.B", "fields": [{"name": "y"}]},
+                {"type": "com.example.A"}
+              ]
+            }
+            """;
+
+    private static final String AGENT_OUTPUT = """
+            {
+              "reflection": [
+                {"type": "com.example.B", "fields": [{"name": "x"}], "allDeclaredMethods": true},
+                {"condition": {"typeReached": "com.example.A"}, "type": "com.example.C"}
+              ],
+              "resources": [
+                {"glob": "a.properties"}
+              ]
+            }
+            """;
+
+    @Test
+    void mergesAgentOutputIntoSortedMetadata(@TempDir Path tempDir) throws IOException {
+        Path agentOutput = tempDir.resolve("agent-output/test");
+        Path metadataDir = tempDir.resolve("metadata");
+        Files.createDirectories(agentOutput.resolve("session-1"));
+        Files.createDirectories(metadataDir);
+        Files.writeString(agentOutput.resolve("session-1").resolve(ReachabilityMetadataFiles.FILE_NAME), AGENT_OUTPUT);
+        Files.writeString(metadataDir.resolve(ReachabilityMetadataFiles.FILE_NAME), EXISTING);
+
+        ReachabilityMetadataMerger.Result result = ReachabilityMetadataMerger.mergeAgentOutput(agentOutput, metadataDir);
+
+        assertThat(result.added()).isEqualTo(2);
+        assertThat(result.extended()).isEqualTo(1);
+        JsonNode written = ReachabilityMetadataFiles.read(metadataDir.resolve(ReachabilityMetadataFiles.FILE_NAME));
+        assertThat(written.properties().stream().map(Map.Entry::getKey).toList()).containsExactly("reflection", "resources");
+        assertThat(written.get("reflection").toString()).isEqualTo("[{\"type\":\"com.example.A\"},"
+                + "{\"type\":\"com.example.B\",\"fields\":[{\"name\":\"x\"},{\"name\":\"y\"}],\"allDeclaredMethods\":true},"
+                + "{\"condition\":{\"typeReached\":\"com.example.A\"},\"type\":\"com.example.C\"}]");
+        assertThat(written.get("resources").toString()).isEqualTo("[{\"glob\":\"a.properties\"},{\"glob\":\"b.properties\"}]");
+    }
+
+    @Test
+    void rerunsProduceIdenticalFiles(@TempDir Path tempDir) throws IOException {
+        Path agentOutput = tempDir.resolve("agent-output");
+        Path metadataDir = tempDir.resolve("metadata");
+        Files.createDirectories(agentOutput);
+        Files.writeString(agentOutput.resolve(ReachabilityMetadataFiles.FILE_NAME), AGENT_OUTPUT);
+        Path metadataFile = metadataDir.resolve(ReachabilityMetadataFiles.FILE_NAME);
+
+        ReachabilityMetadataMerger.mergeAgentOutput(agentOutput, metadataDir);
+        String first = Files.readString(metadataFile);
+        FileTime modified = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(metadataFile, modified);
+        ReachabilityMetadataMerger.Result rerun = ReachabilityMetadataMerger.mergeAgentOutput(agentOutput, metadataDir);
+
+        assertThat(rerun.added()).isEqualTo(0);
+        assertThat(rerun.extended()).isEqualTo(0);
+        assertThat(Files.readString(metadataFile)).isEqualTo(first);
+        assertThat(Files.getLastModifiedTime(metadataFile)).isEqualTo(modified);
+        assertThat(first).isEqualTo(ReachabilityMetadataFiles.toJson(ReachabilityMetadataMerger.sorted(MAPPER.readTree(first))));
+    }
+
+    @Test
+    void failsWithoutAgentOutput(@TempDir Path tempDir) {
+        assertThatThrownBy(() -> ReachabilityMetadataMerger.mergeAgentOutput(tempDir.resolve("missing"), tempDir))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("No reachability-metadata.json found in agent output");
+    }
+}